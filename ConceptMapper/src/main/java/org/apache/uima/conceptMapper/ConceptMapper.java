@@ -23,10 +23,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.analysis_engine.ResultSpecification;
@@ -38,14 +36,16 @@ import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.cas.FSIndex;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
-import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryAutomaton;
 import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryTokenIndex;
 import org.apache.uima.conceptMapper.support.dictionaryResource.EntryProperties;
+import org.apache.uima.conceptMapper.support.dictionaryResource.EntryPropertiesRoot;
 import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
 import org.apache.uima.conceptMapper.support.tokens.TokenFilter;
 import org.apache.uima.conceptMapper.support.tokens.TokenNormalizer;
@@ -163,6 +163,10 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
   public static final String PARAMVALUE_SKIPANYMATCHALLOWOVERLAP = "SkipAnyMatchAllowOverlap";
 
+  private static final int AhoCorasickMatch = 4;
+
+  public static final String PARAMVALUE_AHOCORASICKMATCH = "AhoCorasickMatch";
+
   private final static int DefaultSearchStrategy = ContiguousMatch;
 
   // private final static int DefaultSearchStrategy = SkipAnyMatch;
@@ -171,7 +175,9 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
    * Configuration parameter to indicate search strategy, either: LongestMatch: longest match of
    * contiguous tokens within enclosing span(taking into account included/excluded items). DEFAULT
    * strategy SkipAnyMatch: longest match of noncontiguous tokens enclosing span (taking into
-   * account included/excluded items). IMPLIES order-independent lookup
+   * account included/excluded items). IMPLIES order-independent lookup AhoCorasickMatch: same
+   * matches as ContiguousMatch, found in a single pass over the span with an automaton compiled
+   * from the dictionary. Not compatible with order-independent lookup
    */
   public static final String PARAM_SEARCHSTRATEGY = "SearchStrategy";
 
@@ -181,6 +187,15 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
   private boolean findAllMatches;
 
+  /** automaton used by the AhoCorasickMatch search strategy, shared by users of the dictionary */
+  private DictionaryAutomaton automaton;
+
+  /** token index used by the SkipAnyMatch search strategies, shared by users of the dictionary */
+  private DictionaryTokenIndex skipAnyIndex;
+
+  /** scratch counters for skipAnyIndex lookups, one per indexed entry */
+  private int[] skipAnyHits;
+
   /** object used to stem/case normalize text */
   private TokenNormalizer tokenNormalizer;
 
@@ -209,6 +224,15 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
    */
   protected String attributeNames[];
 
+  /**
+   * IDs of attributeNames in {@link #attributeRoot}, resolved in typeSystemInit so that
+   * makeAnnotation does not look properties up by name for every match
+   */
+  private int attributeIDs[];
+
+  /** the dictionary's EntryPropertiesRoot that attributeIDs refer to */
+  private EntryPropertiesRoot attributeRoot;
+
   /** The dictionary */
   private DictionaryResource dict;
 
@@ -231,6 +255,12 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
   private static final String UNKNOWN_VALUE = "unknown";
 
+  /**
+   * reusable lookup windows, indexed by window length, so that candidate token sequences do not
+   * need a fresh array for every start position and length
+   */
+  private String[][] matchWindows = new String[0][];
+
   // private FileWriter tokenDebugFile;
   // private FileWriter potentialMatchDebugFile;
   // private FileWriter findMatchDebugFile;
@@ -344,6 +374,19 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
         // debugWrite (dictDebugFile, dict.toString());
       }
 
+      if (searchStrategy == AhoCorasickMatch) {
+        if (sortElements) {
+          logger.logWarning(PARAMVALUE_AHOCORASICKMATCH + " search strategy does not support "
+                  + PARAM_ORDERINDEPENDENTLOOKUP + ", using " + PARAMVALUE_CONTIGUOUSMATCH);
+          searchStrategy = ContiguousMatch;
+        } else {
+          automaton = DictionaryAutomaton.forDictionary(dict);
+        }
+      } else if ((searchStrategy == SkipAnyMatch) || (searchStrategy == SkipAnyMatchAllowOverlap)) {
+        skipAnyIndex = DictionaryTokenIndex.forDictionary(dict);
+        skipAnyHits = new int[skipAnyIndex.getEntryCount()];
+      }
+
     } catch (Exception e) {
       throw new ResourceInitializationException(e);
     }
@@ -358,6 +401,8 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
       return SkipAnyMatch;
     } else if (strategyString.equals(PARAMVALUE_SKIPANYMATCHALLOWOVERLAP)) {
       return SkipAnyMatchAllowOverlap;
+    } else if (strategyString.equals(PARAMVALUE_AHOCORASICKMATCH)) {
+      return AhoCorasickMatch;
     } else {
       throw new AnnotatorConfigurationException();
     }
@@ -471,6 +516,17 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
     }
 
+    attributeRoot = dict.getEntryPropertiesRoot();
+    attributeIDs = new int[attributeNames.length];
+    for (int i = 0; i < attributeNames.length; i++) {
+      attributeIDs[i] = (attributeRoot == null) ? -1 : attributeRoot.getPropertyID(attributeNames[i]);
+      if ((attributeRoot != null) && (attributeIDs[i] < 0)) {
+        logger.logWarning(PARAM_ATTRIBUTE_LIST + "[" + i + "] '" + attributeNames[i]
+                + "' is not an attribute of the dictionary, feature '" + featureNames[i]
+                + "' will be set to '" + UNKNOWN_VALUE + "'");
+      }
+    }
+
     try {
       tokenFilter.initTypes(typeSystem);
     } catch (UnknownTypeException e) {
@@ -552,16 +608,26 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
         // System.err.println ();
         // logger.logInfo("Number of tokens: " + tokens.size());
 
+        // normalize each token once per span; all lookups below work off this array
+        String[] normalizedTokens = normalizeTokens(tokens);
+
         switch (searchStrategy) {
           case SkipAnyMatch:
           case SkipAnyMatchAllowOverlap:
-            processTokenListSkipAny(searchStrategy, findAllMatches, tcas, tokens, spanAnnotation);
+            processTokenListSkipAny(searchStrategy, findAllMatches, tcas, tokens, normalizedTokens,
+                    spanAnnotation);
+            break;
+          case AhoCorasickMatch:
+            processTokenListAhoCorasick(findAllMatches, tcas, tokens, normalizedTokens,
+                    spanAnnotation);
             break;
           case ContiguousMatch:
-            processTokenList(searchStrategy, findAllMatches, tcas, tokens, spanAnnotation);
+            processTokenList(searchStrategy, findAllMatches, tcas, tokens, normalizedTokens,
+                    spanAnnotation);
             break;
           default:
-            processTokenList(searchStrategy, findAllMatches, tcas, tokens, spanAnnotation);
+            processTokenList(searchStrategy, findAllMatches, tcas, tokens, normalizedTokens,
+                    spanAnnotation);
             break;
         }
 
@@ -603,135 +669,111 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
     return this.jcas;
   }
 
-  private void processTokenListSkipAny(int searchStrategy, boolean findAllMatches, CAS tcas,
-          ArrayList<AnnotationFS> tokens, Annotation spanAnnotation) {
-    AnnotationFS token;
-    // iterate over vector of tokens
-
-    ArrayList<String> normalizedTokens = new ArrayList<String>();
-
-    // iterate through all tokens within span and collect dict entries for each unique one
-    for (int whichToken = 0; whichToken < tokens.size(); whichToken++) {
-      token = tokens.get(whichToken);
-      String tokenText = getTokenText(token);
-
-      String word = tokenNormalizer.normalize(tokenText);
-      normalizedTokens.add(word);
-
-      // logger.logInfo("ENTRY SEARCH/ORIGINAL: " + word + " / " +
-      // tokenText);
-      // System.err.println("ENTRY SEARCH/ORIGINAL: " + word + " / " +
-      // tokenText);
+  /**
+   * @param tokens
+   *          list of token annotations within a span
+   * @return the normalized text of each token, in the same order as <code>tokens</code>
+   */
+  private String[] normalizeTokens(ArrayList<AnnotationFS> tokens) {
+    String[] normalizedTokens = new String[tokens.size()];
+    for (int whichToken = 0; whichToken < normalizedTokens.length; whichToken++) {
+      normalizedTokens[whichToken] = tokenNormalizer.normalize(getTokenText(tokens.get(whichToken)));
     }
+    return normalizedTokens;
+  }
 
+  private void processTokenListSkipAny(int searchStrategy, boolean findAllMatches, CAS tcas,
+          ArrayList<AnnotationFS> tokens, String[] normalizedTokens, Annotation spanAnnotation) {
     // System.err.println ("processTokenListSkipAny finding matches for " +
-    // normalizedTokens.toString ());
+    // Arrays.asList (normalizedTokens));
 
-    findMatchesSkipAnyToken(searchStrategy, findAllMatches, tcas, tokens, normalizedTokens,
-                            findPotentialEntries(normalizedTokens, dict), spanAnnotation);
+    Map<String, int[]> tokenPositions = findTokenPositions(normalizedTokens);
+    int[] candidates = skipAnyIndex.findCandidates(tokenPositions.keySet(), skipAnyHits);
+    if (candidates.length != 0) {
+      findMatchesSkipAnyToken(searchStrategy, findAllMatches, tcas, tokens, normalizedTokens,
+              tokenPositions, candidates, spanAnnotation);
+    }
   }
 
-  private Map<String, Collection<DictEntry>> findPotentialEntries(
-          ArrayList<String> normalizedTokens, DictionaryResource dict) {
-    HashMap<String, Collection<DictEntry>> potentialEntries = new HashMap<String, Collection<DictEntry>>();
-
-    Iterator<String> tokenIter = normalizedTokens.iterator();
-    while (tokenIter.hasNext()) {
-      String word = tokenIter.next();
-      Collection<DictEntry> entries = potentialEntries.get(word);
-
-      if (entries == null) {
-        entries = new ArrayList<DictEntry>();
-      }
-      DictionaryResource.DictEntriesByLength entriesByLength = dict.getEntries(word);
-      if (entriesByLength != null) {
-        int shortest = entriesByLength.getShortest().intValue();
-        int longest = entriesByLength.getLongest().intValue();
-        for (int currentLength = longest; currentLength >= shortest; currentLength--) {
-          DictionaryResource.DictEntries dictEntries = entriesByLength.getEntries(currentLength);
-          if (dictEntries != null) {
-            ArrayList<DictEntry> entryItems = dictEntries.getEntries();
-            Iterator<DictEntry> entryIter = entryItems.iterator();
-            while (entryIter.hasNext()) {
-              DictionaryResource.DictEntry entry = (DictionaryResource.DictEntry) entryIter.next();
-              // System.err.println("entryIter = " + entryIter +
-              // ", Entry: " + entry.getText ());
-              // debugWrite (potentialMatchDebugFile, "Entry: " +
-              // entry.getText ());
-              if ((containsAll (normalizedTokens, entry.getElements())) && (!entries.contains(entry))) {
-                entries.add(entry);
-                // System.err.println ("Added potential match: "
-                // + entry);
-                // debugWrite (potentialMatchDebugFile, "Added
-                // potential match: " + entry);
-              }
-            }
-          }
-        }
+  /**
+   * generate a map from each distinct token to the positions at which it occurs, in ascending
+   * order
+   * 
+   * @param normalizedTokens
+   * @return
+   */
+  private Map<String, int[]> findTokenPositions(String[] normalizedTokens) {
+    HashMap<String, int[]> counts = new HashMap<String, int[]>();
+    for (String token : normalizedTokens) {
+      int[] count = counts.get(token);
+      if (count == null) {
+        counts.put(token, new int[] { 1 });
+      } else {
+        count[0]++;
       }
-
-      potentialEntries.put(word, entries);
-
     }
-    return potentialEntries;
+    HashMap<String, int[]> positions = new HashMap<String, int[]>((int) (counts.size() / 0.75f) + 1);
+    for (Map.Entry<String, int[]> count : counts.entrySet()) {
+      positions.put(count.getKey(), new int[count.getValue()[0]]);
+      // reused below as the number of positions filled in so far
+      count.getValue()[0] = 0;
+    }
+    for (int whichToken = 0; whichToken < normalizedTokens.length; whichToken++) {
+      String token = normalizedTokens[whichToken];
+      positions.get(token)[counts.get(token)[0]++] = whichToken;
+    }
+    return positions;
   }
 
-  private boolean containsAll (List<String> container, String[] contained)
-  {      
-      for (String item : contained)
-      {
-          if (! container.contains (item))
-          {
-              return false;
-          }
-      }
-      return true;
-  }
   /**
    * @param searchStrategy
    * @param tcas
    * @param tokens
    *          list of token annotations
    * @param normalizedTokens
-   *          list of token annotations as strings
-   * @param potentialEntries
-   *          list of possible matches from dictionary
+   *          normalized text of each token in <code>tokens</code>
+   * @param tokenPositions
+   *          positions of each distinct token in <code>normalizedTokens</code>
+   * @param candidates
+   *          ids (in skipAnyIndex) of the entries whose tokens all occur in the span
    * @param spanAnnotation
    */
   private void findMatchesSkipAnyToken(int searchStrategy, boolean findAllMatches, CAS tcas,
-          ArrayList<AnnotationFS> tokens, ArrayList<String> normalizedTokens,
-          Map<String, Collection<DictEntry>> potentialEntries, Annotation spanAnnotation) {
-    int whichToken = 0; // use index instead of iterator to simplify walking
-    // through parallel arrays (tokens/normalizedTokens)
+          ArrayList<AnnotationFS> tokens, String[] normalizedTokens,
+          Map<String, int[]> tokenPositions, int[] candidates, Annotation spanAnnotation) {
+    // candidates filed under the same dictionary key are contiguous and in the order they are to
+    // be tried; record the range for each key, and the last token position at which each
+    // candidate can still start a match, i.e. the earliest of the last occurrences of its tokens
+    HashMap<String, int[]> candidateRanges = new HashMap<String, int[]>();
+    int[] lastStart = new int[candidates.length];
+    for (int candidate = 0; candidate < candidates.length; candidate++) {
+      String key = skipAnyIndex.getKey(candidates[candidate]);
+      int[] range = candidateRanges.get(key);
+      if (range == null) {
+        candidateRanges.put(key, new int[] { candidate, candidate + 1 });
+      } else {
+        range[1] = candidate + 1;
+      }
+      int last = Integer.MAX_VALUE;
+      for (String element : skipAnyIndex.getDistinctElements(candidates[candidate])) {
+        int[] positions = tokenPositions.get(element);
+        last = Math.min(last, positions[positions.length - 1]);
+      }
+      lastStart[candidate] = last;
+    }
 
-    while (whichToken < normalizedTokens.size()) {
+    int whichToken = 0;
+    while (whichToken < normalizedTokens.length) {
       // System.err.println ("findMatchesSkipAnyToken(), whichToken = " +
-      // whichToken + ", token: " + (String) normalizedTokens.get
-      // (whichToken));
-      Collection<DictEntry> entries = potentialEntries.get(normalizedTokens.get(whichToken));
-      if (entries == null) {
-        whichToken += 1;
-      } else {
-        Iterator<DictEntry> entryIter = entries.iterator();
-        boolean foundMatch = false;
-        while ((entryIter.hasNext() && (!foundMatch))) {
-          DictionaryResource.DictEntry entry = entryIter.next();
-
-          // System.err.println("entryIter = " + entryIter + ", Entry:
-          // " + entry.getText ());
-          // debugWrite (findMatchDebugFile, "Entry: " + entry.getText
-          // ());
-          // System.err.println("remainingTokens = " +
-          // normalizedTokens.subList (whichToken,
-          // normalizedTokens.size ()).toString ());
-          // debugWrite (findMatchDebugFile, "remainingTokens = " +
-          // normalizedTokens.subList (whichToken,
-          // normalizedTokens.size ()).toString ());
-
-          if (containsAll (normalizedTokens.subList(whichToken, normalizedTokens.size()),
-                  entry.getElements())) {
-            int lengthOfMatch = processMatch(tcas, tokens, normalizedTokens, spanAnnotation,
-                    whichToken, entry);
+      // whichToken + ", token: " + normalizedTokens [whichToken]);
+      int[] range = candidateRanges.get(normalizedTokens[whichToken]);
+      boolean foundMatch = false;
+      if (range != null) {
+        for (int candidate = range[0]; (candidate < range[1]) && (!foundMatch); candidate++) {
+          // all tokens of the entry must occur in the remainder of the span
+          if (lastStart[candidate] >= whichToken) {
+            int lengthOfMatch = processMatch(tcas, tokens, normalizedTokens, tokenPositions,
+                    spanAnnotation, whichToken, candidates[candidate]);
             if (!findAllMatches) {
               foundMatch = true;
               if (searchStrategy == SkipAnyMatchAllowOverlap) {
@@ -739,118 +781,90 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
               } else {
                 whichToken += lengthOfMatch;
               }
-              // System.err.println ("Processed match, whichToken
-              // = " + whichToken);
-              // debugWrite (findMatchDebugFile, "Processed match,
-              // whichToken = " + whichToken);
             }
           }
         }
-        if (!foundMatch) {
-          whichToken += 1;
-        }
+      }
+      if (!foundMatch) {
+        whichToken += 1;
       }
     }
   }
 
   /**
+   * Match the entry against the earliest occurrences of its tokens at or after whichToken,
+   * annotating the match if every token of the entry (with multiplicity) is found.
+   * 
    * @param tcas
    * @param tokens
    *          list of token annotations
    * @param normalizedTokens
-   *          list of token annotations as strings
+   *          normalized text of each token in <code>tokens</code>
+   * @param tokenPositions
+   *          positions of each distinct token in <code>normalizedTokens</code>
    * @param spanAnnotation
    * @param whichToken
    *          current token index (for tokens/normalizedTokens)
-   * @param entry
-   *          matching dict entry
-   * @return length of match (in tokens)
+   * @param candidate
+   *          id of the matching dict entry in skipAnyIndex
+   * @return number of tokens from whichToken up to and including the last one matched, or to the
+   *         end of the span if the entry could not be matched
    */
-  private int processMatch(CAS tcas, ArrayList<AnnotationFS> tokens,
-          ArrayList<String> normalizedTokens, Annotation spanAnnotation, int whichToken,
-          DictionaryResource.DictEntry entry) {
-    int startingPoint = whichToken;
-    TreeMap<String, Integer> entryOccurences = findEntryOccurences(entry.getElements(), whichToken);
+  private int processMatch(CAS tcas, ArrayList<AnnotationFS> tokens, String[] normalizedTokens,
+          Map<String, int[]> tokenPositions, Annotation spanAnnotation, int whichToken,
+          int candidate) {
+    DictionaryResource.DictEntry entry = skipAnyIndex.getEntry(candidate);
+    String[] elements = skipAnyIndex.getDistinctElements(candidate);
+    int[] elementCounts = skipAnyIndex.getElementCounts(candidate);
+
+    int[] matchedPositions = new int[entry.getElements().length];
+    int matchedCount = 0;
+    for (int element = 0; element < elements.length; element++) {
+      int[] positions = tokenPositions.get(elements[element]);
+      int first = Arrays.binarySearch(positions, whichToken);
+      if (first < 0) {
+        first = -(first + 1);
+      }
+      if (first + elementCounts[element] > positions.length) {
+        return normalizedTokens.length - whichToken;
+      }
+      System.arraycopy(positions, first, matchedPositions, matchedCount, elementCounts[element]);
+      matchedCount += elementCounts[element];
+    }
+    Arrays.sort(matchedPositions);
+
     int begin = -1;
     int end = 0;
     StringBuilder matchedText = new StringBuilder();
-
-    // while there are still items to match against
-    ArrayList<AnnotationFS> matched = new ArrayList<AnnotationFS>();
-    while ((!entryOccurences.isEmpty()) && (whichToken < normalizedTokens.size())) {
-      String currentTokenText = normalizedTokens.get(whichToken);
-      // System.err.println ("matchedText: '" + matchedText + "',
-      // whichToken = " + whichToken + ", currentTokenText: " +
-      // currentTokenText);
-
-      // if the dict entry contains at least one more of the current
-      // token, process it
-      Integer count = entryOccurences.get(currentTokenText);
-      if (count != null) {
-        if (matchedText.length() != 0) {
-          matchedText.append(' ');
-        }
-        matchedText.append(currentTokenText);
-        // System.err.println ("matchedText: '" + matchedText + "'");
-
-        AnnotationFS realToken = tokens.get(whichToken);
-        // System.err.println ("realToken: '" + realToken.getCoveredText
-        // () + ", count.intValue () = " + count.intValue ());
-
-        begin = (begin == -1) ? realToken.getBegin() : Math.min(begin, realToken.getBegin());
-        end = Math.max(end, realToken.getEnd());
-        matched.add(realToken);
-        // decrement count, or remove entry if none left
-        if (count.intValue() == 1) {
-          entryOccurences.remove(currentTokenText);
-        } else {
-          entryOccurences.put(currentTokenText, Integer.valueOf (count.intValue() - 1));
-        }
+    ArrayList<AnnotationFS> matched = new ArrayList<AnnotationFS>(matchedPositions.length);
+    for (int position : matchedPositions) {
+      if (matchedText.length() != 0) {
+        matchedText.append(' ');
       }
+      matchedText.append(normalizedTokens[position]);
 
-      whichToken += 1;
-    }
-    if (entryOccurences.isEmpty()) {
-      // System.err.println ("makeAnnotation, text: " +
-      // matchedText.toString ());
-      makeAnnotation(tcas, begin, end, entry.getProperties(), spanAnnotation, matchedText
-              .toString(), matched, logger);
+      AnnotationFS realToken = tokens.get(position);
+      begin = (begin == -1) ? realToken.getBegin() : Math.min(begin, realToken.getBegin());
+      end = Math.max(end, realToken.getEnd());
+      matched.add(realToken);
     }
-    // else
-    // {
-    // System.err.println ("whichToken = " + whichToken + ",
-    // normalizedTokens.size = " + normalizedTokens.size ());
-    // }
-
-    return whichToken - startingPoint;
-  }
-
-  // generate a map from tokens to number of occurences of that token
-  private TreeMap<String, Integer> findEntryOccurences(String[] normalizedTokens,
-          int whichToken) {
-    TreeMap<String, Integer> result = new TreeMap<String, Integer>();
-
-    for (String token : normalizedTokens) {
-      Integer count = result.get(token);
-      if (count == null) {
-        count = Integer.valueOf (1);
-      } else {
-        count = Integer.valueOf (count.intValue() + 1);
-      }
-      result.put(token, count);
+    // System.err.println ("makeAnnotation, text: " + matchedText.toString ());
+    makeAnnotation(tcas, begin, end, entry.getProperties(), spanAnnotation, matchedText.toString(),
+            matched, logger);
 
-    }
-    return result;
+    return matchedPositions[matchedPositions.length - 1] + 1 - whichToken;
   }
 
   /**
    * @param searchStrategy
    * @param tcas
    * @param tokens
+   * @param normalizedTokens
+   *          normalized text of each token in <code>tokens</code>
    * @param spanAnnotation
    */
   protected void processTokenList(int searchStrategy, boolean findAllMatches, CAS tcas,
-          ArrayList<AnnotationFS> tokens, Annotation spanAnnotation) {
+          ArrayList<AnnotationFS> tokens, String[] normalizedTokens, Annotation spanAnnotation) {
     AnnotationFS token;
     // iterate over vector of tokens
 
@@ -859,10 +873,9 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
     while (whichToken < tokens.size()) {
       token = tokens.get(whichToken);
-      String tokenText = getTokenText(token);
       entryLength = 0;
 
-      String word = tokenNormalizer.normalize(tokenText);
+      String word = normalizedTokens[whichToken];
 
       // logger.logInfo("ENTRY SEARCH/ORIGINAL: " + word + " / " +
       // tokenText);
@@ -880,48 +893,83 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
         // System.err.println("ENTRY FOUND for: " + word + ", longest: "
         // + entryLength);
 
-        entryLength = defaultMatcher(findAllMatches, tcas, tokens, spanAnnotation, whichToken,
-                entryLength, token.getBegin(), entriesByLength, entriesByLength.getShortest()
-                        .intValue());
+        entryLength = defaultMatcher(findAllMatches, tcas, tokens, normalizedTokens,
+                spanAnnotation, whichToken, entryLength, token.getBegin(), entriesByLength,
+                entriesByLength.getShortest().intValue());
 
       }
       whichToken += entryLength + 1;
     }
   }
 
+  /**
+   * Find contiguous matches using the dictionary automaton. Produces the same annotations as
+   * {@link #processTokenList}, but in a single pass over the span.
+   * 
+   * @param findAllMatches
+   * @param tcas
+   * @param tokens
+   * @param normalizedTokens
+   *          normalized text of each token in <code>tokens</code>
+   * @param spanAnnotation
+   */
+  private void processTokenListAhoCorasick(boolean findAllMatches, CAS tcas,
+          ArrayList<AnnotationFS> tokens, String[] normalizedTokens, Annotation spanAnnotation) {
+    // matches are ordered by start token, longest first, so the first match at or beyond the end
+    // of the previous one is the longest match starting there
+    int nextToken = 0;
+    for (DictionaryAutomaton.Match match : automaton.findMatches(normalizedTokens)) {
+      if (findAllMatches || (match.getStart() >= nextToken)) {
+        annotateEntries(tcas, tokens, spanAnnotation, match.getStart(), match.getLength(), Arrays
+                .asList(match.getEntries()));
+        nextToken = match.getStart() + match.getLength();
+      }
+    }
+  }
+
+  /**
+   * Annotate the tokens starting at whichToken with each of the given entries.
+   * 
+   * @param tcas
+   * @param tokens
+   * @param spanAnnotation
+   * @param whichToken
+   * @param entryLength
+   * @param entries
+   */
+  private void annotateEntries(CAS tcas, ArrayList<AnnotationFS> tokens,
+          Annotation spanAnnotation, int whichToken, int entryLength,
+          Collection<DictionaryResource.DictEntry> entries) {
+    int start = tokens.get(whichToken).getBegin();
+    AnnotationFS endToken = tokens.get(whichToken + entryLength - 1);
+    for (DictionaryResource.DictEntry dictEntry : entries) {
+      makeAnnotation(tcas, start, endToken.getEnd(), dictEntry.getProperties(), spanAnnotation,
+              dictEntry.getUnsorted(), tokens.subList(whichToken, whichToken + entryLength),
+              logger);
+
+      updateTokenAnnotations(tokens, whichToken, entryLength, dictEntry);
+    }
+  }
+
   private int defaultMatcher(boolean findAllMatches, CAS tcas, ArrayList<AnnotationFS> tokens,
-          Annotation spanAnnotation, int whichToken, int entryLength, int start,
-          DictionaryResource.DictEntriesByLength lengthEntries, int minLength) {
+          String[] normalizedTokens, Annotation spanAnnotation, int whichToken, int entryLength,
+          int start, DictionaryResource.DictEntriesByLength lengthEntries, int minLength) {
     boolean entryFound = false;
     // search through all entry lengths, as necessary
     while ((!entryFound) && (entryLength >= minLength)) {
-      String [] tokensToMatch = buildTokensToMatchArray(tokens, whichToken, entryLength, sortElements);
+      String [] tokensToMatch = buildTokensToMatchArray(normalizedTokens, whichToken, entryLength, sortElements);
       //System.err.print(">>> tokensToMatch: '");
       //for (String token : tokensToMatch) {
       //    System.err.print(token + " ");
       //}
       //System.err.println("'");
-      DictionaryResource.DictEntries entriesByLength = lengthEntries.getEntries(entryLength);
-      // System.err.println(">>> entriesByLength = " + entriesByLength);
-      if (entriesByLength != null) {
-        ArrayList<DictionaryResource.DictEntry> entries = entriesByLength.getEntries();
-        Collection <DictionaryResource.DictEntry> resultEntries = findMatchingEntry(entries, tokensToMatch);
-        Iterator<DictionaryResource.DictEntry> resultEntriesIterator = resultEntries.iterator();
-        AnnotationFS endToken = tokens.get(whichToken + entryLength - 1);
-
-        while (resultEntriesIterator.hasNext()) {
-          DictionaryResource.DictEntry dictEntry = resultEntriesIterator.next ();
-          // System.err.println("===> MATCH: '" + tokensToMatch + "'");
-
-          // System.err.println(">>>"+dictEntry.getUnsorted() );
-          makeAnnotation(tcas, start, endToken.getEnd(), dictEntry.getProperties(), spanAnnotation,
-                  dictEntry.getUnsorted(), tokens.subList(whichToken, whichToken + entryLength),
-                  logger);
-
-          updateTokenAnnotations(tokens, whichToken, entryLength, dictEntry);
-          if (!findAllMatches) {
-            entryFound = true;
-          }
+      Collection<DictionaryResource.DictEntry> resultEntries = lengthEntries
+              .getMatchingEntries(tokensToMatch);
+      if (!resultEntries.isEmpty()) {
+        // System.err.println("===> MATCH: '" + tokensToMatch + "'");
+        annotateEntries(tcas, tokens, spanAnnotation, whichToken, entryLength, resultEntries);
+        if (!findAllMatches) {
+          entryFound = true;
         }
       }
       entryLength--;
@@ -980,32 +1028,23 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
 
     if (matchedTokensFeature != null) {
       FSArray matchedTokens = new FSArray(getJCas(), matched.size());
-      FeatureStructure[] featureStructArray = new FeatureStructure[matched.size()];
-      matched.toArray(featureStructArray);
-      matchedTokens.copyFromArray(featureStructArray, 0, 0, featureStructArray.length);
+      int i = 0;
+      for (AnnotationFS matchedToken : matched) {
+        matchedTokens.set(i++, matchedToken);
+      }
       annotation.setFeatureValue(matchedTokensFeature, matchedTokens);
-      /*
-       * FSArray tmp = (FSArray) annotation.getFeatureValue (matchedTokensFeature); FeatureStructure []
-       * tmpfs = tmp.toArray (); System.err.println ("FSArray: begin"); for (int i = 0; i <
-       * tmpfs.length; i++) { System.err.println (((Annotation) tmpfs[i]).getCoveredText ()); }
-       * System.err.println ("FSArray: done");
-       */
     }
 
-    for (int featIndex = 0; featIndex < features.length; featIndex++) {
-      if (features[featIndex] != null) {
+    // every feature was resolved (or initialization failed) in typeSystemInit
+    if (properties.getEntryPropertiesRoot() == attributeRoot) {
+      for (int featIndex = 0; featIndex < features.length; featIndex++) {
+        annotation.setStringValue(features[featIndex], properties.getProperty(
+                attributeIDs[featIndex], UNKNOWN_VALUE));
+      }
+    } else {
+      for (int featIndex = 0; featIndex < features.length; featIndex++) {
         annotation.setStringValue(features[featIndex], properties.getProperty(
                 attributeNames[featIndex], UNKNOWN_VALUE));
-      } else {
-
-        // String message = "Feature '" + features[featIndex].getName() + "' not found in type '" +
-        // resultAnnotationName + "'";
-
-        String message = "Feature '" + featIndex + "' not found in type '" + resultAnnotationName
-                + "'";
-        // System.err.println(message);
-
-        log.logWarning(message);
       }
     }
 
@@ -1013,60 +1052,29 @@ public class ConceptMapper extends JCasAnnotator_ImplBase {
   }
 
   /**
-   * @param entries
-   * @param tokensToMatch
-   * @return
-   */
-  private Collection<DictEntry> findMatchingEntry(ArrayList<DictionaryResource.DictEntry> entries,
-          										  String [] tokensToMatch) {
-    //System.err.print("Searching for: '");
-    //for (String token : tokensToMatch) {
-    //    System.err.print(token + " ");
-    //}
-    //System.err.println("'");
-
-
-	Collection<DictEntry> result = new ArrayList<DictEntry> ();
-	
-    for (int i = 0; i < entries.size(); i++) {
-      DictionaryResource.DictEntry dictEntry = entries.get(i);
-      String[] entryText = dictEntry.getElements();
-
-      // System.err.println("--> trying: '" + entryText.toString() + "'");
-
-      if (entryText.length == tokensToMatch.length)
-      {
-    	  boolean match = true;
-    	  int item = 0;
-          for (String entryTextItem : entryText)
-    	  {
-    		  if (! entryTextItem.equals(tokensToMatch[item]))
-    		  {
-    			  match = false;
-    			  break;
-    		  }
-    		  item += 1;
-    	  }
-    	  if (match) {
-    		  result.add (dictEntry);
-    	  }
-      }
-    }
-    return result;
-  }
-
-  /**
-   * @param tokens
+   * Fill the reusable window of the given length with the normalized tokens starting at
+   * startIndex, sorted if order-independent lookup is being done. The returned array is only valid
+   * until the next call for the same length.
+   * 
+   * @param normalizedTokens
+   * @param startIndex
    * @param length
+   * @param sortElements
    * @return
    */
-  private String[] buildTokensToMatchArray(ArrayList<AnnotationFS> tokens, int startIndex, int length,
+  private String[] buildTokensToMatchArray(String[] normalizedTokens, int startIndex, int length,
           boolean sortElements) {
-    String[] elements = new String[length];
-    for (int i = startIndex; i < length + startIndex; i++) {
-      AnnotationFS token = tokens.get(i);
-      elements[i - startIndex] = tokenNormalizer.normalize(getTokenText(token));
+    if (length >= matchWindows.length) {
+      String[][] newWindows = new String[length + 1][];
+      System.arraycopy(matchWindows, 0, newWindows, 0, matchWindows.length);
+      matchWindows = newWindows;
+    }
+    String[] elements = matchWindows[length];
+    if (elements == null) {
+      elements = new String[length];
+      matchWindows[length] = elements;
     }
+    System.arraycopy(normalizedTokens, startIndex, elements, 0, length);
 
     if (sortElements) {
       Arrays.sort(elements);
@@ -29,8 +29,18 @@ import org.apache.uima.util.XMLInputSource;
 public class CompileDictionary {
   private static final String DICTIONARY_RESOURCE_NAME = "/DictionaryFile";
 
+  /** write the compact format that CompiledDictionaryResource_impl memory maps */
+  private static final String MAPPED_OPTION = "-mapped";
+
   public static void main(String[] args) throws Exception {
     String dictionaryResourceName = DICTIONARY_RESOURCE_NAME;
+    boolean mapped = false;
+    if ((args.length > 0) && args[0].equals(MAPPED_OPTION)) {
+      mapped = true;
+      String[] remainingArgs = new String[args.length - 1];
+      System.arraycopy(args, 1, remainingArgs, 0, remainingArgs.length);
+      args = remainingArgs;
+    }
     if (args.length == 2) {
       // do nothing
     } else if (args.length == 3) {
@@ -46,7 +56,11 @@ public class CompileDictionary {
     		dictionaryResourceName);
 
     FileOutputStream output = new FileOutputStream(args[1]);
-    dict.serializeEntries(output);
+    if (mapped) {
+      dict.serializeMappedEntries(output);
+    } else {
+      dict.serializeEntries(output);
+    }
     output.close();
     ae.destroy();
     // for some reason JVM won't exit normally,
@@ -66,6 +80,6 @@ public class CompileDictionary {
 
   public static void usage ()
   {
-    System.out.println("USAGE: " + getCurClassName() + ": <pathToDescriptor> <outputFileName> [<resourceName>]");
+    System.out.println("USAGE: " + getCurClassName() + ": [" + MAPPED_OPTION + "] <pathToDescriptor> <outputFileName> [<resourceName>]");
   }
 }
@@ -18,7 +18,10 @@
  */
 package org.apache.uima.conceptMapper.support.dictionaryResource;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -34,17 +37,26 @@ import org.apache.uima.resource.SharedResourceObject;
 
 public class CompiledDictionaryResource_impl implements DictionaryResource, SharedResourceObject {
   /**
-   * Hashtable of first words. Contains a DictEntries object keyed on word string for the first word
-   * of every entry in the specified dictionary.
+   * Read-only map of first words. Contains a DictEntries object keyed on word string for the first
+   * word of every entry in the specified dictionary.
    */
-  protected Hashtable<String, DictEntriesByLength> dictImpl;
+  protected FrozenDictEntriesMap dictImpl;
   protected EntryPropertiesRoot entryPropertiesRoot;
 
+  /**
+   * Set instead of dictImpl when the compiled dictionary is in the memory mapped format (see
+   * {@link MappedDictionary}).
+   */
+  protected MappedDictionary mappedDict;
+
   public DictionaryResource newDictionaryResource(int initialSize) {
     throw new UnsupportedOperationException();
   }
 
   public DictEntriesByLength getEntries(String key) {
+    if (mappedDict != null) {
+      return mappedDict.getEntries(key);
+    }
     return dictImpl.get(key);
   }
 
@@ -53,15 +65,29 @@ public class CompiledDictionaryResource_impl implements DictionaryResource, Shar
   }
 
   public Enumeration<String> keys() {
+    if (mappedDict != null) {
+      return mappedDict.keys();
+    }
     return dictImpl.keys();
   }
 
   @SuppressWarnings("unchecked")
   public void load(DataResource data) throws ResourceInitializationException {
     try {
-      ObjectInputStream ois = new ObjectInputStream(data.getInputStream());
+      InputStream input = new BufferedInputStream(data.getInputStream());
+      input.mark(4);
+      int magic = new DataInputStream(input).readInt();
+      input.reset();
+      if (magic == MappedDictionary.MAGIC) {
+        input.close();
+        mappedDict = MappedDictionary.open(data);
+        entryPropertiesRoot = mappedDict.getEntryPropertiesRoot();
+        return;
+      }
+      ObjectInputStream ois = new ObjectInputStream(input);
       entryPropertiesRoot = (EntryPropertiesRoot) ois.readObject();
-      dictImpl = (Hashtable) ois.readObject();
+      // copied into a read-only map so that lookups do not synchronize on the Hashtable
+      dictImpl = new FrozenDictEntriesMap((Hashtable<String, DictEntriesByLength>) ois.readObject());
       ois.close();
     } catch (IOException e) {
       throw new ResourceInitializationException(e);
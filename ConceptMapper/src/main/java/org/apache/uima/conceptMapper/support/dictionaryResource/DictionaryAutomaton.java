@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.dictionaryResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
+
+/**
+ * Token-level Aho-Corasick automaton compiled from the entries of a loaded dictionary. A span of
+ * normalized tokens is matched in a single left-to-right pass, reporting every dictionary entry
+ * that occurs in it, regardless of the length of the longest entry.
+ * <p>
+ * Entries are matched on their elements exactly as stored in the dictionary, so the automaton is
+ * only meaningful for dictionaries loaded without order-independent lookup. Instances are
+ * immutable once built and may be shared between threads.
+ */
+public class DictionaryAutomaton {
+
+  /** automata already built, keyed on the dictionary they were compiled from */
+  private static final Map<DictionaryResource, DictionaryAutomaton> automata = new WeakHashMap<DictionaryResource, DictionaryAutomaton>();
+
+  /**
+   * A single occurrence of one or more dictionary entries with identical elements.
+   */
+  public static final class Match {
+    private final int start;
+
+    private final int length;
+
+    private final DictEntry[] entries;
+
+    Match(int start, int length, DictEntry[] entries) {
+      this.start = start;
+      this.length = length;
+      this.entries = entries;
+    }
+
+    /** @return index of the first matched token */
+    public int getStart() {
+      return start;
+    }
+
+    /** @return number of matched tokens */
+    public int getLength() {
+      return length;
+    }
+
+    /** @return the dictionary entries whose elements are the matched tokens */
+    public DictEntry[] getEntries() {
+      return entries;
+    }
+  }
+
+  /** orders matches by start token, longest first for matches starting at the same token */
+  private static final Comparator<Match> MATCH_ORDER = new Comparator<Match>() {
+    public int compare(Match m1, Match m2) {
+      if (m1.start != m2.start) {
+        return (m1.start < m2.start) ? -1 : 1;
+      }
+      return (m1.length > m2.length) ? -1 : ((m1.length == m2.length) ? 0 : 1);
+    }
+  };
+
+  private static final class Node {
+    /** number of tokens on the path from the root to this node */
+    final int depth;
+
+    /** outgoing transitions, null for leaves */
+    HashMap<String, Node> children;
+
+    /** longest proper suffix of this node's path that is also a path in the trie */
+    Node fail;
+
+    /** nearest node along the failure chain that terminates an entry */
+    Node output;
+
+    /** entries terminating at this node, null if none do */
+    DictEntry[] entries;
+
+    Node(int depth) {
+      this.depth = depth;
+    }
+
+    Node child(String token) {
+      return (children == null) ? null : children.get(token);
+    }
+  }
+
+  private final Node root = new Node(0);
+
+  private int stateCount = 1;
+
+  /**
+   * Return the automaton for the given dictionary, compiling it on first use. Annotator instances
+   * sharing a dictionary resource share its automaton.
+   *
+   * @param dict
+   *          a loaded dictionary
+   * @return the automaton compiled from <code>dict</code>
+   */
+  public static DictionaryAutomaton forDictionary(DictionaryResource dict) {
+    synchronized (automata) {
+      DictionaryAutomaton automaton = automata.get(dict);
+      if (automaton == null) {
+        automaton = new DictionaryAutomaton(dict);
+        automata.put(dict, automaton);
+      }
+      return automaton;
+    }
+  }
+
+  /**
+   * Compile an automaton from every entry of a loaded dictionary.
+   *
+   * @param dict
+   *          a loaded dictionary
+   */
+  public DictionaryAutomaton(DictionaryResource dict) {
+    Enumeration<String> keys = dict.keys();
+    while (keys.hasMoreElements()) {
+      DictEntriesByLength entriesByLength = dict.getEntries(keys.nextElement());
+      int shortest = entriesByLength.getShortest().intValue();
+      int longest = entriesByLength.getLongest().intValue();
+      for (int length = shortest; length <= longest; length++) {
+        DictEntries entries = entriesByLength.getEntries(length);
+        if (entries == null) {
+          continue;
+        }
+        for (DictEntry entry : entries.getEntries()) {
+          addEntry(entriesByLength, entry.getElements());
+        }
+      }
+    }
+    buildFailureLinks();
+  }
+
+  private void addEntry(DictEntriesByLength entriesByLength, String[] elements) {
+    Node node = root;
+    for (String element : elements) {
+      Node next = node.child(element);
+      if (next == null) {
+        next = new Node(node.depth + 1);
+        if (node.children == null) {
+          node.children = new HashMap<String, Node>(4);
+        }
+        node.children.put(element, next);
+        stateCount++;
+      }
+      node = next;
+    }
+    if (node.entries == null) {
+      // all entries sharing these elements, in the order a direct lookup would return them
+      Collection<DictEntry> matching = entriesByLength.getMatchingEntries(elements);
+      node.entries = matching.toArray(new DictEntry[matching.size()]);
+    }
+  }
+
+  private void buildFailureLinks() {
+    LinkedList<Node> queue = new LinkedList<Node>();
+    root.fail = root;
+    if (root.children != null) {
+      for (Node child : root.children.values()) {
+        child.fail = root;
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      Node node = queue.removeFirst();
+      if (node.children == null) {
+        continue;
+      }
+      for (Map.Entry<String, Node> transition : node.children.entrySet()) {
+        String token = transition.getKey();
+        Node child = transition.getValue();
+        Node fail = node.fail;
+        while ((fail != root) && (fail.child(token) == null)) {
+          fail = fail.fail;
+        }
+        Node target = fail.child(token);
+        child.fail = ((target == null) || (target == child)) ? root : target;
+        child.output = (child.fail.entries != null) ? child.fail : child.fail.output;
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * Find every occurrence of a dictionary entry in a sequence of normalized tokens.
+   *
+   * @param tokens
+   *          normalized tokens of a span
+   * @return all matches, ordered by start token and, for the same start token, longest first
+   */
+  public List<Match> findMatches(String[] tokens) {
+    List<Match> matches = new ArrayList<Match>();
+    Node state = root;
+    for (int i = 0; i < tokens.length; i++) {
+      String token = tokens[i];
+      Node next = state.child(token);
+      while ((next == null) && (state != root)) {
+        state = state.fail;
+        next = state.child(token);
+      }
+      state = (next == null) ? root : next;
+      for (Node found = (state.entries != null) ? state : state.output; found != null; found = found.output) {
+        matches.add(new Match(i - found.depth + 1, found.depth, found.entries));
+      }
+    }
+    if (matches.size() > 1) {
+      Collections.sort(matches, MATCH_ORDER);
+    }
+    return matches;
+  }
+
+  /**
+   * @return number of states in the automaton, including the root
+   */
+  public int getStateCount() {
+    return stateCount;
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.uima.conceptMapper.support.dictionaryResource;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 
 import org.apache.uima.UimaContext;
@@ -42,6 +43,16 @@ public interface DictionaryResource {
   public interface DictEntriesByLength extends Serializable {
     public DictEntries getEntries(int length);
 
+    /**
+     * return all entries whose elements are exactly equal to <code>elements</code>, using the
+     * element sequence index rather than scanning every entry of that length
+     * 
+     * @param elements
+     *          the (normalized, and sorted if order-independent) tokens to match
+     * @return matching dictionary entries, empty if there are none
+     */
+    public Collection<DictEntry> getMatchingEntries(String[] elements);
+
     void putEntry(int length, String[] elements, String unsorted,
             EntryProperties props);
 
@@ -64,6 +75,12 @@ public interface DictionaryResource {
      */
     ArrayList<DictEntry> getEntries();
 
+    /**
+     * @param elements
+     * @return all entries whose elements are exactly equal to <code>elements</code>
+     */
+    Collection<DictEntry> getMatchingEntries(String[] elements);
+
     public String toString();
   }
 
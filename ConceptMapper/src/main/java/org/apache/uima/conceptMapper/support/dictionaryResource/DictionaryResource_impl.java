@@ -18,19 +18,33 @@
  */
 package org.apache.uima.conceptMapper.support.dictionaryResource;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.apache.uima.UimaContext;
@@ -68,6 +82,12 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
    * of every entry in the specified dictionary.
    */
   protected Hashtable<String, DictEntriesByLength> dictImpl;
+
+  /**
+   * Lock-free copy of dictImpl, built once loading has finished. When set, all lookups go through
+   * it and dictImpl is released.
+   */
+  protected volatile FrozenDictEntriesMap frozenDictImpl;
   
   protected EntryPropertiesRoot entryPropertiesRoot;
 
@@ -101,6 +121,14 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
 
   private boolean dumpDict = false;
 
+  /**
+   * Configuration parameter key/label for the number of threads used to tokenize dictionary
+   * entries while loading. If unset or less than 2, entries are tokenized on the loading thread.
+   */
+  public static final String PARAM_LOADER_THREADS = "DictionaryLoaderThreads";
+
+  private int loaderThreads = 1;
+
   /** Configuration parameter key/label for the case matching string */
   public static final String PARAM_CASE_MATCH = "caseMatch";
 
@@ -157,6 +185,10 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
    * @see org.apache.uima.conceptMapper.conceptMapper.support.DictionaryResource#getEntry(java.lang.String)
    */
   public DictEntriesByLength getEntries(String key) {
+    FrozenDictEntriesMap frozen = frozenDictImpl;
+    if (frozen != null) {
+      return frozen.get(key);
+    }
     return dictImpl.get(key);
   }
 
@@ -176,6 +208,9 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
    */
   public void putEntry(String key, String[] elements, String unsorted,
           int length, EntryProperties props) {
+    if (frozenDictImpl != null) {
+      throw new UnsupportedOperationException("Dictionary has already been loaded");
+    }
     DictEntriesByLength entry = getEntries(key);
 
     if (entry == null) {
@@ -249,6 +284,13 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
         dumpDict = dumpDictParam.booleanValue();
       }
 
+      Integer loaderThreadsParam = (Integer) aContext.getConfigParameterValue(PARAM_LOADER_THREADS);
+      if (loaderThreadsParam == null) {
+        loaderThreads = 1;
+      } else {
+        loaderThreads = loaderThreadsParam.intValue();
+      }
+
       TokenNormalizer tokenNormalizer = new TokenNormalizer(aContext, logger);
 
       // open input stream to data
@@ -272,12 +314,14 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
       // "'...");
       // System.out.print ("Loading Dictionary...");
       logger.logInfo("Loading Dictionary...");
+      dictLoader.setContext(aContext);
       dictLoader.setDictionary(dictStream, NumOfInitialDictEntries, tokenAnnotationName,
               tokenTypeFeatureName, tokenClassFeatureName, tokenizerDescriptor, tokenFilter,
               tokenNormalizer, langID, entryPropertiesRoot);
       logger.logInfo("...done");
       // System.out.println ("done");
       // System.err.println("NEW DICT:\n" + toString());
+      freeze();
       setLoaded(true);
       if (dumpDict)
       {
@@ -299,6 +343,15 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
 
   }
 
+  /**
+   * Replace the synchronized Hashtable used while loading with a read-only map, so that lookups
+   * from many processing threads do not contend for its lock. No entries can be added afterwards.
+   */
+  protected void freeze() {
+    frozenDictImpl = new FrozenDictEntriesMap(dictImpl);
+    dictImpl = null;
+  }
+
   /**
    * @return Returns the loaded.
    */
@@ -377,6 +430,19 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
       return entries.firstKey();
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength#getMatchingEntries(java.lang.String[])
+     */
+    public Collection<DictEntry> getMatchingEntries(String[] elements) {
+      DictEntries entriesOfLength = getEntries(elements.length);
+      if (entriesOfLength == null) {
+        return Collections.emptyList();
+      }
+      return entriesOfLength.getMatchingEntries(elements);
+    }
+
     public Integer getShortest() {
       return entries.lastKey();
     }
@@ -400,6 +466,36 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
     }
   }
 
+  /**
+   * Key for the element sequence index: the full element array of an entry, with its hash
+   * computed once up front.
+   */
+  private static final class ElementSequence {
+    private final String[] elements;
+
+    private final int hash;
+
+    ElementSequence(String[] elements) {
+      this.elements = elements;
+      this.hash = Arrays.hashCode(elements);
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof ElementSequence)) {
+        return false;
+      }
+      ElementSequence otherSequence = (ElementSequence) other;
+      return (hash == otherSequence.hash) && Arrays.equals(elements, otherSequence.elements);
+    }
+  }
+
   /**
    * Private class for storing first words in the dict hashtable.
    */
@@ -410,10 +506,17 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Entries keyed on their full element sequence, so a lookup is a single probe. Not serialized;
+     * rebuilt from the list contents when a compiled dictionary is read back in.
+     */
+    private transient HashMap<ElementSequence, ArrayList<DictEntry>> elementIndex;
+
     /**
      * Create a new dictionary entry.
      */
     public DictEntriesImpl() {
+      elementIndex = new HashMap<ElementSequence, ArrayList<DictEntry>>();
     }
 
     /**
@@ -425,7 +528,40 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
      *          the properties object for the phrase
      */
     public void putEntry(String[] elements, String unsorted, EntryProperties props) {
-      add(new DictEntryImpl(elements, unsorted, props));
+      DictEntry entry = new DictEntryImpl(elements, unsorted, props);
+      add(entry);
+      indexEntry(entry);
+    }
+
+    private void indexEntry(DictEntry entry) {
+      ElementSequence key = new ElementSequence(entry.getElements());
+      ArrayList<DictEntry> sameElements = elementIndex.get(key);
+      if (sameElements == null) {
+        sameElements = new ArrayList<DictEntry>(1);
+        elementIndex.put(key, sameElements);
+      }
+      sameElements.add(entry);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries#getMatchingEntries(java.lang.String[])
+     */
+    public Collection<DictEntry> getMatchingEntries(String[] elements) {
+      ArrayList<DictEntry> result = elementIndex.get(new ElementSequence(elements));
+      if (result == null) {
+        return Collections.emptyList();
+      }
+      return result;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      elementIndex = new HashMap<ElementSequence, ArrayList<DictEntry>>();
+      for (DictEntry entry : this) {
+        indexEntry(entry);
+      }
     }
 
     /*
@@ -638,6 +774,14 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
 
     private Vector<DictionaryToken> result;
 
+    private String langID;
+
+    /** needed to give each parallel loader worker its own filter and normalizer */
+    private UimaContext context;
+
+    /** set while loading with more than one thread, null otherwise */
+    private ParallelVariantTokenizer parallelTokenizer;
+
     /**
      * Create a dictionary loader.
      * 
@@ -710,6 +854,10 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
       return tokenNormalizer;
     }
 
+    protected void setContext(UimaContext context) {
+      this.context = context;
+    }
+
     /**
      * @return Returns the log.
      */
@@ -732,141 +880,152 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
     public void startElement(String uri, String local, String raw, Attributes attrs)
             throws SAXException {
 
-      DictionaryToken token = null;
-      int length = 0;
-
       if (raw.equals(token_elem)) { // starting new token entry
         if (attrs != null) {
 
         	props = getPropertiesRoot().newEntryProperties();
 			int attrCount = attrs.getLength();
 			for (int i = 0; i < attrCount; i++) {
-				props.setProperty(attrs.getQName(i), convertEntities(attrs.getValue(i)));
+				props.setProperty(attrs.getQName(i), getPropertiesRoot().intern(convertEntities(attrs.getValue(i))));
 			}
 
         }
       } else if (raw.equals(variant_elem)) { // variant for current token
         if (attrs != null) {
           int attrCount = attrs.getLength();
-          ArrayList<String> tokens = new ArrayList<String>();
+          String variantText = null;
 
           // if this variant contains its own POS info, save token level POS info and set props to
-          // contain variant's
-          EntryProperties variantProperties = new EntryProperties(props);
+          // contain variant's; otherwise all variants of the token share its properties
+          EntryProperties variantProperties = props;
           // logger.logInfo("" + entryNum++);
           //
           // System.err.println("" + entryNum++);
           for (int i = 0; i < attrCount; i++) {
             if (attrs.getQName(i).equals(key_attribute)) { // key attribute?
-
-              adaptor.runCPM(convertEntities(attrs.getValue(i)));
-
-              //if (dumpDict)
-              //{
-              //  System.err.println ("Adaptor done, result size: " + result.size() + "\nresult:\n");
-              //  for (DictionaryToken resultItem : result)
-              //  {
-              //    System.err.println ("  " + resultItem.getText()); 
-              //  }
-              //}
-              
-              Iterator<DictionaryToken> tokenIter = result.iterator();
-              token = null;
-
-              while (tokenIter.hasNext()) {
-                token = (DictionaryToken) tokenIter.next();
-                //if (dumpDict)
-                //{
-                //  System.err.println ("TOKEN CLASS: '" + token.getTokenClass() + "', TOKEN TYPE: '" + token.getType() + "'");
-                //}
-                if (tokenFilter.isOK_Token(token, tokenNormalizer)) {
-                  break;
-                }
+              variantText = convertEntities(attrs.getValue(i));
+            } else {
+              if (variantProperties == props) {
+                variantProperties = new EntryProperties(props);
               }
+           		variantProperties.setProperty(attrs.getQName(i), getPropertiesRoot().intern(convertEntities(attrs.getValue(i))));
+            }
+          }
 
-              if (token == null) {
-                return;
-              }
+          if (variantText == null) {
+            return;
+          }
+          if (variantProperties == props) {
+            getPropertiesRoot().sharedEntryProperties();
+          }
 
-              //if (dumpDict)
-              //{
-              //  System.err.println ("variant token key:" + key);
-              //}
-
-              tokens.add(tokenNormalizer.normalize(token.getText()));
-              length = 1;
-              while (tokenIter.hasNext()) {
-                token = (DictionaryToken) tokenIter.next();
-                String tokenText = tokenNormalizer.normalize(token.getText());
-
-                if (tokenFilter.isOK_Token(token, tokenNormalizer)) {
-                  tokens.add(tokenText);
-                  length++;
-                  
-                  //if (dumpDict)
-                  //{
-                  //  System.err.println (" variant token aux:" + tokenText);
-                  //}
-                }
-                //else
-                //{
-                //  if (dumpDict)
-                //  {
-                //    System.err.println (" SKIPPING: variant token aux:" + tokenText);
-                //  }
-                //}
-              }
-            } else {
-           		variantProperties.setProperty(attrs.getQName(i), convertEntities(attrs.getValue(i)));
+          if (parallelTokenizer != null) {
+            parallelTokenizer.add(variantText, variantProperties);
+          } else {
+            ArrayList<String> tokens = tokenizeVariant(variantText, adaptor, result, tokenFilter,
+                    tokenNormalizer);
+            if (tokens != null) {
+              addVariant(tokens, variantProperties);
             }
-
           }
+        }
+      }
+    }
 
-          String[] elements = (String[]) tokens.toArray(new String[tokens.size()]);
+    /**
+     * Run the tokenizer over the text of a variant, and normalize the resulting tokens.
+     * 
+     * @param variantText
+     * @param adaptor
+     *          tokenizer to use
+     * @param result
+     *          the vector <code>adaptor</code> puts its tokens in
+     * @param tokenFilter
+     * @param tokenNormalizer
+     * @return normalized tokens, or null if the tokenizer did not produce any
+     */
+    private ArrayList<String> tokenizeVariant(String variantText, AnnotatorAdaptor adaptor,
+            Vector<DictionaryToken> result, TokenFilter tokenFilter,
+            TokenNormalizer tokenNormalizer) {
+      adaptor.runCPM(variantText);
+
+      //if (dumpDict)
+      //{
+      //  System.err.println ("Adaptor done, result size: " + result.size() + "\nresult:\n");
+      //  for (DictionaryToken resultItem : result)
+      //  {
+      //    System.err.println ("  " + resultItem.getText()); 
+      //  }
+      //}
+
+      Iterator<DictionaryToken> tokenIter = result.iterator();
+      DictionaryToken token = null;
 
-          String unsorted = null;
+      while (tokenIter.hasNext()) {
+        token = (DictionaryToken) tokenIter.next();
+        //if (dumpDict)
+        //{
+        //  System.err.println ("TOKEN CLASS: '" + token.getTokenClass() + "', TOKEN TYPE: '" + token.getType() + "'");
+        //}
+        if (tokenFilter.isOK_Token(token, tokenNormalizer)) {
+          break;
+        }
+      }
 
-          if (sortElements) {
-            unsorted = stringTogetherTokens(elements);
-            Arrays.sort(elements);
-          }
+      if (token == null) {
+        return null;
+      }
 
-          //String tokenString = stringTogetherTokens(elements);
-          //if (dumpDict)
-          //{
-          //  System.err.println ("token string: " + tokenString);
-          //}
-
-
-          // add to dictionary
-          if (sortElements) {
-            for (int i = 0; i < tokens.size(); i++) {
-              dict.putEntry((String) tokens.get(i), elements, unsorted, elements.length,
-                      variantProperties);
-              // System.err.println ("adding props for:" + tokenString);
-              // Enumeration propKeys = variantProperties.keys();
-              // while (propKeys.hasMoreElements())
-              // {
-              // String propKey = (String) propKeys.nextElement();
-              // System.err.println ("\t" + propKey + ": " +
-              // variantProperties.getProperty(propKey));
-              // }
+      ArrayList<String> tokens = new ArrayList<String>();
+      tokens.add(tokenNormalizer.normalize(token.getText()));
+      while (tokenIter.hasNext()) {
+        token = (DictionaryToken) tokenIter.next();
+        String tokenText = tokenNormalizer.normalize(token.getText());
 
-            }
-          } else {
-            dict.putEntry((String) tokens.get(0), elements, unsorted, elements.length,
-                    variantProperties);
-          }
-          term_cnt++;
-          if ((term_cnt % 10000) == 0) {
-            getLogger().logInfo("processed " + term_cnt + " entries");
-            //System.err.println("processed " + term_cnt + " entries");
-          }
+        if (tokenFilter.isOK_Token(token, tokenNormalizer)) {
+          tokens.add(tokenText);
         }
       }
+      return tokens;
     }
-     
-    
+
+    /**
+     * Add a tokenized variant to the dictionary.
+     * 
+     * @param tokens
+     *          normalized tokens of the variant
+     * @param variantProperties
+     */
+    private void addVariant(ArrayList<String> tokens, EntryProperties variantProperties) {
+      for (int i = 0; i < tokens.size(); i++) {
+        tokens.set(i, getPropertiesRoot().intern(tokens.get(i)));
+      }
+      String[] elements = (String[]) tokens.toArray(new String[tokens.size()]);
+
+      String unsorted = null;
+
+      if (sortElements) {
+        unsorted = stringTogetherTokens(elements);
+        Arrays.sort(elements);
+      }
+
+      // add to dictionary
+      if (sortElements) {
+        for (int i = 0; i < tokens.size(); i++) {
+          dict.putEntry((String) tokens.get(i), elements, unsorted, elements.length,
+                  variantProperties);
+        }
+      } else {
+        dict.putEntry((String) tokens.get(0), elements, unsorted, elements.length,
+                variantProperties);
+      }
+      term_cnt++;
+      if ((term_cnt % 10000) == 0) {
+        getLogger().logInfo("processed " + term_cnt + " entries");
+        //System.err.println("processed " + term_cnt + " entries");
+      }
+    }
+
     //
     // ErrorHandler methods
     //
@@ -936,21 +1095,209 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
       result = new Vector<DictionaryToken>();
 
       setEntryPropertiesRoot (entryPropertiesRoot);
+      this.langID = langID;
       
       getLogger().logInfo("Loading dictionary");
+      long startTime = System.currentTimeMillis();
       try {
-        adaptor = new AnnotatorAdaptor(getTokenizerDescriptor(), result, tokenAnnotationName,
-                tokenFilter, langID, getLogger());
-        adaptor.initCPM();
+        if (loaderThreads > 1) {
+          getLogger().logInfo("Tokenizing dictionary entries with " + loaderThreads + " threads");
+          parallelTokenizer = new ParallelVariantTokenizer(loaderThreads);
+        } else {
+          adaptor = new AnnotatorAdaptor(getTokenizerDescriptor(), result, tokenAnnotationName,
+                  tokenFilter, langID, getLogger());
+          adaptor.initCPM();
+        }
 
         parser.parse(new InputSource(dictStream));
+        if (parallelTokenizer != null) {
+          parallelTokenizer.finish();
+        }
       } catch (SAXException e) {
         getLogger().logError("Parse error occurred - " + e.getMessage());
         throw new DictionaryLoaderException(e);
       } catch (IOException e) {
         throw new DictionaryLoaderException(e);
+      } finally {
+        if (parallelTokenizer != null) {
+          parallelTokenizer.shutdown();
+          parallelTokenizer = null;
+        }
+        if (adaptor != null) {
+          adaptor.destroy();
+          adaptor = null;
+        }
+      }
+      long elapsed = System.currentTimeMillis() - startTime;
+      getLogger().logInfo("Finished loading " + term_cnt + " entries in " + elapsed + " ms ("
+              + ((elapsed > 0) ? (term_cnt * 1000L / elapsed) : term_cnt) + " entries/sec)");
+      EntryPropertiesRoot root = getPropertiesRoot();
+      getLogger().logInfo("Shared " + root.getSharedStrings() + " repeated strings and "
+              + root.getSharedEntryProperties() + " variant property sets, saving approximately "
+              + (root.getBytesSaved() / 1024) + " KB");
+      root.releaseStringPool();
+    }
+
+    /**
+     * Tokenizer state owned by a single loader thread; neither the tokenizer analysis engine nor
+     * the stemmer behind the normalizer can be shared between threads.
+     */
+    private class LoaderWorker {
+      final Vector<DictionaryToken> workerResult = new Vector<DictionaryToken>();
+
+      final AnnotatorAdaptor workerAdaptor;
+
+      final TokenFilter workerTokenFilter;
+
+      final TokenNormalizer workerTokenNormalizer;
+
+      LoaderWorker() throws Exception {
+        workerTokenNormalizer = new TokenNormalizer(context, getLogger());
+        workerTokenFilter = new TokenFilter(tokenFilter.getTokenAnnotationName(), tokenFilter
+                .getTokenTypeFeatureName(), tokenFilter.getTokenClassFeatureName(), getLogger());
+        workerTokenFilter.initConfig(context);
+        workerAdaptor = new AnnotatorAdaptor(getTokenizerDescriptor(), workerResult,
+                getTokenAnnotationName(), workerTokenFilter, langID, getLogger());
+        workerAdaptor.initCPM();
+      }
+    }
+
+    /**
+     * A run of consecutive variants from the dictionary file, tokenized together by one worker.
+     */
+    private class VariantBatch implements Callable<VariantBatch> {
+      final ArrayList<String> texts = new ArrayList<String>(BATCH_SIZE);
+
+      final ArrayList<EntryProperties> properties = new ArrayList<EntryProperties>(BATCH_SIZE);
+
+      final ArrayList<ArrayList<String>> tokens = new ArrayList<ArrayList<String>>(BATCH_SIZE);
+
+      private final BlockingQueue<LoaderWorker> idleWorkers;
+
+      VariantBatch(BlockingQueue<LoaderWorker> idleWorkers) {
+        this.idleWorkers = idleWorkers;
+      }
+
+      public VariantBatch call() throws Exception {
+        LoaderWorker worker = idleWorkers.take();
+        try {
+          for (String text : texts) {
+            tokens.add(tokenizeVariant(text, worker.workerAdaptor, worker.workerResult,
+                    worker.workerTokenFilter, worker.workerTokenNormalizer));
+          }
+        } finally {
+          idleWorkers.put(worker);
+        }
+        return this;
+      }
+    }
+
+    /** number of variants handed to a worker at a time */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Tokenizes variants on a pool of worker threads while the SAX parser keeps reading. Batches
+     * are added to the dictionary on the parsing thread in the order they were read, so the
+     * resulting dictionary is the same as with a single-threaded load.
+     */
+    private class ParallelVariantTokenizer {
+      private final ExecutorService executor;
+
+      private final BlockingQueue<LoaderWorker> idleWorkers;
+
+      /** all workers, including those currently taken from idleWorkers */
+      private final ArrayList<LoaderWorker> workers = new ArrayList<LoaderWorker>();
+
+      private final LinkedList<Future<VariantBatch>> pending = new LinkedList<Future<VariantBatch>>();
+
+      private final int maxPending;
+
+      private VariantBatch current;
+
+      ParallelVariantTokenizer(int threads) throws DictionaryLoaderException {
+        idleWorkers = new ArrayBlockingQueue<LoaderWorker>(threads);
+        try {
+          for (int i = 0; i < threads; i++) {
+            LoaderWorker worker = new LoaderWorker();
+            workers.add(worker);
+            idleWorkers.add(worker);
+          }
+        } catch (Exception e) {
+          destroyWorkers();
+          throw new DictionaryLoaderException(e);
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        maxPending = 2 * threads;
+        current = new VariantBatch(idleWorkers);
+      }
+
+      void add(String text, EntryProperties variantProperties) throws SAXException {
+        current.texts.add(text);
+        current.properties.add(variantProperties);
+        if (current.texts.size() >= BATCH_SIZE) {
+          submit();
+          try {
+            while (pending.size() > maxPending) {
+              addBatch(pending.removeFirst());
+            }
+          } catch (DictionaryLoaderException e) {
+            throw new SAXException(e);
+          }
+        }
+      }
+
+      private void submit() {
+        pending.addLast(executor.submit(current));
+        current = new VariantBatch(idleWorkers);
+      }
+
+      void finish() throws DictionaryLoaderException {
+        if (!current.texts.isEmpty()) {
+          submit();
+        }
+        while (!pending.isEmpty()) {
+          addBatch(pending.removeFirst());
+        }
+      }
+
+      private void addBatch(Future<VariantBatch> future) throws DictionaryLoaderException {
+        VariantBatch batch;
+        try {
+          batch = future.get();
+        } catch (InterruptedException e) {
+          throw new DictionaryLoaderException(e);
+        } catch (ExecutionException e) {
+          throw new DictionaryLoaderException(e.getCause());
+        }
+        for (int i = 0; i < batch.tokens.size(); i++) {
+          ArrayList<String> variantTokens = batch.tokens.get(i);
+          if (variantTokens != null) {
+            addVariant(variantTokens, batch.properties.get(i));
+          }
+        }
+      }
+
+      /**
+       * Stops the threads and destroys the tokenizer of each worker, after waiting for batches
+       * that are still running (only the case if the load failed).
+       */
+      void shutdown() {
+        executor.shutdownNow();
+        try {
+          executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          destroyWorkers();
+        }
+      }
+
+      private void destroyWorkers() {
+        for (LoaderWorker worker : workers) {
+          worker.workerAdaptor.destroy();
+        }
+        workers.clear();
       }
-      getLogger().logInfo("Finished loading " + term_cnt + " entries");
     }
 
     public InputStream getInputStream() throws IOException {
@@ -974,6 +1321,10 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
    * @see org.apache.uima.conceptMapper.support.DictionaryResource#keys()
    */
   public Enumeration<String> keys() {
+    FrozenDictEntriesMap frozen = frozenDictImpl;
+    if (frozen != null) {
+      return frozen.keys();
+    }
     return dictImpl.keys();
   }
 
@@ -1009,10 +1360,24 @@ public class DictionaryResource_impl implements DictionaryResource, SharedResour
   public void serializeEntries(FileOutputStream output) throws IOException {
     ObjectOutputStream oos = new ObjectOutputStream(output);
     oos.writeObject(this.entryPropertiesRoot);
-    oos.writeObject(this.dictImpl);
+    FrozenDictEntriesMap frozen = frozenDictImpl;
+    oos.writeObject((frozen != null) ? frozen.toHashtable() : this.dictImpl);
     oos.close();
   }
 
+  /**
+   * Write the dictionary in the compact format that CompiledDictionaryResource_impl memory maps,
+   * rather than as serialized Java objects.
+   * 
+   * @param output
+   * @throws IOException
+   */
+  public void serializeMappedEntries(FileOutputStream output) throws IOException {
+    BufferedOutputStream bos = new BufferedOutputStream(output);
+    MappedDictionary.write(this, bos);
+    bos.close();
+  }
+
   public EntryPropertiesRoot getEntryPropertiesRoot() {
 	return entryPropertiesRoot;
   }
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.dictionaryResource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
+
+/**
+ * Inverted index from tokens to the dictionary entries containing them, used to find the entries
+ * whose tokens all occur somewhere in a span with a single counting pass, rather than testing
+ * every entry filed under every token of the span.
+ * <p>
+ * Every entry stored under a dictionary key gets an id. Ids are assigned key by key and, within a
+ * key, longest entries first, so the candidates for a key come out of {@link #findCandidates} in
+ * the order the SkipAnyMatch strategies try them. Instances are immutable once built and may be
+ * shared between threads.
+ */
+public class DictionaryTokenIndex {
+
+  /** indexes already built, keyed on the dictionary they were built from */
+  private static final Map<DictionaryResource, DictionaryTokenIndex> indexes = new WeakHashMap<DictionaryResource, DictionaryTokenIndex>();
+
+  private final DictEntry[] entries;
+
+  /** dictionary key each entry is filed under */
+  private final String[] keys;
+
+  /** distinct tokens of each entry */
+  private final String[][] distinctElements;
+
+  /** number of occurrences of each distinct token in each entry */
+  private final int[][] elementCounts;
+
+  /** token to ids of the entries containing it, in increasing order */
+  private final HashMap<String, int[]> postings;
+
+  /**
+   * Return the index for the given dictionary, building it on first use. Annotator instances
+   * sharing a dictionary resource share its index.
+   *
+   * @param dict
+   *          a loaded dictionary
+   * @return the index built from <code>dict</code>
+   */
+  public static DictionaryTokenIndex forDictionary(DictionaryResource dict) {
+    synchronized (indexes) {
+      DictionaryTokenIndex index = indexes.get(dict);
+      if (index == null) {
+        index = new DictionaryTokenIndex(dict);
+        indexes.put(dict, index);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Build an index of every entry of a loaded dictionary.
+   *
+   * @param dict
+   *          a loaded dictionary
+   */
+  public DictionaryTokenIndex(DictionaryResource dict) {
+    ArrayList<DictEntry> entryList = new ArrayList<DictEntry>();
+    ArrayList<String> keyList = new ArrayList<String>();
+    Enumeration<String> dictKeys = dict.keys();
+    while (dictKeys.hasMoreElements()) {
+      String key = dictKeys.nextElement();
+      DictEntriesByLength entriesByLength = dict.getEntries(key);
+      int shortest = entriesByLength.getShortest().intValue();
+      int longest = entriesByLength.getLongest().intValue();
+      for (int length = longest; length >= shortest; length--) {
+        DictEntries dictEntries = entriesByLength.getEntries(length);
+        if (dictEntries != null) {
+          for (DictEntry entry : dictEntries.getEntries()) {
+            entryList.add(entry);
+            keyList.add(key);
+          }
+        }
+      }
+    }
+
+    int entryCount = entryList.size();
+    entries = entryList.toArray(new DictEntry[entryCount]);
+    keys = keyList.toArray(new String[entryCount]);
+    distinctElements = new String[entryCount][];
+    elementCounts = new int[entryCount][];
+
+    HashMap<String, ArrayList<Integer>> postingLists = new HashMap<String, ArrayList<Integer>>();
+    LinkedHashMap<String, Integer> occurrences = new LinkedHashMap<String, Integer>();
+    for (int id = 0; id < entryCount; id++) {
+      occurrences.clear();
+      for (String element : entries[id].getElements()) {
+        Integer count = occurrences.get(element);
+        occurrences.put(element, Integer.valueOf((count == null) ? 1 : count.intValue() + 1));
+      }
+      String[] distinct = new String[occurrences.size()];
+      int[] counts = new int[distinct.length];
+      int i = 0;
+      for (Map.Entry<String, Integer> occurrence : occurrences.entrySet()) {
+        distinct[i] = occurrence.getKey();
+        counts[i] = occurrence.getValue().intValue();
+        i++;
+
+        ArrayList<Integer> postingList = postingLists.get(occurrence.getKey());
+        if (postingList == null) {
+          postingList = new ArrayList<Integer>();
+          postingLists.put(occurrence.getKey(), postingList);
+        }
+        postingList.add(Integer.valueOf(id));
+      }
+      distinctElements[id] = distinct;
+      elementCounts[id] = counts;
+    }
+
+    postings = new HashMap<String, int[]>((int) (postingLists.size() / 0.75f) + 1);
+    for (Map.Entry<String, ArrayList<Integer>> postingList : postingLists.entrySet()) {
+      ArrayList<Integer> ids = postingList.getValue();
+      int[] idArray = new int[ids.size()];
+      for (int i = 0; i < idArray.length; i++) {
+        idArray[i] = ids.get(i).intValue();
+      }
+      postings.put(postingList.getKey(), idArray);
+    }
+  }
+
+  /**
+   * Find the entries all of whose tokens are among the given tokens.
+   *
+   * @param tokens
+   *          distinct tokens of a span
+   * @param hits
+   *          scratch array of at least {@link #getEntryCount()} zeros, owned by the caller; it is
+   *          left zeroed on return
+   * @return ids of the matching entries, in increasing order
+   */
+  public int[] findCandidates(Collection<String> tokens, int[] hits) {
+    int[] touched = new int[16];
+    int touchedCount = 0;
+    int[] candidates = new int[16];
+    int candidateCount = 0;
+    for (String token : tokens) {
+      int[] ids = postings.get(token);
+      if (ids == null) {
+        continue;
+      }
+      for (int id : ids) {
+        int count = ++hits[id];
+        if (count == 1) {
+          if (touchedCount == touched.length) {
+            touched = resize(touched, touchedCount * 2);
+          }
+          touched[touchedCount++] = id;
+        }
+        if (count == distinctElements[id].length) {
+          if (candidateCount == candidates.length) {
+            candidates = resize(candidates, candidateCount * 2);
+          }
+          candidates[candidateCount++] = id;
+        }
+      }
+    }
+    for (int i = 0; i < touchedCount; i++) {
+      hits[touched[i]] = 0;
+    }
+    candidates = resize(candidates, candidateCount);
+    Arrays.sort(candidates);
+    return candidates;
+  }
+
+  private static int[] resize(int[] array, int length) {
+    int[] resized = new int[length];
+    System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+    return resized;
+  }
+
+  /**
+   * @return number of indexed entries; ids range from 0 to this value, exclusive
+   */
+  public int getEntryCount() {
+    return entries.length;
+  }
+
+  public DictEntry getEntry(int id) {
+    return entries[id];
+  }
+
+  /**
+   * @return the dictionary key the entry is filed under
+   */
+  public String getKey(int id) {
+    return keys[id];
+  }
+
+  /**
+   * @return the distinct tokens of the entry
+   */
+  public String[] getDistinctElements(int id) {
+    return distinctElements[id];
+  }
+
+  /**
+   * @return the number of occurrences in the entry of each of its distinct tokens
+   */
+  public int[] getElementCounts(int id) {
+    return elementCounts[id];
+  }
+}
@@ -70,6 +70,30 @@ public class EntryProperties implements Serializable{
 		}
 	}
 
+	/**
+	 * Get a property by the ID its name has in this entry's EntryPropertiesRoot, saving the name
+	 * lookup when the same property is read for many entries.
+	 * 
+	 * @param propertyID
+	 *          from {@link EntryPropertiesRoot#getPropertyID(String)}
+	 * @param defaultValue
+	 *          returned if <code>propertyID</code> is negative (i.e., unknown property name)
+	 */
+	public String getProperty(int propertyID, String defaultValue) {
+		if (propertyID < 0)
+		{
+			return defaultValue;
+		}
+		else
+		{
+			return properties[propertyID];
+		}
+	}
+
+	public EntryPropertiesRoot getEntryPropertiesRoot() {
+		return entryPropertiesRoot;
+	}
+
 	public void setProperty(String propertyName, String propertyValue) {
 		int propertyID = entryPropertiesRoot.getPropertyID (propertyName);
 		if (propertyID < 0)
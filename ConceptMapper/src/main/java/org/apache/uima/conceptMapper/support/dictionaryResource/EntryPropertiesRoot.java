@@ -20,6 +20,7 @@ package org.apache.uima.conceptMapper.support.dictionaryResource;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.HashMap;
 
 public class EntryPropertiesRoot implements Serializable {
 
@@ -28,6 +29,18 @@ public class EntryPropertiesRoot implements Serializable {
    */
   private static final long serialVersionUID = -4158518283347402903L;
   private String [] propertyNames = null;
+
+  /**
+   * strings (attribute values and tokens) seen while loading, so that repeated ones are stored
+   * once; only needed while loading
+   */
+  private transient HashMap<String, String> stringPool = null;
+
+  private transient int sharedStrings = 0;
+
+  private transient int sharedEntryProperties = 0;
+
+  private transient long bytesSaved = 0;
   
   public EntryPropertiesRoot (String [] thePropertyNames)
   {
@@ -62,6 +75,92 @@ public class EntryPropertiesRoot implements Serializable {
     }
     return new EntryProperties (this, propertyNames.length);
   }
+
+  /**
+   * Return the pooled instance equal to <code>value</code>, adding it to the pool if there is
+   * none yet. Unlike String.intern(), the pool can be dropped once loading is done.
+   * 
+   * @param value
+   * @return the pooled instance, or null if <code>value</code> is null
+   */
+  public String intern (String value)
+  {
+    if (value == null)
+    {
+      return null;
+    }
+    if (stringPool == null)
+    {
+      stringPool = new HashMap<String, String> ();
+    }
+    String pooled = stringPool.get (value);
+    if (pooled == null)
+    {
+      stringPool.put (value, value);
+      return value;
+    }
+    if (pooled != value)
+    {
+      sharedStrings += 1;
+      bytesSaved += estimatedSize (value);
+    }
+    return pooled;
+  }
+
+  /**
+   * Record that an EntryProperties instance was shared instead of copied.
+   */
+  public void sharedEntryProperties ()
+  {
+    sharedEntryProperties += 1;
+    // object with two references, plus its array of property values
+    bytesSaved += 24 + align (16 + 4 * propertyNames.length);
+  }
+
+  /**
+   * @return number of repeated strings replaced by a pooled instance
+   */
+  public int getSharedStrings ()
+  {
+    return sharedStrings;
+  }
+
+  /**
+   * @return number of variants sharing the EntryProperties of their token
+   */
+  public int getSharedEntryProperties ()
+  {
+    return sharedEntryProperties;
+  }
+
+  /**
+   * @return approximate number of heap bytes saved by pooling and sharing, assuming a 64-bit VM
+   *         with compressed references
+   */
+  public long getBytesSaved ()
+  {
+    return bytesSaved;
+  }
+
+  /**
+   * Drop the string pool once loading is done; the pooled strings remain referenced by the entries
+   * using them.
+   */
+  public void releaseStringPool ()
+  {
+    stringPool = null;
+  }
+
+  private static long estimatedSize (String value)
+  {
+    // String object plus its char array
+    return 24 + align (16 + 2 * value.length ());
+  }
+
+  private static long align (long size)
+  {
+    return (size + 7) & ~7L;
+  }
   
 
 }
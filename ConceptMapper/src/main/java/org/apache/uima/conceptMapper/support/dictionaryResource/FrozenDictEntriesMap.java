@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.dictionaryResource;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+
+/**
+ * Read-only map of first words to dictionary entries, built once a dictionary has finished
+ * loading. Unlike the Hashtable used while loading, lookups take no lock, so a dictionary shared
+ * by many processing threads does not serialize them. Instances must be published through a
+ * volatile (or final) field.
+ */
+public final class FrozenDictEntriesMap {
+
+  private final HashMap<String, DictEntriesByLength> map;
+
+  /**
+   * @param contents
+   *          first word to entries mapping to copy; not referenced afterwards
+   */
+  public FrozenDictEntriesMap(Map<String, DictEntriesByLength> contents) {
+    map = new HashMap<String, DictEntriesByLength>((int) (contents.size() / 0.75f) + 1);
+    map.putAll(contents);
+  }
+
+  public DictEntriesByLength get(String key) {
+    return map.get(key);
+  }
+
+  public Enumeration<String> keys() {
+    return Collections.enumeration(Collections.unmodifiableSet(map.keySet()));
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * @return a copy in the form written to and read from serialized compiled dictionaries
+   */
+  public Hashtable<String, DictEntriesByLength> toHashtable() {
+    return new Hashtable<String, DictEntriesByLength>(map);
+  }
+}
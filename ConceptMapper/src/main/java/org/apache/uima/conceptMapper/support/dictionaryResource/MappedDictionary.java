@@ -0,0 +1,734 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.dictionaryResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
+import org.apache.uima.resource.DataResource;
+
+/**
+ * Compact binary form of a compiled dictionary, read in place from a (memory mapped) byte buffer
+ * rather than deserialized onto the heap. All strings are stored once in a string pool, entry
+ * elements refer to them by id, and identical EntryProperties are stored once and shared by all
+ * entries that use them. Since lookups never copy the dictionary, several JVMs opening the same
+ * file share its pages through the OS page cache.
+ * <p>
+ * Layout (all ints big-endian):
+ *
+ * <pre>
+ * header:         MAGIC, VERSION, propertyNameCount K, stringCount N, hashTableSize H,
+ *                 propertySetCount P, stringDataLength
+ * propertyNames:  K string ids, in EntryPropertiesRoot order
+ * stringHashes:   N ints, String.hashCode() of each pooled string
+ * stringOffsets:  N+1 byte offsets into stringData
+ * hashTable:      H slots, each (string id + 1) or 0 if empty, open addressing
+ * keyRecords:     N ints, offset into records of the first-word record for that string, or -1
+ * propertySets:   P * K string ids (or -1 for no value)
+ * stringData:     UTF-8 bytes of all pooled strings
+ * records:        per first word: lengthCount, then per length (longest first):
+ *                 length, entryCount, entriesOffset, sortedOffset;
+ *                 entries are (length element ids, unsorted id, property set id),
+ *                 sorted is a permutation of the entries ordered by element ids
+ * </pre>
+ */
+public class MappedDictionary {
+
+  /** "CMDB" */
+  public static final int MAGIC = 0x434D4442;
+
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 7 * 4;
+
+  private static final int NO_STRING = -1;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+
+  private final int stringCount;
+
+  private final int hashTableSize;
+
+  private final int propertyNameCount;
+
+  private final int propertyNamesPos;
+
+  private final int stringHashesPos;
+
+  private final int stringOffsetsPos;
+
+  private final int hashTablePos;
+
+  private final int keyRecordsPos;
+
+  private final int propertySetsPos;
+
+  private final int stringDataPos;
+
+  private final int recordsPos;
+
+  private final EntryPropertiesRoot entryPropertiesRoot;
+
+  /** EntryProperties objects, created on first use and then shared, one per property set */
+  private final AtomicReferenceArray<EntryProperties> propertySets;
+
+  /**
+   * @param buffer
+   *          buffer holding a dictionary written by {@link #write write()}; it is only ever read
+   *          with absolute gets, so it may be shared between threads
+   * @throws IOException
+   *           if the buffer does not contain a dictionary in this format
+   */
+  public MappedDictionary(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a mapped ConceptMapper dictionary");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported mapped dictionary version: " + buffer.getInt(4));
+    }
+    propertyNameCount = buffer.getInt(8);
+    stringCount = buffer.getInt(12);
+    hashTableSize = buffer.getInt(16);
+    int propertySetCount = buffer.getInt(20);
+    int stringDataLength = buffer.getInt(24);
+
+    int pos = HEADER_SIZE;
+    propertyNamesPos = pos;
+    pos += 4 * propertyNameCount;
+    stringHashesPos = pos;
+    pos += 4 * stringCount;
+    stringOffsetsPos = pos;
+    pos += 4 * (stringCount + 1);
+    hashTablePos = pos;
+    pos += 4 * hashTableSize;
+    keyRecordsPos = pos;
+    pos += 4 * stringCount;
+    propertySetsPos = pos;
+    pos += 4 * propertySetCount * propertyNameCount;
+    stringDataPos = pos;
+    pos += stringDataLength;
+    recordsPos = pos;
+    if (recordsPos > buffer.limit()) {
+      throw new IOException("Truncated mapped dictionary");
+    }
+
+    String[] propertyNames = new String[propertyNameCount];
+    for (int i = 0; i < propertyNameCount; i++) {
+      propertyNames[i] = getString(buffer.getInt(propertyNamesPos + 4 * i));
+    }
+    entryPropertiesRoot = new EntryPropertiesRoot(propertyNames);
+    propertySets = new AtomicReferenceArray<EntryProperties>(propertySetCount);
+  }
+
+  /**
+   * Open a dictionary from a data resource. Resources that are plain files are memory mapped
+   * read-only, anything else (e.g. a dictionary inside a jar) is read into a heap buffer.
+   *
+   * @param data
+   * @return the dictionary
+   * @throws IOException
+   */
+  public static MappedDictionary open(DataResource data) throws IOException {
+    URI uri = data.getUri();
+    if (uri != null && "file".equals(uri.getScheme())) {
+      return new MappedDictionary(map(new File(uri)));
+    }
+    InputStream in = data.getInputStream();
+    try {
+      ByteArrayOutputStream contents = new ByteArrayOutputStream();
+      byte[] block = new byte[65536];
+      int count;
+      while ((count = in.read(block)) > 0) {
+        contents.write(block, 0, count);
+      }
+      return new MappedDictionary(ByteBuffer.wrap(contents.toByteArray()));
+    } finally {
+      in.close();
+    }
+  }
+
+  private static ByteBuffer map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Mapped dictionary larger than 2GB: " + file);
+      }
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      raf.close();
+    }
+  }
+
+  public EntryPropertiesRoot getEntryPropertiesRoot() {
+    return entryPropertiesRoot;
+  }
+
+  /**
+   * @param key
+   *          first word
+   * @return entries starting with <code>key</code>, or null if there are none
+   */
+  public DictEntriesByLength getEntries(String key) {
+    int id = findString(key);
+    if (id == NO_STRING) {
+      return null;
+    }
+    int record = buffer.getInt(keyRecordsPos + 4 * id);
+    if (record < 0) {
+      return null;
+    }
+    return new MappedDictEntriesByLength(recordsPos + record);
+  }
+
+  /**
+   * @return all first words in the dictionary
+   */
+  public Enumeration<String> keys() {
+    return new Enumeration<String>() {
+      private int next = advance(0);
+
+      private int advance(int from) {
+        while (from < stringCount && buffer.getInt(keyRecordsPos + 4 * from) < 0) {
+          from++;
+        }
+        return from;
+      }
+
+      public boolean hasMoreElements() {
+        return next < stringCount;
+      }
+
+      public String nextElement() {
+        if (next >= stringCount) {
+          throw new NoSuchElementException();
+        }
+        String key = getString(next);
+        next = advance(next + 1);
+        return key;
+      }
+    };
+  }
+
+  private String getString(int id) {
+    if (id == NO_STRING) {
+      return null;
+    }
+    int start = buffer.getInt(stringOffsetsPos + 4 * id);
+    int end = buffer.getInt(stringOffsetsPos + 4 * (id + 1));
+    ByteBuffer bytes = buffer.duplicate();
+    bytes.limit(stringDataPos + end);
+    bytes.position(stringDataPos + start);
+    return UTF8.decode(bytes).toString();
+  }
+
+  /**
+   * @return id of <code>text</code> in the string pool, or NO_STRING if it does not occur
+   */
+  private int findString(String text) {
+    int hash = text.hashCode();
+    int mask = hashTableSize - 1;
+    int slot = spread(hash) & mask;
+    // UTF-8 form of text, encoded on the first hash hit and compared in place with pooled strings
+    ByteBuffer encoded = null;
+    while (true) {
+      int id = buffer.getInt(hashTablePos + 4 * slot) - 1;
+      if (id == NO_STRING) {
+        return NO_STRING;
+      }
+      if (buffer.getInt(stringHashesPos + 4 * id) == hash) {
+        if (encoded == null) {
+          encoded = UTF8.encode(text);
+        }
+        if (stringEquals(id, encoded)) {
+          return id;
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * @return true if the pooled string <code>id</code> has exactly the bytes of
+   *         <code>encoded</code>
+   */
+  private boolean stringEquals(int id, ByteBuffer encoded) {
+    int start = stringDataPos + buffer.getInt(stringOffsetsPos + 4 * id);
+    int end = stringDataPos + buffer.getInt(stringOffsetsPos + 4 * (id + 1));
+    int length = encoded.remaining();
+    if (end - start != length) {
+      return false;
+    }
+    int base = encoded.position();
+    for (int i = 0; i < length; i++) {
+      if (buffer.get(start + i) != encoded.get(base + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private EntryProperties getProperties(int propertySet) {
+    EntryProperties properties = propertySets.get(propertySet);
+    if (properties == null) {
+      properties = entryPropertiesRoot.newEntryProperties();
+      int base = propertySetsPos + 4 * propertySet * propertyNameCount;
+      String[] names = entryPropertiesRoot.propertyNames();
+      for (int i = 0; i < propertyNameCount; i++) {
+        properties.setProperty(names[i], getString(buffer.getInt(base + 4 * i)));
+      }
+      if (!propertySets.compareAndSet(propertySet, null, properties)) {
+        properties = propertySets.get(propertySet);
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * View of the entries for one first word.
+   */
+  private class MappedDictEntriesByLength implements DictEntriesByLength {
+    private static final long serialVersionUID = 1L;
+
+    private final int record;
+
+    private final int lengthCount;
+
+    MappedDictEntriesByLength(int record) {
+      this.record = record;
+      this.lengthCount = buffer.getInt(record);
+    }
+
+    private int lengthPos(int which) {
+      return record + 4 + 16 * which;
+    }
+
+    public DictEntries getEntries(int length) {
+      for (int which = 0; which < lengthCount; which++) {
+        int pos = lengthPos(which);
+        if (buffer.getInt(pos) == length) {
+          return new MappedDictEntries(length, buffer.getInt(pos + 4), recordsPos
+                  + buffer.getInt(pos + 8), recordsPos + buffer.getInt(pos + 12));
+        }
+      }
+      return null;
+    }
+
+    public Collection<DictEntry> getMatchingEntries(String[] elements) {
+      DictEntries entriesOfLength = getEntries(elements.length);
+      if (entriesOfLength == null) {
+        return Collections.emptyList();
+      }
+      return entriesOfLength.getMatchingEntries(elements);
+    }
+
+    public Integer getLongest() {
+      return Integer.valueOf(buffer.getInt(lengthPos(0)));
+    }
+
+    public Integer getShortest() {
+      return Integer.valueOf(buffer.getInt(lengthPos(lengthCount - 1)));
+    }
+
+    public void putEntry(int length, String[] elements, String unsorted, EntryProperties props) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * View of the entries of one length for one first word.
+   */
+  private class MappedDictEntries implements DictEntries {
+    private static final long serialVersionUID = 1L;
+
+    private final int length;
+
+    private final int entryCount;
+
+    private final int entriesPos;
+
+    private final int sortedPos;
+
+    MappedDictEntries(int length, int entryCount, int entriesPos, int sortedPos) {
+      this.length = length;
+      this.entryCount = entryCount;
+      this.entriesPos = entriesPos;
+      this.sortedPos = sortedPos;
+    }
+
+    private int entryPos(int ordinal) {
+      return entriesPos + 4 * (length + 2) * ordinal;
+    }
+
+    public ArrayList<DictEntry> getEntries() {
+      ArrayList<DictEntry> result = new ArrayList<DictEntry>(entryCount);
+      for (int ordinal = 0; ordinal < entryCount; ordinal++) {
+        result.add(new MappedDictEntry(entryPos(ordinal), length));
+      }
+      return result;
+    }
+
+    public Collection<DictEntry> getMatchingEntries(String[] elements) {
+      if (elements.length != length) {
+        return Collections.emptyList();
+      }
+      int[] ids = new int[length];
+      for (int i = 0; i < length; i++) {
+        ids[i] = findString(elements[i]);
+        if (ids[i] == NO_STRING) {
+          return Collections.emptyList();
+        }
+      }
+      // binary search for the first entry not less than ids
+      int low = 0;
+      int high = entryCount;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compare(buffer.getInt(sortedPos + 4 * mid), ids) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      List<DictEntry> result = null;
+      for (int which = low; which < entryCount; which++) {
+        int ordinal = buffer.getInt(sortedPos + 4 * which);
+        if (compare(ordinal, ids) != 0) {
+          break;
+        }
+        if (result == null) {
+          result = new ArrayList<DictEntry>(1);
+        }
+        result.add(new MappedDictEntry(entryPos(ordinal), length));
+      }
+      if (result == null) {
+        return Collections.emptyList();
+      }
+      return result;
+    }
+
+    private int compare(int ordinal, int[] ids) {
+      int pos = entryPos(ordinal);
+      for (int i = 0; i < length; i++) {
+        int id = buffer.getInt(pos + 4 * i);
+        if (id != ids[i]) {
+          return (id < ids[i]) ? -1 : 1;
+        }
+      }
+      return 0;
+    }
+
+    public void putEntry(String[] elements, String unsorted, EntryProperties props) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * View of a single entry.
+   */
+  private class MappedDictEntry implements DictEntry {
+    private static final long serialVersionUID = 1L;
+
+    private final int pos;
+
+    private final int length;
+
+    MappedDictEntry(int pos, int length) {
+      this.pos = pos;
+      this.length = length;
+    }
+
+    public String[] getElements() {
+      String[] elements = new String[length];
+      for (int i = 0; i < length; i++) {
+        elements[i] = getString(buffer.getInt(pos + 4 * i));
+      }
+      return elements;
+    }
+
+    public String getUnsorted() {
+      return getString(buffer.getInt(pos + 4 * length));
+    }
+
+    public EntryProperties getProperties() {
+      return MappedDictionary.this.getProperties(buffer.getInt(pos + 4 * (length + 1)));
+    }
+
+    public void setElements(String[] elements) {
+      throw new UnsupportedOperationException();
+    }
+
+    public void setUnsorted(String text) {
+      throw new UnsupportedOperationException();
+    }
+
+    public void setProperties(EntryProperties props) {
+      throw new UnsupportedOperationException();
+    }
+
+    public boolean equals(Object other) {
+      return (other instanceof MappedDictEntry) && ((MappedDictEntry) other).pos == pos;
+    }
+
+    public int hashCode() {
+      return pos;
+    }
+  }
+
+  /**
+   * Write the contents of a loaded dictionary in this format.
+   *
+   * @param dict
+   *          the dictionary to write
+   * @param output
+   *          where to write it; not closed by this method
+   * @throws IOException
+   */
+  public static void write(DictionaryResource dict, OutputStream output) throws IOException {
+    StringPool strings = new StringPool();
+    EntryPropertiesRoot root = dict.getEntryPropertiesRoot();
+    String[] propertyNames = root.propertyNames();
+    int[] propertyNameIds = new int[propertyNames.length];
+    for (int i = 0; i < propertyNames.length; i++) {
+      propertyNameIds[i] = strings.intern(propertyNames[i]);
+    }
+
+    ArrayList<String> keys = new ArrayList<String>();
+    Enumeration<String> keyEnum = dict.keys();
+    while (keyEnum.hasMoreElements()) {
+      keys.add(keyEnum.nextElement());
+    }
+    Collections.sort(keys);
+
+    HashMap<List<Integer>, Integer> propertySetIds = new HashMap<List<Integer>, Integer>();
+    ArrayList<List<Integer>> propertySets = new ArrayList<List<Integer>>();
+    HashMap<Integer, Integer> keyRecords = new HashMap<Integer, Integer>();
+
+    ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    DataOutputStream records = new DataOutputStream(recordBytes);
+    for (String key : keys) {
+      DictEntriesByLength byLength = dict.getEntries(key);
+      keyRecords.put(Integer.valueOf(strings.intern(key)), Integer.valueOf(records.size()));
+
+      ArrayList<Integer> lengths = new ArrayList<Integer>();
+      for (int length = byLength.getLongest().intValue(); length >= byLength.getShortest()
+              .intValue(); length--) {
+        if (byLength.getEntries(length) != null) {
+          lengths.add(Integer.valueOf(length));
+        }
+      }
+      records.writeInt(lengths.size());
+      // entries follow the length table; sorted permutations follow each entry block
+      int pos = records.size() + 16 * lengths.size();
+      ArrayList<int[][]> blocks = new ArrayList<int[][]>();
+      for (Integer length : lengths) {
+        ArrayList<DictEntry> entries = byLength.getEntries(length.intValue()).getEntries();
+        final int[][] block = new int[entries.size()][];
+        for (int ordinal = 0; ordinal < block.length; ordinal++) {
+          DictEntry entry = entries.get(ordinal);
+          String[] elements = entry.getElements();
+          int[] encoded = new int[elements.length + 2];
+          for (int i = 0; i < elements.length; i++) {
+            encoded[i] = strings.intern(elements[i]);
+          }
+          encoded[elements.length] = strings.intern(entry.getUnsorted());
+          encoded[elements.length + 1] = internProperties(entry.getProperties(), propertyNames,
+                  strings, propertySetIds, propertySets);
+          block[ordinal] = encoded;
+        }
+        blocks.add(block);
+        records.writeInt(length.intValue());
+        records.writeInt(block.length);
+        records.writeInt(pos);
+        pos += 4 * (length.intValue() + 2) * block.length;
+        records.writeInt(pos);
+        pos += 4 * block.length;
+      }
+      for (int which = 0; which < blocks.size(); which++) {
+        final int[][] block = blocks.get(which);
+        final int length = lengths.get(which).intValue();
+        Integer[] sorted = new Integer[block.length];
+        for (int ordinal = 0; ordinal < block.length; ordinal++) {
+          for (int value : block[ordinal]) {
+            records.writeInt(value);
+          }
+          sorted[ordinal] = Integer.valueOf(ordinal);
+        }
+        // stable sort, so entries with identical elements keep their original order
+        Arrays.sort(sorted, new Comparator<Integer>() {
+          public int compare(Integer left, Integer right) {
+            int[] l = block[left.intValue()];
+            int[] r = block[right.intValue()];
+            for (int i = 0; i < length; i++) {
+              if (l[i] != r[i]) {
+                return (l[i] < r[i]) ? -1 : 1;
+              }
+            }
+            return 0;
+          }
+        });
+        for (Integer ordinal : sorted) {
+          records.writeInt(ordinal.intValue());
+        }
+      }
+    }
+    records.flush();
+
+    int stringCount = strings.size();
+    int hashTableSize = 1;
+    while (hashTableSize < 2 * stringCount) {
+      hashTableSize <<= 1;
+    }
+    int[] hashTable = new int[hashTableSize];
+    for (int id = 0; id < stringCount; id++) {
+      int slot = spread(strings.get(id).hashCode()) & (hashTableSize - 1);
+      while (hashTable[slot] != 0) {
+        slot = (slot + 1) & (hashTableSize - 1);
+      }
+      hashTable[slot] = id + 1;
+    }
+
+    ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+    int[] stringOffsets = new int[stringCount + 1];
+    for (int id = 0; id < stringCount; id++) {
+      stringOffsets[id] = stringData.size();
+      byte[] bytes = strings.get(id).getBytes("UTF-8");
+      stringData.write(bytes, 0, bytes.length);
+    }
+    stringOffsets[stringCount] = stringData.size();
+
+    long total = HEADER_SIZE
+            + 4L
+            * (propertyNames.length + stringCount + (stringCount + 1) + hashTableSize
+                    + stringCount + propertySets.size() * propertyNames.length)
+            + stringData.size() + recordBytes.size();
+    if (total > Integer.MAX_VALUE) {
+      throw new IOException("Dictionary too large for mapped format: " + total + " bytes");
+    }
+
+    DataOutputStream out = new DataOutputStream(output);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(propertyNames.length);
+    out.writeInt(stringCount);
+    out.writeInt(hashTableSize);
+    out.writeInt(propertySets.size());
+    out.writeInt(stringData.size());
+    for (int id : propertyNameIds) {
+      out.writeInt(id);
+    }
+    for (int id = 0; id < stringCount; id++) {
+      out.writeInt(strings.get(id).hashCode());
+    }
+    for (int offset : stringOffsets) {
+      out.writeInt(offset);
+    }
+    for (int slot : hashTable) {
+      out.writeInt(slot);
+    }
+    for (int id = 0; id < stringCount; id++) {
+      Integer record = keyRecords.get(Integer.valueOf(id));
+      out.writeInt((record == null) ? -1 : record.intValue());
+    }
+    for (List<Integer> propertySet : propertySets) {
+      for (Integer value : propertySet) {
+        out.writeInt(value.intValue());
+      }
+    }
+    stringData.writeTo(out);
+    recordBytes.writeTo(out);
+    out.flush();
+  }
+
+  private static int internProperties(EntryProperties properties, String[] propertyNames,
+          StringPool strings, HashMap<List<Integer>, Integer> propertySetIds,
+          ArrayList<List<Integer>> propertySets) {
+    ArrayList<Integer> values = new ArrayList<Integer>(propertyNames.length);
+    for (String name : propertyNames) {
+      values.add(Integer.valueOf(strings.intern(properties.getProperty(name))));
+    }
+    Integer id = propertySetIds.get(values);
+    if (id == null) {
+      id = Integer.valueOf(propertySets.size());
+      propertySetIds.put(values, id);
+      propertySets.add(values);
+    }
+    return id.intValue();
+  }
+
+  /**
+   * Assigns ids to strings in order of first appearance.
+   */
+  private static class StringPool {
+    private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+    private final ArrayList<String> strings = new ArrayList<String>();
+
+    int intern(String text) {
+      if (text == null) {
+        return NO_STRING;
+      }
+      Integer id = ids.get(text);
+      if (id == null) {
+        id = Integer.valueOf(strings.size());
+        ids.put(text, id);
+        strings.add(text);
+      }
+      return id.intValue();
+    }
+
+    String get(int id) {
+      return strings.get(id);
+    }
+
+    int size() {
+      return strings.size();
+    }
+  }
+}
@@ -103,6 +103,18 @@ public class AnnotatorAdaptor {
     }
   }
 
+  /**
+   * Destroys the analysis engine created by {@link #initCPM()}; the adaptor cannot be used
+   * afterwards.
+   */
+  public void destroy() {
+    if (ae != null) {
+      ae.destroy();
+      ae = null;
+      cas = null;
+    }
+  }
+
   public void runCPM(String text) {
     cas.setDocumentText(text);
     cas.setDocumentLanguage(langID);
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.stemmer;
+
+import java.io.FileNotFoundException;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stemmer that remembers the results of another stemmer, so that words recurring in a corpus are
+ * only stemmed once. At most a fixed number of results are kept; when full, the least recently
+ * used one is discarded. Safe for use by several threads, even if the delegate is not: calls to
+ * the delegate are serialized.
+ * <p>
+ * To use it through the Stemmer and StemmerDictionary parameters, name this class as the stemmer
+ * and give the stemmer dictionary as
+ * <code>delegateClassName[,cacheSize[,delegateDictionary]]</code>. The delegate is instantiated
+ * with its zero-parameter constructor and initialized with <code>delegateDictionary</code>
+ * (null if not given).
+ */
+public class CachingStemmer implements Stemmer {
+
+  /** number of stemmed words remembered if no size is given */
+  public static final int DEFAULT_CACHE_SIZE = 50000;
+
+  private Stemmer delegate;
+
+  private Map<String, String> cache;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Create an uninitialized stemmer; {@link #initialize(String)} must be called before use.
+   */
+  public CachingStemmer() {
+    super();
+  }
+
+  /**
+   * @param delegate
+   *          the stemmer whose results are to be remembered, already initialized
+   * @param cacheSize
+   *          maximum number of results to remember
+   */
+  public CachingStemmer(Stemmer delegate, int cacheSize) {
+    super();
+    setDelegate(delegate, cacheSize);
+  }
+
+  private void setDelegate(Stemmer delegate, final int cacheSize) {
+    if (cacheSize < 1) {
+      throw new IllegalArgumentException("cache size must be positive: " + cacheSize);
+    }
+    this.delegate = delegate;
+    this.cache = new LinkedHashMap<String, String>(Math.min(cacheSize, 1024), 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.apache.uima.conceptMapper.support.stemmer.Stemmer#stem(java.lang.String)
+   */
+  public String stem(String token) {
+    if (delegate == null) {
+      throw new IllegalStateException("CachingStemmer used before being initialized");
+    }
+    synchronized (cache) {
+      String stemmed = cache.get(token);
+      if (stemmed != null) {
+        hits.incrementAndGet();
+        return stemmed;
+      }
+      misses.incrementAndGet();
+      stemmed = delegate.stem(token);
+      if (stemmed != null) {
+        cache.put(token, stemmed);
+      }
+      return stemmed;
+    }
+  }
+
+  /**
+   * Instantiate and initialize the delegate stemmer.
+   *
+   * @param dictionary
+   *          <code>delegateClassName[,cacheSize[,delegateDictionary]]</code>
+   * @see org.apache.uima.conceptMapper.support.stemmer.Stemmer#initialize(java.lang.String)
+   */
+  public void initialize(String dictionary) throws FileNotFoundException, ParseException {
+    if (dictionary == null) {
+      throw new ParseException("no delegate stemmer specified", 0);
+    }
+    String[] spec = dictionary.split(",", 3);
+    int cacheSize = DEFAULT_CACHE_SIZE;
+    if ((spec.length > 1) && (spec[1].trim().length() != 0)) {
+      try {
+        cacheSize = Integer.parseInt(spec[1].trim());
+      } catch (NumberFormatException e) {
+        throw new ParseException("invalid cache size: '" + spec[1] + "'", spec[0].length() + 1);
+      }
+    }
+    Stemmer stemmer;
+    try {
+      stemmer = (Stemmer) Class.forName(spec[0].trim()).newInstance();
+    } catch (Exception e) {
+      ParseException pe = new ParseException("cannot instantiate delegate stemmer: '" + spec[0]
+              + "'", 0);
+      pe.initCause(e);
+      throw pe;
+    }
+    stemmer.initialize((spec.length > 2) ? spec[2] : null);
+    setDelegate(stemmer, cacheSize);
+  }
+
+  /**
+   * @return the stemmer whose results are remembered
+   */
+  public Stemmer getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * @return number of calls answered from the cache
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of calls passed on to the delegate stemmer
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return number of stemmed words currently remembered
+   */
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  public String toString() {
+    return "CachingStemmer(" + delegate.getClass().getName() + "): " + size() + " entries, "
+            + getHits() + " hits, " + getMisses() + " misses";
+  }
+}
@@ -61,6 +61,12 @@ public class OffsetTokenizer  extends JCasAnnotator_ImplBase {
   /** Configuration parameter key/label for the stemmer class spec */
   public static final String PARAM_STEMMER_CLASS = "Stemmer";
 
+  /**
+   * Configuration parameter key/label for the stemmer dictionary, passed into the stemmer's
+   * initialization method if specified
+   */
+  public static final String PARAM_STEMMER_DICT = "StemmerDictionary";
+
   /** Configuration parameter key/label for the token delimiters string */
   public static final String PARAM_TOKEN_DELIM = "tokenDelimiters";
 
@@ -99,6 +105,8 @@ public class OffsetTokenizer  extends JCasAnnotator_ImplBase {
   /** Stemming on/off flag. If true, tokens will be stemmed by the tokenizer. */
   private boolean stemTokens = false;
 
+  private String stemmerDictionary = null;
+
   /**
    * regular expression pattern used to identify terms with an initial capital letter followed by
    * all lowercase letters.
@@ -365,6 +373,16 @@ public class OffsetTokenizer  extends JCasAnnotator_ImplBase {
     for (int i = 0; i < configParameterNames.length; i++) {
       processConfigurationParameter(configParameterNames[i], configParameters[i]);
     }
+    // parameters come in no particular order, so initialize the stemmer once all are known
+    if ((getStemmer() != null) && (stemmerDictionary != null)) {
+      try {
+        getStemmer().initialize(stemmerDictionary);
+      } catch (Exception e) {
+        System.err.println("Exception trying to initialize stemmer with dictionary: '"
+                + stemmerDictionary + "', original exception:" + e.getMessage());
+        e.printStackTrace();
+      }
+    }
   }
 
 
@@ -449,6 +467,8 @@ public class OffsetTokenizer  extends JCasAnnotator_ImplBase {
                 + (String) configParameterValue + "', original exception:" + e.getMessage());
         e.printStackTrace();
       }
+    } else if (configParameterName.equals(PARAM_STEMMER_DICT)) {
+      stemmerDictionary = (String) configParameterValue;
     } else if (configParameterName.equals(PARAM_TOKEN_DELIM)) {
       String tokenDelimiters = (String) configParameterValue;
       if (tokenDelimiters != null) {
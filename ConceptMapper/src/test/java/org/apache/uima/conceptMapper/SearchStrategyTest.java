@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryTokenIndex;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.resource.FileResourceSpecifier;
+import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Runs the same dictionary and documents through the different search strategies and checks that
+ * strategies which are meant to find the same matches produce identical annotations.
+ */
+public class SearchStrategyTest extends TestCase {
+
+  private static final File TOKENIZER_DESCRIPTOR = new File(
+          "desc/analysis_engine/primitive/OffsetTokenizer.xml");
+
+  private static final File CONCEPT_MAPPER_DESCRIPTOR = new File(
+          "desc/analysis_engine/primitive/ConceptMapperOffsetTokenizer.xml");
+
+  private static final File DICTIONARY = new File("src/test/resources/dict/searchStrategyDict.xml");
+
+  /** type system descriptors imported by name from the ConceptMapper descriptor */
+  private static final File TYPE_SYSTEM_DIR = new File("src/main/java");
+
+  private static final String TOKEN_TYPE = "uima.tt.TokenAnnotation";
+
+  private static final String RESULT_TYPE = "org.apache.uima.conceptMapper.DictTerm";
+
+  private static final String[] DOCUMENTS = {
+      "I moved from New York City to new York State.",
+      "The new York City Hall is not in York; the old city hall was.",
+      "New new York York City City Hall hall NYC, new york city hall.",
+      "Blood sugar and blood pressure were taken with a cuff; the blood test is pending.",
+      "Blood pressure cuff, pressure blood sugar blood.",
+      "Acute renal and hepatic failure; acute failure of the renal system.",
+      "Hepatic failure, acute: renal failure, acute acute renal.",
+      "Bye, said the bye bye bird, bye.",
+      "Nothing to see here." };
+
+  private AnalysisEngine tokenizer;
+
+  private List<AnalysisEngine> conceptMappers = new ArrayList<AnalysisEngine>();
+
+  protected void setUp() throws Exception {
+    tokenizer = UIMAFramework.produceAnalysisEngine(parse(TOKENIZER_DESCRIPTOR));
+  }
+
+  protected void tearDown() throws Exception {
+    for (AnalysisEngine conceptMapper : conceptMappers) {
+      conceptMapper.destroy();
+    }
+    tokenizer.destroy();
+  }
+
+  public void testAhoCorasickMatchesContiguous() throws Exception {
+    assertSameAnnotations(ConceptMapper.PARAMVALUE_CONTIGUOUSMATCH,
+            ConceptMapper.PARAMVALUE_AHOCORASICKMATCH, false);
+  }
+
+  public void testAhoCorasickMatchesContiguousFindAll() throws Exception {
+    assertSameAnnotations(ConceptMapper.PARAMVALUE_CONTIGUOUSMATCH,
+            ConceptMapper.PARAMVALUE_AHOCORASICKMATCH, true);
+  }
+
+  public void testSkipAnyMatchesLinearScan() throws Exception {
+    assertSameAsLinearScan(ConceptMapper.PARAMVALUE_SKIPANYMATCH, false);
+  }
+
+  public void testSkipAnyMatchesLinearScanFindAll() throws Exception {
+    assertSameAsLinearScan(ConceptMapper.PARAMVALUE_SKIPANYMATCH, true);
+  }
+
+  public void testSkipAnyAllowOverlapMatchesLinearScan() throws Exception {
+    assertSameAsLinearScan(ConceptMapper.PARAMVALUE_SKIPANYMATCHALLOWOVERLAP, false);
+  }
+
+  public void testSkipAnyAllowOverlapMatchesLinearScanFindAll() throws Exception {
+    assertSameAsLinearScan(ConceptMapper.PARAMVALUE_SKIPANYMATCHALLOWOVERLAP, true);
+  }
+
+  private void assertSameAnnotations(String expectedStrategy, String actualStrategy,
+          boolean findAllMatches) throws Exception {
+    AnalysisEngine expectedEngine = createConceptMapper(expectedStrategy, findAllMatches);
+    AnalysisEngine actualEngine = createConceptMapper(actualStrategy, findAllMatches);
+    int total = 0;
+    for (String document : DOCUMENTS) {
+      List<String> expected = getAnnotations(process(expectedEngine, document));
+      List<String> actual = getAnnotations(process(actualEngine, document));
+      assertEquals(document, expected, actual);
+      total += expected.size();
+    }
+    // guard against both strategies silently finding nothing
+    assertTrue(total > 0);
+  }
+
+  /**
+   * Compares the annotations of the SkipAny strategies, which look up candidate entries in a
+   * {@link DictionaryTokenIndex}, against {@link #findSkipAnyMatches}, which scans the dictionary
+   * entries of every token in the span as ConceptMapper did before the index was introduced.
+   */
+  private void assertSameAsLinearScan(String strategy, boolean findAllMatches) throws Exception {
+    AnalysisEngine engine = createConceptMapper(strategy, findAllMatches);
+    DictionaryResource dict = (DictionaryResource) engine.getUimaContext().getResourceObject(
+            ConceptMapper.PARAM_DICT_FILE);
+    boolean allowOverlap = strategy.equals(ConceptMapper.PARAMVALUE_SKIPANYMATCHALLOWOVERLAP);
+    int total = 0;
+    for (String document : DOCUMENTS) {
+      CAS cas = process(engine, document);
+      List<String> expected = findSkipAnyMatches(dict, cas, allowOverlap, findAllMatches);
+      assertEquals(document, expected, getAnnotations(cas));
+      total += expected.size();
+    }
+    assertTrue(total > 0);
+  }
+
+  /**
+   * Reference implementation of the SkipAny search: every entry filed under a token of the span
+   * whose tokens all occur in the span is a candidate, tried from the longest to the shortest
+   * entry at each position where its key occurs.
+   * 
+   * @return the matches, described as by {@link #getAnnotations(CAS)}
+   */
+  private List<String> findSkipAnyMatches(DictionaryResource dict, CAS cas, boolean allowOverlap,
+          boolean findAllMatches) {
+    List<AnnotationFS> tokens = new ArrayList<AnnotationFS>();
+    List<String> normalizedTokens = new ArrayList<String>();
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(
+            cas.getTypeSystem().getType(TOKEN_TYPE)).iterator();
+    while (iterator.hasNext()) {
+      AnnotationFS token = iterator.next();
+      tokens.add(token);
+      normalizedTokens.add(token.getCoveredText().trim().toLowerCase());
+    }
+
+    Map<String, List<DictEntry>> potentialEntries = new HashMap<String, List<DictEntry>>();
+    for (String word : normalizedTokens) {
+      List<DictEntry> entries = potentialEntries.get(word);
+      if (entries == null) {
+        entries = new ArrayList<DictEntry>();
+        potentialEntries.put(word, entries);
+      }
+      DictEntriesByLength entriesByLength = dict.getEntries(word);
+      if (entriesByLength != null) {
+        for (int length = entriesByLength.getLongest().intValue(); length >= entriesByLength
+                .getShortest().intValue(); length--) {
+          DictEntries dictEntries = entriesByLength.getEntries(length);
+          if (dictEntries != null) {
+            for (DictEntry entry : dictEntries.getEntries()) {
+              if (normalizedTokens.containsAll(Arrays.asList(entry.getElements()))
+                      && !entries.contains(entry)) {
+                entries.add(entry);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    List<String> matches = new ArrayList<String>();
+    int whichToken = 0;
+    while (whichToken < normalizedTokens.size()) {
+      boolean foundMatch = false;
+      List<String> remainder = normalizedTokens.subList(whichToken, normalizedTokens.size());
+      for (Iterator<DictEntry> entries = potentialEntries.get(normalizedTokens.get(whichToken))
+              .iterator(); entries.hasNext() && !foundMatch;) {
+        DictEntry entry = entries.next();
+        if (remainder.containsAll(Arrays.asList(entry.getElements()))) {
+          int lengthOfMatch = matchEntry(tokens, normalizedTokens, whichToken, entry, matches);
+          if (!findAllMatches) {
+            foundMatch = true;
+            whichToken += allowOverlap ? 1 : lengthOfMatch;
+          }
+        }
+      }
+      if (!foundMatch) {
+        whichToken += 1;
+      }
+    }
+    Collections.sort(matches);
+    return matches;
+  }
+
+  /**
+   * Matches the entry against the earliest occurrences of its tokens from whichToken on.
+   * 
+   * @return the number of tokens walked over
+   */
+  private int matchEntry(List<AnnotationFS> tokens, List<String> normalizedTokens,
+          int whichToken, DictEntry entry, List<String> matches) {
+    List<String> remaining = new ArrayList<String>(Arrays.asList(entry.getElements()));
+    List<AnnotationFS> matched = new ArrayList<AnnotationFS>();
+    int position = whichToken;
+    while (!remaining.isEmpty() && position < normalizedTokens.size()) {
+      if (remaining.remove(normalizedTokens.get(position))) {
+        matched.add(tokens.get(position));
+      }
+      position++;
+    }
+    if (remaining.isEmpty()) {
+      int begin = Integer.MAX_VALUE;
+      int end = 0;
+      StringBuilder matchedText = new StringBuilder();
+      StringBuilder matchedBegins = new StringBuilder();
+      for (AnnotationFS token : matched) {
+        begin = Math.min(begin, token.getBegin());
+        end = Math.max(end, token.getEnd());
+        String separator = (matchedText.length() == 0) ? "" : " ";
+        matchedText.append(separator).append(token.getCoveredText().trim().toLowerCase());
+        matchedBegins.append(separator).append(token.getBegin());
+      }
+      matches.add(begin + "-" + end + " " + entry.getProperties().getProperty("canonical") + " '"
+              + matchedText + "' [" + matchedBegins + "]");
+    }
+    return position - whichToken;
+  }
+
+  private AnalysisEngine createConceptMapper(String searchStrategy, boolean findAllMatches)
+          throws Exception {
+    AnalysisEngineDescription description = (AnalysisEngineDescription) parse(CONCEPT_MAPPER_DESCRIPTOR);
+    ConfigurationParameterSettings settings = description.getAnalysisEngineMetaData()
+            .getConfigurationParameterSettings();
+    settings.setParameterValue(ConceptMapper.PARAM_SEARCHSTRATEGY, searchStrategy);
+    settings.setParameterValue(ConceptMapper.PARAM_FINDALLMATCHES, Boolean.valueOf(findAllMatches));
+    settings.setParameterValue("TokenizerDescriptorPath", TOKENIZER_DESCRIPTOR.getAbsolutePath());
+    for (ExternalResourceDescription resource : description.getResourceManagerConfiguration()
+            .getExternalResources()) {
+      ((FileResourceSpecifier) resource.getResourceSpecifier()).setFileUrl(DICTIONARY.toURI()
+              .toString());
+    }
+    // a resource manager per engine, so that each one loads its own copy of the dictionary
+    ResourceManager resourceManager = UIMAFramework.newDefaultResourceManager();
+    resourceManager.setDataPath(TYPE_SYSTEM_DIR.getAbsolutePath());
+    AnalysisEngine conceptMapper = UIMAFramework.produceAnalysisEngine(description,
+            resourceManager, null);
+    conceptMappers.add(conceptMapper);
+    return conceptMapper;
+  }
+
+  private CAS process(AnalysisEngine conceptMapper, String document) throws Exception {
+    CAS cas = CasCreationUtils.createCas(Arrays.asList(tokenizer.getAnalysisEngineMetaData(),
+            conceptMapper.getAnalysisEngineMetaData()));
+    cas.setDocumentLanguage("en");
+    cas.setDocumentText(document);
+    tokenizer.process(cas);
+    conceptMapper.process(cas);
+    return cas;
+  }
+
+  /**
+   * @return a description of each result annotation (offsets, canonical form, matched text and
+   *         matched token offsets), sorted so that the order in which they were added to the CAS
+   *         does not matter
+   */
+  private List<String> getAnnotations(CAS cas) {
+    Type type = cas.getTypeSystem().getType(RESULT_TYPE);
+    Feature canonical = type.getFeatureByBaseName("DictCanon");
+    Feature matchedText = type.getFeatureByBaseName("matchedText");
+    Feature matchedTokens = type.getFeatureByBaseName("matchedTokens");
+    List<String> annotations = new ArrayList<String>();
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(type).iterator();
+    while (iterator.hasNext()) {
+      AnnotationFS annotation = iterator.next();
+      StringBuilder description = new StringBuilder();
+      description.append(annotation.getBegin()).append('-').append(annotation.getEnd());
+      description.append(' ').append(annotation.getStringValue(canonical));
+      description.append(" '").append(annotation.getStringValue(matchedText)).append("' [");
+      FSArray tokens = (FSArray) annotation.getFeatureValue(matchedTokens);
+      for (int i = 0; i < tokens.size(); i++) {
+        AnnotationFS token = (AnnotationFS) tokens.get(i);
+        description.append(i == 0 ? "" : " ").append(token.getBegin());
+      }
+      description.append(']');
+      annotations.add(description.toString());
+    }
+    Collections.sort(annotations);
+    return annotations;
+  }
+
+  private static ResourceSpecifier parse(File descriptor) throws Exception {
+    return UIMAFramework.getXMLParser().parseResourceSpecifier(new XMLInputSource(descriptor));
+  }
+}
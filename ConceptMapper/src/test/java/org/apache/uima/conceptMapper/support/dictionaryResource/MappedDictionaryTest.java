@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.conceptMapper.support.dictionaryResource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntries;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntriesByLength;
+import org.apache.uima.conceptMapper.support.dictionaryResource.DictionaryResource.DictEntry;
+
+/**
+ * Writes an in-memory dictionary in the mapped format, maps the file and checks that all lookups
+ * return the same entries as the in-memory dictionary.
+ */
+public class MappedDictionaryTest extends TestCase {
+
+  private static final String[] PROPERTY_NAMES = { "canonical", "code" };
+
+  private DictionaryResource_impl dict;
+
+  private MappedDictionary mapped;
+
+  private File file;
+
+  protected void setUp() throws Exception {
+    dict = new DictionaryResource_impl();
+    dict.entryPropertiesRoot = new EntryPropertiesRoot(PROPERTY_NAMES);
+    put("new", "NEW", "1");
+    put("new york", "New York", "2");
+    put("new york city", "New York City", "3");
+    put("new york", "NY", "4");
+    put("york new", "New York", "5");
+    put("caf\u00e9 cr\u00e8me", "Caf\u00e9 Cr\u00e8me", "6");
+    put("z\u00fcrich", "Z\u00fcrich", null);
+    put("\u6771\u4eac \u99c5", "\u6771\u4eac\u99c5", "7");
+    put("\ud835\udd18ima annotator", "\ud835\udd18IMA", "8");
+
+    file = File.createTempFile("mappedDictionary", ".bin");
+    FileOutputStream output = new FileOutputStream(file);
+    try {
+      dict.serializeMappedEntries(output);
+    } finally {
+      output.close();
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      mapped = new MappedDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      raf.close();
+    }
+  }
+
+  protected void tearDown() throws Exception {
+    mapped = null;
+    file.delete();
+  }
+
+  private void put(String text, String canonical, String code) {
+    String[] elements = text.split(" ");
+    EntryProperties props = dict.getEntryPropertiesRoot().newEntryProperties();
+    props.setProperty("canonical", canonical);
+    props.setProperty("code", code);
+    dict.putEntry(elements[0], elements, text, elements.length, props);
+  }
+
+  public void testKeys() {
+    assertEquals(sorted(dict.keys()), sorted(mapped.keys()));
+  }
+
+  public void testEntries() {
+    Enumeration<String> keys = dict.keys();
+    while (keys.hasMoreElements()) {
+      String key = keys.nextElement();
+      DictEntriesByLength expected = dict.getEntries(key);
+      DictEntriesByLength actual = mapped.getEntries(key);
+      assertNotNull(key, actual);
+      assertEquals(key, expected.getLongest(), actual.getLongest());
+      assertEquals(key, expected.getShortest(), actual.getShortest());
+      for (int length = 1; length <= expected.getLongest().intValue(); length++) {
+        DictEntries expectedEntries = expected.getEntries(length);
+        DictEntries actualEntries = actual.getEntries(length);
+        if (expectedEntries == null) {
+          assertNull(key + "/" + length, actualEntries);
+          continue;
+        }
+        assertEquals(key + "/" + length, describe(expectedEntries.getEntries()),
+                describe(actualEntries.getEntries()));
+        for (DictEntry entry : expectedEntries.getEntries()) {
+          String[] elements = entry.getElements();
+          assertEquals(entry.getUnsorted(), describe(expected.getMatchingEntries(elements)),
+                  describe(actual.getMatchingEntries(elements)));
+        }
+      }
+    }
+  }
+
+  public void testMissingEntries() {
+    assertNull(mapped.getEntries("newer"));
+    assertNull(mapped.getEntries("cafe"));
+    assertNull(mapped.getEntries("zurich"));
+    assertNull(mapped.getEntries("\u6771"));
+    assertNull(mapped.getEntries("canonical"));
+    assertNull(mapped.getEntries(""));
+
+    DictEntriesByLength entries = mapped.getEntries("new");
+    assertEquals(0, entries.getMatchingEntries(new String[] { "new", "jersey" }).size());
+    assertEquals(0, entries.getMatchingEntries(new String[] { "new", "york", "state" }).size());
+    assertEquals(0, entries.getMatchingEntries(new String[] { "new", "york", "city", "hall" })
+            .size());
+    assertEquals(2, entries.getMatchingEntries(new String[] { "new", "york" }).size());
+  }
+
+  public void testProperties() {
+    Collection<DictEntry> entries = mapped.getEntries("z\u00fcrich").getMatchingEntries(
+            new String[] { "z\u00fcrich" });
+    assertEquals(1, entries.size());
+    EntryProperties props = entries.iterator().next().getProperties();
+    assertEquals("Z\u00fcrich", props.getProperty("canonical"));
+    assertNull(props.getProperty("code"));
+    assertEquals(PROPERTY_NAMES.length, mapped.getEntryPropertiesRoot().propertyNames().length);
+  }
+
+  public void testHeapBuffer() throws Exception {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    byte[] contents = new byte[(int) raf.length()];
+    try {
+      raf.readFully(contents);
+    } finally {
+      raf.close();
+    }
+    MappedDictionary heap = new MappedDictionary(ByteBuffer.wrap(contents));
+    assertEquals(describe(mapped.getEntries("\ud835\udd18ima").getEntries(2).getEntries()),
+            describe(heap.getEntries("\ud835\udd18ima").getEntries(2).getEntries()));
+  }
+
+  private static List<String> sorted(Enumeration<String> keys) {
+    List<String> result = new ArrayList<String>();
+    while (keys.hasMoreElements()) {
+      result.add(keys.nextElement());
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  private static List<String> describe(Collection<DictEntry> entries) {
+    List<String> result = new ArrayList<String>();
+    for (DictEntry entry : entries) {
+      StringBuilder text = new StringBuilder();
+      String[] elements = entry.getElements();
+      for (int i = 0; i < elements.length; i++) {
+        text.append(elements[i]).append('|');
+      }
+      text.append(entry.getUnsorted());
+      for (int i = 0; i < PROPERTY_NAMES.length; i++) {
+        text.append('|').append(entry.getProperties().getProperty(PROPERTY_NAMES[i]));
+      }
+      result.add(text.toString());
+    }
+    return result;
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.uima.annotator.dict_annot.dictionary;
 
 import org.apache.uima.annotator.dict_annot.dictionary.impl.FeaturePathInfo;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues;
 import org.apache.uima.cas.text.AnnotationFS;
 
 
@@ -68,6 +69,22 @@ public interface Dictionary {
     *         match was found, null is returned
     */
    public DictionaryMatch matchEntry(int pos, AnnotationFS[] annotFSs, FeaturePathInfo featPathInfo);
+
+   /**
+    * Checks if at the current position in the token array a match in the
+    * dictionary is found. The token values are taken from the given per
+    * document cache.
+    * 
+    * @param pos
+    *          current array position 
+    * 
+    * @param tokenValues 
+    *           token values of the input annotations
+    *           
+    * @return returns a DictionaryMatch object in case a match was found. If no
+    *         match was found, null is returned
+    */
+   public DictionaryMatch matchEntry(int pos, TokenValues tokenValues);
    
    /**
     * Returns the number of entries that are stored in the dictionary.
@@ -37,4 +37,13 @@ public interface DictionaryMatch {
     *         the multi word token count is returned.
     */
    public int getMatchLength();
+
+   /**
+    * Returns the edit distance between the matched tokens and the dictionary
+    * entry.
+    * 
+    * @return returns 0 for an exact match, otherwise the sum of the token edit
+    *         distances
+    */
+   public int getEditDistance();
 }
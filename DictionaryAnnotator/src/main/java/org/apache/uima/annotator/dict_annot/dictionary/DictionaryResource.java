@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary;
+
+import org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionary;
+
+/**
+ * The DictionaryResource interface defines a shared resource that holds the
+ * dictionaries of the DictionaryAnnotator, so that all annotator instances
+ * that are bound to the same resource use the same dictionaries. The
+ * dictionaries are stored for each dictionary configuration, they are loaded
+ * by the first annotator instance that uses the configuration.
+ * 
+ * Callers must synchronize on the resource object when they check for and add
+ * dictionaries, so that each configuration is only loaded once.
+ */
+public interface DictionaryResource {
+
+   /**
+    * Returns the dictionaries that were added for the given configuration.
+    * 
+    * @param dictionaryFiles
+    *           configured dictionary files
+    * @param mergeDictionaries
+    *           merged dictionary setting
+    * 
+    * @return returns the dictionaries or null if they were not added yet
+    */
+   public Dictionary[] getDictionaries(String[] dictionaryFiles,
+         boolean mergeDictionaries);
+
+   /**
+    * Returns the merged dictionary that was added for the given dictionary
+    * files.
+    * 
+    * @param dictionaryFiles
+    *           configured dictionary files
+    * 
+    * @return returns the merged dictionary or null if it was not added yet
+    */
+   public MergedDictionary getMergedDictionary(String[] dictionaryFiles);
+
+   /**
+    * Adds the dictionaries of the given configuration. The dictionaries must
+    * not be changed afterwards, since they are used concurrently.
+    * 
+    * @param dictionaryFiles
+    *           configured dictionary files
+    * @param mergeDictionaries
+    *           merged dictionary setting
+    * @param dictionaries
+    *           loaded dictionaries
+    * @param mergedDictionary
+    *           merged dictionary of the dictionaries, null if the
+    *           dictionaries are not merged
+    */
+   public void addDictionaries(String[] dictionaryFiles,
+         boolean mergeDictionaries, Dictionary[] dictionaries,
+         MergedDictionary mergedDictionary);
+}
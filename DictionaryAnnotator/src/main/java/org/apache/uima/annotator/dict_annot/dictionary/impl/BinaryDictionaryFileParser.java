@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryFileParser;
+import org.apache.uima.annotator.dict_annot.impl.DictionaryAnnotatorConfigException;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/**
+ * DictionaryFileParser implementation for binary dictionary files. A binary
+ * dictionary file contains a compiled CompactTrieDictionary, it is created
+ * with the DictionaryCreator and can be loaded without any XML parsing.
+ *
+ * The file starts with a magic number and the format version, followed by the
+ * dictionary properties, the token table and the trie arrays. All numbers are
+ * stored big endian, strings are stored UTF-8 encoded with a length prefix.
+ */
+public class BinaryDictionaryFileParser implements DictionaryFileParser {
+
+   /**
+    * Binary dictionary format version written by this implementation.
+    */
+   public static final int FORMAT_VERSION = 1;
+
+   // magic number at the start of each binary dictionary file
+   private static final byte[] MAGIC = new byte[] { 'U', 'I', 'M', 'A', 'D',
+         'I', 'C', 'T' };
+
+   // multi-word separator used to add the entries to a dictionary builder,
+   // it cannot be part of a token since XML does not allow it
+   private static final String ENTRY_SEPARATOR = "\u0000";
+
+   /**
+    * Checks if the given stream contains a binary dictionary file. The stream
+    * position is not changed, the stream must support mark and reset.
+    *
+    * @param dictionaryFileStream
+    *           dictionary file stream
+    *
+    * @return returns true if the stream starts with the binary dictionary
+    *         magic number
+    *
+    * @throws IOException
+    */
+   public static boolean isBinaryDictionary(InputStream dictionaryFileStream)
+         throws IOException {
+      if (!dictionaryFileStream.markSupported()) {
+         return false;
+      }
+      dictionaryFileStream.mark(MAGIC.length);
+      try {
+         for (int i = 0; i < MAGIC.length; i++) {
+            if (dictionaryFileStream.read() != MAGIC[i]) {
+               return false;
+            }
+         }
+         return true;
+      } finally {
+         dictionaryFileStream.reset();
+      }
+   }
+
+   /**
+    * Writes the given dictionary as binary dictionary file to the given
+    * stream. The dictionary is compiled if necessary, the stream is not
+    * closed.
+    *
+    * @param dictionary
+    *           dictionary to write
+    * @param stream
+    *           output stream
+    *
+    * @throws IOException
+    */
+   public static void writeDictionary(CompactTrieDictionary dictionary,
+         OutputStream stream) throws IOException {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            stream));
+      out.write(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      dictionary.write(out);
+      out.flush();
+   }
+
+   /**
+    * Loads the compiled dictionary of the given binary dictionary file. If the
+    * file path refers to a local file, the file is memory mapped and the trie
+    * arrays are copied directly from the mapping, otherwise the stream is
+    * read.
+    *
+    * @param dictionaryFilePath
+    *           dictionary file path
+    * @param dictionaryFileStream
+    *           dictionary file stream
+    *
+    * @return returns the loaded dictionary
+    *
+    * @throws ResourceInitializationException
+    */
+   public CompactTrieDictionary loadDictionary(String dictionaryFilePath,
+         InputStream dictionaryFileStream)
+         throws ResourceInitializationException {
+
+      ByteBuffer buffer;
+      try {
+         File file = new File(dictionaryFilePath);
+         if (file.isFile()) {
+            FileInputStream fileStream = new FileInputStream(file);
+            try {
+               FileChannel channel = fileStream.getChannel();
+               buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+                     .size());
+            } finally {
+               fileStream.close();
+            }
+         } else {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] bytes = new byte[8192];
+            int count;
+            while ((count = dictionaryFileStream.read(bytes)) > 0) {
+               content.write(bytes, 0, count);
+            }
+            buffer = ByteBuffer.wrap(content.toByteArray());
+         }
+      } catch (IOException ex) {
+         throw new DictionaryAnnotatorConfigException(
+               "dictionary_annotator_error_reading_binary_dictionary",
+               new Object[] { dictionaryFilePath }, ex);
+      }
+
+      // check file header
+      byte[] magic = new byte[MAGIC.length];
+      if (buffer.remaining() < MAGIC.length + 4) {
+         throw new DictionaryAnnotatorConfigException(
+               "dictionary_annotator_error_reading_binary_dictionary",
+               new Object[] { dictionaryFilePath });
+      }
+      buffer.get(magic);
+      int version = buffer.getInt();
+      for (int i = 0; i < MAGIC.length; i++) {
+         if (magic[i] != MAGIC[i]) {
+            throw new DictionaryAnnotatorConfigException(
+                  "dictionary_annotator_error_reading_binary_dictionary",
+                  new Object[] { dictionaryFilePath });
+         }
+      }
+      if (version != FORMAT_VERSION) {
+         throw new DictionaryAnnotatorConfigException(
+               "dictionary_annotator_error_binary_dictionary_version",
+               new Object[] { dictionaryFilePath, Integer.valueOf(version),
+                     Integer.valueOf(FORMAT_VERSION) });
+      }
+
+      // read dictionary content
+      try {
+         return CompactTrieDictionary.read(buffer);
+      } catch (IOException ex) {
+         throw new DictionaryAnnotatorConfigException(
+               "dictionary_annotator_error_reading_binary_dictionary",
+               new Object[] { dictionaryFilePath }, ex);
+      } catch (RuntimeException ex) {
+         // damaged or truncated file
+         throw new DictionaryAnnotatorConfigException(
+               "dictionary_annotator_error_reading_binary_dictionary",
+               new Object[] { dictionaryFilePath }, ex);
+      }
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.DictionaryFileParser#parseDictionaryFile(java.lang.String,
+    *      java.io.InputStream,
+    *      org.apache.uima.annotator.dict_annot.dictionary.DictionaryBuilder)
+    */
+   public Dictionary parseDictionaryFile(String dictionaryFilePath,
+         InputStream dictionaryFileStream, DictionaryBuilder dictBuilder)
+         throws ResourceInitializationException {
+
+      // load the binary dictionary and add its entries with the given builder
+      CompactTrieDictionary dictionary = loadDictionary(dictionaryFilePath,
+            dictionaryFileStream);
+      dictBuilder.setDictionaryProperties(dictionary.getLanguage(), dictionary
+            .getTypeName(), dictionary.isCaseNormalization(), true,
+            ENTRY_SEPARATOR);
+      dictionary.addEntries(dictBuilder, ENTRY_SEPARATOR);
+
+      // get dictionary and return it
+      return dictBuilder.getDictionary();
+   }
+
+   /**
+    * Writes the given string, null is allowed.
+    */
+   static void writeString(DataOutputStream out, String value)
+         throws IOException {
+      if (value == null) {
+         out.writeInt(-1);
+      } else {
+         byte[] bytes = value.getBytes("UTF-8");
+         out.writeInt(bytes.length);
+         out.write(bytes);
+      }
+   }
+
+   /**
+    * Reads a string written with writeString().
+    */
+   static String readString(ByteBuffer buffer) throws IOException {
+      int length = buffer.getInt();
+      if (length < 0) {
+         return null;
+      }
+      if (length > buffer.remaining()) {
+         throw new IOException("invalid string length " + length);
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, "UTF-8");
+   }
+
+   /**
+    * Writes the given int array without length.
+    */
+   static void writeInts(DataOutputStream out, int[] values)
+         throws IOException {
+      for (int i = 0; i < values.length; i++) {
+         out.writeInt(values[i]);
+      }
+   }
+
+   /**
+    * Reads an int array with the given length.
+    */
+   static int[] readInts(ByteBuffer buffer, int length) throws IOException {
+      if (length < 0 || length > buffer.remaining() / 4) {
+         throw new IOException("invalid array length " + length);
+      }
+      int[] values = new int[length];
+      buffer.asIntBuffer().get(values);
+      buffer.position(buffer.position() + length * 4);
+      return values;
+   }
+}
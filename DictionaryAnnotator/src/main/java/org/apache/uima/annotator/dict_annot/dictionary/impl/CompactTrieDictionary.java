@@ -0,0 +1,870 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryMatch;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Compact trie dictionary implementation. Implements the Dictionary interface
+ * with the same matching semantics as the HashMapDictionary, but stores the
+ * token trie in primitive arrays instead of one HashMap per token node.
+ *
+ * Each distinct token is stored once in a token table and referenced by its
+ * token ID. While the dictionary is built, the trie edges are kept in a hash
+ * table keyed by parent node and token ID. When the dictionary is compiled,
+ * the edges are converted to sorted child arrays per node that are searched
+ * with a binary search. After that no further words can be added.
+ */
+public class CompactTrieDictionary implements Dictionary {
+
+   // token table, maps each distinct (normalized) token to its token ID
+   private HashMap<String, Integer> tokenIds;
+
+   // number of trie nodes, the root node has the node ID 0
+   private int nodeCount;
+
+   // entry ID for each node, 0 if the node does not complete an entry
+   private int[] entryIds;
+
+   // trie edges while building, null after the dictionary was compiled
+   private EdgeTable edges;
+
+   // compiled trie: the children of node n are stored at positions
+   // childStart[n] to childStart[n + 1] - 1 of childTokens and childNodes,
+   // sorted by token ID
+   private int[] childStart;
+
+   private int[] childTokens;
+
+   private int[] childNodes;
+
+   // children of the root node indexed by token ID, -1 if there is none. The
+   // root node has the most children, so it is looked up directly.
+   private int[] rootChildren;
+
+   // counts the entries in the dictionary, each entry gets an own unique ID
+   private int idCounter;
+
+   // dictionary language
+   private String language;
+
+   // dictionary output type
+   private String typeName;
+
+   // dictionary case normalization setting
+   private boolean caseNormalization = true;
+
+   /**
+    * Creates a new empty CompactTrieDictionary object.
+    *
+    * @param caseNormalization
+    *           case normalization setting
+    */
+   public CompactTrieDictionary(boolean caseNormalization) {
+      this.tokenIds = new HashMap<String, Integer>(100);
+      this.nodeCount = 1;
+      this.entryIds = new int[100];
+      this.edges = new EdgeTable(100);
+      this.idCounter = 0;
+      this.caseNormalization = caseNormalization;
+      this.language = null;
+      this.typeName = null;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#contains(java.lang.String)
+    */
+   public boolean contains(String word) {
+      int node = lookup(0, word);
+      return (node > 0) && (this.entryIds[node] > 0);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#contains(java.lang.String[])
+    */
+   public boolean contains(String[] multiWord) {
+      int node = containsMultiWord(multiWord);
+      return (node > 0) && (this.entryIds[node] > 0);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#matchEntry(int,
+    *      org.apache.uima.cas.text.AnnotationFS[],
+    *      org.apache.uima.annotator.dict_annot.dictionary.impl.FeaturePathInfo)
+    */
+   public DictionaryMatch matchEntry(int pos, AnnotationFS[] annotFSs,
+         FeaturePathInfo featPathInfo) {
+
+      // create a dictionary match object
+      DictionaryMatchImpl match = new DictionaryMatchImpl();
+
+      // follow the trie as long as the tokens match
+      int node = 0;
+      for (int offset = 0; pos + offset < annotFSs.length; offset++) {
+         String value = featPathInfo.getValue(annotFSs[pos + offset]);
+         if (value == null) {
+            break;
+         }
+         node = lookup(node, value);
+         if (node < 0) {
+            break;
+         }
+         int entryId = this.entryIds[node];
+         if (entryId > 0) {
+            match.storeMatch(new EntryMetaDataImpl(entryId), true);
+         } else {
+            match.storeMatch(null, false);
+         }
+      }
+
+      // check if a match was found that is valid
+      if (match.isValidMatch()) {
+         // valid match found, return the match
+         return match;
+      } else {
+         // no valid match found
+         return null;
+      }
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#matchEntry(int,
+    *      org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues)
+    */
+   public DictionaryMatch matchEntry(int pos, TokenValues tokenValues) {
+      int[] ids = tokenValues.getTokenIds(this);
+
+      // follow the trie as long as the token IDs match and remember the
+      // longest complete entry
+      int node = 0;
+      int matchLength = 0;
+      int matchEntryId = 0;
+      for (int i = pos; i < ids.length && ids[i] >= 0; i++) {
+         node = child(node, ids[i]);
+         if (node < 0) {
+            break;
+         }
+         if (this.entryIds[node] > 0) {
+            matchLength = i - pos + 1;
+            matchEntryId = this.entryIds[node];
+         }
+      }
+
+      if (matchLength == 0) {
+         // no valid match found
+         return null;
+      }
+
+      // create a dictionary match object for the longest match
+      DictionaryMatchImpl match = new DictionaryMatchImpl();
+      for (int i = 1; i < matchLength; i++) {
+         match.storeMatch(null, false);
+      }
+      match.storeMatch(new EntryMetaDataImpl(matchEntryId), true);
+      return match;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getEntryCount()
+    */
+   public int getEntryCount() {
+      // returns the number of entries in the dictionary
+      return this.idCounter;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getTypeName()
+    */
+   public String getTypeName() {
+      // returns the dictionary output type name
+      return this.typeName;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getLanguage()
+    */
+   public String getLanguage() {
+      // returns the dictionary language
+      return this.language;
+   }
+
+   /**
+    * Returns the number of trie nodes, including the root node.
+    *
+    * @return trie node count
+    */
+   public int getNodeCount() {
+      return this.nodeCount;
+   }
+
+   /**
+    * Returns the number of distinct tokens in the token table.
+    *
+    * @return distinct token count
+    */
+   public int getTokenCount() {
+      return this.tokenIds.size();
+   }
+
+   /**
+    * Returns the case normalization setting of the dictionary.
+    *
+    * @return true if the dictionary entries are case normalized
+    */
+   public boolean isCaseNormalization() {
+      return this.caseNormalization;
+   }
+
+   /**
+    * Adds a new word to the dictionary.
+    *
+    * @param word
+    *           word that should be added to the dictionary
+    *
+    * @return ID that was generated for this entry, -1 if the word was already
+    *         available
+    */
+   public int addWord(String word) {
+      return addMultiWord(new String[] { word });
+   }
+
+   /**
+    * Adds a new multi-word to the dictionary
+    *
+    * @param multiWord
+    *           multi-word that should be added to the dictionary
+    *
+    * @return ID that was generated for this entry, -1 if the multi-word was
+    *         already available
+    */
+   public int addMultiWord(String[] multiWord) {
+      if (this.edges == null) {
+         throw new IllegalStateException(
+               "words cannot be added to a compiled dictionary");
+      }
+
+      // walk down the trie, adding the nodes that are missing
+      int node = 0;
+      for (int i = 0; i < multiWord.length; i++) {
+         int tokenId = getTokenId(normalizeString(multiWord[i]));
+         int child = this.edges.get(node, tokenId);
+         if (child < 0) {
+            child = newNode();
+            this.edges.put(node, tokenId, child);
+         }
+         node = child;
+      }
+
+      // check if entry is already marked as complete
+      if (this.entryIds[node] > 0) {
+         return -1;
+      }
+
+      // increase ID counter and mark the entry as complete
+      this.idCounter++;
+      this.entryIds[node] = this.idCounter;
+      return this.idCounter;
+   }
+
+   /**
+    * Converts the trie edges to sorted child arrays. Must be called after all
+    * words have been added and before the dictionary is used for matching.
+    * Calling it more than once has no effect.
+    */
+   public void compile() {
+      if (this.edges == null) {
+         return;
+      }
+
+      // count the children of each node
+      int edgeCount = this.edges.size();
+      this.childStart = new int[this.nodeCount + 1];
+      long[] keys = this.edges.keys;
+      int[] values = this.edges.values;
+      for (int i = 0; i < keys.length; i++) {
+         if (values[i] > 0) {
+            this.childStart[EdgeTable.parent(keys[i]) + 1]++;
+         }
+      }
+      for (int n = 0; n < this.nodeCount; n++) {
+         this.childStart[n + 1] += this.childStart[n];
+      }
+
+      // distribute the edges to their parent's range
+      this.childTokens = new int[edgeCount];
+      this.childNodes = new int[edgeCount];
+      int[] fill = new int[this.nodeCount];
+      for (int i = 0; i < keys.length; i++) {
+         if (values[i] > 0) {
+            int parent = EdgeTable.parent(keys[i]);
+            int index = this.childStart[parent] + fill[parent]++;
+            this.childTokens[index] = EdgeTable.token(keys[i]);
+            this.childNodes[index] = values[i];
+         }
+      }
+
+      // sort each range by token ID
+      for (int n = 0; n < this.nodeCount; n++) {
+         sortRange(this.childStart[n], this.childStart[n + 1]);
+      }
+
+      // index the children of the root node by token ID
+      this.rootChildren = new int[this.tokenIds.size()];
+      Arrays.fill(this.rootChildren, -1);
+      for (int i = this.childStart[0]; i < this.childStart[1]; i++) {
+         this.rootChildren[this.childTokens[i]] = this.childNodes[i];
+      }
+
+      // release the build time structures
+      this.edges = null;
+      if (this.entryIds.length != this.nodeCount) {
+         int[] entries = new int[this.nodeCount];
+         System.arraycopy(this.entryIds, 0, entries, 0, this.nodeCount);
+         this.entryIds = entries;
+      }
+   }
+
+   /**
+    * set the dictionary language
+    *
+    * @param language
+    *           dictionary language
+    */
+   public void setDictionaryLanguage(String language) {
+      this.language = language;
+   }
+
+   /**
+    * set the dictionary type name
+    *
+    * @param typeName
+    *           dictionary type name
+    */
+   public void setTypeName(String typeName) {
+      this.typeName = typeName;
+   }
+
+   /**
+    * check if the given multi-word is available in the dictionary. If it is
+    * available the trie node of its last token is returned, otherwise -1.
+    *
+    * @param multiWord
+    *           multi-word used for the lookup
+    *
+    * @return trie node for the given multi-word, or -1 if the multi-word is
+    *         not in the dictionary
+    */
+   int containsMultiWord(String[] multiWord) {
+      int node = 0;
+      for (int i = 0; i < multiWord.length && node >= 0; i++) {
+         node = lookup(node, multiWord[i]);
+      }
+      return node;
+   }
+
+   /**
+    * Returns the child of the given node for the given token.
+    *
+    * @param node
+    *           parent node
+    * @param token
+    *           token, not yet normalized
+    *
+    * @return child node, or -1 if there is none
+    */
+   int lookup(int node, String token) {
+      Integer tokenId = this.tokenIds.get(normalizeString(token));
+      if (tokenId == null) {
+         return -1;
+      }
+      return child(node, tokenId.intValue());
+   }
+
+   /**
+    * Returns the token ID of each of the given token values, -1 for values
+    * that are not in the token table.
+    *
+    * @param tokenValues
+    *           token values of the input annotations
+    *
+    * @return token ID for each annotation position
+    */
+   int[] getTokenIds(TokenValues tokenValues) {
+      int[] ids = new int[tokenValues.size()];
+      for (int i = 0; i < ids.length; i++) {
+         String value = tokenValues.getNormalizedValue(i,
+               this.caseNormalization);
+         Integer tokenId = (value == null) ? null : this.tokenIds.get(value);
+         ids[i] = (tokenId == null) ? -1 : tokenId.intValue();
+      }
+      return ids;
+   }
+
+   /**
+    * Returns the entry ID of the given node.
+    *
+    * @param node
+    *           trie node
+    *
+    * @return entry ID, or 0 if the node does not complete an entry
+    */
+   int getEntryId(int node) {
+      return this.entryIds[node];
+   }
+
+   /**
+    * Returns the child of the given node for the given token ID.
+    *
+    * @param node
+    *           parent node
+    * @param tokenId
+    *           token ID
+    *
+    * @return child node, or -1 if there is none
+    */
+   int child(int node, int tokenId) {
+      if (this.edges != null) {
+         return this.edges.get(node, tokenId);
+      }
+      if (node == 0) {
+         return this.rootChildren[tokenId];
+      }
+      int low = this.childStart[node];
+      int high = this.childStart[node + 1] - 1;
+      while (low <= high) {
+         int mid = (low + high) >>> 1;
+         int midToken = this.childTokens[mid];
+         if (midToken < tokenId) {
+            low = mid + 1;
+         } else if (midToken > tokenId) {
+            high = mid - 1;
+         } else {
+            return this.childNodes[mid];
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Writes the compiled dictionary to the given stream. The dictionary is
+    * compiled first if necessary.
+    *
+    * @param out
+    *           output stream
+    *
+    * @throws IOException
+    */
+   void write(DataOutputStream out) throws IOException {
+      compile();
+
+      // dictionary properties
+      out.writeBoolean(this.caseNormalization);
+      BinaryDictionaryFileParser.writeString(out, this.language);
+      BinaryDictionaryFileParser.writeString(out, this.typeName);
+      out.writeInt(this.idCounter);
+
+      // token table in token ID order
+      String[] tokens = getTokens();
+      out.writeInt(tokens.length);
+      for (int i = 0; i < tokens.length; i++) {
+         BinaryDictionaryFileParser.writeString(out, tokens[i]);
+      }
+
+      // trie nodes and edges
+      out.writeInt(this.nodeCount);
+      out.writeInt(this.childTokens.length);
+      BinaryDictionaryFileParser.writeInts(out, this.entryIds);
+      BinaryDictionaryFileParser.writeInts(out, this.childStart);
+      BinaryDictionaryFileParser.writeInts(out, this.childTokens);
+      BinaryDictionaryFileParser.writeInts(out, this.childNodes);
+   }
+
+   /**
+    * Reads a compiled dictionary that was written with write() from the given
+    * buffer.
+    *
+    * @param buffer
+    *           buffer positioned at the start of the dictionary data
+    *
+    * @return returns the compiled dictionary
+    *
+    * @throws IOException
+    *            if the dictionary data is not valid
+    */
+   static CompactTrieDictionary read(ByteBuffer buffer) throws IOException {
+      CompactTrieDictionary dict = new CompactTrieDictionary(buffer.get() != 0);
+      dict.language = BinaryDictionaryFileParser.readString(buffer);
+      dict.typeName = BinaryDictionaryFileParser.readString(buffer);
+      dict.idCounter = buffer.getInt();
+
+      // token table
+      int tokenCount = buffer.getInt();
+      dict.tokenIds = new HashMap<String, Integer>(tokenCount * 4 / 3 + 1);
+      for (int i = 0; i < tokenCount; i++) {
+         dict.tokenIds.put(BinaryDictionaryFileParser.readString(buffer),
+               Integer.valueOf(i));
+      }
+
+      // trie nodes and edges
+      int nodeCount = buffer.getInt();
+      int edgeCount = buffer.getInt();
+      if (nodeCount < 1 || edgeCount != nodeCount - 1
+            || dict.tokenIds.size() != tokenCount) {
+         throw new IOException("invalid dictionary data");
+      }
+      dict.nodeCount = nodeCount;
+      dict.entryIds = BinaryDictionaryFileParser.readInts(buffer, nodeCount);
+      dict.childStart = BinaryDictionaryFileParser.readInts(buffer,
+            nodeCount + 1);
+      dict.childTokens = BinaryDictionaryFileParser.readInts(buffer, edgeCount);
+      dict.childNodes = BinaryDictionaryFileParser.readInts(buffer, edgeCount);
+      dict.edges = null;
+
+      // check the trie structure, so that a damaged file cannot cause errors
+      // while matching. Nodes are created after their parent, so each child
+      // node ID is larger than the parent node ID.
+      if (dict.childStart[0] != 0 || dict.childStart[nodeCount] != edgeCount) {
+         throw new IOException("invalid dictionary data");
+      }
+      for (int n = 0; n < nodeCount; n++) {
+         if (dict.childStart[n] > dict.childStart[n + 1]) {
+            throw new IOException("invalid dictionary data");
+         }
+         for (int i = dict.childStart[n]; i < dict.childStart[n + 1]; i++) {
+            if (dict.childTokens[i] < 0 || dict.childTokens[i] >= tokenCount
+                  || dict.childNodes[i] <= n || dict.childNodes[i] >= nodeCount) {
+               throw new IOException("invalid dictionary data");
+            }
+         }
+      }
+
+      // index the children of the root node by token ID
+      dict.rootChildren = new int[tokenCount];
+      Arrays.fill(dict.rootChildren, -1);
+      for (int i = dict.childStart[0]; i < dict.childStart[1]; i++) {
+         dict.rootChildren[dict.childTokens[i]] = dict.childNodes[i];
+      }
+      return dict;
+   }
+
+   /**
+    * Adds all entries of this dictionary to the given dictionary builder. The
+    * tokens of multi-word entries are joined with the given separator, the
+    * builder must be configured with the same separator.
+    *
+    * @param dictBuilder
+    *           dictionary builder the entries are added to
+    * @param multiWordSeparator
+    *           multi-word separator
+    */
+   void addEntries(DictionaryBuilder dictBuilder, String multiWordSeparator) {
+      compile();
+      addEntries(dictBuilder, multiWordSeparator, getTokens(), 0, null);
+   }
+
+   /**
+    * Adds the entries of the given node and of all its descendants to the
+    * dictionary builder.
+    */
+   private void addEntries(DictionaryBuilder dictBuilder,
+         String multiWordSeparator, String[] tokens, int node, String prefix) {
+      for (int i = this.childStart[node]; i < this.childStart[node + 1]; i++) {
+         String token = tokens[this.childTokens[i]];
+         String entry = (prefix == null) ? token : prefix + multiWordSeparator
+               + token;
+         int child = this.childNodes[i];
+         if (this.entryIds[child] > 0) {
+            dictBuilder.addWord(entry);
+         }
+         addEntries(dictBuilder, multiWordSeparator, tokens, child, entry);
+      }
+   }
+
+   /**
+    * Returns the number of entries of this dictionary that are not contained
+    * in the given dictionary.
+    *
+    * @param dictionary
+    *           dictionary to compare with
+    *
+    * @return number of entries that are missing in the given dictionary
+    */
+   public int countEntriesNotContainedIn(Dictionary dictionary) {
+      return countEntriesNotContainedIn(dictionary, null);
+   }
+
+   /**
+    * Returns the number of the selected entries of this dictionary that are
+    * not contained in the given dictionary.
+    *
+    * @param dictionary
+    *           dictionary to compare with
+    * @param selected
+    *           for each entry ID true if the entry is counted, null to count
+    *           all entries
+    *
+    * @return number of selected entries that are missing in the given
+    *         dictionary
+    */
+   int countEntriesNotContainedIn(Dictionary dictionary, boolean[] selected) {
+      compile();
+      return countEntriesNotContainedIn(dictionary, selected, getTokens(), 0,
+            new ArrayList<String>());
+   }
+
+   /**
+    * Counts the selected entries of the given node and of all its descendants
+    * that are not contained in the given dictionary.
+    */
+   private int countEntriesNotContainedIn(Dictionary dictionary,
+         boolean[] selected, String[] tokens, int node, ArrayList<String> path) {
+      int count = 0;
+      for (int i = this.childStart[node]; i < this.childStart[node + 1]; i++) {
+         path.add(tokens[this.childTokens[i]]);
+         int child = this.childNodes[i];
+         int entryId = this.entryIds[child];
+         if (entryId > 0 && (selected == null || selected[entryId])
+               && !dictionary.contains(path.toArray(new String[path.size()]))) {
+            count++;
+         }
+         count += countEntriesNotContainedIn(dictionary, selected, tokens,
+               child, path);
+         path.remove(path.size() - 1);
+      }
+      return count;
+   }
+
+   /**
+    * Returns the token table as array indexed by token ID.
+    *
+    * @return tokens
+    */
+   String[] getTokens() {
+      String[] tokens = new String[this.tokenIds.size()];
+      Iterator<Map.Entry<String, Integer>> it = this.tokenIds.entrySet()
+            .iterator();
+      while (it.hasNext()) {
+         Map.Entry<String, Integer> entry = it.next();
+         tokens[entry.getValue().intValue()] = entry.getKey();
+      }
+      return tokens;
+   }
+
+   /**
+    * Returns the token ID of the given token, adding it to the token table if
+    * necessary.
+    *
+    * @param token
+    *           normalized token
+    *
+    * @return token ID
+    */
+   private int getTokenId(String token) {
+      Integer tokenId = this.tokenIds.get(token);
+      if (tokenId == null) {
+         tokenId = Integer.valueOf(this.tokenIds.size());
+         this.tokenIds.put(token, tokenId);
+      }
+      return tokenId.intValue();
+   }
+
+   /**
+    * Creates a new trie node.
+    *
+    * @return node ID
+    */
+   private int newNode() {
+      if (this.nodeCount == this.entryIds.length) {
+         int[] entries = new int[this.entryIds.length * 2];
+         System.arraycopy(this.entryIds, 0, entries, 0, this.entryIds.length);
+         this.entryIds = entries;
+      }
+      return this.nodeCount++;
+   }
+
+   /**
+    * Sorts the children in the given range by token ID (insertion sort, most
+    * nodes only have a few children) or, for larger ranges, by sorting packed
+    * token/node pairs.
+    *
+    * @param from
+    *           first index
+    * @param to
+    *           index after the last index
+    */
+   private void sortRange(int from, int to) {
+      if (to - from < 16) {
+         for (int i = from + 1; i < to; i++) {
+            int token = this.childTokens[i];
+            int node = this.childNodes[i];
+            int j = i - 1;
+            while (j >= from && this.childTokens[j] > token) {
+               this.childTokens[j + 1] = this.childTokens[j];
+               this.childNodes[j + 1] = this.childNodes[j];
+               j--;
+            }
+            this.childTokens[j + 1] = token;
+            this.childNodes[j + 1] = node;
+         }
+      } else {
+         long[] pairs = new long[to - from];
+         for (int i = from; i < to; i++) {
+            pairs[i - from] = ((long) this.childTokens[i] << 32)
+                  | (this.childNodes[i] & 0xFFFFFFFFL);
+         }
+         Arrays.sort(pairs);
+         for (int i = from; i < to; i++) {
+            this.childTokens[i] = (int) (pairs[i - from] >>> 32);
+            this.childNodes[i] = (int) pairs[i - from];
+         }
+      }
+   }
+
+   /**
+    * Normalize the input string to lower case and remove all spaces around if
+    * the dictionary is configured to do a case normalization
+    *
+    * @param input
+    *           input string to normalize
+    *
+    * @return returns the normalized string
+    */
+   private String normalizeString(String input) {
+      // check if case normalization is enabled
+      if (this.caseNormalization) {
+         return input.toLowerCase().trim();
+      }
+
+      return input.trim();
+   }
+
+   /**
+    * Open addressing hash table of the trie edges used while building the
+    * dictionary. Maps (parent node, token ID) to the child node.
+    */
+   private static class EdgeTable {
+
+      // packed parent node and token ID of each slot
+      private long[] keys;
+
+      // child node of each slot, 0 for an empty slot (the root is no child)
+      private int[] values;
+
+      private int size;
+
+      EdgeTable(int initialCapacity) {
+         int capacity = 16;
+         while (capacity < initialCapacity * 2) {
+            capacity <<= 1;
+         }
+         this.keys = new long[capacity];
+         this.values = new int[capacity];
+      }
+
+      static long key(int parent, int tokenId) {
+         return ((long) parent << 32) | (tokenId & 0xFFFFFFFFL);
+      }
+
+      static int parent(long key) {
+         return (int) (key >>> 32);
+      }
+
+      static int token(long key) {
+         return (int) key;
+      }
+
+      int size() {
+         return this.size;
+      }
+
+      int get(int parent, int tokenId) {
+         long key = key(parent, tokenId);
+         int mask = this.keys.length - 1;
+         for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+            if (this.values[slot] == 0) {
+               return -1;
+            }
+            if (this.keys[slot] == key) {
+               return this.values[slot];
+            }
+         }
+      }
+
+      void put(int parent, int tokenId, int child) {
+         if ((this.size + 1) * 2 > this.keys.length) {
+            grow();
+         }
+         insert(key(parent, tokenId), child);
+         this.size++;
+      }
+
+      private void insert(long key, int child) {
+         int mask = this.keys.length - 1;
+         int slot = hash(key) & mask;
+         while (this.values[slot] != 0) {
+            slot = (slot + 1) & mask;
+         }
+         this.keys[slot] = key;
+         this.values[slot] = child;
+      }
+
+      private void grow() {
+         long[] oldKeys = this.keys;
+         int[] oldValues = this.values;
+         this.keys = new long[oldKeys.length * 2];
+         this.values = new int[oldValues.length * 2];
+         for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+               insert(oldKeys[i], oldValues[i]);
+            }
+         }
+      }
+
+      private static int hash(long key) {
+         long h = key * 0x9E3779B97F4A7C15L;
+         return (int) (h ^ (h >>> 32));
+      }
+   }
+}
@@ -18,12 +18,16 @@
  */
 package org.apache.uima.annotator.dict_annot.dictionary.impl;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +35,8 @@ import java.util.StringTokenizer;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryFileParser;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Type;
@@ -49,7 +55,12 @@ import org.apache.uima.util.XMLInputSource;
  * PEAR file or with the separator character.
  * 
  * The dictionary output XML file (UTF-8) must be updated after the creation
- * with some metadata information.
+ * with some metadata information, unless the output type is specified.
+ * 
+ * Optionally the DictionaryCreator writes a binary dictionary file instead,
+ * that contains the compiled dictionary and can be loaded by the
+ * DictionaryAnnotator without any XML parsing. Existing XML dictionary files
+ * can be compiled to binary dictionary files as well.
  */
 public class DictionaryCreator {
 
@@ -74,6 +85,15 @@ public class DictionaryCreator {
    // token separator character command line parameter
    private static final String SEPARATOR_CHAR_PARAM = "-separator";
 
+   // dictionary output type command line parameter
+   private static final String OUTPUT_TYPE_PARAM = "-type";
+
+   // binary output command line parameter
+   private static final String BINARY_PARAM = "-binary";
+
+   // compile XML dictionary command line parameter
+   private static final String COMPILE_PARAM = "-compile";
+
    // default separator character
    private static final String SEPARATOR_CHAR = " ";
 
@@ -106,6 +126,9 @@ public class DictionaryCreator {
       parser.addParameter(TOKENIZER_PARAM, true);
       parser.addParameter(TOKEN_TYPE_PARAM, true);
       parser.addParameter(SEPARATOR_CHAR_PARAM, true);
+      parser.addParameter(OUTPUT_TYPE_PARAM, true);
+      parser.addParameter(BINARY_PARAM);
+      parser.addParameter(COMPILE_PARAM);
       return parser;
    }
 
@@ -117,6 +140,11 @@ public class DictionaryCreator {
             .println("Usage: java org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryCreator -input <InputFile> -encoding <InputFileEncoding> -output <OutputFile> [-tokenizer <TokenizerPear> -tokenType <tokenType>] [-separator <separatorChar>] ");
       System.out.println("Additional optional parameters:");
       System.out.println("  -lang <dictionaryLanguage>");
+      System.out.println("  -type <dictionaryOutputType>");
+      System.out
+            .println("  -binary (creates a binary dictionary, -type must be specified)");
+      System.out
+            .println("Usage to compile an XML dictionary to a binary dictionary: java org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryCreator -compile -input <XMLDictionaryFile> -output <OutputFile>");
 
    }
 
@@ -136,7 +164,8 @@ public class DictionaryCreator {
          System.err.println("InputFile parameter -input is missing");
          error = true;
       }
-      if (!clp.isInArgsList(INPUT_FILE_ENCODING_PARAM)) {
+      if (!clp.isInArgsList(INPUT_FILE_ENCODING_PARAM)
+            && !clp.isInArgsList(COMPILE_PARAM)) {
          System.err
                .println("InputFile encoding parameter -encoding is missing");
          error = true;
@@ -152,6 +181,13 @@ public class DictionaryCreator {
             error = true;
          }
       }
+      if (clp.isInArgsList(BINARY_PARAM)) {
+         if (!clp.isInArgsList(OUTPUT_TYPE_PARAM)) {
+            System.err
+                  .println("If a binary dictionary is created, the -type parameter must be specified");
+            error = true;
+         }
+      }
 
       // if there was an error, return false
       if (error == true) {
@@ -191,11 +227,18 @@ public class DictionaryCreator {
       String tokenizerFile = clp.getParamArgument(TOKENIZER_PARAM);
       String tokenTypeStr = clp.getParamArgument(TOKEN_TYPE_PARAM);
       String separatorChar = clp.getParamArgument(SEPARATOR_CHAR_PARAM);
+      String typeName = clp.getParamArgument(OUTPUT_TYPE_PARAM);
+      boolean binary = clp.isInArgsList(BINARY_PARAM);
 
       // create dictionary
       try {
-         DictionaryCreator.createDictionary(inputFile, encoding, outputFile,
-               language, tokenizerFile, tokenTypeStr, separatorChar);
+         if (clp.isInArgsList(COMPILE_PARAM)) {
+            DictionaryCreator.compileDictionary(inputFile, outputFile);
+         } else {
+            DictionaryCreator.createDictionary(inputFile, encoding,
+                  outputFile, language, tokenizerFile, tokenTypeStr,
+                  separatorChar, typeName, binary);
+         }
 
          System.out.println("The dictionary was sucessfully created at: "
                + outputFile);
@@ -208,9 +251,49 @@ public class DictionaryCreator {
    public static boolean createDictionary(String inputFile, String encoding,
          String outputFile, String language, String tokenizerFile,
          String tokenTypeStr, String separatorChar) throws Exception {
+      return createDictionary(inputFile, encoding, outputFile, language,
+            tokenizerFile, tokenTypeStr, separatorChar, null, false);
+   }
+
+   /**
+    * creates a new dictionary file from the given input file. The dictionary
+    * is written either as XML file or as binary dictionary file.
+    * 
+    * @param inputFile
+    *           input file with one dictionary entry per line
+    * @param encoding
+    *           input file encoding
+    * @param outputFile
+    *           dictionary output file
+    * @param language
+    *           dictionary language, may be null
+    * @param tokenizerFile
+    *           tokenizer PEAR file, may be null
+    * @param tokenTypeStr
+    *           tokenizer token type, must be set if a tokenizer is used
+    * @param separatorChar
+    *           token separator character, may be null
+    * @param typeName
+    *           dictionary output type, may be null for XML dictionaries
+    * @param binary
+    *           if true a binary dictionary file is created
+    * 
+    * @return returns true if the dictionary was created
+    * 
+    * @throws Exception
+    */
+   public static boolean createDictionary(String inputFile, String encoding,
+         String outputFile, String language, String tokenizerFile,
+         String tokenTypeStr, String separatorChar, String typeName,
+         boolean binary) throws Exception {
 
       String outputSeparatorChar = OUTPUT_SEPARATOR_CHAR;
 
+      // binary dictionaries cannot be edited, so the type must be known
+      if (binary && typeName == null) {
+         throw new Exception("Error: dictionary output type not specified");
+      }
+
       // check input file command line argument
       File inFile = new File(inputFile);
       if (!inFile.canRead()) {
@@ -270,27 +353,22 @@ public class DictionaryCreator {
          outputSeparatorChar = separatorChar;
       }
 
-      // initialize input and output files
+      // initialize input file
       BufferedReader reader = new BufferedReader(new InputStreamReader(
             new FileInputStream(inputFile), encoding));
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-            new FileOutputStream(outputFile), "UTF-8"));
 
-      // write dictionary XML lead in
-      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-      writer
-            .write("<dictionary xmlns=\"http://incubator.apache.org/uima\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"dictionary.xsd\">\n");
-      writer.write("<typeCollection>\n");
-      writer
-            .write("<dictionaryMetaData caseNormalization=\"true\" multiWordEntries=\"true\" multiWordSeparator=\""
-                  + outputSeparatorChar + "\"/>\n");
-      if (language != null) {
-         writer.write("<languageId>" + language + "</languageId>\n");
+      // initialize binary dictionary builder or XML output file
+      CompactTrieDictionaryBuilder dictBuilder = null;
+      BufferedWriter writer = null;
+      if (binary) {
+         dictBuilder = new CompactTrieDictionaryBuilder();
+         dictBuilder.setDictionaryProperties(language, typeName, true, true,
+               outputSeparatorChar);
+      } else {
+         writer = new BufferedWriter(new OutputStreamWriter(
+               new FileOutputStream(outputFile), "UTF-8"));
+         writeXMLLeadIn(writer, language, typeName, outputSeparatorChar);
       }
-      writer.write("<typeDescription>\n");
-      writer.write("<typeName> ADD DICTIONARY OUTPUT TYPE HERE</typeName>\n");
-      writer.write("</typeDescription>\n");
-      writer.write("<entries>\n");
 
       // start adding dictionary entries
       String line = reader.readLine();
@@ -335,24 +413,37 @@ public class DictionaryCreator {
                   - separatorLength);
          }
 
-         // replace XML entities
-         multiWordTokenString = replaceXMLEntities(multiWordTokenString);
+         if (dictBuilder != null) {
+            // add dictionary entry to the binary dictionary
+            if (multiWordTokenString.length() > 0) {
+               dictBuilder.addWord(multiWordTokenString);
+            }
+         } else {
+            // replace XML entities
+            multiWordTokenString = replaceXMLEntities(multiWordTokenString);
 
-         // write dictionary entry to XML
-         writer.write("<entry>\n");
-         writer.write("<key>" + multiWordTokenString + "</key>\n");
-         writer.write("</entry>\n");
+            // write dictionary entry to XML
+            writer.write("<entry>\n");
+            writer.write("<key>" + multiWordTokenString + "</key>\n");
+            writer.write("</entry>\n");
+         }
 
          // get next line
          line = reader.readLine();
       } // all dictionary lines are processed
       reader.close();
 
-      // write dictionary XML lead out
-      writer.write("</entries>\n");
-      writer.write("</typeCollection>\n");
-      writer.write("</dictionary>\n");
-      writer.close();
+      if (dictBuilder != null) {
+         // write binary dictionary
+         writeBinaryDictionary((CompactTrieDictionary) dictBuilder
+               .getDictionary(), outputFile);
+      } else {
+         // write dictionary XML lead out
+         writer.write("</entries>\n");
+         writer.write("</typeCollection>\n");
+         writer.write("</dictionary>\n");
+         writer.close();
+      }
 
       // try to delete PEAR temp dir
       if (tempDir != null) {
@@ -370,6 +461,100 @@ public class DictionaryCreator {
       return true;
    }
 
+   /**
+    * compiles the given XML dictionary file to a binary dictionary file.
+    * 
+    * @param dictionaryFile
+    *           XML dictionary file
+    * @param outputFile
+    *           binary dictionary output file
+    * 
+    * @return returns true if the dictionary was compiled
+    * 
+    * @throws Exception
+    */
+   public static boolean compileDictionary(String dictionaryFile,
+         String outputFile) throws Exception {
+
+      // check input file
+      File inFile = new File(dictionaryFile);
+      if (!inFile.canRead()) {
+         throw new Exception("Error: Input file " + dictionaryFile
+               + " cannot be read!");
+      }
+
+      // parse XML dictionary
+      InputStream stream = new BufferedInputStream(new FileInputStream(inFile));
+      Dictionary dictionary;
+      try {
+         DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+         dictionary = fileParser.parseDictionaryFile(dictionaryFile, stream,
+               new CompactTrieDictionaryBuilder());
+      } finally {
+         stream.close();
+      }
+
+      // write binary dictionary
+      writeBinaryDictionary((CompactTrieDictionary) dictionary, outputFile);
+      return true;
+   }
+
+   /**
+    * writes the XML dictionary lead in up to the entries element.
+    * 
+    * @param writer
+    *           XML output writer
+    * @param language
+    *           dictionary language, may be null
+    * @param typeName
+    *           dictionary output type, may be null
+    * @param outputSeparatorChar
+    *           multi-word separator
+    * 
+    * @throws IOException
+    */
+   private static void writeXMLLeadIn(BufferedWriter writer, String language,
+         String typeName, String outputSeparatorChar) throws IOException {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      writer
+            .write("<dictionary xmlns=\"http://incubator.apache.org/uima\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"dictionary.xsd\">\n");
+      writer.write("<typeCollection>\n");
+      writer
+            .write("<dictionaryMetaData caseNormalization=\"true\" multiWordEntries=\"true\" multiWordSeparator=\""
+                  + outputSeparatorChar + "\"/>\n");
+      if (language != null) {
+         writer.write("<languageId>" + language + "</languageId>\n");
+      }
+      writer.write("<typeDescription>\n");
+      if (typeName != null) {
+         writer.write("<typeName>" + typeName + "</typeName>\n");
+      } else {
+         writer.write("<typeName> ADD DICTIONARY OUTPUT TYPE HERE</typeName>\n");
+      }
+      writer.write("</typeDescription>\n");
+      writer.write("<entries>\n");
+   }
+
+   /**
+    * writes the given dictionary as binary dictionary file.
+    * 
+    * @param dictionary
+    *           dictionary to write
+    * @param outputFile
+    *           binary dictionary output file
+    * 
+    * @throws IOException
+    */
+   private static void writeBinaryDictionary(CompactTrieDictionary dictionary,
+         String outputFile) throws IOException {
+      OutputStream stream = new FileOutputStream(outputFile);
+      try {
+         BinaryDictionaryFileParser.writeDictionary(dictionary, stream);
+      } finally {
+         stream.close();
+      }
+   }
+
    /**
     * returns text with replaced XML entities
     * 
@@ -69,6 +69,15 @@ public class DictionaryEntry {
       return this.subBranch;
    }
 
+   /**
+    * Checks if the entry has a sub branch.
+    * 
+    * @return returns true if a sub branch exists, otherwise false.
+    */
+   public boolean hasSubBranch() {
+      return this.subBranch != null;
+   }
+
    /**
     * Returns for the current entry if it is complete or not. An entry is
     * complete if it is a single word or the last token of a multi word entry.
@@ -42,6 +42,9 @@ public class DictionaryMatchImpl implements DictionaryMatch {
    // metaData of the last valid match
    private EntryMetaData correctMetaData;
 
+   // edit distance of the last valid match
+   private int editDistance;
+
    /**
     * Creates a new DictionaryMatch object and reset all members
     */
@@ -67,6 +70,25 @@ public class DictionaryMatchImpl implements DictionaryMatch {
       return this.correctTokenCount;
    }
 
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.dict_annot.DictionaryMatch#getEditDistance()
+    */
+   public int getEditDistance() {
+      return this.editDistance;
+   }
+
+   /**
+    * sets the edit distance of the valid match
+    * 
+    * @param editDistance
+    *           edit distance between the matched tokens and the entry
+    */
+   public void setEditDistance(int editDistance) {
+      this.editDistance = editDistance;
+   }
+
    /**
     * stores a new match in the match object
     * 
@@ -107,5 +129,6 @@ public class DictionaryMatchImpl implements DictionaryMatch {
       this.tempMetaData = null;
       this.correctTokenCount = 0;
       this.tempTokenCount = 0;
+      this.editDistance = 0;
    }
 }
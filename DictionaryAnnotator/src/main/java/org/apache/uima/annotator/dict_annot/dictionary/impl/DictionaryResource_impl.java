@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.util.HashMap;
+
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * Shared resource implementation of the DictionaryResource interface. The
+ * dictionaries are not loaded from the resource data, they are added by the
+ * first DictionaryAnnotator instance that uses a dictionary configuration.
+ */
+public class DictionaryResource_impl implements DictionaryResource,
+      SharedResourceObject {
+
+   // dictionaries for each dictionary configuration
+   private HashMap<String, Dictionary[]> dictionaries;
+
+   // merged dictionaries for each dictionary configuration
+   private HashMap<String, MergedDictionary> mergedDictionaries;
+
+   /**
+    * Creates a new empty DictionaryResource_impl object.
+    */
+   public DictionaryResource_impl() {
+      this.dictionaries = new HashMap<String, Dictionary[]>();
+      this.mergedDictionaries = new HashMap<String, MergedDictionary>();
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.resource.SharedResourceObject#load(org.apache.uima.resource.DataResource)
+    */
+   public void load(DataResource data) throws ResourceInitializationException {
+      // the dictionaries are added by the annotator
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource#getDictionaries(java.lang.String[],
+    *      boolean)
+    */
+   public synchronized Dictionary[] getDictionaries(String[] dictionaryFiles,
+         boolean mergeDictionaries) {
+      Dictionary[] dicts = this.dictionaries.get(getKey(dictionaryFiles,
+            mergeDictionaries));
+      if (dicts == null) {
+         return null;
+      }
+      // return a copy so that the shared array cannot be changed
+      Dictionary[] copy = new Dictionary[dicts.length];
+      System.arraycopy(dicts, 0, copy, 0, dicts.length);
+      return copy;
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource#getMergedDictionary(java.lang.String[])
+    */
+   public synchronized MergedDictionary getMergedDictionary(
+         String[] dictionaryFiles) {
+      return this.mergedDictionaries.get(getKey(dictionaryFiles, true));
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource#addDictionaries(java.lang.String[],
+    *      boolean,
+    *      org.apache.uima.annotator.dict_annot.dictionary.Dictionary[],
+    *      org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionary)
+    */
+   public synchronized void addDictionaries(String[] dictionaryFiles,
+         boolean mergeDictionaries, Dictionary[] dicts,
+         MergedDictionary mergedDictionary) {
+      String key = getKey(dictionaryFiles, mergeDictionaries);
+      Dictionary[] copy = new Dictionary[dicts.length];
+      System.arraycopy(dicts, 0, copy, 0, dicts.length);
+      this.dictionaries.put(key, copy);
+      if (mergedDictionary != null) {
+         this.mergedDictionaries.put(key, mergedDictionary);
+      }
+   }
+
+   /**
+    * Returns the key of the given dictionary configuration.
+    * 
+    * @param dictionaryFiles
+    *           configured dictionary files
+    * @param mergeDictionaries
+    *           merged dictionary setting
+    * 
+    * @return configuration key
+    */
+   private static String getKey(String[] dictionaryFiles,
+         boolean mergeDictionaries) {
+      StringBuffer key = new StringBuffer();
+      key.append(mergeDictionaries);
+      for (int i = 0; i < dictionaryFiles.length; i++) {
+         key.append('\n');
+         key.append(dictionaryFiles[i]);
+      }
+      return key.toString();
+   }
+}
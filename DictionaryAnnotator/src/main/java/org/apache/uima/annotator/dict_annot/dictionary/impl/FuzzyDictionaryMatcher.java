@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryMatch;
+
+/**
+ * Approximate matching of a compact trie dictionary. A token of the input
+ * matches a dictionary token if the edit distance (Levenshtein distance)
+ * between them is not larger than the maximum token distance, and an entry
+ * matches if the sum of its token distances is not larger than the maximum
+ * entry distance.
+ *
+ * The similar dictionary tokens of an input token are found with a symmetric
+ * delete index: all variants of the dictionary tokens with up to the maximum
+ * token distance characters deleted are indexed, and the candidates are found
+ * by looking up the delete variants of the input token. The candidates are
+ * then checked with a bounded edit distance calculation. The candidates of
+ * each input token are computed once per document, so the matching itself
+ * follows the trie like the exact matching.
+ *
+ * The index size grows with the number of delete variants, so small maximum
+ * token distances (1 or 2) should be used.
+ */
+public class FuzzyDictionaryMatcher {
+
+   // dictionary that is matched
+   private CompactTrieDictionary dictionary;
+
+   // maximum edit distance of a single token
+   private int maxTokenDistance;
+
+   // maximum sum of the token edit distances of an entry
+   private int maxEntryDistance;
+
+   // dictionary tokens indexed by token ID
+   private String[] tokens;
+
+   // maps each delete variant to the IDs of the tokens it was created from
+   private HashMap<String, int[]> deleteIndex;
+
+   /**
+    * Creates a new fuzzy matcher for the given dictionary.
+    *
+    * @param dictionary
+    *           dictionary that is matched
+    * @param maxTokenDistance
+    *           maximum edit distance of a single token
+    * @param maxEntryDistance
+    *           maximum sum of the token edit distances of an entry
+    */
+   public FuzzyDictionaryMatcher(CompactTrieDictionary dictionary,
+         int maxTokenDistance, int maxEntryDistance) {
+      this.dictionary = dictionary;
+      this.maxTokenDistance = maxTokenDistance;
+      this.maxEntryDistance = maxEntryDistance;
+      dictionary.compile();
+      this.tokens = dictionary.getTokens();
+
+      // index the delete variants of all dictionary tokens
+      HashMap<String, ArrayList<Integer>> index = new HashMap<String, ArrayList<Integer>>();
+      HashSet<String> variants = new HashSet<String>();
+      for (int i = 0; i < this.tokens.length; i++) {
+         variants.clear();
+         addDeletes(this.tokens[i], maxTokenDistance, variants);
+         Iterator<String> it = variants.iterator();
+         while (it.hasNext()) {
+            String variant = it.next();
+            ArrayList<Integer> ids = index.get(variant);
+            if (ids == null) {
+               ids = new ArrayList<Integer>(1);
+               index.put(variant, ids);
+            }
+            ids.add(Integer.valueOf(i));
+         }
+      }
+      this.deleteIndex = new HashMap<String, int[]>(index.size() * 4 / 3 + 1);
+      Iterator<Map.Entry<String, ArrayList<Integer>>> it = index.entrySet()
+            .iterator();
+      while (it.hasNext()) {
+         Map.Entry<String, ArrayList<Integer>> entry = it.next();
+         ArrayList<Integer> ids = entry.getValue();
+         int[] tokenIds = new int[ids.size()];
+         for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = ids.get(i).intValue();
+         }
+         this.deleteIndex.put(entry.getKey(), tokenIds);
+      }
+   }
+
+   /**
+    * Returns the dictionary that is matched.
+    *
+    * @return dictionary
+    */
+   public CompactTrieDictionary getDictionary() {
+      return this.dictionary;
+   }
+
+   /**
+    * Returns the longest dictionary entry that approximately matches the
+    * tokens starting at the given position. If several entries with this
+    * length match, the one with the smallest edit distance is returned.
+    *
+    * @param pos
+    *           start position in the annotation array
+    * @param tokenValues
+    *           token values of the input annotations
+    *
+    * @return returns the match, or null if no entry matches
+    */
+   public DictionaryMatch matchEntry(int pos, TokenValues tokenValues) {
+      Candidates[] candidates = tokenValues.getFuzzyCandidates(this);
+
+      // the trie nodes reached so far, with their smallest distance
+      int[] nodes = new int[] { 0 };
+      int[] distances = new int[] { 0 };
+      int stateCount = 1;
+
+      int matchLength = 0;
+      int matchEntryId = 0;
+      int matchDistance = 0;
+      for (int i = pos; i < candidates.length && stateCount > 0; i++) {
+         Candidates tokenCandidates = candidates[i];
+         if (tokenCandidates == null) {
+            break;
+         }
+
+         // follow the trie with all candidates of the current token
+         int maxStates = stateCount * tokenCandidates.tokenIds.length;
+         int[] newNodes = new int[maxStates];
+         int[] newDistances = new int[maxStates];
+         int newCount = 0;
+         for (int s = 0; s < stateCount; s++) {
+            for (int c = 0; c < tokenCandidates.tokenIds.length; c++) {
+               int distance = distances[s] + tokenCandidates.distances[c];
+               if (distance > this.maxEntryDistance) {
+                  continue;
+               }
+               int child = this.dictionary.child(nodes[s],
+                     tokenCandidates.tokenIds[c]);
+               if (child < 0) {
+                  continue;
+               }
+               // keep each node once with its smallest distance
+               int k = 0;
+               while (k < newCount && newNodes[k] != child) {
+                  k++;
+               }
+               if (k == newCount) {
+                  newNodes[newCount] = child;
+                  newDistances[newCount] = distance;
+                  newCount++;
+               } else if (distance < newDistances[k]) {
+                  newDistances[k] = distance;
+               }
+            }
+         }
+         nodes = newNodes;
+         distances = newDistances;
+         stateCount = newCount;
+
+         // remember the complete entry with the smallest distance
+         int best = -1;
+         for (int k = 0; k < stateCount; k++) {
+            if (this.dictionary.getEntryId(nodes[k]) > 0
+                  && (best < 0 || distances[k] < distances[best])) {
+               best = k;
+            }
+         }
+         if (best >= 0) {
+            matchLength = i - pos + 1;
+            matchEntryId = this.dictionary.getEntryId(nodes[best]);
+            matchDistance = distances[best];
+         }
+      }
+
+      if (matchLength == 0) {
+         // no valid match found
+         return null;
+      }
+
+      // create a dictionary match object for the longest match
+      DictionaryMatchImpl match = new DictionaryMatchImpl();
+      for (int i = 1; i < matchLength; i++) {
+         match.storeMatch(null, false);
+      }
+      match.storeMatch(new EntryMetaDataImpl(matchEntryId), true);
+      match.setEditDistance(matchDistance);
+      return match;
+   }
+
+   /**
+    * Returns the candidate dictionary tokens of each of the given token
+    * values.
+    *
+    * @param tokenValues
+    *           token values of the input annotations
+    *
+    * @return candidates for each annotation position, null if the position
+    *         has no value
+    */
+   Candidates[] getCandidates(TokenValues tokenValues) {
+      Candidates[] candidates = new Candidates[tokenValues.size()];
+      HashMap<String, Candidates> valueCandidates = new HashMap<String, Candidates>();
+      boolean caseNormalization = this.dictionary.isCaseNormalization();
+      for (int i = 0; i < candidates.length; i++) {
+         String value = tokenValues.getNormalizedValue(i, caseNormalization);
+         if (value != null) {
+            candidates[i] = valueCandidates.get(value);
+            if (candidates[i] == null) {
+               candidates[i] = getCandidates(value);
+               valueCandidates.put(value, candidates[i]);
+            }
+         }
+      }
+      return candidates;
+   }
+
+   /**
+    * Returns the dictionary tokens within the maximum token distance of the
+    * given value.
+    *
+    * @param value
+    *           normalized token value
+    *
+    * @return candidate tokens with their distances
+    */
+   Candidates getCandidates(String value) {
+      HashSet<String> variants = new HashSet<String>();
+      addDeletes(value, this.maxTokenDistance, variants);
+
+      HashSet<Integer> checked = new HashSet<Integer>();
+      ArrayList<int[]> found = new ArrayList<int[]>();
+      Iterator<String> it = variants.iterator();
+      while (it.hasNext()) {
+         int[] tokenIds = this.deleteIndex.get(it.next());
+         if (tokenIds == null) {
+            continue;
+         }
+         for (int i = 0; i < tokenIds.length; i++) {
+            if (checked.add(Integer.valueOf(tokenIds[i]))) {
+               int distance = editDistance(this.tokens[tokenIds[i]], value,
+                     this.maxTokenDistance);
+               if (distance <= this.maxTokenDistance) {
+                  found.add(new int[] { tokenIds[i], distance });
+               }
+            }
+         }
+      }
+
+      Candidates candidates = new Candidates(found.size());
+      for (int i = 0; i < found.size(); i++) {
+         candidates.tokenIds[i] = found.get(i)[0];
+         candidates.distances[i] = found.get(i)[1];
+      }
+      return candidates;
+   }
+
+   /**
+    * Adds the given word and all its variants with up to the given number of
+    * characters deleted to the variant set.
+    */
+   private static void addDeletes(String word, int distance,
+         HashSet<String> variants) {
+      variants.add(word);
+      if (distance == 0) {
+         return;
+      }
+      for (int i = 0; i < word.length(); i++) {
+         String variant = word.substring(0, i) + word.substring(i + 1);
+         // each variant length is reached with the same remaining distance,
+         // so known variants do not have to be expanded again
+         if (!variants.contains(variant)) {
+            addDeletes(variant, distance - 1, variants);
+         }
+      }
+   }
+
+   /**
+    * Returns the edit distance between the given strings, or max + 1 if it is
+    * larger than max.
+    *
+    * @param a
+    *           first string
+    * @param b
+    *           second string
+    * @param max
+    *           maximum distance of interest
+    *
+    * @return edit distance, at most max + 1
+    */
+   static int editDistance(String a, String b, int max) {
+      int lengthA = a.length();
+      int lengthB = b.length();
+      if (Math.abs(lengthA - lengthB) > max) {
+         return max + 1;
+      }
+      int[] previous = new int[lengthB + 1];
+      int[] current = new int[lengthB + 1];
+      for (int j = 0; j <= lengthB; j++) {
+         previous[j] = j;
+      }
+      for (int i = 1; i <= lengthA; i++) {
+         current[0] = i;
+         int rowMin = current[0];
+         char charA = a.charAt(i - 1);
+         for (int j = 1; j <= lengthB; j++) {
+            int cost = (charA == b.charAt(j - 1)) ? 0 : 1;
+            current[j] = Math.min(Math.min(current[j - 1] + 1,
+                  previous[j] + 1), previous[j - 1] + cost);
+            rowMin = Math.min(rowMin, current[j]);
+         }
+         if (rowMin > max) {
+            return max + 1;
+         }
+         int[] row = previous;
+         previous = current;
+         current = row;
+      }
+      return Math.min(previous[lengthB], max + 1);
+   }
+
+   /**
+    * Candidate dictionary tokens of an input token.
+    */
+   static class Candidates {
+
+      // token IDs of the candidates
+      final int[] tokenIds;
+
+      // edit distance of each candidate
+      final int[] distances;
+
+      Candidates(int size) {
+         this.tokenIds = new int[size];
+         this.distances = new int[size];
+      }
+   }
+}
@@ -315,6 +315,48 @@ public class HashMapDictionary implements Dictionary {
       this.typeName = typeName;
    }
 
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#matchEntry(int,
+    *      org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues)
+    */
+   public DictionaryMatch matchEntry(int pos, TokenValues tokenValues) {
+
+      // create a dictionary match object
+      DictionaryMatchImpl match = new DictionaryMatchImpl();
+
+      // follow the dictionary branches as long as the tokens match
+      HashMap<String, DictionaryEntry> currentMap = this.dictionary;
+      for (int i = pos; i < tokenValues.size(); i++) {
+         String value = tokenValues.getNormalizedValue(i,
+               this.caseNormalization);
+         if (value == null) {
+            break;
+         }
+         DictionaryEntry currentEntry = currentMap.get(value);
+         if (currentEntry == null) {
+            break;
+         }
+         // add match to the match object
+         match.storeMatch(currentEntry.getEntryMetaData(), currentEntry
+               .isComplete());
+         if (!currentEntry.hasSubBranch()) {
+            break;
+         }
+         currentMap = currentEntry.getSubBranch();
+      }
+
+      // check if a match was found that is valid
+      if (match.isValidMatch()) {
+         // valid match found, return the match
+         return match;
+      } else {
+         // no valid match found
+         return null;
+      }
+   }
+
    /**
     * search the first longest matches for the given input data. This method is
     * called recursive to detect multi word matches. All valid matches that are
@@ -340,10 +382,9 @@ public class HashMapDictionary implements Dictionary {
       // current map
       String value = featPathInfo.getValue(annotFSs[pos + offset]);
       if (value != null) {
-         String normalizedValue = normalizeString(value);
-         if (dict.containsKey(normalizedValue)) {
-            // token is available in the map, get the dictionary entry object
-            DictionaryEntry currentEntry = dict.get(normalizedValue);
+         // get the dictionary entry object if the token is available in the map
+         DictionaryEntry currentEntry = dict.get(normalizeString(value));
+         if (currentEntry != null) {
             // add match to the match object
             match.storeMatch(currentEntry.getEntryMetaData(), currentEntry
                   .isComplete());
@@ -0,0 +1,432 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.util.ArrayList;
+
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryMatch;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Combines several dictionaries in one lookup structure, so that the matches
+ * of all dictionaries can be found with a single pass over the input
+ * annotations.
+ *
+ * The entries of all case normalized dictionaries are stored in one shared
+ * trie, the entries of all other dictionaries in a second one. Each trie entry
+ * is tagged with the dictionaries that contain it. The single dictionaries are
+ * still available as Dictionary objects, they are created with a
+ * MergedDictionaryBuilder.
+ */
+public class MergedDictionary {
+
+   // shared trie of the case normalized dictionaries
+   private TaggedTrie normalizedTrie;
+
+   // shared trie of the dictionaries without case normalization
+   private TaggedTrie caseSensitiveTrie;
+
+   // dictionaries merged in this object, the list index is the dictionary tag
+   private ArrayList<Part> parts;
+
+   /**
+    * Creates a new empty MergedDictionary object.
+    */
+   public MergedDictionary() {
+      this.normalizedTrie = new TaggedTrie(true);
+      this.caseSensitiveTrie = new TaggedTrie(false);
+      this.parts = new ArrayList<Part>();
+   }
+
+   /**
+    * Returns the merged dictionaries in the order they were added.
+    *
+    * @return merged dictionaries
+    */
+   public Dictionary[] getDictionaries() {
+      return this.parts.toArray(new Dictionary[this.parts.size()]);
+   }
+
+   /**
+    * Returns the number of merged dictionaries.
+    *
+    * @return dictionary count
+    */
+   public int getDictionaryCount() {
+      return this.parts.size();
+   }
+
+   /**
+    * Compiles the shared tries. Must be called after all dictionaries have been
+    * built.
+    */
+   public void compile() {
+      this.normalizedTrie.trie.compile();
+      this.caseSensitiveTrie.trie.compile();
+   }
+
+   /**
+    * Detects the longest entry of each merged dictionary that starts at the
+    * given position.
+    *
+    * @param pos
+    *           start position in the annotation array
+    * @param tokenValues
+    *           token values of the input annotations
+    * @param nextPos
+    *           for each dictionary the first position where it may match, the
+    *           dictionaries with a position after pos are skipped
+    * @param matchLengths
+    *           receives for each dictionary the length of its longest match,
+    *           or 0 if it has no match at pos
+    */
+   public void matchEntries(int pos, TokenValues tokenValues, int[] nextPos,
+         int[] matchLengths) {
+
+      for (int i = 0; i < matchLengths.length; i++) {
+         matchLengths[i] = 0;
+      }
+
+      this.normalizedTrie.matchEntries(pos, tokenValues, nextPos, matchLengths);
+      this.caseSensitiveTrie.matchEntries(pos, tokenValues, nextPos,
+            matchLengths);
+   }
+
+   /**
+    * Returns the number of entries of the merged dictionary with the given
+    * index that are not contained in the given dictionary.
+    *
+    * @param index
+    *           index of the merged dictionary, in the order the dictionaries
+    *           were added
+    * @param dictionary
+    *           dictionary to compare with
+    *
+    * @return number of entries that are missing in the given dictionary
+    */
+   public int countEntriesNotContainedIn(int index, Dictionary dictionary) {
+      Part part = this.parts.get(index);
+      return part.taggedTrie.countEntriesNotContainedIn(part.tag, dictionary);
+   }
+
+   /**
+    * Adds a new empty dictionary.
+    *
+    * @return the new dictionary
+    */
+   Part addDictionary() {
+      Part part = new Part(this.parts.size());
+      this.parts.add(part);
+      return part;
+   }
+
+   /**
+    * Trie together with the dictionary tags of its entries.
+    */
+   private static class TaggedTrie {
+
+      private CompactTrieDictionary trie;
+
+      // for each trie entry ID the tags and the dictionary entry IDs of the
+      // dictionaries that contain the entry, stored as pairs
+      private int[][] entryTags;
+
+      TaggedTrie(boolean caseNormalization) {
+         this.trie = new CompactTrieDictionary(caseNormalization);
+         this.entryTags = new int[100][];
+      }
+
+      /**
+       * Adds the multi-word to the given dictionary.
+       *
+       * @return the new dictionary entry ID, -1 if the dictionary already
+       *         contains the multi-word
+       */
+      int add(String[] multiWord, Part part) {
+         int entryId = this.trie.addMultiWord(multiWord);
+         if (entryId < 0) {
+            entryId = this.trie.getEntryId(this.trie.containsMultiWord(multiWord));
+            if (getPartEntryId(entryId, part.tag) > 0) {
+               return -1;
+            }
+         }
+
+         if (entryId >= this.entryTags.length) {
+            int[][] tags = new int[this.entryTags.length * 2][];
+            System.arraycopy(this.entryTags, 0, tags, 0, this.entryTags.length);
+            this.entryTags = tags;
+         }
+         int[] tags = this.entryTags[entryId];
+         int[] newTags;
+         if (tags == null) {
+            newTags = new int[2];
+         } else {
+            newTags = new int[tags.length + 2];
+            System.arraycopy(tags, 0, newTags, 0, tags.length);
+         }
+         int partEntryId = ++part.idCounter;
+         newTags[newTags.length - 2] = part.tag;
+         newTags[newTags.length - 1] = partEntryId;
+         this.entryTags[entryId] = newTags;
+         return partEntryId;
+      }
+
+      /**
+       * Returns the dictionary entry ID of the given trie entry for the given
+       * dictionary.
+       *
+       * @return dictionary entry ID, or 0 if the dictionary does not contain
+       *         the entry
+       */
+      int getPartEntryId(int entryId, int tag) {
+         if (entryId <= 0) {
+            return 0;
+         }
+         int[] tags = this.entryTags[entryId];
+         for (int i = 0; i < tags.length; i += 2) {
+            if (tags[i] == tag) {
+               return tags[i + 1];
+            }
+         }
+         return 0;
+      }
+
+      /**
+       * Returns the number of entries of the given dictionary that are not
+       * contained in the other dictionary.
+       */
+      int countEntriesNotContainedIn(int tag, Dictionary dictionary) {
+         boolean[] selected = new boolean[this.trie.getEntryCount() + 1];
+         for (int i = 1; i < selected.length; i++) {
+            selected[i] = getPartEntryId(i, tag) > 0;
+         }
+         return this.trie.countEntriesNotContainedIn(dictionary, selected);
+      }
+
+      /**
+       * Follows the trie from the given position and stores the match length
+       * for all dictionaries that contain a reached entry and may match at
+       * pos.
+       */
+      void matchEntries(int pos, TokenValues tokenValues, int[] nextPos,
+            int[] matchLengths) {
+         if (this.trie.getEntryCount() == 0) {
+            return;
+         }
+         int[] ids = tokenValues.getTokenIds(this.trie);
+         int node = 0;
+         for (int i = pos; i < ids.length && ids[i] >= 0; i++) {
+            node = this.trie.child(node, ids[i]);
+            if (node < 0) {
+               break;
+            }
+            int entryId = this.trie.getEntryId(node);
+            if (entryId > 0) {
+               int[] tags = this.entryTags[entryId];
+               for (int j = 0; j < tags.length; j += 2) {
+                  if (nextPos[tags[j]] <= pos) {
+                     matchLengths[tags[j]] = i - pos + 1;
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * A single dictionary of the merged dictionary.
+    */
+   class Part implements Dictionary {
+
+      // dictionary tag used in the shared trie
+      private int tag;
+
+      // counts the entries in the dictionary, each entry gets an own unique ID
+      private int idCounter;
+
+      // dictionary language
+      private String language;
+
+      // dictionary output type
+      private String typeName;
+
+      // shared trie used for this dictionary
+      private TaggedTrie taggedTrie;
+
+      Part(int tag) {
+         this.tag = tag;
+         this.idCounter = 0;
+         this.taggedTrie = MergedDictionary.this.normalizedTrie;
+      }
+
+      /**
+       * set the dictionary properties, the case normalization can only be
+       * changed as long as the dictionary is empty
+       */
+      void setDictionaryProperties(String language, String typeName,
+            boolean caseNormalization) {
+         this.language = language;
+         this.typeName = typeName;
+         if (this.idCounter == 0) {
+            this.taggedTrie = caseNormalization ? MergedDictionary.this.normalizedTrie
+                  : MergedDictionary.this.caseSensitiveTrie;
+         }
+      }
+
+      /**
+       * Adds a new multi-word to the dictionary
+       *
+       * @return ID that was generated for this entry, -1 if the multi-word was
+       *         already available
+       */
+      int addMultiWord(String[] multiWord) {
+         return this.taggedTrie.add(multiWord, this);
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#contains(java.lang.String)
+       */
+      public boolean contains(String word) {
+         return contains(new String[] { word });
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#contains(java.lang.String[])
+       */
+      public boolean contains(String[] multiWord) {
+         int node = this.taggedTrie.trie.containsMultiWord(multiWord);
+         return (node > 0)
+               && this.taggedTrie.getPartEntryId(this.taggedTrie.trie
+                     .getEntryId(node), this.tag) > 0;
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#matchEntry(int,
+       *      org.apache.uima.cas.text.AnnotationFS[],
+       *      org.apache.uima.annotator.dict_annot.dictionary.impl.FeaturePathInfo)
+       */
+      public DictionaryMatch matchEntry(int pos, AnnotationFS[] annotFSs,
+            FeaturePathInfo featPathInfo) {
+
+         // create a dictionary match object
+         DictionaryMatchImpl match = new DictionaryMatchImpl();
+
+         // follow the trie as long as the tokens match
+         int node = 0;
+         for (int offset = 0; pos + offset < annotFSs.length; offset++) {
+            String value = featPathInfo.getValue(annotFSs[pos + offset]);
+            if (value == null) {
+               break;
+            }
+            node = this.taggedTrie.trie.lookup(node, value);
+            if (node < 0) {
+               break;
+            }
+            int entryId = this.taggedTrie.getPartEntryId(this.taggedTrie.trie
+                  .getEntryId(node), this.tag);
+            if (entryId > 0) {
+               match.storeMatch(new EntryMetaDataImpl(entryId), true);
+            } else {
+               match.storeMatch(null, false);
+            }
+         }
+
+         // check if a match was found that is valid
+         if (match.isValidMatch()) {
+            // valid match found, return the match
+            return match;
+         } else {
+            // no valid match found
+            return null;
+         }
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#matchEntry(int,
+       *      org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues)
+       */
+      public DictionaryMatch matchEntry(int pos, TokenValues tokenValues) {
+         int[] ids = tokenValues.getTokenIds(this.taggedTrie.trie);
+
+         // create a dictionary match object
+         DictionaryMatchImpl match = new DictionaryMatchImpl();
+
+         // follow the trie as long as the token IDs match
+         int node = 0;
+         for (int i = pos; i < ids.length && ids[i] >= 0; i++) {
+            node = this.taggedTrie.trie.child(node, ids[i]);
+            if (node < 0) {
+               break;
+            }
+            int entryId = this.taggedTrie.getPartEntryId(this.taggedTrie.trie
+                  .getEntryId(node), this.tag);
+            if (entryId > 0) {
+               match.storeMatch(new EntryMetaDataImpl(entryId), true);
+            } else {
+               match.storeMatch(null, false);
+            }
+         }
+
+         // check if a match was found that is valid
+         if (match.isValidMatch()) {
+            // valid match found, return the match
+            return match;
+         } else {
+            // no valid match found
+            return null;
+         }
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getEntryCount()
+       */
+      public int getEntryCount() {
+         return this.idCounter;
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getTypeName()
+       */
+      public String getTypeName() {
+         return this.typeName;
+      }
+
+      /*
+       * (non-Javadoc)
+       *
+       * @see org.apache.uima.annotator.dict_annot.dictionary.Dictionary#getLanguage()
+       */
+      public String getLanguage() {
+         return this.language;
+      }
+   }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary.impl;
+
+import java.util.IdentityHashMap;
+
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Per document cache of the token values of the input annotations. The
+ * feature path of each annotation is evaluated once, and the value is
+ * normalized once for each normalization setting, no matter how many
+ * dictionaries and match start positions use it.
+ *
+ * For the compact trie dictionaries the cache also stores the token IDs of the
+ * values, so that the matching itself only compares integers.
+ */
+public class TokenValues {
+
+   // input annotations
+   private AnnotationFS[] annotFSs;
+
+   // featurePath information for the matching
+   private FeaturePathInfo featPathInfo;
+
+   // feature path values, resolved on first use
+   private String[] values;
+
+   private boolean[] resolved;
+
+   // values normalized with and without case normalization, created on
+   // first use
+   private String[] caseNormalizedValues;
+
+   private String[] trimmedValues;
+
+   // token IDs of the values for each compact trie dictionary
+   private IdentityHashMap<CompactTrieDictionary, int[]> tokenIds;
+
+   // fuzzy match candidates of the values for each fuzzy matcher, created on
+   // first use
+   private IdentityHashMap<FuzzyDictionaryMatcher, FuzzyDictionaryMatcher.Candidates[]> fuzzyCandidates;
+
+   /**
+    * Creates a new token value cache for the given annotations.
+    *
+    * @param annotFSs
+    *           input annotation FS array
+    * @param featPathInfo
+    *           featurePath information for the matching
+    */
+   public TokenValues(AnnotationFS[] annotFSs, FeaturePathInfo featPathInfo) {
+      this.annotFSs = annotFSs;
+      this.featPathInfo = featPathInfo;
+      this.values = new String[annotFSs.length];
+      this.resolved = new boolean[annotFSs.length];
+      this.tokenIds = new IdentityHashMap<CompactTrieDictionary, int[]>();
+   }
+
+   /**
+    * Returns the number of annotations.
+    *
+    * @return annotation count
+    */
+   public int size() {
+      return this.annotFSs.length;
+   }
+
+   /**
+    * Returns the input annotations.
+    *
+    * @return input annotation FS array
+    */
+   public AnnotationFS[] getAnnotations() {
+      return this.annotFSs;
+   }
+
+   /**
+    * Returns the feature path value of the annotation at the given position.
+    *
+    * @param pos
+    *           annotation position
+    *
+    * @return feature path value, may be null
+    */
+   public String getValue(int pos) {
+      if (!this.resolved[pos]) {
+         this.values[pos] = this.featPathInfo.getValue(this.annotFSs[pos]);
+         this.resolved[pos] = true;
+      }
+      return this.values[pos];
+   }
+
+   /**
+    * Returns the normalized feature path value of the annotation at the given
+    * position. The value is converted to lower case if case normalization is
+    * enabled, and the spaces around it are removed.
+    *
+    * @param pos
+    *           annotation position
+    * @param caseNormalization
+    *           case normalization setting
+    *
+    * @return normalized feature path value, may be null
+    */
+   public String getNormalizedValue(int pos, boolean caseNormalization) {
+      String value = getValue(pos);
+      if (value == null) {
+         return null;
+      }
+      if (caseNormalization) {
+         if (this.caseNormalizedValues == null) {
+            this.caseNormalizedValues = new String[this.annotFSs.length];
+         }
+         if (this.caseNormalizedValues[pos] == null) {
+            this.caseNormalizedValues[pos] = value.toLowerCase().trim();
+         }
+         return this.caseNormalizedValues[pos];
+      }
+      if (this.trimmedValues == null) {
+         this.trimmedValues = new String[this.annotFSs.length];
+      }
+      if (this.trimmedValues[pos] == null) {
+         this.trimmedValues[pos] = value.trim();
+      }
+      return this.trimmedValues[pos];
+   }
+
+   /**
+    * Returns the token IDs of all values for the given dictionary, -1 for
+    * values that are not in its token table.
+    *
+    * @param dictionary
+    *           compact trie dictionary
+    *
+    * @return token ID for each annotation position
+    */
+   int[] getTokenIds(CompactTrieDictionary dictionary) {
+      int[] ids = this.tokenIds.get(dictionary);
+      if (ids == null) {
+         ids = dictionary.getTokenIds(this);
+         this.tokenIds.put(dictionary, ids);
+      }
+      return ids;
+   }
+
+   /**
+    * Returns the fuzzy match candidates of all values for the given matcher.
+    *
+    * @param matcher
+    *           fuzzy dictionary matcher
+    *
+    * @return candidates for each annotation position
+    */
+   FuzzyDictionaryMatcher.Candidates[] getFuzzyCandidates(
+         FuzzyDictionaryMatcher matcher) {
+      if (this.fuzzyCandidates == null) {
+         this.fuzzyCandidates = new IdentityHashMap<FuzzyDictionaryMatcher, FuzzyDictionaryMatcher.Candidates[]>();
+      }
+      FuzzyDictionaryMatcher.Candidates[] candidates = this.fuzzyCandidates
+            .get(matcher);
+      if (candidates == null) {
+         candidates = matcher.getCandidates(this);
+         this.fuzzyCandidates.put(matcher, candidates);
+      }
+      return candidates;
+   }
+}
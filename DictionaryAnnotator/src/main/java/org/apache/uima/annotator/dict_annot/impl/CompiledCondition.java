@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.impl;
+
+import java.util.List;
+
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.LowLevelCAS;
+import org.apache.uima.cas.impl.TypeSystemUtils;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * A filter condition that is bound to a featurePath of the current type
+ * system. The featurePath features are resolved and the condition value is
+ * converted to the type of the featurePath value once, so that checking an
+ * annotation does not need any feature lookups or string parsing.
+ * 
+ * If the featurePath cannot be resolved in advance, the condition is checked
+ * with FeaturePathInfo_impl.match().
+ */
+public class CompiledCondition {
+
+   // featurePath and condition, used if the path is not resolved in advance
+   private final FeaturePathInfo_impl featurePath;
+
+   private final Condition condition;
+
+   // featurePath FS features before the value feature, null if the path is
+   // not resolved in advance
+   private final Feature[] pathFeatures;
+
+   // featurePath value feature
+   private final Feature valueFeature;
+
+   // type class of the value feature
+   private final int typeCode;
+
+   // condition operator
+   private final FilterOp op;
+
+   // false if the condition can never match, e.g. because the condition
+   // value is not valid for the feature type
+   private final boolean valid;
+
+   // condition value for integral, floating point, boolean and String
+   // features
+   private final long longValue;
+
+   private final double doubleValue;
+
+   private final boolean booleanValue;
+
+   private final String stringValue;
+
+   /**
+    * Compiles the given condition for the given featurePath. The featurePath
+    * must have been initialized with the current type system.
+    * 
+    * @param featurePath
+    *           featurePath of the condition value
+    * @param condition
+    *           filter condition
+    */
+   public CompiledCondition(FeaturePathInfo_impl featurePath,
+         Condition condition) {
+      this.featurePath = featurePath;
+      this.condition = condition;
+      this.op = condition.getConditionType();
+      this.stringValue = condition.getValue();
+
+      List<Feature> features = featurePath.getFeaturePathElements();
+      int code = LowLevelCAS.TYPE_CLASS_INVALID;
+      boolean pathValid = true;
+      if (features != null && features.size() > 0) {
+         // all features but the last one must be FS features
+         for (int i = 0; i < features.size() - 1; i++) {
+            if (TypeSystemUtils.classifyType(features.get(i).getRange()) != LowLevelCAS.TYPE_CLASS_FS) {
+               pathValid = false;
+            }
+         }
+         code = TypeSystemUtils.classifyType(features.get(features.size() - 1)
+               .getRange());
+      }
+
+      if (features == null || features.size() == 0 || !isSupported(code)) {
+         // check the condition with the featurePath for each annotation
+         this.pathFeatures = null;
+         this.valueFeature = null;
+      } else {
+         this.pathFeatures = features.subList(0, features.size() - 1).toArray(
+               new Feature[features.size() - 1]);
+         this.valueFeature = features.get(features.size() - 1);
+      }
+      this.typeCode = code;
+
+      // convert the condition value to the feature type
+      long longVal = 0;
+      double doubleVal = 0;
+      boolean conditionValid = pathValid;
+      try {
+         switch (code) {
+         case LowLevelCAS.TYPE_CLASS_BYTE:
+            longVal = Byte.parseByte(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_SHORT:
+            longVal = Short.parseShort(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_INT:
+            longVal = Integer.parseInt(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_LONG:
+            longVal = Long.parseLong(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_FLOAT:
+            doubleVal = Float.parseFloat(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_DOUBLE:
+            doubleVal = Double.parseDouble(this.stringValue);
+            break;
+         case LowLevelCAS.TYPE_CLASS_FS:
+         case LowLevelCAS.TYPE_CLASS_INVALID:
+            // a FS value never matches a condition
+            conditionValid = false;
+            break;
+         }
+      } catch (NumberFormatException ex) {
+         conditionValid = false;
+      }
+      this.longValue = longVal;
+      this.doubleValue = doubleVal;
+      this.booleanValue = Boolean.parseBoolean(this.stringValue);
+      this.valid = conditionValid;
+   }
+
+   /**
+    * Returns true if the featurePath value of the given annotation matches the
+    * condition.
+    * 
+    * @param annotFS
+    *           current annotation to check
+    * 
+    * @return returns true if the condition matches the featurePath value
+    */
+   public boolean match(AnnotationFS annotFS) {
+      if (this.pathFeatures == null) {
+         return this.featurePath.match(annotFS, this.condition);
+      }
+      if (!this.valid) {
+         return false;
+      }
+
+      // follow the featurePath to the FS that holds the value
+      FeatureStructure fs = annotFS;
+      for (int i = 0; i < this.pathFeatures.length; i++) {
+         fs = fs.getFeatureValue(this.pathFeatures[i]);
+         if (fs == null) {
+            return false;
+         }
+      }
+
+      switch (this.typeCode) {
+      case LowLevelCAS.TYPE_CLASS_STRING:
+         return matchString(fs.getStringValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_INT:
+         return matchLong(fs.getIntValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_BOOLEAN:
+         return matchBoolean(fs.getBooleanValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_BYTE:
+         return matchLong(fs.getByteValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_DOUBLE:
+         return matchDouble(fs.getDoubleValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_FLOAT:
+         return matchDouble(fs.getFloatValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_LONG:
+         return matchLong(fs.getLongValue(this.valueFeature));
+      case LowLevelCAS.TYPE_CLASS_SHORT:
+         return matchLong(fs.getShortValue(this.valueFeature));
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Returns true if values of the given type class can be checked by the
+    * compiled condition.
+    */
+   private static boolean isSupported(int typeCode) {
+      switch (typeCode) {
+      case LowLevelCAS.TYPE_CLASS_STRING:
+      case LowLevelCAS.TYPE_CLASS_INT:
+      case LowLevelCAS.TYPE_CLASS_BOOLEAN:
+      case LowLevelCAS.TYPE_CLASS_BYTE:
+      case LowLevelCAS.TYPE_CLASS_DOUBLE:
+      case LowLevelCAS.TYPE_CLASS_FLOAT:
+      case LowLevelCAS.TYPE_CLASS_LONG:
+      case LowLevelCAS.TYPE_CLASS_SHORT:
+      case LowLevelCAS.TYPE_CLASS_FS:
+      case LowLevelCAS.TYPE_CLASS_INVALID:
+         return true;
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Checks an integral value (byte, short, int, long) against the condition
+    */
+   private boolean matchLong(long in) {
+      switch (this.op) {
+      case EQUALS:
+         return (in == this.longValue);
+      case NOT_EQUALS:
+         return (in != this.longValue);
+      case GREATER:
+         return (in > this.longValue);
+      case GREATER_EQ:
+         return (in >= this.longValue);
+      case LESS:
+         return (in < this.longValue);
+      case LESS_EQ:
+         return (in <= this.longValue);
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Checks a floating point value (float, double) against the condition. Float
+    * values are exactly representable as double, so the comparison results
+    * are the same as comparing the float values.
+    */
+   private boolean matchDouble(double in) {
+      switch (this.op) {
+      case EQUALS:
+         return (in == this.doubleValue);
+      case NOT_EQUALS:
+         return (in != this.doubleValue);
+      case GREATER:
+         return (in > this.doubleValue);
+      case GREATER_EQ:
+         return (in >= this.doubleValue);
+      case LESS:
+         return (in < this.doubleValue);
+      case LESS_EQ:
+         return (in <= this.doubleValue);
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Checks a boolean value against the condition
+    */
+   private boolean matchBoolean(boolean in) {
+      switch (this.op) {
+      case EQUALS:
+         return (in == this.booleanValue);
+      case NOT_EQUALS:
+         return (in != this.booleanValue);
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Checks a String value against the condition
+    */
+   private boolean matchString(String in) {
+      switch (this.op) {
+      case NULL:
+         return (in == null);
+      case NOT_NULL:
+         return (in != null);
+      }
+      if (in == null) {
+         return false;
+      }
+      int comp = in.compareTo(this.stringValue);
+      switch (this.op) {
+      case EQUALS:
+         return (comp == 0);
+      case NOT_EQUALS:
+         return (comp != 0);
+      case GREATER:
+         return (comp > 0);
+      case GREATER_EQ:
+         return (comp >= 0);
+      case LESS:
+         return (comp < 0);
+      case LESS_EQ:
+         return (comp <= 0);
+      default:
+         return false;
+      }
+   }
+}
@@ -29,6 +29,9 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.CasAnnotator_ImplBase;
@@ -37,20 +40,29 @@ import org.apache.uima.analysis_engine.annotator.AnnotatorContextException;
 import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
 import org.apache.uima.annotator.dict_annot.dictionary.DictionaryFileParser;
 import org.apache.uima.annotator.dict_annot.dictionary.DictionaryMatch;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.BinaryDictionaryFileParser;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionaryBuilder;
 import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryFileParserImpl;
-import org.apache.uima.annotator.dict_annot.dictionary.impl.HashMapDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.FuzzyDictionaryMatcher;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.Level;
 import org.apache.uima.util.Logger;
 
 /**
- * Dictionary annotator implementation that use HashMap dictionaries
+ * Dictionary annotator implementation that use compact trie dictionaries
  */
 public class DictionaryAnnotator extends CasAnnotator_ImplBase {
 
@@ -82,6 +94,27 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
   // FilterConditionValue configuration parameter name
   private static final String FILTER_CONDITION_VALUE = "FilterConditionValue";
 
+  // MergeDictionaries configuration parameter name
+  private static final String MERGE_DICTIONARIES = "MergeDictionaries";
+
+  // FuzzyMatchTokenDistance configuration parameter name
+  private static final String FUZZY_MATCH_TOKEN_DISTANCE = "FuzzyMatchTokenDistance";
+
+  // FuzzyMatchEntryDistance configuration parameter name
+  private static final String FUZZY_MATCH_ENTRY_DISTANCE = "FuzzyMatchEntryDistance";
+
+  // FuzzyMatchDistanceFeature configuration parameter name
+  private static final String FUZZY_MATCH_DISTANCE_FEATURE = "FuzzyMatchDistanceFeature";
+
+  // default output feature for the edit distance of fuzzy matches
+  private static final String DEFAULT_FUZZY_MATCH_DISTANCE_FEATURE = "editDistance";
+
+  // DictionaryReloadInterval configuration parameter name
+  private static final String DICTIONARY_RELOAD_INTERVAL = "DictionaryReloadInterval";
+
+  // DictionaryResource external resource key
+  private static final String DICTIONARY_RESOURCE = "DictionaryResource";
+
   // annotator logger
   private Logger logger;
 
@@ -106,6 +139,34 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
   // dictionaries used with this annotator
   private Dictionary[] dictionaries;
 
+  // merged dictionaries, null if the dictionaries are matched one by one
+  private MergedDictionary mergedDictionary;
+
+  // fuzzy matchers of the dictionaries, null if fuzzy matching is disabled
+  private FuzzyDictionaryMatcher[] fuzzyMatchers;
+
+  // output feature name for the edit distance of fuzzy matches
+  private String fuzzyMatchDistanceFeatureName;
+
+  // maximum edit distance of a single token for fuzzy matches
+  private int fuzzyMatchTokenDistance;
+
+  // maximum edit distance of an entry for fuzzy matches
+  private int fuzzyMatchEntryDistance;
+
+  // dictionary file names as configured
+  private String[] dictionaryFileNames;
+
+  // resolved dictionary file paths, in the order of the dictionaries
+  private String[] dictionaryFilePaths;
+
+  // timer that runs the dictionary reload task, null if the dictionaries are
+  // not reloaded
+  private Timer reloadTimer;
+
+  // dictionaries that were reloaded in the background and are not yet used
+  private AtomicReference<ReloadedDictionaries> reloadedDictionaries = new AtomicReference<ReloadedDictionaries>();
+
   // inputMatchFeaturePath object
   private FeaturePathInfo_impl inputMatchFeaturePath;
 
@@ -115,6 +176,9 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
   // filterCondition object
   private Condition filterCondition;
 
+  // filterCondition compiled for the current type system
+  private CompiledCondition compiledFilterCondition;
+
   /*
    * (non-Javadoc)
    * 
@@ -122,6 +186,15 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
    */
   public void process(CAS cas) throws AnalysisEngineProcessException {
 
+    // switch to reloaded dictionaries, this is only done between two documents
+    // so that a document is always processed with the same dictionaries
+    ReloadedDictionaries reloaded = this.reloadedDictionaries.getAndSet(null);
+    if (reloaded != null) {
+      this.dictionaries = reloaded.dictionaries;
+      this.mergedDictionary = reloaded.mergedDictionary;
+      this.fuzzyMatchers = reloaded.fuzzyMatchers;
+    }
+
     // copy input match type annotations to an array
     FSIterator it = cas.getAnnotationIndex(this.inputMatchType).iterator();
     ArrayList<AnnotationFS> inputTypeAnnots = new ArrayList<AnnotationFS>();
@@ -131,7 +204,7 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
       // check if we have to filter the annotation
       if (this.inputMatchFilterFeaturePathStr != null) {
         // check annotation filter condition
-        if (this.inputMatchFilterFeaturePath.match(annotFS, this.filterCondition)) {
+        if (this.compiledFilterCondition.match(annotFS)) {
           inputTypeAnnots.add(annotFS);
         }
       } else { // no annotation filter specified
@@ -141,24 +214,52 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
     }
     AnnotationFS[] annotFSs = inputTypeAnnots.toArray(new AnnotationFS[] {});
 
+    // resolve the token values once for all dictionaries and positions
+    TokenValues tokenValues = new TokenValues(annotFSs, this.inputMatchFeaturePath);
+
     // -- use the array of annotations to detect matches --
 
+    // get the dictionary output types
+    Type[] dictOutputTypes = new Type[this.dictionaries.length];
     for (int i = 0; i < this.dictionaries.length; i++) {
       // get current dictionary output type
-      Type currentDictOutputType = cas.getTypeSystem().getType(this.dictionaries[i].getTypeName());
+      dictOutputTypes[i] = cas.getTypeSystem().getType(this.dictionaries[i].getTypeName());
       // check output type and throw an exception in case of errors
-      if (currentDictOutputType == null) {
+      if (dictOutputTypes[i] == null) {
         throw new DictionaryAnnotatorProcessException("dictionary_annotator_error_resolving_types",
                 new Object[] { this.dictionaries[i].getTypeName() });
       }
+    }
+
+    if (this.mergedDictionary != null) {
+      processMerged(cas, tokenValues, dictOutputTypes);
+      return;
+    }
+
+    for (int i = 0; i < this.dictionaries.length; i++) {
+      // get the edit distance output feature for fuzzy matches, it is only
+      // set if the output type has an integer feature with that name
+      Feature distanceFeature = null;
+      if (this.fuzzyMatchers != null) {
+        distanceFeature = dictOutputTypes[i].getFeatureByBaseName(
+                this.fuzzyMatchDistanceFeatureName);
+        if (distanceFeature != null
+                && !CAS.TYPE_NAME_INTEGER.equals(distanceFeature.getRange().getName())) {
+          distanceFeature = null;
+        }
+      }
 
       // iterate over the annotation array and detect matches
       int currentPos = 0;
       while (currentPos < annotFSs.length) {
 
         // check for dictionary matches at the current token position
-        DictionaryMatch dictMatch = this.dictionaries[i].matchEntry(currentPos, annotFSs,
-                this.inputMatchFeaturePath);
+        DictionaryMatch dictMatch;
+        if (this.fuzzyMatchers != null) {
+          dictMatch = this.fuzzyMatchers[i].matchEntry(currentPos, tokenValues);
+        } else {
+          dictMatch = this.dictionaries[i].matchEntry(currentPos, tokenValues);
+        }
 
         // check if we have a dictionary match
         if (dictMatch != null) {
@@ -170,7 +271,11 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
           // create annotation for the match we found
           int start = annotFSs[currentPos].getBegin();
           int end = annotFSs[currentPos + matchLength - 1].getEnd();
-          FeatureStructure fs = cas.createAnnotation(currentDictOutputType, start, end);
+          FeatureStructure fs = cas.createAnnotation(dictOutputTypes[i], start, end);
+          // set edit distance of fuzzy matches
+          if (distanceFeature != null) {
+            fs.setIntValue(distanceFeature, dictMatch.getEditDistance());
+          }
           // add annotation to the CAS
           cas.getIndexRepository().addFS(fs);
           // adjust current array position, add match length
@@ -183,6 +288,55 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
     }
   }
 
+  /**
+   * Detects the matches of all dictionaries with a single pass over the annotation array using the
+   * merged dictionary. For each dictionary the same matches are created as if the dictionaries
+   * were matched one by one.
+   * 
+   * @param cas
+   *          current CAS
+   * @param tokenValues
+   *          token values of the input annotations
+   * @param dictOutputTypes
+   *          output type of each dictionary
+   */
+  private void processMerged(CAS cas, TokenValues tokenValues, Type[] dictOutputTypes) {
+    AnnotationFS[] annotFSs = tokenValues.getAnnotations();
+    int dictCount = this.dictionaries.length;
+
+    // for each dictionary the position after its last match, a dictionary
+    // cannot match before this position
+    int[] nextPos = new int[dictCount];
+    int[] matchLengths = new int[dictCount];
+
+    for (int currentPos = 0; currentPos < annotFSs.length; currentPos++) {
+      // check if any dictionary can match at the current position
+      boolean active = false;
+      for (int i = 0; i < dictCount && !active; i++) {
+        active = nextPos[i] <= currentPos;
+      }
+      if (!active) {
+        continue;
+      }
+
+      // get the longest match of each dictionary at the current position
+      this.mergedDictionary.matchEntries(currentPos, tokenValues, nextPos, matchLengths);
+
+      for (int i = 0; i < dictCount; i++) {
+        if (matchLengths[i] > 0) {
+          // create annotation for the match we found
+          int start = annotFSs[currentPos].getBegin();
+          int end = annotFSs[currentPos + matchLengths[i] - 1].getEnd();
+          FeatureStructure fs = cas.createAnnotation(dictOutputTypes[i], start, end);
+          // add annotation to the CAS
+          cas.getIndexRepository().addFS(fs);
+          // the dictionary can match again after the current match
+          nextPos[i] = currentPos + matchLengths[i];
+        }
+      }
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -198,6 +352,7 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
     // get parameter ConceptFiles, default is an empty array
     String[] dictionaryFileNames = safeGetConfigParameterStringArrayValue(getContext(),
             DICTIONARY_FILES, new String[] {});
+    this.dictionaryFileNames = dictionaryFileNames;
 
     // get input match type
     this.inputMatchTypeStr = (String) this.getContext().getConfigParameterValue(INPUT_MATCH_TYPE);
@@ -269,19 +424,141 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
               "dictionary_annotator_filter_feature_condition", new Object[] { buffer.toString() });
     }
 
-    // create dictionary file parser
-    DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+    // check if the dictionaries should be merged
+    Boolean mergeDictionariesParam = (Boolean) this.getContext().getConfigParameterValue(
+            MERGE_DICTIONARIES);
+    boolean mergeDictionaries = mergeDictionariesParam != null
+            && mergeDictionariesParam.booleanValue();
+
+    // get the shared dictionary resource, if one is bound
+    DictionaryResource dictionaryResource;
+    try {
+      dictionaryResource = (DictionaryResource) this.getContext().getResourceObject(
+              DICTIONARY_RESOURCE);
+    } catch (ResourceAccessException ex) {
+      throw new DictionaryAnnotatorConfigException(
+              "dictionary_annotator_error_accessing_dictionary_resource",
+              new Object[] { DICTIONARY_RESOURCE }, ex);
+    }
 
-    // get UIMA datapath and tokenize it into its elements
-    StringTokenizer tokenizer = new StringTokenizer(getContext().getDataPath(), PATH_SEPARATOR);
-    ArrayList<File> datapathElements = new ArrayList<File>();
-    while (tokenizer.hasMoreTokens()) {
-      // add datapath elements to the 'datapathElements' array list
-      datapathElements.add(new File(tokenizer.nextToken()));
+    if (dictionaryResource == null) {
+      // load the dictionaries for this annotator instance
+      loadDictionaries(dictionaryFileNames, mergeDictionaries);
+    } else {
+      // use the dictionaries of the shared resource, the first annotator
+      // instance loads them
+      synchronized (dictionaryResource) {
+        this.dictionaries = dictionaryResource.getDictionaries(dictionaryFileNames,
+                mergeDictionaries);
+        if (this.dictionaries == null) {
+          loadDictionaries(dictionaryFileNames, mergeDictionaries);
+          dictionaryResource.addDictionaries(dictionaryFileNames, mergeDictionaries,
+                  this.dictionaries, this.mergedDictionary);
+        } else {
+          this.mergedDictionary = dictionaryResource.getMergedDictionary(dictionaryFileNames);
+          this.logger.logrb(Level.CONFIG, "DictionaryAnnotator", "initialize", MESSAGE_DIGEST,
+                  "dictionary_annotator_shared_dictionaries",
+                  new Object[] { DICTIONARY_RESOURCE });
+        }
+      }
+    }
+
+    // get the fuzzy match settings, fuzzy matching is disabled by default
+    Integer tokenDistanceParam = (Integer) this.getContext().getConfigParameterValue(
+            FUZZY_MATCH_TOKEN_DISTANCE);
+    int tokenDistance = (tokenDistanceParam == null) ? 0 : tokenDistanceParam.intValue();
+    Integer entryDistanceParam = (Integer) this.getContext().getConfigParameterValue(
+            FUZZY_MATCH_ENTRY_DISTANCE);
+    int entryDistance = (entryDistanceParam == null) ? tokenDistance : entryDistanceParam
+            .intValue();
+    this.fuzzyMatchDistanceFeatureName = (String) this.getContext().getConfigParameterValue(
+            FUZZY_MATCH_DISTANCE_FEATURE);
+    if (this.fuzzyMatchDistanceFeatureName == null) {
+      this.fuzzyMatchDistanceFeatureName = DEFAULT_FUZZY_MATCH_DISTANCE_FEATURE;
+    }
+
+    this.fuzzyMatchTokenDistance = tokenDistance;
+    this.fuzzyMatchEntryDistance = entryDistance;
+    this.fuzzyMatchers = null;
+    if (tokenDistance < 0 || entryDistance < 0) {
+      throw new DictionaryAnnotatorConfigException(
+              "dictionary_annotator_error_fuzzy_match_distance", new Object[] {
+                  Integer.valueOf(tokenDistance), Integer.valueOf(entryDistance) });
+    }
+    if (tokenDistance > 0 && entryDistance > 0) {
+      // fuzzy matching follows the tries of the single dictionaries
+      if (mergeDictionaries) {
+        throw new DictionaryAnnotatorConfigException(
+                "dictionary_annotator_error_fuzzy_match_merged", new Object[] {
+                    FUZZY_MATCH_TOKEN_DISTANCE, MERGE_DICTIONARIES });
+      }
+      this.fuzzyMatchers = new FuzzyDictionaryMatcher[this.dictionaries.length];
+      for (int i = 0; i < this.dictionaries.length; i++) {
+        this.fuzzyMatchers[i] = new FuzzyDictionaryMatcher(
+                (CompactTrieDictionary) this.dictionaries[i], tokenDistance, entryDistance);
+      }
+      this.logger.logrb(Level.CONFIG, "DictionaryAnnotator", "initialize", MESSAGE_DIGEST,
+              "dictionary_annotator_fuzzy_match", new Object[] { Integer.valueOf(tokenDistance),
+                  Integer.valueOf(entryDistance) });
+    }
+
+    // start the dictionary reload task if a reload interval is configured
+    Integer reloadIntervalParam = (Integer) this.getContext().getConfigParameterValue(
+            DICTIONARY_RELOAD_INTERVAL);
+    if (reloadIntervalParam != null && reloadIntervalParam.intValue() > 0) {
+      // the shared dictionaries are used by other instances, so they cannot
+      // be replaced by this instance
+      if (dictionaryResource != null) {
+        throw new DictionaryAnnotatorConfigException(
+                "dictionary_annotator_error_reload_shared_dictionaries", new Object[] {
+                    DICTIONARY_RELOAD_INTERVAL, DICTIONARY_RESOURCE });
+      }
+      long interval = reloadIntervalParam.longValue();
+      this.reloadTimer = new Timer("DictionaryAnnotator dictionary reload", true);
+      this.reloadTimer.schedule(new ReloadTask(mergeDictionaries), interval, interval);
+      this.logger.logrb(Level.CONFIG, "DictionaryAnnotator", "initialize", MESSAGE_DIGEST,
+              "dictionary_annotator_dictionary_reload", new Object[] { reloadIntervalParam });
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.apache.uima.analysis_component.AnalysisComponent_ImplBase#destroy()
+   */
+  public void destroy() {
+    // stop the dictionary reload task
+    if (this.reloadTimer != null) {
+      this.reloadTimer.cancel();
+      this.reloadTimer = null;
     }
+    super.destroy();
+  }
+
+  /**
+   * Loads the given dictionary files and stores the dictionaries in this annotator.
+   * 
+   * @param dictionaryFileNames
+   *          dictionary file names
+   * @param mergeDictionaries
+   *          if true the dictionaries are merged
+   * @throws ResourceInitializationException
+   */
+  private void loadDictionaries(String[] dictionaryFileNames, boolean mergeDictionaries)
+          throws ResourceInitializationException {
+
+    if (mergeDictionaries) {
+      this.mergedDictionary = new MergedDictionary();
+    } else {
+      this.mergedDictionary = null;
+    }
+
+    // get UIMA datapath elements
+    ArrayList<File> datapathElements = getDatapathElements();
 
     // parse dictionary files
     ArrayList<Dictionary> dicts = new ArrayList<Dictionary>();
+    this.dictionaryFilePaths = new String[dictionaryFileNames.length];
     for (int i = 0; i < dictionaryFileNames.length; i++) {
       // try to resolve the relative file name with classpath or datapath
       DictionaryFile file = resolveRelativeFilePath(dictionaryFileNames[i], datapathElements);
@@ -294,17 +571,77 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
         // log concept file path
         this.logger.logrb(Level.CONFIG, "DictionaryAnnotator", "initialize", MESSAGE_DIGEST,
                 "dictionary_annotator_dictionary_file", new Object[] { file.getFilePath() });
+        this.dictionaryFilePaths[i] = file.getFilePath();
 
-        // parse dictionary file
-        Dictionary dict = fileParser.parseDictionaryFile(file.getFilePath(), file.getStream(),
-                new HashMapDictionaryBuilder());
-        // add dictionary to the dictionary list
-        dicts.add(dict);
+        // parse dictionary file and add the dictionary to the dictionary list
+        dicts.add(parseDictionary(file, this.mergedDictionary));
       }
     }
 
     // store all dictionaries in the dictionary array
     this.dictionaries = dicts.toArray(new Dictionary[] {});
+
+    if (this.mergedDictionary != null) {
+      this.mergedDictionary.compile();
+    }
+  }
+
+  /**
+   * Parses the given dictionary file.
+   * 
+   * @param file
+   *          dictionary file
+   * @param mergedDictionary
+   *          merged dictionary the entries are added to, null if the dictionaries are not merged
+   * @return returns the dictionary
+   * @throws ResourceInitializationException
+   */
+  private Dictionary parseDictionary(DictionaryFile file, MergedDictionary mergedDictionary)
+          throws ResourceInitializationException {
+
+    // create dictionary file parsers
+    DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+    BinaryDictionaryFileParser binaryFileParser = new BinaryDictionaryFileParser();
+
+    // check if the dictionary file is a binary dictionary
+    boolean binaryDictionary;
+    try {
+      binaryDictionary = BinaryDictionaryFileParser.isBinaryDictionary(file.getStream());
+    } catch (IOException ex) {
+      throw new DictionaryAnnotatorConfigException(
+              "dictionary_annotator_error_reading_binary_dictionary", new Object[] { file
+                      .getFilePath() }, ex);
+    }
+
+    // parse dictionary file
+    if (binaryDictionary && mergedDictionary != null) {
+      return binaryFileParser.parseDictionaryFile(file.getFilePath(), file.getStream(),
+              new MergedDictionaryBuilder(mergedDictionary));
+    } else if (binaryDictionary) {
+      return binaryFileParser.loadDictionary(file.getFilePath(), file.getStream());
+    } else if (mergedDictionary != null) {
+      return fileParser.parseDictionaryFile(file.getFilePath(), file.getStream(),
+              new MergedDictionaryBuilder(mergedDictionary));
+    } else {
+      return fileParser.parseDictionaryFile(file.getFilePath(), file.getStream(),
+              new CompactTrieDictionaryBuilder());
+    }
+  }
+
+  /**
+   * Returns the elements of the UIMA datapath.
+   * 
+   * @return datapath elements
+   */
+  private ArrayList<File> getDatapathElements() {
+    // get UIMA datapath and tokenize it into its elements
+    StringTokenizer tokenizer = new StringTokenizer(getContext().getDataPath(), PATH_SEPARATOR);
+    ArrayList<File> datapathElements = new ArrayList<File>();
+    while (tokenizer.hasMoreTokens()) {
+      // add datapath elements to the 'datapathElements' array list
+      datapathElements.add(new File(tokenizer.nextToken()));
+    }
+    return datapathElements;
   }
 
   /*
@@ -334,6 +671,10 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
     // feature path was specified
     if (this.inputMatchFilterFeaturePathStr != null) {
       this.inputMatchFilterFeaturePath.typeSystemInit(this.inputMatchType);
+      // compile the filter condition, so that the features are resolved and
+      // the condition value is converted only once
+      this.compiledFilterCondition = new CompiledCondition(this.inputMatchFilterFeaturePath,
+              this.filterCondition);
     }
   }
 
@@ -436,7 +777,253 @@ public class DictionaryAnnotator extends CasAnnotator_ImplBase {
   }
 
   /**
-   * Helper class to bundle the XML dictionary file name and the dictionary file input stream to one
+   * Timer task that checks the dictionary files for changes. If a file has changed, new
+   * dictionaries are built in the background and handed over to process(), which uses them
+   * starting with the next document. The build time and the number of added and removed entries
+   * of each changed dictionary file are logged.
+   */
+  private class ReloadTask extends TimerTask {
+
+    // if true the dictionaries are merged
+    private boolean mergeDictionaries;
+
+    // watched dictionary files, null for files that cannot be watched
+    private File[] files;
+
+    // last modification time of each watched file
+    private long[] lastModified;
+
+    // length of each watched file
+    private long[] length;
+
+    // dictionaries that were built last, the new dictionaries are compared
+    // with them
+    private Dictionary[] dictionaries;
+
+    // fuzzy matchers that were built last, null if fuzzy matching is disabled
+    private FuzzyDictionaryMatcher[] fuzzyMatchers;
+
+    /**
+     * Creates a new reload task for the current dictionaries of the annotator.
+     * 
+     * @param mergeDictionaries
+     *          if true the dictionaries are merged
+     */
+    public ReloadTask(boolean mergeDictionaries) {
+      this.mergeDictionaries = mergeDictionaries;
+      this.dictionaries = DictionaryAnnotator.this.dictionaries;
+      this.fuzzyMatchers = DictionaryAnnotator.this.fuzzyMatchers;
+      String[] filePaths = DictionaryAnnotator.this.dictionaryFilePaths;
+      this.files = new File[filePaths.length];
+      this.lastModified = new long[filePaths.length];
+      this.length = new long[filePaths.length];
+      for (int i = 0; i < filePaths.length; i++) {
+        File file = new File(filePaths[i]);
+        if (file.isFile()) {
+          this.files[i] = file;
+          this.lastModified[i] = file.lastModified();
+          this.length[i] = file.length();
+        } else {
+          // only local files can be watched
+          DictionaryAnnotator.this.logger.logrb(Level.CONFIG, "DictionaryAnnotator",
+                  "initialize", MESSAGE_DIGEST, "dictionary_annotator_dictionary_not_watched",
+                  new Object[] { filePaths[i] });
+        }
+      }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.TimerTask#run()
+     */
+    public void run() {
+      // check which dictionary files have changed
+      boolean[] changed = new boolean[this.files.length];
+      long[] modified = new long[this.files.length];
+      long[] size = new long[this.files.length];
+      boolean anyChanged = false;
+      for (int i = 0; i < this.files.length; i++) {
+        if (this.files[i] != null) {
+          modified[i] = this.files[i].lastModified();
+          size[i] = this.files[i].length();
+          if (modified[i] != this.lastModified[i] || size[i] != this.length[i]) {
+            changed[i] = true;
+            anyChanged = true;
+          }
+        }
+      }
+      if (!anyChanged) {
+        return;
+      }
+
+      // build the new dictionaries, in case of errors the current
+      // dictionaries are still used and the changed files are reloaded again
+      // with the next run
+      try {
+        reload(changed);
+        for (int i = 0; i < this.files.length; i++) {
+          if (changed[i]) {
+            this.lastModified[i] = modified[i];
+            this.length[i] = size[i];
+          }
+        }
+      } catch (ResourceInitializationException ex) {
+        DictionaryAnnotator.this.logger.logrb(Level.WARNING, "DictionaryAnnotator", "reload",
+                MESSAGE_DIGEST, "dictionary_annotator_error_reloading_dictionaries", ex);
+      } catch (RuntimeException ex) {
+        DictionaryAnnotator.this.logger.logrb(Level.WARNING, "DictionaryAnnotator", "reload",
+                MESSAGE_DIGEST, "dictionary_annotator_error_reloading_dictionaries", ex);
+      }
+    }
+
+    /**
+     * Builds the new dictionaries for the changed dictionary files and hands them over to the
+     * annotator.
+     * 
+     * @param changed
+     *          changed flag for each dictionary file
+     * @throws ResourceInitializationException
+     */
+    private void reload(boolean[] changed) throws ResourceInitializationException {
+      ArrayList<File> datapathElements = getDatapathElements();
+      Dictionary[] newDictionaries = new Dictionary[this.dictionaries.length];
+      System.arraycopy(this.dictionaries, 0, newDictionaries, 0, newDictionaries.length);
+      MergedDictionary newMergedDictionary = null;
+      FuzzyDictionaryMatcher[] newFuzzyMatchers = null;
+      long[] buildTimes = new long[newDictionaries.length];
+
+      if (this.mergeDictionaries) {
+        // the merged dictionary is built again from all dictionary files
+        long start = System.currentTimeMillis();
+        newMergedDictionary = new MergedDictionary();
+        for (int i = 0; i < newDictionaries.length; i++) {
+          newDictionaries[i] = parseDictionary(i, datapathElements, newMergedDictionary);
+        }
+        newMergedDictionary.compile();
+        long buildTime = System.currentTimeMillis() - start;
+        for (int i = 0; i < buildTimes.length; i++) {
+          buildTimes[i] = buildTime;
+        }
+      } else {
+        // only the changed dictionaries are built again
+        for (int i = 0; i < newDictionaries.length; i++) {
+          if (changed[i]) {
+            long start = System.currentTimeMillis();
+            newDictionaries[i] = parseDictionary(i, datapathElements, null);
+            buildTimes[i] = System.currentTimeMillis() - start;
+          }
+        }
+        if (this.fuzzyMatchers != null) {
+          newFuzzyMatchers = new FuzzyDictionaryMatcher[newDictionaries.length];
+          for (int i = 0; i < newDictionaries.length; i++) {
+            if (changed[i]) {
+              newFuzzyMatchers[i] = new FuzzyDictionaryMatcher(
+                      (CompactTrieDictionary) newDictionaries[i],
+                      DictionaryAnnotator.this.fuzzyMatchTokenDistance,
+                      DictionaryAnnotator.this.fuzzyMatchEntryDistance);
+            } else {
+              newFuzzyMatchers[i] = this.fuzzyMatchers[i];
+            }
+          }
+        }
+      }
+
+      // log the changes of each changed dictionary file
+      for (int i = 0; i < newDictionaries.length; i++) {
+        if (changed[i]) {
+          int added;
+          if (newMergedDictionary != null) {
+            added = newMergedDictionary.countEntriesNotContainedIn(i, this.dictionaries[i]);
+          } else {
+            added = ((CompactTrieDictionary) newDictionaries[i])
+                    .countEntriesNotContainedIn(this.dictionaries[i]);
+          }
+          int entryCount = newDictionaries[i].getEntryCount();
+          int removed = this.dictionaries[i].getEntryCount() - (entryCount - added);
+          DictionaryAnnotator.this.logger.logrb(Level.INFO, "DictionaryAnnotator", "reload",
+                  MESSAGE_DIGEST, "dictionary_annotator_dictionary_reloaded", new Object[] {
+                      DictionaryAnnotator.this.dictionaryFilePaths[i],
+                      Long.valueOf(buildTimes[i]),
+                      Integer.valueOf(entryCount), Integer.valueOf(added),
+                      Integer.valueOf(removed) });
+        }
+      }
+
+      // hand over the new dictionaries, a newer set replaces a set that was
+      // not yet used
+      this.dictionaries = newDictionaries;
+      this.fuzzyMatchers = newFuzzyMatchers;
+      DictionaryAnnotator.this.reloadedDictionaries.set(new ReloadedDictionaries(
+              newDictionaries, newMergedDictionary, newFuzzyMatchers));
+    }
+
+    /**
+     * Parses the dictionary file with the given index again.
+     * 
+     * @param index
+     *          dictionary file index
+     * @param datapathElements
+     *          datapath elements
+     * @param mergedDictionary
+     *          merged dictionary the entries are added to, null if the dictionaries are not
+     *          merged
+     * @return returns the dictionary
+     * @throws ResourceInitializationException
+     */
+    private Dictionary parseDictionary(int index, ArrayList<File> datapathElements,
+            MergedDictionary mergedDictionary) throws ResourceInitializationException {
+      String fileName = DictionaryAnnotator.this.dictionaryFileNames[index];
+      DictionaryFile file = resolveRelativeFilePath(fileName, datapathElements);
+      if (file == null) {
+        throw new DictionaryAnnotatorConfigException("dictionary_annotator_resource_not_found",
+                new Object[] { fileName });
+      }
+      try {
+        return DictionaryAnnotator.this.parseDictionary(file, mergedDictionary);
+      } finally {
+        try {
+          file.getStream().close();
+        } catch (IOException ex) {
+          // ignore, the dictionary was already read
+        }
+      }
+    }
+  }
+
+  /**
+   * Dictionaries that were built by the reload task.
+   */
+  private static class ReloadedDictionaries {
+    // new dictionaries
+    private Dictionary[] dictionaries;
+
+    // new merged dictionary, null if the dictionaries are not merged
+    private MergedDictionary mergedDictionary;
+
+    // new fuzzy matchers, null if fuzzy matching is disabled
+    private FuzzyDictionaryMatcher[] fuzzyMatchers;
+
+    /**
+     * creates a new set of reloaded dictionaries
+     * 
+     * @param dictionaries
+     *          new dictionaries
+     * @param mergedDictionary
+     *          new merged dictionary
+     * @param fuzzyMatchers
+     *          new fuzzy matchers
+     */
+    public ReloadedDictionaries(Dictionary[] dictionaries, MergedDictionary mergedDictionary,
+            FuzzyDictionaryMatcher[] fuzzyMatchers) {
+      this.dictionaries = dictionaries;
+      this.mergedDictionary = mergedDictionary;
+      this.fuzzyMatchers = fuzzyMatchers;
+    }
+  }
+
+  /**
+   * Helper class to bundle the dictionary file name and the dictionary file input stream to one
    * object.
    */
   private static class DictionaryFile {
@@ -20,6 +20,7 @@ package org.apache.uima.annotator.dict_annot.impl;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.StringTokenizer;
@@ -118,9 +119,23 @@ public class FeaturePathInfo_impl implements FeaturePathInfo {
             // get current feature type to resolve the next feature name
             currentType = feature.getRange();
          }
+      } else {
+         // the features must be resolved for each annotation
+         this.featurePathElements = null;
       }
    }
 
+   /**
+    * Returns the resolved featurePath features, or null if the featurePath is
+    * not always valid for the type and the features must be resolved for each
+    * annotation.
+    * 
+    * @return resolved featurePath features
+    */
+   List<Feature> getFeaturePathElements() {
+      return this.featurePathElements;
+   }
+
    /*
     * (non-Javadoc)
     * 
@@ -337,37 +352,37 @@ public class FeaturePathInfo_impl implements FeaturePathInfo {
             // switch feature type code
             switch (currentFeatureTypeCode) {
             case LowLevelCAS.TYPE_CLASS_STRING:
-               checkCondidtion = checkString(annotFS.getStringValue(feature),
+               checkCondidtion = checkString(currentFS.getStringValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_INT:
-               checkCondidtion = checkInt(annotFS.getIntValue(feature),
+               checkCondidtion = checkInt(currentFS.getIntValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_BOOLEAN:
-               checkCondidtion = checkBoolean(annotFS.getBooleanValue(feature),
+               checkCondidtion = checkBoolean(currentFS.getBooleanValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_BYTE:
-               checkCondidtion = checkByte(annotFS.getByteValue(feature),
+               checkCondidtion = checkByte(currentFS.getByteValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_DOUBLE:
-               checkCondidtion = checkDouble(annotFS.getDoubleValue(feature),
+               checkCondidtion = checkDouble(currentFS.getDoubleValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_FLOAT:
-               checkCondidtion = checkFloat(annotFS.getFloatValue(feature),
+               checkCondidtion = checkFloat(currentFS.getFloatValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
             case LowLevelCAS.TYPE_CLASS_LONG:
-               checkCondidtion = checkLong(annotFS.getLongValue(feature),
+               checkCondidtion = checkLong(currentFS.getLongValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
@@ -376,7 +391,7 @@ public class FeaturePathInfo_impl implements FeaturePathInfo {
                checkCondidtion = false;
                break;
             case LowLevelCAS.TYPE_CLASS_SHORT:
-               checkCondidtion = checkShort(annotFS.getShortValue(feature),
+               checkCondidtion = checkShort(currentFS.getShortValue(feature),
                      condition);
                noFurtherElementsPossible = true;
                break;
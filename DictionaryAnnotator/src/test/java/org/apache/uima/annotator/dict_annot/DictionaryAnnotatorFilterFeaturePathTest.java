@@ -20,12 +20,18 @@ package org.apache.uima.annotator.dict_annot;
 
 import java.io.File;
 
+import junit.framework.Assert;
 import junit.framework.TestCase;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.annotator.dict_annot.impl.CompiledCondition;
+import org.apache.uima.annotator.dict_annot.impl.Condition;
+import org.apache.uima.annotator.dict_annot.impl.FeaturePathInfo_impl;
+import org.apache.uima.annotator.dict_annot.impl.FilterOp;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.resource.ResourceSpecifier;
 import org.apache.uima.test.junit_extension.AnnotatorTester;
 import org.apache.uima.test.junit_extension.JUnitExtension;
@@ -178,4 +184,55 @@ public class DictionaryAnnotatorFilterFeaturePathTest extends TestCase {
                   outputFile);
    }
 
+   /**
+    * Test that the compiled filter conditions have the same results as the
+    * conditions checked with the featurePath.
+    * 
+    * @throws Exception
+    */
+   public void testCompiledFilterConditions() throws Exception {
+
+      String[] descriptors = new String[] {
+            "DictionaryAnnotatorTestFilterFeaturePath/DictionaryAnnotatorFilterFeaturePath.xml",
+            "DictionaryAnnotatorTestFilterFeaturePath/DictionaryAnnotatorFilterFeaturePathInt.xml",
+            "DictionaryAnnotatorTestFilterFeaturePath/DictionaryAnnotatorFilterFeaturePathBoolean.xml" };
+      String[][] featureValues = new String[][] {
+            { null, "equalsTest", "a", "z" }, { "-5", "0", "23", "100" },
+            { "true", "false" } };
+      String[] conditionValues = new String[] { "equalsTest", "23", "0",
+            "true", "false", "abc", "1.5", "99999999999" };
+
+      for (int i = 0; i < descriptors.length; i++) {
+         ResourceSpecifier specifier = UIMAFramework.getXMLParser()
+               .parseResourceSpecifier(
+                     new XMLInputSource(JUnitExtension.getFile(descriptors[i])));
+         AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(specifier);
+         CAS cas = ae.newCAS();
+         AnnotationFS annotFS = cas.getDocumentAnnotation();
+         Feature feat = annotFS.getType().getFeatureByBaseName(
+               "featureToAnalyze");
+
+         FeaturePathInfo_impl featurePath = new FeaturePathInfo_impl();
+         featurePath.initialize("featureToAnalyze");
+         featurePath.typeSystemInit(annotFS.getType());
+
+         for (int j = 0; j < featureValues[i].length; j++) {
+            annotFS.setFeatureValueFromString(feat, featureValues[i][j]);
+            for (int k = 0; k < conditionValues.length; k++) {
+               FilterOp[] ops = FilterOp.values();
+               for (int l = 0; l < ops.length; l++) {
+                  Condition condition = new Condition(ops[l],
+                        conditionValues[k]);
+                  CompiledCondition compiled = new CompiledCondition(
+                        featurePath, condition);
+                  Assert.assertEquals(descriptors[i] + ": "
+                        + featureValues[i][j] + " " + ops[l].name() + " "
+                        + conditionValues[k], featurePath.match(annotFS,
+                        condition), compiled.match(annotFS));
+               }
+            }
+         }
+         ae.destroy();
+      }
+   }
 }
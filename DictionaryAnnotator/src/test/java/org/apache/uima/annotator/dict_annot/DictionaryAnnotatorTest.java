@@ -19,19 +19,29 @@
 package org.apache.uima.annotator.dict_annot;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.annotator.dict_annot.dictionary.Dictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.DictionaryResource;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryCreator;
 import org.apache.uima.annotator.dict_annot.impl.DictionaryAnnotatorProcessException;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceManager;
 import org.apache.uima.resource.ResourceSpecifier;
+import org.apache.uima.resource.metadata.ConfigurationParameter;
 import org.apache.uima.test.junit_extension.AnnotatorTester;
 import org.apache.uima.test.junit_extension.JUnitExtension;
 import org.apache.uima.util.XMLInputSource;
@@ -66,6 +76,234 @@ public class DictionaryAnnotatorTest extends TestCase {
             outputFile);
    }
 
+   /**
+    * Test the dictionary annotator processing with merged dictionaries.
+    * 
+    * @throws Exception
+    */
+   public void testDictionaryAnnotatorMerged() throws Exception {
+
+      // create annotation tester with the dictionary annotator specifier
+      AnnotatorTester annotTester = new AnnotatorTester(JUnitExtension
+            .getFile("DictionaryAnnotatorTests/DictionaryAnnotatorMerged.xml"));
+      CAS cas = annotTester.performTest("nEw yOrk City", "en");
+
+      // define result interested in
+      String[] tofs = { "org.apache.uima.DictionaryEntry" };
+
+      // compare results
+      File outputFile = new File(JUnitExtension
+            .getFile("DictionaryAnnotatorTests"),
+            "dictionaryAnnotMergedTest_testoutput.txt");
+      AnnotatorTester.checkResult(cas, tofs, JUnitExtension
+            .getFile("DictionaryAnnotatorTests/dictionaryAnnotTestRef.txt"),
+            outputFile);
+   }
+
+   /**
+    * Test the dictionary annotator processing with a binary dictionary, with
+    * and without merged dictionaries.
+    * 
+    * @throws Exception
+    */
+   public void testDictionaryAnnotatorBinaryDictionary() throws Exception {
+
+      // compile the test dictionary to a binary dictionary
+      File binaryDictFile = new File(JUnitExtension
+            .getFile("DictionaryAnnotatorTests"), "testDict.dict");
+      DictionaryCreator.compileDictionary(JUnitExtension.getFile(
+            "DictionaryAnnotatorTests/testDict.xml").getAbsolutePath(),
+            binaryDictFile.getAbsolutePath());
+
+      String[] descriptors = new String[] {
+            "DictionaryAnnotatorTests/DictionaryAnnotator.xml",
+            "DictionaryAnnotatorTests/DictionaryAnnotatorMerged.xml" };
+      for (int i = 0; i < descriptors.length; i++) {
+         // use the binary dictionary instead of the XML dictionary
+         AnalysisEngineDescription desc = (AnalysisEngineDescription) UIMAFramework
+               .getXMLParser().parseResourceSpecifier(
+                     new XMLInputSource(JUnitExtension.getFile(descriptors[i])));
+         desc.getAnalysisEngineMetaData().getConfigurationParameterSettings()
+               .setParameterValue("DictionaryFiles",
+                     new String[] { "DictionaryAnnotatorTests/testDict.dict" });
+         AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+
+         CAS cas = ae.newCAS();
+         cas.setDocumentText("nEw yOrk City");
+         cas.setDocumentLanguage("en");
+         ae.process(cas);
+
+         // define result interested in
+         String[] tofs = { "org.apache.uima.DictionaryEntry" };
+
+         // compare results
+         File outputFile = new File(JUnitExtension
+               .getFile("DictionaryAnnotatorTests"),
+               "dictionaryAnnotBinaryTest_testoutput.txt");
+         AnnotatorTester.checkResult(cas, tofs, JUnitExtension
+               .getFile("DictionaryAnnotatorTests/dictionaryAnnotTestRef.txt"),
+               outputFile);
+         ae.destroy();
+      }
+   }
+
+   /**
+    * Test the dictionary annotator processing with dictionaries shared by
+    * two annotator instances.
+    * 
+    * @throws Exception
+    */
+   public void testDictionaryAnnotatorSharedResource() throws Exception {
+
+      ResourceSpecifier specifier = UIMAFramework.getXMLParser()
+            .parseResourceSpecifier(
+                  new XMLInputSource(JUnitExtension
+                        .getFile("DictionaryAnnotatorTests/DictionaryAnnotatorSharedResource.xml")));
+
+      // create two annotator instances with the same resource manager
+      ResourceManager resourceManager = UIMAFramework
+            .newDefaultResourceManager();
+      AnalysisEngine[] aes = new AnalysisEngine[] {
+            UIMAFramework.produceAnalysisEngine(specifier, resourceManager,
+                  null),
+            UIMAFramework.produceAnalysisEngine(specifier, resourceManager,
+                  null) };
+
+      // the dictionaries are loaded once into the shared resource
+      DictionaryResource dictResource = (DictionaryResource) resourceManager
+            .getResource("/DictionaryResource");
+      Assert.assertNotNull(dictResource);
+      Dictionary[] dicts = dictResource.getDictionaries(
+            new String[] { "DictionaryAnnotatorTests/testDict.xml" }, false);
+      Assert.assertEquals(1, dicts.length);
+      Assert.assertNull(dictResource.getDictionaries(
+            new String[] { "DictionaryAnnotatorTests/testDict.xml" }, true));
+
+      for (int i = 0; i < aes.length; i++) {
+         CAS cas = aes[i].newCAS();
+         cas.setDocumentText("nEw yOrk City");
+         cas.setDocumentLanguage("en");
+         aes[i].process(cas);
+
+         // define result interested in
+         String[] tofs = { "org.apache.uima.DictionaryEntry" };
+
+         // compare results
+         File outputFile = new File(JUnitExtension
+               .getFile("DictionaryAnnotatorTests"),
+               "dictionaryAnnotSharedTest_testoutput.txt");
+         AnnotatorTester.checkResult(cas, tofs, JUnitExtension
+               .getFile("DictionaryAnnotatorTests/dictionaryAnnotTestRef.txt"),
+               outputFile);
+         aes[i].destroy();
+      }
+   }
+
+   /**
+    * Test the dictionary annotator processing with dictionaries that are
+    * reloaded after the dictionary file has changed.
+    * 
+    * @throws Exception
+    */
+   public void testDictionaryAnnotatorReload() throws Exception {
+
+      String dictContent = readFile(JUnitExtension
+            .getFile("DictionaryAnnotatorTests/testDict.xml"));
+      File reloadDictFile = new File(JUnitExtension
+            .getFile("DictionaryAnnotatorTests"), "reloadDict.xml");
+
+      String[] descriptors = new String[] {
+            "DictionaryAnnotatorTests/DictionaryAnnotator.xml",
+            "DictionaryAnnotatorTests/DictionaryAnnotatorMerged.xml" };
+      for (int i = 0; i < descriptors.length; i++) {
+         writeFile(reloadDictFile, dictContent);
+
+         AnalysisEngineDescription desc = (AnalysisEngineDescription) UIMAFramework
+               .getXMLParser().parseResourceSpecifier(
+                     new XMLInputSource(JUnitExtension.getFile(descriptors[i])));
+         desc.getAnalysisEngineMetaData().getConfigurationParameterSettings()
+               .setParameterValue("DictionaryFiles",
+                     new String[] { "DictionaryAnnotatorTests/reloadDict.xml" });
+         ConfigurationParameter reloadParam = UIMAFramework
+               .getResourceSpecifierFactory().createConfigurationParameter();
+         reloadParam.setName("DictionaryReloadInterval");
+         reloadParam.setType(ConfigurationParameter.TYPE_INTEGER);
+         desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+               .addConfigurationParameter(reloadParam);
+         desc.getAnalysisEngineMetaData().getConfigurationParameterSettings()
+               .setParameterValue("DictionaryReloadInterval",
+                     Integer.valueOf(50));
+         AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+
+         CAS cas = ae.newCAS();
+         Assert.assertEquals(1, countEntries(ae, cas));
+
+         // write a broken dictionary file first, the current dictionaries are
+         // still used
+         long lastModified = reloadDictFile.lastModified();
+         String newContent = dictContent.replaceAll("new york city",
+               "new york town");
+         writeFile(reloadDictFile, newContent.replaceFirst("<", "x"));
+         reloadDictFile.setLastModified(lastModified + 2000);
+         Thread.sleep(300);
+         Assert.assertEquals(1, countEntries(ae, cas));
+
+         // replace the entry "new york city" with "new york town", the file
+         // has the same size and modification time as the broken one
+         writeFile(reloadDictFile, newContent);
+         reloadDictFile.setLastModified(lastModified + 2000);
+
+         // the dictionaries are reloaded in the background
+         int count = 1;
+         for (int j = 0; j < 200 && count == 1; j++) {
+            Thread.sleep(50);
+            count = countEntries(ae, cas);
+         }
+         Assert.assertEquals(0, count);
+         ae.destroy();
+      }
+      reloadDictFile.delete();
+   }
+
+   private int countEntries(AnalysisEngine ae, CAS cas) throws Exception {
+      cas.reset();
+      cas.setDocumentText("nEw yOrk City");
+      cas.setDocumentLanguage("en");
+      ae.process(cas);
+      Type type = cas.getTypeSystem().getType(
+            "org.apache.uima.DictionaryEntry");
+      int count = 0;
+      FSIterator it = cas.getAnnotationIndex(type).iterator();
+      while (it.hasNext()) {
+         it.next();
+         count++;
+      }
+      return count;
+   }
+
+   private static String readFile(File file) throws IOException {
+      FileInputStream stream = new FileInputStream(file);
+      try {
+         byte[] content = new byte[(int) file.length()];
+         int offset = 0;
+         while (offset < content.length) {
+            offset += stream.read(content, offset, content.length - offset);
+         }
+         return new String(content, "UTF-8");
+      } finally {
+         stream.close();
+      }
+   }
+
+   private static void writeFile(File file, String content) throws IOException {
+      FileOutputStream stream = new FileOutputStream(file);
+      try {
+         stream.write(content.getBytes("UTF-8"));
+      } finally {
+         stream.close();
+      }
+   }
+
    /**
     * The test dictionary annotator processing with an invalid input type
     * 
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.incubator.uima.DictionaryDocument;
+import org.apache.incubator.uima.EntryDocument;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryFileParserImpl;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.FeaturePathInfo;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.HashMapDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues;
+import org.apache.uima.annotator.dict_annot.impl.FeaturePathInfo_impl;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests that the CompactTrieDictionary behaves exactly like the
+ * HashMapDictionary and that it needs less memory.
+ */
+public class CompactTrieDictionaryTest extends TestCase {
+
+   private static final String[] DICTIONARY_FILES = new String[] {
+         "DictionaryBuilderTests/SingleWordsCaseNormalization.xml",
+         "DictionaryBuilderTests/SingleWordsNoCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsNoCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsSpecialMultiWordSeparator.xml",
+         "DictionaryMatchTests/MultiWords.xml" };
+
+   /**
+    * builds the dictionary for the given file with the given builder.
+    */
+   private Dictionary buildDictionary(File dictFile, DictionaryBuilder dictBuilder)
+         throws Exception {
+      InputStream stream = new BufferedInputStream(
+            new FileInputStream(dictFile));
+      try {
+         DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+         fileParser.parseDictionaryFile(dictFile.getAbsolutePath(), stream,
+               dictBuilder);
+      } finally {
+         stream.close();
+      }
+      return dictBuilder.getDictionary();
+   }
+
+   /**
+    * tests that both dictionary implementations contain the same entries for
+    * all test dictionary files.
+    *
+    * @throws Exception
+    */
+   public void testDictionaryBuilding() throws Exception {
+      for (int i = 0; i < DICTIONARY_FILES.length; i++) {
+         File dictFile = JUnitExtension.getFile(DICTIONARY_FILES[i]);
+         Dictionary hashMapDict = buildDictionary(dictFile,
+               new HashMapDictionaryBuilder());
+         Dictionary compactDict = buildDictionary(dictFile,
+               new CompactTrieDictionaryBuilder());
+
+         Assert.assertEquals(DICTIONARY_FILES[i], hashMapDict.getEntryCount(),
+               compactDict.getEntryCount());
+         Assert.assertEquals(hashMapDict.getTypeName(), compactDict
+               .getTypeName());
+         Assert.assertEquals(hashMapDict.getLanguage(), compactDict
+               .getLanguage());
+
+         DictionaryDocument.Dictionary dictionary = DictionaryDocument.Factory
+               .parse(dictFile).getDictionary();
+         String separator = " ";
+         if (dictionary.getTypeCollection().getDictionaryMetaData() != null
+               && dictionary.getTypeCollection().getDictionaryMetaData()
+                     .getMultiWordSeparator() != null) {
+            separator = dictionary.getTypeCollection().getDictionaryMetaData()
+                  .getMultiWordSeparator();
+         }
+         EntryDocument.Entry[] entries = dictionary.getTypeCollection()
+               .getEntries().getEntryArray();
+         for (int j = 0; j < entries.length; j++) {
+            String entry = entries[j].getKey().getStringValue();
+            assertSameContains(hashMapDict, compactDict, entry, separator);
+            assertSameContains(hashMapDict, compactDict, entry.toUpperCase(),
+                  separator);
+            assertSameContains(hashMapDict, compactDict, entry + "x",
+                  separator);
+         }
+      }
+   }
+
+   private void assertSameContains(Dictionary expected, Dictionary actual,
+         String entry, String separator) {
+      Assert.assertEquals(entry, expected.contains(entry), actual
+            .contains(entry));
+      String[] multiWord = entry.split(Pattern.quote(separator));
+      Assert.assertEquals(entry, expected.contains(multiWord), actual
+            .contains(multiWord));
+   }
+
+   /**
+    * tests that words cannot be added after the dictionary was compiled.
+    */
+   public void testAddAfterCompile() {
+      CompactTrieDictionary dict = new CompactTrieDictionary(true);
+      Assert.assertEquals(1, dict.addWord("Apache"));
+      Assert.assertEquals(-1, dict.addWord("apache"));
+      Assert.assertEquals(2, dict.addMultiWord(new String[] { "Apache", "UIMA" }));
+      dict.compile();
+      Assert.assertTrue(dict.contains("APACHE"));
+      Assert.assertTrue(dict.contains(new String[] { "apache", "uima" }));
+      Assert.assertFalse(dict.contains("uima"));
+      Assert.assertEquals(3, dict.getNodeCount());
+      try {
+         dict.addWord("UIMA");
+         Assert.fail("word added to a compiled dictionary");
+      } catch (IllegalStateException ex) {
+         // expected
+      }
+   }
+
+   /**
+    * tests the dictionary matching against the HashMapDictionary for a large
+    * generated dictionary and checks that the CompactTrieDictionary needs less
+    * memory.
+    *
+    * @throws Exception
+    */
+   public void testLargeDictionary() throws Exception {
+      Random random = new Random(4711);
+
+      // generate a vocabulary and dictionary entries of one to four words
+      String[] vocabulary = new String[5000];
+      for (int i = 0; i < vocabulary.length; i++) {
+         StringBuffer word = new StringBuffer();
+         int length = 3 + random.nextInt(8);
+         for (int j = 0; j < length; j++) {
+            word.append((char) ('a' + random.nextInt(26)));
+         }
+         vocabulary[i] = word.toString();
+      }
+      String[] entries = new String[50000];
+      for (int i = 0; i < entries.length; i++) {
+         StringBuffer entry = new StringBuffer();
+         int words = 1 + random.nextInt(4);
+         for (int j = 0; j < words; j++) {
+            if (j > 0) {
+               entry.append(' ');
+            }
+            entry.append(vocabulary[random.nextInt(vocabulary.length)]);
+         }
+         entries[i] = entry.toString();
+      }
+
+      // the entries are referenced until the end of the test, so only the
+      // dictionary structures are measured
+      long before = usedMemory();
+      DictionaryBuilder compactBuilder = new CompactTrieDictionaryBuilder();
+      compactBuilder.setDictionaryProperties("en", "Test", true, true, null);
+      for (int i = 0; i < entries.length; i++) {
+         compactBuilder.addWord(entries[i]);
+      }
+      Dictionary compactDict = compactBuilder.getDictionary();
+      compactBuilder = null;
+      long compactMemory = usedMemory() - before;
+
+      before = usedMemory();
+      DictionaryBuilder hashMapBuilder = new HashMapDictionaryBuilder();
+      hashMapBuilder.setDictionaryProperties("en", "Test", true, true, null);
+      for (int i = 0; i < entries.length; i++) {
+         hashMapBuilder.addWord(entries[i]);
+      }
+      Dictionary hashMapDict = hashMapBuilder.getDictionary();
+      hashMapBuilder = null;
+      long hashMapMemory = usedMemory() - before;
+      Assert.assertTrue(compactMemory + " < " + hashMapMemory,
+            compactMemory < hashMapMemory);
+
+      Assert.assertEquals(hashMapDict.getEntryCount(), compactDict
+            .getEntryCount());
+      for (int i = 0; i < entries.length; i++) {
+         Assert.assertTrue(entries[i], compactDict.contains(entries[i]
+               .split(" ")));
+      }
+
+      // create a document of random vocabulary words and tokenize it
+      File typeSystemFile = JUnitExtension
+            .getFile("DictionaryMatchTests/Token.xml");
+      TypeSystemDescription tsDesc = (TypeSystemDescription) UIMAFramework
+            .getXMLParser().parse(new XMLInputSource(typeSystemFile));
+      CAS cas = CasCreationUtils.createCas(tsDesc, null,
+            new FsIndexDescription[0]);
+      Type tokenType = cas.getTypeSystem().getType(
+            "org.apache.uima.TokenAnnotation");
+      StringBuffer text = new StringBuffer();
+      ArrayList<int[]> offsets = new ArrayList<int[]>();
+      for (int i = 0; i < 20000; i++) {
+         String word = vocabulary[random.nextInt(vocabulary.length)];
+         if (random.nextBoolean()) {
+            word = word.toUpperCase();
+         }
+         offsets.add(new int[] { text.length(), text.length() + word.length() });
+         text.append(word).append(' ');
+      }
+      cas.setDocumentText(text.toString());
+      AnnotationFS[] annotFSs = new AnnotationFS[offsets.size()];
+      for (int i = 0; i < annotFSs.length; i++) {
+         int[] offset = offsets.get(i);
+         annotFSs[i] = cas.createAnnotation(tokenType, offset[0], offset[1]);
+      }
+      FeaturePathInfo featPathInfo = new FeaturePathInfo_impl();
+
+      // both dictionaries must find the same matches, with and without the
+      // cached token values
+      TokenValues tokenValues = new TokenValues(annotFSs, featPathInfo);
+      int matchCount = 0;
+      for (int pos = 0; pos < annotFSs.length; pos++) {
+         DictionaryMatch expected = hashMapDict.matchEntry(pos, annotFSs,
+               featPathInfo);
+         assertSameMatch(expected, compactDict.matchEntry(pos, annotFSs,
+               featPathInfo));
+         assertSameMatch(expected, hashMapDict.matchEntry(pos, tokenValues));
+         assertSameMatch(expected, compactDict.matchEntry(pos, tokenValues));
+         if (expected != null) {
+            matchCount++;
+         }
+      }
+      // the dictionary and the token stream are fixed by the random seed
+      Assert.assertEquals(18399, matchCount);
+
+      // repeated passes over the token stream find the same number of matches
+      Assert.assertEquals(5 * matchCount, countMatches(hashMapDict, annotFSs,
+            featPathInfo, 5));
+      Assert.assertEquals(5 * matchCount, countMatches(compactDict, annotFSs,
+            featPathInfo, 5));
+   }
+
+   private static int countMatches(Dictionary dict, AnnotationFS[] annotFSs,
+         FeaturePathInfo featPathInfo, int passes) {
+      int count = 0;
+      for (int pass = 0; pass < passes; pass++) {
+         TokenValues tokenValues = new TokenValues(annotFSs, featPathInfo);
+         for (int pos = 0; pos < annotFSs.length; pos++) {
+            if (dict.matchEntry(pos, tokenValues) != null) {
+               count++;
+            }
+         }
+      }
+      return count;
+   }
+
+   private static long usedMemory() {
+      Runtime runtime = Runtime.getRuntime();
+      long used = runtime.totalMemory() - runtime.freeMemory();
+      // collect until the used memory is stable
+      for (int i = 0; i < 10; i++) {
+         System.gc();
+         long current = runtime.totalMemory() - runtime.freeMemory();
+         if (current == used) {
+            break;
+         }
+         used = current;
+      }
+      return used;
+   }
+
+   private void assertSameMatch(DictionaryMatch expected, DictionaryMatch actual) {
+      if (expected == null) {
+         Assert.assertNull(actual);
+      } else {
+         Assert.assertNotNull(actual);
+         Assert.assertEquals(expected.getMatchLength(), actual.getMatchLength());
+         Assert.assertEquals(expected.getMatchMetaData().getId(), actual
+               .getMatchMetaData().getId());
+      }
+   }
+}
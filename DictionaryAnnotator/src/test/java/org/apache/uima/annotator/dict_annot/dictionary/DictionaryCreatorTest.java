@@ -18,11 +18,25 @@
  */
 package org.apache.uima.annotator.dict_annot.dictionary;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 
+import junit.framework.Assert;
 import junit.framework.TestCase;
 
+import org.apache.uima.annotator.dict_annot.dictionary.impl.BinaryDictionaryFileParser;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionaryBuilder;
 import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryCreator;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryFileParserImpl;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.HashMapDictionaryBuilder;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.test.junit_extension.FileCompare;
 import org.apache.uima.test.junit_extension.JUnitExtension;
 
@@ -92,4 +106,159 @@ public class DictionaryCreatorTest extends TestCase {
 
       assertTrue(FileCompare.compare(refFile, outputFile));
    }
+
+   /**
+    * test binary dictionary creation
+    * 
+    * @throws Exception
+    */
+   public void testBinaryDictionaryCreation() throws Exception {
+
+      String inputFile = JUnitExtension.getFile(
+            "DictionaryCreatorTest/dictInput.txt").getAbsolutePath();
+      File outputFile = new File(JUnitExtension
+            .getFile("DictionaryCreatorTest"), "binaryDict.dict");
+
+      DictionaryCreator.createDictionary(inputFile, "UTF-8", outputFile
+            .getAbsolutePath(), "en", null, null, null,
+            "org.apache.uima.DictionaryEntry", true);
+
+      CompactTrieDictionary dict = loadBinaryDictionary(outputFile);
+      Assert.assertEquals("en", dict.getLanguage());
+      Assert.assertEquals("org.apache.uima.DictionaryEntry", dict
+            .getTypeName());
+
+      // the binary dictionary must contain the same entries as the XML
+      // dictionary
+      Dictionary xmlDict = parseXMLDictionary(JUnitExtension
+            .getFile("DictionaryCreatorTest/defaultDictRef.xml"));
+      Assert.assertEquals(xmlDict.getEntryCount(), dict.getEntryCount());
+      BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(inputFile), "UTF-8"));
+      try {
+         String line = reader.readLine();
+         while (line != null) {
+            String[] multiWord = line.split(" ");
+            Assert.assertTrue(line, xmlDict.contains(multiWord));
+            Assert.assertTrue(line, dict.contains(multiWord));
+            line = reader.readLine();
+         }
+      } finally {
+         reader.close();
+      }
+
+      // binary dictionaries cannot be created without output type
+      try {
+         DictionaryCreator.createDictionary(inputFile, "UTF-8", outputFile
+               .getAbsolutePath(), null, null, null, null, null, true);
+         fail();
+      } catch (Exception ex) {
+         // expected
+      }
+   }
+
+   /**
+    * test the compilation of XML dictionaries to binary dictionaries
+    * 
+    * @throws Exception
+    */
+   public void testDictionaryCompilation() throws Exception {
+
+      String[] dictionaryFiles = new String[] {
+            "DictionaryBuilderTests/SingleWordsCaseNormalization.xml",
+            "DictionaryBuilderTests/SingleWordsNoCaseNormalization.xml",
+            "DictionaryBuilderTests/MultiWordsCaseNormalization.xml",
+            "DictionaryBuilderTests/MultiWordsNoCaseNormalization.xml",
+            "DictionaryBuilderTests/MultiWordsSpecialMultiWordSeparator.xml" };
+
+      for (int i = 0; i < dictionaryFiles.length; i++) {
+         File xmlFile = JUnitExtension.getFile(dictionaryFiles[i]);
+         File outputFile = new File(JUnitExtension
+               .getFile("DictionaryCreatorTest"), "compiledDict" + i + ".dict");
+         DictionaryCreator.compileDictionary(xmlFile.getAbsolutePath(),
+               outputFile.getAbsolutePath());
+
+         Dictionary xmlDict = parseXMLDictionary(xmlFile);
+         CompactTrieDictionary dict = loadBinaryDictionary(outputFile);
+
+         // dictionary rebuilt from the binary dictionary entries
+         InputStream stream = new BufferedInputStream(new FileInputStream(
+               outputFile));
+         Dictionary rebuiltDict;
+         try {
+            Assert.assertTrue(BinaryDictionaryFileParser
+                  .isBinaryDictionary(stream));
+            rebuiltDict = new BinaryDictionaryFileParser().parseDictionaryFile(
+                  outputFile.getAbsolutePath(), stream,
+                  new HashMapDictionaryBuilder());
+         } finally {
+            stream.close();
+         }
+
+         Dictionary[] dicts = new Dictionary[] { dict, rebuiltDict };
+         for (int j = 0; j < dicts.length; j++) {
+            Assert.assertEquals(xmlDict.getEntryCount(), dicts[j]
+                  .getEntryCount());
+            Assert.assertEquals(xmlDict.getTypeName(), dicts[j].getTypeName());
+            Assert.assertEquals(xmlDict.getLanguage(), dicts[j].getLanguage());
+            String[] words = new String[] { "new", "NEW", "New York",
+                  "new york", "Apache UIMA", "apache uima", "UIMA", "York" };
+            for (int k = 0; k < words.length; k++) {
+               String[] multiWord = words[k].split(" ");
+               Assert.assertEquals(dictionaryFiles[i] + ": " + words[k],
+                     xmlDict.contains(multiWord), dicts[j].contains(multiWord));
+            }
+         }
+      }
+   }
+
+   /**
+    * test that binary dictionaries with an unknown format version are rejected
+    * 
+    * @throws Exception
+    */
+   public void testBinaryDictionaryVersion() throws Exception {
+
+      File outputFile = new File(JUnitExtension
+            .getFile("DictionaryCreatorTest"), "unknownVersion.dict");
+      DataOutputStream out = new DataOutputStream(new FileOutputStream(
+            outputFile));
+      out.write("UIMADICT".getBytes("US-ASCII"));
+      out.writeInt(BinaryDictionaryFileParser.FORMAT_VERSION + 1);
+      out.close();
+
+      try {
+         loadBinaryDictionary(outputFile);
+         fail();
+      } catch (ResourceInitializationException ex) {
+         Assert.assertTrue(ex.getMessage().indexOf("unknownVersion.dict") > -1);
+      }
+   }
+
+   /**
+    * loads the given binary dictionary file
+    */
+   private CompactTrieDictionary loadBinaryDictionary(File file)
+         throws Exception {
+      InputStream stream = new BufferedInputStream(new FileInputStream(file));
+      try {
+         return new BinaryDictionaryFileParser().loadDictionary(file
+               .getAbsolutePath(), stream);
+      } finally {
+         stream.close();
+      }
+   }
+
+   /**
+    * parses the given XML dictionary file
+    */
+   private Dictionary parseXMLDictionary(File file) throws Exception {
+      InputStream stream = new BufferedInputStream(new FileInputStream(file));
+      try {
+         return new DictionaryFileParserImpl().parseDictionaryFile(file
+               .getAbsolutePath(), stream, new CompactTrieDictionaryBuilder());
+      } finally {
+         stream.close();
+      }
+   }
 }
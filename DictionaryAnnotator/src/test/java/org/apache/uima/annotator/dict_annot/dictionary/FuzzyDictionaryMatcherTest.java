@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.CompactTrieDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryFileParserImpl;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.FuzzyDictionaryMatcher;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues;
+import org.apache.uima.annotator.dict_annot.impl.FeaturePathInfo_impl;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests the fuzzy matching of compact trie dictionaries.
+ */
+public class FuzzyDictionaryMatcherTest extends TestCase {
+
+   /**
+    * builds the test dictionary.
+    */
+   private CompactTrieDictionary buildDictionary() throws Exception {
+      File dictFile = JUnitExtension
+            .getFile("DictionaryMatchTests/MultiWords.xml");
+      InputStream stream = new BufferedInputStream(
+            new FileInputStream(dictFile));
+      DictionaryBuilder dictBuilder = new CompactTrieDictionaryBuilder();
+      try {
+         DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+         fileParser.parseDictionaryFile(dictFile.getAbsolutePath(), stream,
+               dictBuilder);
+      } finally {
+         stream.close();
+      }
+      return (CompactTrieDictionary) dictBuilder.getDictionary();
+   }
+
+   /**
+    * creates a token annotation for each whitespace separated word of the
+    * given text.
+    */
+   private TokenValues tokenize(String text) throws Exception {
+      File typeSystemFile = JUnitExtension
+            .getFile("DictionaryMatchTests/Token.xml");
+      TypeSystemDescription tsDesc = (TypeSystemDescription) UIMAFramework
+            .getXMLParser().parse(new XMLInputSource(typeSystemFile));
+      CAS cas = CasCreationUtils.createCas(tsDesc, null,
+            new FsIndexDescription[0]);
+      Type tokenType = cas.getTypeSystem().getType(
+            "org.apache.uima.TokenAnnotation");
+      cas.setDocumentText(text);
+      ArrayList<AnnotationFS> annotFSs = new ArrayList<AnnotationFS>();
+      int start = 0;
+      while (start < text.length()) {
+         int end = text.indexOf(' ', start);
+         if (end < 0) {
+            end = text.length();
+         }
+         annotFSs.add(cas.createAnnotation(tokenType, start, end));
+         start = end + 1;
+      }
+      return new TokenValues(annotFSs.toArray(new AnnotationFS[] {}),
+            new FeaturePathInfo_impl());
+   }
+
+   /**
+    * returns the matches as "covered text:edit distance" strings.
+    */
+   private ArrayList<String> match(FuzzyDictionaryMatcher matcher,
+         TokenValues tokenValues) {
+      AnnotationFS[] annotFSs = tokenValues.getAnnotations();
+      ArrayList<String> matches = new ArrayList<String>();
+      int currentPos = 0;
+      while (currentPos < annotFSs.length) {
+         DictionaryMatch dictMatch = matcher.matchEntry(currentPos,
+               tokenValues);
+         if (dictMatch != null) {
+            int matchLength = dictMatch.getMatchLength();
+            StringBuffer buffer = new StringBuffer();
+            for (int i = 0; i < matchLength; i++) {
+               buffer.append(annotFSs[currentPos + i].getCoveredText());
+               buffer.append(" ");
+            }
+            matches.add(buffer.toString().trim() + ":"
+                  + dictMatch.getEditDistance());
+            currentPos = currentPos + matchLength;
+         } else {
+            currentPos++;
+         }
+      }
+      return matches;
+   }
+
+   /**
+    * tests the token and entry distance limits.
+    *
+    * @throws Exception
+    */
+   public void testFuzzyMatching() throws Exception {
+      CompactTrieDictionary dict = buildDictionary();
+      TokenValues tokenValues = tokenize("new yrk cty and New Orleens or nw hampshire");
+
+      ArrayList<String> matches = match(new FuzzyDictionaryMatcher(dict, 1, 2),
+            tokenValues);
+      Assert.assertEquals(3, matches.size());
+      Assert.assertEquals("new yrk cty:2", matches.get(0));
+      Assert.assertEquals("New Orleens:1", matches.get(1));
+      Assert.assertEquals("nw hampshire:1", matches.get(2));
+
+      // the entry distance limits the sum of the token distances
+      matches = match(new FuzzyDictionaryMatcher(dict, 1, 1), tokenValues);
+      Assert.assertEquals(3, matches.size());
+      Assert.assertEquals("new yrk:1", matches.get(0));
+      Assert.assertEquals("New Orleens:1", matches.get(1));
+      Assert.assertEquals("nw hampshire:1", matches.get(2));
+   }
+
+   /**
+    * tests that the fuzzy matcher without distance finds the same matches as
+    * the exact dictionary matching.
+    *
+    * @throws Exception
+    */
+   public void testExactMatching() throws Exception {
+      CompactTrieDictionary dict = buildDictionary();
+      TokenValues tokenValues = tokenize("new new york new orleans new york city NEW HAMPSHIRE nw york");
+      FuzzyDictionaryMatcher matcher = new FuzzyDictionaryMatcher(dict, 0, 0);
+      for (int pos = 0; pos < tokenValues.size(); pos++) {
+         DictionaryMatch expected = dict.matchEntry(pos, tokenValues);
+         DictionaryMatch actual = matcher.matchEntry(pos, tokenValues);
+         if (expected == null) {
+            Assert.assertNull(actual);
+         } else {
+            Assert.assertNotNull(actual);
+            Assert.assertEquals(expected.getMatchLength(), actual
+                  .getMatchLength());
+            Assert.assertEquals(expected.getMatchMetaData().getId(), actual
+                  .getMatchMetaData().getId());
+            Assert.assertEquals(0, actual.getEditDistance());
+         }
+      }
+   }
+}
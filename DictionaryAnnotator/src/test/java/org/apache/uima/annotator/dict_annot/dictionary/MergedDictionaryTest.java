@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.dict_annot.dictionary;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.incubator.uima.DictionaryDocument;
+import org.apache.incubator.uima.EntryDocument;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.DictionaryFileParserImpl;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.FeaturePathInfo;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.HashMapDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionary;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.MergedDictionaryBuilder;
+import org.apache.uima.annotator.dict_annot.dictionary.impl.TokenValues;
+import org.apache.uima.annotator.dict_annot.impl.FeaturePathInfo_impl;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.XCASDeserializer;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests that the dictionaries of a MergedDictionary behave like separately
+ * built HashMap dictionaries and that the single pass matching finds the same
+ * matches as matching the dictionaries one by one.
+ */
+public class MergedDictionaryTest extends TestCase {
+
+   private static final String[] DICTIONARY_FILES = new String[] {
+         "DictionaryBuilderTests/SingleWordsCaseNormalization.xml",
+         "DictionaryBuilderTests/SingleWordsNoCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsNoCaseNormalization.xml",
+         "DictionaryBuilderTests/MultiWordsSpecialMultiWordSeparator.xml",
+         "DictionaryMatchTests/MultiWords.xml" };
+
+   private MergedDictionary mergedDict;
+
+   private Dictionary[] hashMapDicts;
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see junit.framework.TestCase#setUp()
+    */
+   protected void setUp() throws Exception {
+      this.mergedDict = new MergedDictionary();
+      this.hashMapDicts = new Dictionary[DICTIONARY_FILES.length];
+      for (int i = 0; i < DICTIONARY_FILES.length; i++) {
+         File dictFile = JUnitExtension.getFile(DICTIONARY_FILES[i]);
+         buildDictionary(dictFile, new MergedDictionaryBuilder(this.mergedDict));
+         this.hashMapDicts[i] = buildDictionary(dictFile,
+               new HashMapDictionaryBuilder());
+      }
+      this.mergedDict.compile();
+   }
+
+   /**
+    * builds the dictionary for the given file with the given builder.
+    */
+   private Dictionary buildDictionary(File dictFile, DictionaryBuilder dictBuilder)
+         throws Exception {
+      InputStream stream = new BufferedInputStream(
+            new FileInputStream(dictFile));
+      try {
+         DictionaryFileParser fileParser = new DictionaryFileParserImpl();
+         fileParser.parseDictionaryFile(dictFile.getAbsolutePath(), stream,
+               dictBuilder);
+      } finally {
+         stream.close();
+      }
+      return dictBuilder.getDictionary();
+   }
+
+   /**
+    * tests that the merged dictionaries contain the same entries as the
+    * separately built dictionaries.
+    *
+    * @throws Exception
+    */
+   public void testMergedDictionaryContent() throws Exception {
+      Dictionary[] mergedDicts = this.mergedDict.getDictionaries();
+      Assert.assertEquals(DICTIONARY_FILES.length, mergedDicts.length);
+
+      for (int i = 0; i < DICTIONARY_FILES.length; i++) {
+         Assert.assertEquals(DICTIONARY_FILES[i], this.hashMapDicts[i]
+               .getEntryCount(), mergedDicts[i].getEntryCount());
+         Assert.assertEquals(this.hashMapDicts[i].getTypeName(),
+               mergedDicts[i].getTypeName());
+
+         // check the entries of all dictionaries, so that entries of the
+         // other dictionaries are checked as well
+         for (int j = 0; j < DICTIONARY_FILES.length; j++) {
+            EntryDocument.Entry[] entries = DictionaryDocument.Factory.parse(
+                  JUnitExtension.getFile(DICTIONARY_FILES[j])).getDictionary()
+                  .getTypeCollection().getEntries().getEntryArray();
+            for (int k = 0; k < entries.length; k++) {
+               String entry = entries[k].getKey().getStringValue();
+               Assert.assertEquals(entry, this.hashMapDicts[i].contains(entry),
+                     mergedDicts[i].contains(entry));
+               String[] multiWord = entry.split(" ");
+               Assert.assertEquals(entry, this.hashMapDicts[i]
+                     .contains(multiWord), mergedDicts[i].contains(multiWord));
+               Assert.assertEquals(entry, this.hashMapDicts[i].contains(entry
+                     .toUpperCase()), mergedDicts[i].contains(entry
+                     .toUpperCase()));
+            }
+         }
+      }
+   }
+
+   /**
+    * tests that the single pass matching finds the same matches as the
+    * dictionaries matched one by one.
+    *
+    * @throws Exception
+    */
+   public void testMergedDictionaryMatching() throws Exception {
+
+      // read type system file
+      File typeSystemFile = JUnitExtension
+            .getFile("DictionaryMatchTests/Token.xml");
+      // get XCAS file
+      File xcasFile = JUnitExtension.getFile("DictionaryMatchTests/Token.xcas");
+
+      // parse type system file
+      TypeSystemDescription tsDesc = (TypeSystemDescription) UIMAFramework
+            .getXMLParser().parse(new XMLInputSource(typeSystemFile));
+
+      // create a CAS and add XCAS content
+      CAS cas = CasCreationUtils.createCas(tsDesc, null,
+            new FsIndexDescription[0]);
+      SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+      XCASDeserializer xcasDeserializer = new XCASDeserializer(cas
+            .getTypeSystem());
+      parser.parse(xcasFile, xcasDeserializer.getXCASHandler(cas));
+
+      // copy input match type annotations to an array
+      Type inputType = cas.getTypeSystem().getType(
+            "org.apache.uima.TokenAnnotation");
+      FSIterator it = cas.getAnnotationIndex(inputType).iterator();
+      ArrayList<AnnotationFS> inputTypeAnnots = new ArrayList<AnnotationFS>();
+      while (it.hasNext()) {
+         inputTypeAnnots.add((AnnotationFS) it.next());
+      }
+      AnnotationFS[] annotFSs = inputTypeAnnots.toArray(new AnnotationFS[] {});
+      FeaturePathInfo featPathInfo = new FeaturePathInfo_impl();
+
+      // match the dictionaries one by one
+      ArrayList<String> expected = new ArrayList<String>();
+      for (int i = 0; i < this.hashMapDicts.length; i++) {
+         int currentPos = 0;
+         while (currentPos < annotFSs.length) {
+            DictionaryMatch dictMatch = this.hashMapDicts[i].matchEntry(
+                  currentPos, annotFSs, featPathInfo);
+            if (dictMatch != null) {
+               expected.add(i + ":" + currentPos + ":"
+                     + dictMatch.getMatchLength());
+               currentPos = currentPos + dictMatch.getMatchLength();
+            } else {
+               currentPos++;
+            }
+         }
+      }
+
+      // the single dictionaries must find the same matches with cached token
+      // values
+      TokenValues tokenValues = new TokenValues(annotFSs, featPathInfo);
+      Dictionary[] mergedDicts = this.mergedDict.getDictionaries();
+      for (int i = 0; i < mergedDicts.length; i++) {
+         for (int pos = 0; pos < annotFSs.length; pos++) {
+            DictionaryMatch expectedMatch = this.hashMapDicts[i].matchEntry(pos,
+                  annotFSs, featPathInfo);
+            DictionaryMatch actualMatch = mergedDicts[i].matchEntry(pos,
+                  tokenValues);
+            if (expectedMatch == null) {
+               Assert.assertNull(actualMatch);
+            } else {
+               Assert.assertEquals(expectedMatch.getMatchLength(), actualMatch
+                     .getMatchLength());
+               Assert.assertEquals(expectedMatch.getMatchMetaData().getId(),
+                     actualMatch.getMatchMetaData().getId());
+            }
+         }
+      }
+
+      // match all dictionaries in one pass
+      int dictCount = this.mergedDict.getDictionaryCount();
+      int[] nextPos = new int[dictCount];
+      int[] matchLengths = new int[dictCount];
+      ArrayList<String> actual = new ArrayList<String>();
+      for (int currentPos = 0; currentPos < annotFSs.length; currentPos++) {
+         this.mergedDict.matchEntries(currentPos, tokenValues, nextPos,
+               matchLengths);
+         for (int i = 0; i < dictCount; i++) {
+            if (matchLengths[i] > 0) {
+               actual.add(i + ":" + currentPos + ":" + matchLengths[i]);
+               nextPos[i] = currentPos + matchLengths[i];
+            }
+         }
+      }
+
+      Assert.assertFalse(expected.isEmpty());
+      Collections.sort(expected);
+      Collections.sort(actual);
+      Assert.assertEquals(expected, actual);
+   }
+}
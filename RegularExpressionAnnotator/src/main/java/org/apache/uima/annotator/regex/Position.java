@@ -18,7 +18,7 @@
  */
 package org.apache.uima.annotator.regex;
 
-import java.util.regex.Matcher;
+import java.util.regex.MatchResult;
 
 /**
  * 
@@ -40,12 +40,12 @@ public interface Position {
 	 * match group covers, dependent on whether this position denotes the begin or end of
 	 * the match group.
 	 * 
-	 * @param aMatcher The matcher that matched the subsequence.
+	 * @param aMatcher The match result of the subsequence.
 	 * @return The index of the first or last character of this position's match group.
 	 * 
-	 * @see java.util.regex.Matcher#start(int)
-	 * @see java.util.regex.Matcher#end(int)
+	 * @see java.util.regex.MatchResult#start(int)
+	 * @see java.util.regex.MatchResult#end(int)
 	 */
-	int getMatchPosition(Matcher aMatcher);
+	int getMatchPosition(MatchResult aMatcher);
 	
 }
\ No newline at end of file
@@ -44,11 +44,12 @@ public interface Rule {
          .compile(MATCH_GROUP_REGEX_BEGIN + "(\\w+)" + MATCH_GROUP_REGEX_END);
 
    /**
-    * Get the regular expression of this rule.
+    * Get the regular expression of this rule. The pattern is compiled for the
+    * regex engine of the rule.
     * 
     * @return returns the regular expression of this rule.
     */
-   public Pattern getRegexPattern();
+   public RulePattern getRegexPattern();
 
    /**
     * Get the rule id
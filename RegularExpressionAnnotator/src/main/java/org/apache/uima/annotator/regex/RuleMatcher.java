@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Matcher of a rule pattern on an input text. After a successful match, the
+ * match and its match groups are available with the MatchResult methods.
+ * 
+ * @see java.util.regex.Matcher
+ */
+public interface RuleMatcher extends MatchResult {
+
+   /**
+    * Finds the next match that starts at or after the given position.
+    * 
+    * @param from
+    *           position to start the search
+    * 
+    * @return returns true if a match was found
+    * 
+    * @see java.util.regex.Matcher#find(int)
+    */
+   public boolean find(int from);
+
+   /**
+    * Matches the pattern against the entire input.
+    * 
+    * @return returns true if the entire input matches
+    * 
+    * @see java.util.regex.Matcher#matches()
+    */
+   public boolean matches();
+}
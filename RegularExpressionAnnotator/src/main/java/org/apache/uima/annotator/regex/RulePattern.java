@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+/**
+ * Compiled regular expression of a rule. The pattern is independent of the
+ * regex engine that is used to match it.
+ */
+public interface RulePattern {
+
+   /**
+    * Creates a matcher that matches this pattern on the given input.
+    * 
+    * @param input
+    *           input text
+    * 
+    * @return returns a new matcher for the input
+    */
+   public RuleMatcher matcher(String input);
+}
@@ -160,12 +160,16 @@ public class ConceptFileParser_impl implements ConceptFileParser {
             if (ruleList[r].getConfidence() != null) {
                confidence = ruleList[r].getConfidence().floatValue();
             }
+            String regexEngine = null;
+            if (ruleList[r].getRegexEngine() != null) {
+               regexEngine = ruleList[r].getRegexEngine().toString();
+            }
 
             // create new rule and add all rule settings
             // additionally add a reference to the regex variables object
             // to resolve regex variables
             Rule rule = new Rule_impl(regex, matchStrategy, matchType, id,
-                  confidence, featurePath, variables);
+                  confidence, featurePath, variables, regexEngine);
 
             // ********************************
             // get match type filter features
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Callable;
+
+import org.apache.uima.annotator.regex.FilterFeature;
+import org.apache.uima.annotator.regex.Rule;
+import org.apache.uima.annotator.regex.RuleMatcher;
+import org.apache.uima.util.Logger;
+
+/**
+ * Matches the rules of one or more concepts on a match type snapshot. The
+ * task does not access the CAS, so the rules of several concepts can be
+ * matched in parallel.
+ *
+ * The rules are grouped by their match type and feature path. Each group is
+ * evaluated in a single pass over the match type annotations: the value of an
+ * annotation is scanned once by the rule prefilter, which reports the
+ * candidate rules of the whole group, and only these rules are matched.
+ *
+ * The result contains for each rule the matches in the order they are found
+ * by the sequential processing. Each match record is an int array with the
+ * index of the match type annotation in the snapshot followed by the group
+ * positions of the matches in the annotation value, see
+ * {@link RecordedMatch}. Rule exceptions are not evaluated, since they need
+ * the CAS. Matches that exceed the match time budget are logged and skipped.
+ * If rule statistics are recorded, the task adds the tested annotations, the
+ * matches and the match time of each rule.
+ */
+public class ConceptMatchTask implements Callable<int[][][]> {
+
+   // rules to match
+   private final Rule[] rules;
+
+   // global rule numbers of the rules
+   private final int[] ruleNumbers;
+
+   // snapshot of the match type annotations
+   private final MatchTypeSnapshot snapshot;
+
+   // rule statistics, null if no statistics are recorded
+   private final RuleStatistics statistics;
+
+   // annotator logger
+   private final Logger logger;
+
+   /**
+    * Creates a new task for the given rules.
+    *
+    * @param rules
+    *           rules to match, usually the rules of one or more concepts
+    * @param ruleNumbers
+    *           global rule numbers of the rules, used for the prefilter
+    * @param snapshot
+    *           snapshot that contains all rules
+    * @param statistics
+    *           rule statistics, null if no statistics are recorded
+    * @param logger
+    *           annotator logger
+    */
+   public ConceptMatchTask(Rule[] rules, int[] ruleNumbers,
+         MatchTypeSnapshot snapshot, RuleStatistics statistics, Logger logger) {
+      this.rules = rules;
+      this.ruleNumbers = ruleNumbers;
+      this.snapshot = snapshot;
+      this.statistics = statistics;
+      this.logger = logger;
+   }
+
+   /**
+    * Returns the number of group positions of a match of the given rule.
+    *
+    * @param rule
+    *           initialized rule
+    *
+    * @return returns the number of ints of a match in a match record
+    */
+   public static int getMatchSize(Rule rule) {
+      return 2 * (rule.getRegexPattern().matcher("").groupCount() + 1);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.concurrent.Callable#call()
+    */
+   public int[][][] call() {
+      // group the rules by their values array, the values arrays are shared
+      // by all rules with the same match type and feature path
+      IdentityHashMap<String[], ArrayList<Integer>> groups = new IdentityHashMap<String[], ArrayList<Integer>>();
+      ArrayList<String[]> groupValues = new ArrayList<String[]>();
+      for (int r = 0; r < this.rules.length; r++) {
+         String[] values = this.snapshot.getValues(this.rules[r].getMatchType(),
+               this.rules[r].getMatchTypeFeaturePath());
+         ArrayList<Integer> group = groups.get(values);
+         if (group == null) {
+            group = new ArrayList<Integer>();
+            groups.put(values, group);
+            groupValues.add(values);
+         }
+         group.add(Integer.valueOf(r));
+      }
+
+      int[][][] result = new int[this.rules.length][][];
+      for (int g = 0; g < groupValues.size(); g++) {
+         String[] values = groupValues.get(g);
+         ArrayList<Integer> group = groups.get(values);
+         matchGroup(values, group, result);
+      }
+      return result;
+   }
+
+   /**
+    * Matches all rules of a group in one pass over the values.
+    */
+   private void matchGroup(String[] values, ArrayList<Integer> group,
+         int[][][] result) {
+      int size = group.size();
+      int[] groupRules = new int[size];
+      String[][][] filterValues = new String[size][][];
+      int[] matchSizes = new int[size];
+      ArrayList<ArrayList<int[]>> records = new ArrayList<ArrayList<int[]>>();
+      for (int i = 0; i < size; i++) {
+         groupRules[i] = group.get(i).intValue();
+         Rule rule = this.rules[groupRules[i]];
+         FilterFeature[] filterFeatures = rule.getMatchTypeFilterFeatures();
+         filterValues[i] = new String[filterFeatures.length][];
+         for (int ff = 0; ff < filterFeatures.length; ff++) {
+            filterValues[i][ff] = this.snapshot.getValues(rule.getMatchType(),
+                  filterFeatures[ff].getFeaturePath());
+         }
+         matchSizes[i] = getMatchSize(rule);
+         records.add(new ArrayList<int[]>());
+      }
+
+      // counters of the rule statistics
+      long[] filtered = null;
+      long[] prefiltered = null;
+      TimedRuleMatcher[] timedMatchers = null;
+      if (this.statistics != null) {
+         filtered = new long[size];
+         prefiltered = new long[size];
+         timedMatchers = new TimedRuleMatcher[size];
+         for (int i = 0; i < size; i++) {
+            timedMatchers[i] = new TimedRuleMatcher();
+         }
+      }
+
+      int[] buffer = new int[16];
+      for (int a = 0; a < values.length; a++) {
+         String matchValue = values[a];
+         if (matchValue == null) {
+            continue;
+         }
+
+         // candidate rules of the value, a rule can only match if the value
+         // contains a required literal of the rule
+         BitSet candidates = null;
+
+         for (int i = 0; i < size; i++) {
+            Rule rule = this.rules[groupRules[i]];
+
+            // check filter features, if all conditions are true
+            FilterFeature[] filterFeatures = rule.getMatchTypeFilterFeatures();
+            boolean passed = true;
+            for (int ff = 0; ff < filterFeatures.length && passed; ff++) {
+               String featureValue = filterValues[i][ff][a];
+               passed = featureValue != null
+                     && filterFeatures[ff].getPattern().matcher(featureValue)
+                           .matches();
+            }
+            if (!passed) {
+               if (filtered != null) {
+                  filtered[i]++;
+               }
+               continue;
+            }
+
+            if (candidates == null) {
+               candidates = this.snapshot.getCandidateRules(values, a);
+            }
+            if (!candidates.get(this.ruleNumbers[groupRules[i]])) {
+               if (prefiltered != null) {
+                  prefiltered[i]++;
+               }
+               continue;
+            }
+
+            RuleMatcher matcher = rule.getRegexPattern().matcher(matchValue);
+            if (timedMatchers != null) {
+               timedMatchers[i].setMatcher(matcher);
+               matcher = timedMatchers[i];
+            }
+            int matchSize = matchSizes[i];
+            int length = 1;
+            try {
+               if (rule.getMatchStrategy() == Rule.MATCH_ALL) {
+                  int pos = 0;
+                  while (matcher.find(pos)) {
+                     buffer = ensureCapacity(buffer, length + matchSize);
+                     RecordedMatch.record(matcher, buffer, length);
+                     length += matchSize;
+                     if (matcher.end() == pos) {
+                        // empty match, stop at the end of the input
+                        if (pos == matchValue.length()) {
+                           break;
+                        }
+                        ++pos;
+                     } else {
+                        pos = matcher.end();
+                     }
+                  }
+               } else if (rule.getMatchStrategy() == Rule.MATCH_COMPLETE) {
+                  if (matcher.matches()) {
+                     buffer = ensureCapacity(buffer, length + matchSize);
+                     RecordedMatch.record(matcher, buffer, length);
+                     length += matchSize;
+                  }
+               } else if (rule.getMatchStrategy() == Rule.MATCH_FIRST) {
+                  if (matcher.find(0)) {
+                     buffer = ensureCapacity(buffer, length + matchSize);
+                     RecordedMatch.record(matcher, buffer, length);
+                     length += matchSize;
+                  }
+               }
+            } catch (RegexMatchTimeoutException ex) {
+               // keep the matches that were found before
+               RegExAnnotator.logMatchTimeout(this.logger, rule, this.snapshot
+                     .getAnnotations(rule.getMatchType())[a], ex);
+            }
+
+            if (length > 1) {
+               int[] record = new int[length];
+               System.arraycopy(buffer, 0, record, 0, length);
+               record[0] = a;
+               records.get(i).add(record);
+            }
+         }
+      }
+
+      for (int i = 0; i < size; i++) {
+         ArrayList<int[]> ruleRecords = records.get(i);
+         result[groupRules[i]] = ruleRecords.toArray(new int[ruleRecords
+               .size()][]);
+         if (this.statistics != null) {
+            this.statistics.add(this.ruleNumbers[groupRules[i]], values.length,
+                  filtered[i], prefiltered[i], timedMatchers[i]
+                        .getMatchCount(), 0, timedMatchers[i].getMatchNanos());
+         }
+      }
+   }
+
+   private static int[] ensureCapacity(int[] buffer, int capacity) {
+      if (capacity <= buffer.length) {
+         return buffer;
+      }
+      int[] newBuffer = new int[Math.max(capacity, buffer.length * 2)];
+      System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+      return newBuffer;
+   }
+}
@@ -144,16 +144,22 @@ public class Concept_impl implements Concept {
     * 
     * Also do some additional syntax checking.
     * 
+    * @param logger
+    *           annotator logger
+    * @param patternCompiler
+    *           compiler that creates the rule patterns for the regex engine
+    * 
     * @throws RegexAnnotatorConfigException
     */
-   public void initialize(Logger logger) throws RegexAnnotatorConfigException {
+   public void initialize(Logger logger, RulePatternCompiler patternCompiler)
+         throws RegexAnnotatorConfigException {
 
       // get a list of annotations
       Annotation[] annots = getAnnotations();
 
       // initialize all rules for this concept
       for (int i = 0; i < this.ruleList.length; i++) {
-         ((Rule_impl) this.ruleList[i]).initialize();
+         ((Rule_impl) this.ruleList[i]).initialize(annots, patternCompiler);
       }
 
       // initialize all annotations for this concept
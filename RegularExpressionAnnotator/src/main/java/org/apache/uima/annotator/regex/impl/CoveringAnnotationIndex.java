@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Index to find the covering annotation of a type for an annotation. The
+ * begin and end positions of all annotations of the type are copied once in
+ * annotation index order, so a lookup needs no CAS access. Lookups for
+ * increasing begin positions continue the search at the previous position.
+ *
+ * The index must be recreated if annotations of the type are added to the
+ * CAS.
+ */
+public class CoveringAnnotationIndex {
+
+   // annotations in annotation index order
+   private final AnnotationFS[] annotations;
+
+   // begin positions of the annotations
+   private final int[] begins;
+
+   // end positions of the annotations
+   private final int[] ends;
+
+   // begin position of the last lookup
+   private int lastBegin;
+
+   // first annotation with a begin position >= lastBegin
+   private int lastIndex;
+
+   /**
+    * Creates a new index for the given covering annotation type.
+    *
+    * @param cas
+    *           current CAS
+    * @param coverType
+    *           covering annotation type
+    */
+   public CoveringAnnotationIndex(CAS cas, Type coverType) {
+      ArrayList<AnnotationFS> annotList = new ArrayList<AnnotationFS>();
+      FSIterator<?> iterator = cas.getAnnotationIndex(coverType).iterator();
+      while (iterator.hasNext()) {
+         annotList.add((AnnotationFS) iterator.next());
+      }
+      this.annotations = annotList.toArray(new AnnotationFS[annotList.size()]);
+      this.begins = new int[this.annotations.length];
+      this.ends = new int[this.annotations.length];
+      for (int i = 0; i < this.annotations.length; i++) {
+         this.begins[i] = this.annotations[i].getBegin();
+         this.ends[i] = this.annotations[i].getEnd();
+      }
+      this.lastBegin = 0;
+      this.lastIndex = 0;
+   }
+
+   /**
+    * Finds the covering annotation for the given annotation. The candidates
+    * are the first annotation that starts at or after the annotation, the
+    * annotation before it and the last annotation of the index.
+    *
+    * @param annot
+    *           annotation to cover
+    *
+    * @return returns the covering annotation or null if no covering
+    *         annotation was found
+    */
+   public AnnotationFS findCover(AnnotationFS annot) {
+      int begin = annot.getBegin();
+      int end = annot.getEnd();
+
+      int index = firstAtOrAfter(begin);
+      if (index < this.annotations.length) {
+         if (covers(index, begin, end)) {
+            return this.annotations[index];
+         }
+         if (index > 0 && covers(index - 1, begin, end)) {
+            return this.annotations[index - 1];
+         }
+      }
+      int last = this.annotations.length - 1;
+      if (last >= 0 && covers(last, begin, end)) {
+         return this.annotations[last];
+      }
+      return null;
+   }
+
+   /**
+    * Returns the index of the first annotation with a begin position at or
+    * after the given position, or the number of annotations if there is none.
+    */
+   private int firstAtOrAfter(int begin) {
+      int index;
+      if (begin >= this.lastBegin) {
+         // continue with the previous lookup
+         index = this.lastIndex;
+         while (index < this.begins.length && this.begins[index] < begin) {
+            index++;
+         }
+      } else {
+         // binary search for the first begin position >= begin
+         int low = 0;
+         int high = this.begins.length;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.begins[mid] < begin) {
+               low = mid + 1;
+            } else {
+               high = mid;
+            }
+         }
+         index = low;
+      }
+      this.lastBegin = begin;
+      this.lastIndex = index;
+      return index;
+   }
+
+   private boolean covers(int index, int begin, int end) {
+      return this.begins[index] <= begin && this.ends[index] >= end;
+   }
+}
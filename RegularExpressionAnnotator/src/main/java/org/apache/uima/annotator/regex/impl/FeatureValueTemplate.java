@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.regex.MatchResult;
+
+import org.apache.uima.annotator.regex.Rule;
+
+/**
+ * Compiled feature value of a rule. The feature value can contain match group
+ * references like $1 or ${match group name}, all $ and \ characters that are
+ * not part of a reference must be escaped by \. The value is compiled once
+ * into literal segments and match group numbers, so the feature value of a
+ * match is created by appending the segments and the match group values.
+ */
+public class FeatureValueTemplate {
+
+   // literal segments, the segment i is followed by the match group i
+   private final String[] literals;
+
+   // match group numbers
+   private final int[] groups;
+
+   // match group names that are not defined by the rule, null for valid
+   // match group references
+   private final String[] unknownGroupNames;
+
+   // rule ID used for error messages
+   private final String ruleId;
+
+   /**
+    * Creates a new template.
+    */
+   private FeatureValueTemplate(String[] literals, int[] groups,
+         String[] unknownGroupNames, String ruleId) {
+      this.literals = literals;
+      this.groups = groups;
+      this.unknownGroupNames = unknownGroupNames;
+      this.ruleId = ruleId;
+   }
+
+   /**
+    * Compiles the given feature value for the given rule.
+    *
+    * @param featureValue
+    *           feature value that contains the match group syntax
+    * @param rule
+    *           rule that defines the match group names
+    *
+    * @return returns the compiled feature value
+    */
+   public static FeatureValueTemplate compile(String featureValue, Rule rule) {
+      ArrayList<String> literals = new ArrayList<String>();
+      ArrayList<Integer> groups = new ArrayList<Integer>();
+      ArrayList<String> unknownGroupNames = new ArrayList<String>();
+
+      StringBuilder literal = new StringBuilder();
+      int pos = 0;
+      int end = featureValue.length();
+      while (pos < end) {
+         char c = featureValue.charAt(pos);
+         if (c == '\\') {
+            // the escape character is removed and the escaped character is
+            // added to the output
+            ++pos;
+            if (pos < end) {
+               literal.append(featureValue.charAt(pos));
+               ++pos;
+            }
+         } else if (c == '$') {
+            // this must be a match group $n or ${match group name}
+            ++pos;
+            if (pos < end) {
+               c = featureValue.charAt(pos);
+               int groupNumber = -1;
+               String unknownGroupName = null;
+               if (c == '{') {
+                  ++pos;
+                  int matchNameEnd = featureValue.indexOf("}", pos);
+                  if (matchNameEnd > -1) {
+                     String matchGroupName = featureValue.substring(pos,
+                           matchNameEnd);
+                     groupNumber = rule.getMatchGroupNumber(matchGroupName);
+                     if (groupNumber == -1) {
+                        unknownGroupName = matchGroupName;
+                     }
+                     pos = matchNameEnd + 1;
+                  }
+               } else {
+                  groupNumber = c - '0';
+                  ++pos;
+               }
+               literals.add(literal.toString());
+               literal.setLength(0);
+               groups.add(Integer.valueOf(groupNumber));
+               unknownGroupNames.add(unknownGroupName);
+            }
+         } else {
+            literal.append(c);
+            ++pos;
+         }
+      }
+      literals.add(literal.toString());
+
+      int[] groupNumbers = new int[groups.size()];
+      for (int i = 0; i < groupNumbers.length; i++) {
+         groupNumbers[i] = groups.get(i).intValue();
+      }
+      return new FeatureValueTemplate(literals.toArray(new String[literals
+            .size()]), groupNumbers, unknownGroupNames
+            .toArray(new String[unknownGroupNames.size()]), rule.getId());
+   }
+
+   /**
+    * Returns the feature value for the current match of the given matcher.
+    *
+    * @param matcher
+    *           match result of the current match
+    * @param buffer
+    *           buffer used to build the value, its content is replaced
+    *
+    * @return returns the feature value with the match group values
+    *
+    * @throws RegexAnnotatorProcessException
+    *            if a match group name is not defined by the rule
+    */
+   public String getValue(MatchResult matcher, StringBuilder buffer)
+         throws RegexAnnotatorProcessException {
+      if (this.groups.length == 0) {
+         return this.literals[0];
+      }
+      buffer.setLength(0);
+      for (int i = 0; i < this.groups.length; i++) {
+         buffer.append(this.literals[i]);
+         if (this.unknownGroupNames[i] != null) {
+            throw new RegexAnnotatorProcessException(
+                  "regex_annotator_error_match_group_name_not_found",
+                  new Object[] { this.unknownGroupNames[i], this.ruleId });
+         }
+         String groupMatch = matcher.group(this.groups[i]);
+         if (groupMatch != null) {
+            buffer.append(groupMatch);
+         }
+      }
+      buffer.append(this.literals[this.groups.length]);
+      return buffer.toString();
+   }
+}
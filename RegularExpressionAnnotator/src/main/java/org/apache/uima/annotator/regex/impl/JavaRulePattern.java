@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.annotator.regex.RuleMatcher;
+import org.apache.uima.annotator.regex.RulePattern;
+
+/**
+ * Rule pattern that is matched with java.util.regex. If a time budget is set,
+ * the input is wrapped in a character sequence that checks the time while the
+ * matcher reads it and throws a RegexMatchTimeoutException if a match takes
+ * longer than the budget.
+ */
+public class JavaRulePattern implements RulePattern {
+
+   // number of character reads between two time checks
+   private static final int CHECK_INTERVAL = 4096;
+
+   // compiled java pattern
+   private final Pattern pattern;
+
+   // time budget of a match in nanoseconds, 0 for no budget
+   private final long timeBudgetNanos;
+
+   /**
+    * Creates a new rule pattern.
+    * 
+    * @param pattern
+    *           compiled java pattern
+    * @param timeBudgetNanos
+    *           time budget of a match in nanoseconds, 0 for no budget
+    */
+   public JavaRulePattern(Pattern pattern, long timeBudgetNanos) {
+      this.pattern = pattern;
+      this.timeBudgetNanos = timeBudgetNanos;
+   }
+
+   /**
+    * Returns the compiled java pattern.
+    * 
+    * @return returns the compiled java pattern
+    */
+   public Pattern getPattern() {
+      return this.pattern;
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.regex.RulePattern#matcher(java.lang.String)
+    */
+   public RuleMatcher matcher(String input) {
+      if (this.timeBudgetNanos > 0) {
+         TimedCharSequence timedInput = new TimedCharSequence(input,
+               this.timeBudgetNanos);
+         return new JavaRuleMatcher(this.pattern.matcher(timedInput),
+               timedInput);
+      }
+      return new JavaRuleMatcher(this.pattern.matcher(input), null);
+   }
+
+   /**
+    * Rule matcher that delegates to a java.util.regex matcher.
+    */
+   private static class JavaRuleMatcher implements RuleMatcher {
+
+      private final Matcher matcher;
+
+      // input with time checks, null if there is no time budget
+      private final TimedCharSequence timedInput;
+
+      private JavaRuleMatcher(Matcher matcher, TimedCharSequence timedInput) {
+         this.matcher = matcher;
+         this.timedInput = timedInput;
+      }
+
+      public boolean find(int from) {
+         startTimer();
+         try {
+            return this.matcher.find(from);
+         } finally {
+            stopTimer();
+         }
+      }
+
+      public boolean matches() {
+         startTimer();
+         try {
+            this.matcher.reset();
+            return this.matcher.matches();
+         } finally {
+            stopTimer();
+         }
+      }
+
+      private void startTimer() {
+         if (this.timedInput != null) {
+            this.timedInput.start();
+         }
+      }
+
+      private void stopTimer() {
+         if (this.timedInput != null) {
+            this.timedInput.stop();
+         }
+      }
+
+      public int start() {
+         return this.matcher.start();
+      }
+
+      public int start(int group) {
+         return this.matcher.start(group);
+      }
+
+      public int end() {
+         return this.matcher.end();
+      }
+
+      public int end(int group) {
+         return this.matcher.end(group);
+      }
+
+      public String group() {
+         return this.matcher.group();
+      }
+
+      public String group(int group) {
+         return this.matcher.group(group);
+      }
+
+      public int groupCount() {
+         return this.matcher.groupCount();
+      }
+   }
+
+   /**
+    * Character sequence that checks the time budget of the current match.
+    */
+   private static class TimedCharSequence implements CharSequence {
+
+      private final String input;
+
+      private final long timeBudgetNanos;
+
+      // end of the current match time budget, Long.MAX_VALUE if no match is
+      // running
+      private long deadline = Long.MAX_VALUE;
+
+      // character reads until the next time check
+      private int countdown = CHECK_INTERVAL;
+
+      private TimedCharSequence(String input, long timeBudgetNanos) {
+         this.input = input;
+         this.timeBudgetNanos = timeBudgetNanos;
+      }
+
+      private void start() {
+         this.deadline = System.nanoTime() + this.timeBudgetNanos;
+         this.countdown = CHECK_INTERVAL;
+      }
+
+      private void stop() {
+         this.deadline = Long.MAX_VALUE;
+      }
+
+      public char charAt(int index) {
+         if (--this.countdown == 0) {
+            this.countdown = CHECK_INTERVAL;
+            if (this.deadline != Long.MAX_VALUE
+                  && System.nanoTime() - this.deadline > 0) {
+               throw new RegexMatchTimeoutException(this.timeBudgetNanos);
+            }
+         }
+         return this.input.charAt(index);
+      }
+
+      public int length() {
+         return this.input.length();
+      }
+
+      public CharSequence subSequence(int start, int end) {
+         return this.input.substring(start, end);
+      }
+
+      public String toString() {
+         return this.input;
+      }
+   }
+}
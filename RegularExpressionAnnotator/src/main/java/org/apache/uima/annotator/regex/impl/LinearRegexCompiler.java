@@ -0,0 +1,813 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles a regular expression into a LinearRulePattern program. Only the
+ * regular expression syntax that can be matched without backtracking is
+ * supported, with exactly the same matches as java.util.regex. For other
+ * syntax like back references, lookaround, atomic groups, possessive
+ * quantifiers or inline flags, no pattern is created and the reason is
+ * returned by {@link #getUnsupportedFeature()}.
+ */
+public class LinearRegexCompiler {
+
+   // maximum number of program instructions
+   private static final int MAX_PROGRAM_SIZE = 10000;
+
+   // syntax tree node kinds
+   private static final int N_EMPTY = 0;
+
+   private static final int N_CHAR = 1;
+
+   private static final int N_SET = 2;
+
+   private static final int N_ASSERT = 3;
+
+   private static final int N_GROUP = 4;
+
+   private static final int N_CONCAT = 5;
+
+   private static final int N_ALT = 6;
+
+   private static final int N_REPEAT = 7;
+
+   // regular expression to compile, without \Q...\E quoting
+   private final String regex;
+
+   // current parse position
+   private int pos;
+
+   // unsupported feature of the regular expression, null if it is supported
+   private String unsupported;
+
+   // number of capturing groups
+   private int groupCount;
+
+   // character classes and their index by regular expression
+   private final ArrayList<LinearRulePattern.CharClass> classes;
+
+   private final HashMap<String, Integer> classIndexes;
+
+   // assertions and their index by regular expression
+   private final ArrayList<Pattern> assertions;
+
+   private final HashMap<String, Integer> assertionIndexes;
+
+   // program instructions
+   private int[] ops;
+
+   private int[] args1;
+
+   private int[] args2;
+
+   private int size;
+
+   /**
+    * Creates a new compiler for the given regular expression.
+    * 
+    * @param regex
+    *           regular expression, it must be valid and compiled without flags
+    */
+   public LinearRegexCompiler(String regex) {
+      this.regex = removeQuoting(regex);
+      this.pos = 0;
+      this.unsupported = null;
+      this.groupCount = 0;
+      this.classes = new ArrayList<LinearRulePattern.CharClass>();
+      this.classIndexes = new HashMap<String, Integer>();
+      this.assertions = new ArrayList<Pattern>();
+      this.assertionIndexes = new HashMap<String, Integer>();
+   }
+
+   /**
+    * Compiles the regular expression.
+    * 
+    * @param pattern
+    *           java pattern of the regular expression
+    * 
+    * @return returns the compiled pattern, or null if the regular expression
+    *         is not supported
+    */
+   public LinearRulePattern compile(Pattern pattern) {
+      for (int i = 0; i < this.regex.length(); i++) {
+         char c = this.regex.charAt(i);
+         if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+            this.unsupported = "supplementary characters";
+            return null;
+         }
+      }
+      Node root = parseAlternation();
+      if (this.unsupported == null && this.pos != this.regex.length()) {
+         this.unsupported = "unbalanced parentheses";
+      }
+      if (this.unsupported == null
+            && this.groupCount != pattern.matcher("").groupCount()) {
+         this.unsupported = "the group syntax";
+      }
+      if (this.unsupported == null && size(root) + 3 > MAX_PROGRAM_SIZE) {
+         this.unsupported = "regular expressions of this size";
+      }
+      if (this.unsupported != null) {
+         return null;
+      }
+
+      int capacity = (int) size(root) + 3;
+      this.ops = new int[capacity];
+      this.args1 = new int[capacity];
+      this.args2 = new int[capacity];
+      this.size = 0;
+      add(LinearRulePattern.SAVE, 0);
+      emit(root);
+      add(LinearRulePattern.SAVE, 1);
+      add(LinearRulePattern.MATCH, 0);
+
+      return new LinearRulePattern(this.ops, this.args1, this.args2,
+            this.classes.toArray(new LinearRulePattern.CharClass[this.classes
+                  .size()]), this.assertions.toArray(new Pattern[this.assertions
+                  .size()]), this.groupCount);
+   }
+
+   /**
+    * Returns the regular expression feature that is not supported.
+    * 
+    * @return returns a description of the unsupported feature, or null if
+    *         the regular expression is supported
+    */
+   public String getUnsupportedFeature() {
+      return this.unsupported;
+   }
+
+   /**
+    * Replaces the quoted characters of \Q...\E sections with escaped
+    * characters, like java.util.regex does before the regular expression is
+    * parsed.
+    */
+   private static String removeQuoting(String regex) {
+      if (regex.indexOf("\\Q") < 0) {
+         return regex;
+      }
+      StringBuilder result = new StringBuilder(regex.length() * 2);
+      int i = 0;
+      int length = regex.length();
+      while (i < length) {
+         char c = regex.charAt(i);
+         if (c != '\\' || i + 1 >= length) {
+            result.append(c);
+            i++;
+         } else if (regex.charAt(i + 1) != 'Q') {
+            result.append(c).append(regex.charAt(i + 1));
+            i += 2;
+         } else {
+            int end = regex.indexOf("\\E", i + 2);
+            if (end < 0) {
+               end = length;
+            }
+            for (int q = i + 2; q < end; q++) {
+               char quoted = regex.charAt(q);
+               if (quoted >= 0x80) {
+                  result.append(quoted);
+               } else if (Character.isLetterOrDigit(quoted)) {
+                  // a hex escape cannot be misread as part of a preceding
+                  // escape sequence
+                  result.append("\\x").append(Character.forDigit(quoted >> 4, 16))
+                        .append(Character.forDigit(quoted & 0xF, 16));
+               } else {
+                  result.append('\\').append(quoted);
+               }
+            }
+            i = Math.min(end + 2, length);
+         }
+      }
+      return result.toString();
+   }
+
+   /**
+    * Parses alternatives separated by '|'.
+    */
+   private Node parseAlternation() {
+      Node first = parseSequence();
+      if (this.pos >= this.regex.length() || this.regex.charAt(this.pos) != '|') {
+         return first;
+      }
+      ArrayList<Node> alternatives = new ArrayList<Node>();
+      alternatives.add(first);
+      while (this.unsupported == null && this.pos < this.regex.length()
+            && this.regex.charAt(this.pos) == '|') {
+         this.pos++;
+         alternatives.add(parseSequence());
+      }
+      return new Node(N_ALT, 0, alternatives.toArray(new Node[alternatives
+            .size()]));
+   }
+
+   /**
+    * Parses a sequence of quantified atoms up to the next '|' or ')'.
+    */
+   private Node parseSequence() {
+      ArrayList<Node> items = new ArrayList<Node>();
+      while (this.unsupported == null && this.pos < this.regex.length()) {
+         char c = this.regex.charAt(this.pos);
+         if (c == '|' || c == ')') {
+            break;
+         }
+         Node atom = parseAtom();
+         if (this.unsupported == null) {
+            items.add(parseQuantifier(atom));
+         }
+      }
+      if (items.size() == 1) {
+         return items.get(0);
+      }
+      return new Node(N_CONCAT, 0, items.toArray(new Node[items.size()]));
+   }
+
+   /**
+    * Parses a character, character class, escape sequence, assertion or
+    * group.
+    */
+   private Node parseAtom() {
+      char c = this.regex.charAt(this.pos);
+      if (c == '(') {
+         return parseGroup();
+      } else if (c == '[') {
+         int start = this.pos;
+         skipCharClass();
+         return set(this.regex.substring(start, this.pos));
+      } else if (c == '.') {
+         this.pos++;
+         return set(".");
+      } else if (c == '^' || c == '$') {
+         this.pos++;
+         return assertion(String.valueOf(c));
+      } else if (c == '\\') {
+         return parseEscape();
+      } else if (c == '*' || c == '+' || c == '?' || c == '{') {
+         this.unsupported = "dangling quantifiers";
+         return null;
+      }
+      this.pos++;
+      return new Node(N_CHAR, c, null);
+   }
+
+   /**
+    * Parses a capturing, named or non-capturing group.
+    */
+   private Node parseGroup() {
+      // skip '('
+      this.pos++;
+      int group = -1;
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '?') {
+         this.pos++;
+         char kind = (this.pos < this.regex.length()) ? this.regex
+               .charAt(this.pos) : 0;
+         if (kind == ':') {
+            this.pos++;
+         } else if (kind == '<' && this.pos + 1 < this.regex.length()
+               && Character.isLetter(this.regex.charAt(this.pos + 1))) {
+            // named group
+            int nameEnd = this.regex.indexOf('>', this.pos);
+            if (nameEnd < 0) {
+               this.unsupported = "the group syntax";
+               return null;
+            }
+            this.pos = nameEnd + 1;
+            group = ++this.groupCount;
+         } else if (kind == '=' || kind == '!' || kind == '<') {
+            this.unsupported = "lookaround";
+            return null;
+         } else if (kind == '>') {
+            this.unsupported = "atomic groups";
+            return null;
+         } else {
+            this.unsupported = "inline flags";
+            return null;
+         }
+      } else {
+         group = ++this.groupCount;
+      }
+      Node inner = parseAlternation();
+      if (this.unsupported != null) {
+         return null;
+      }
+      if (this.pos >= this.regex.length() || this.regex.charAt(this.pos) != ')') {
+         this.unsupported = "unbalanced parentheses";
+         return null;
+      }
+      // skip ')'
+      this.pos++;
+      return new Node(N_GROUP, group, new Node[] { inner });
+   }
+
+   /**
+    * Parses an escape sequence.
+    */
+   private Node parseEscape() {
+      int length = this.regex.length();
+      if (this.pos + 1 >= length) {
+         this.unsupported = "a trailing backslash";
+         return null;
+      }
+      int start = this.pos;
+      char escaped = this.regex.charAt(this.pos + 1);
+      this.pos += 2;
+      switch (escaped) {
+      case 'd':
+      case 'D':
+      case 's':
+      case 'S':
+      case 'w':
+      case 'W':
+      case 'h':
+      case 'H':
+      case 'v':
+      case 'V':
+         return set(this.regex.substring(start, this.pos));
+      case 'p':
+      case 'P':
+         if (this.pos < length && this.regex.charAt(this.pos) == '{') {
+            int end = this.regex.indexOf('}', this.pos);
+            this.pos = (end < 0) ? length : end + 1;
+         } else {
+            this.pos = Math.min(this.pos + 1, length);
+         }
+         return set(this.regex.substring(start, this.pos));
+      case 'b':
+      case 'B':
+         if (this.pos < length && this.regex.charAt(this.pos) == '{') {
+            this.unsupported = "the boundary syntax";
+            return null;
+         }
+         return assertion(this.regex.substring(start, this.pos));
+      case 'A':
+      case 'z':
+      case 'Z':
+         return assertion(this.regex.substring(start, this.pos));
+      case 't':
+         return new Node(N_CHAR, '\t', null);
+      case 'n':
+         return new Node(N_CHAR, '\n', null);
+      case 'r':
+         return new Node(N_CHAR, '\r', null);
+      case 'f':
+         return new Node(N_CHAR, '\f', null);
+      case 'a':
+         return new Node(N_CHAR, '\u0007', null);
+      case 'e':
+         return new Node(N_CHAR, '\u001B', null);
+      case 'c':
+         if (this.pos >= length) {
+            this.unsupported = "the control character syntax";
+            return null;
+         }
+         return new Node(N_CHAR, this.regex.charAt(this.pos++) ^ 64, null);
+      case '0':
+         return parseOctalEscape();
+      case 'x':
+      case 'u':
+         return parseHexEscape(escaped);
+      default:
+         if ((escaped >= '1' && escaped <= '9') || escaped == 'k') {
+            this.unsupported = "back references";
+            return null;
+         }
+         if ((escaped >= 'a' && escaped <= 'z')
+               || (escaped >= 'A' && escaped <= 'Z')) {
+            this.unsupported = "the escape sequence \\" + escaped;
+            return null;
+         }
+         return new Node(N_CHAR, escaped, null);
+      }
+   }
+
+   /**
+    * Parses the octal escape \0n, \0nn or \0mnn with m <= 3. The current
+    * position is after the 0.
+    */
+   private Node parseOctalEscape() {
+      int value = 0;
+      int digits = 0;
+      while (digits < 3 && this.pos < this.regex.length()) {
+         char c = this.regex.charAt(this.pos);
+         if (c < '0' || c > '7' || (digits == 2 && value > 037)) {
+            break;
+         }
+         value = value * 8 + (c - '0');
+         digits++;
+         this.pos++;
+      }
+      if (digits == 0) {
+         this.unsupported = "the octal escape syntax";
+         return null;
+      }
+      return new Node(N_CHAR, value, null);
+   }
+
+   /**
+    * Parses the hex escapes \xhh, \x{h...h} and \\uhhhh. The current position
+    * is after the x or u.
+    */
+   private Node parseHexEscape(char escaped) {
+      int start = this.pos;
+      int end;
+      if (escaped == 'x' && this.pos < this.regex.length()
+            && this.regex.charAt(this.pos) == '{') {
+         start = this.pos + 1;
+         end = this.regex.indexOf('}', start);
+         if (end < 0) {
+            this.unsupported = "the hex escape syntax";
+            return null;
+         }
+         this.pos = end + 1;
+      } else {
+         end = start + ((escaped == 'x') ? 2 : 4);
+         this.pos = end;
+      }
+      int value;
+      try {
+         value = Integer.parseInt(this.regex.substring(start, end), 16);
+      } catch (RuntimeException ex) {
+         this.unsupported = "the hex escape syntax";
+         return null;
+      }
+      if (value > 0xFFFF
+            || (value >= Character.MIN_SURROGATE && value <= Character.MAX_SURROGATE)) {
+         this.unsupported = "supplementary characters";
+         return null;
+      }
+      return new Node(N_CHAR, value, null);
+   }
+
+   /**
+    * Skips a character class, including nested classes.
+    */
+   private void skipCharClass() {
+      // skip '[' and negation
+      this.pos++;
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '^') {
+         this.pos++;
+      }
+      // a ']' at the start of a class is a literal member
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == ']') {
+         this.pos++;
+      }
+      while (this.pos < this.regex.length()) {
+         char c = this.regex.charAt(this.pos);
+         if (c == '\\') {
+            this.pos += 2;
+         } else if (c == '[') {
+            skipCharClass();
+         } else if (c == ']') {
+            this.pos++;
+            return;
+         } else {
+            this.pos++;
+         }
+      }
+      this.unsupported = "the character class syntax";
+   }
+
+   /**
+    * Parses the quantifier of the given atom, if there is one.
+    */
+   private Node parseQuantifier(Node atom) {
+      if (this.pos >= this.regex.length()) {
+         return atom;
+      }
+      char c = this.regex.charAt(this.pos);
+      int min;
+      int max;
+      boolean counted = false;
+      if (c == '*') {
+         min = 0;
+         max = -1;
+         this.pos++;
+      } else if (c == '+') {
+         min = 1;
+         max = -1;
+         this.pos++;
+      } else if (c == '?') {
+         min = 0;
+         max = 1;
+         this.pos++;
+      } else if (c == '{') {
+         int end = this.regex.indexOf('}', this.pos);
+         if (end < 0) {
+            this.unsupported = "the repetition syntax";
+            return null;
+         }
+         String repetition = this.regex.substring(this.pos + 1, end);
+         this.pos = end + 1;
+         counted = true;
+         try {
+            int comma = repetition.indexOf(',');
+            if (comma < 0) {
+               min = Integer.parseInt(repetition);
+               max = min;
+            } else {
+               min = Integer.parseInt(repetition.substring(0, comma));
+               max = (comma == repetition.length() - 1) ? -1 : Integer
+                     .parseInt(repetition.substring(comma + 1));
+            }
+         } catch (NumberFormatException ex) {
+            this.unsupported = "the repetition syntax";
+            return null;
+         }
+      } else {
+         return atom;
+      }
+
+      boolean greedy = true;
+      if (this.pos < this.regex.length()) {
+         char mode = this.regex.charAt(this.pos);
+         if (mode == '?') {
+            greedy = false;
+            this.pos++;
+         } else if (mode == '+') {
+            this.unsupported = "possessive quantifiers";
+            return null;
+         }
+      }
+      if (this.pos < this.regex.length()
+            && "*+?{".indexOf(this.regex.charAt(this.pos)) > -1) {
+         this.unsupported = "repeated quantifiers";
+         return null;
+      }
+
+      // java.util.regex stops loops at empty iterations, repeats groups
+      // without alternatives atomically and does not reset nested groups in
+      // this case, so these repetitions are matched with java.util.regex
+      if (atom.kind == N_ASSERT) {
+         this.unsupported = "quantified assertions";
+         return null;
+      }
+      if ((max == -1 || max > 1) && minLength(atom) == 0) {
+         this.unsupported = "repeated expressions that can match the empty string";
+         return null;
+      }
+      if ((max != 1 || counted) && containsNestedGroup(atom)) {
+         this.unsupported = "repeated groups that contain capturing groups";
+         return null;
+      }
+      if ((long) size(atom) * Math.max(min, max) > MAX_PROGRAM_SIZE) {
+         this.unsupported = "regular expressions of this size";
+         return null;
+      }
+      Node node = new Node(N_REPEAT, 0, new Node[] { atom });
+      node.min = min;
+      node.max = max;
+      node.greedy = greedy;
+      return node;
+   }
+
+   /**
+    * Returns a node for the character class with the given expression.
+    */
+   private Node set(String expression) {
+      if (this.unsupported != null) {
+         return null;
+      }
+      Integer index = this.classIndexes.get(expression);
+      if (index == null) {
+         try {
+            this.classes.add(LinearRulePattern.CharClass
+                  .forExpression(expression));
+         } catch (PatternSyntaxException ex) {
+            this.unsupported = "the character class syntax";
+            return null;
+         }
+         index = Integer.valueOf(this.classes.size() - 1);
+         this.classIndexes.put(expression, index);
+      }
+      return new Node(N_SET, index.intValue(), null);
+   }
+
+   /**
+    * Returns a node for the assertion with the given expression.
+    */
+   private Node assertion(String expression) {
+      Integer index = this.assertionIndexes.get(expression);
+      if (index == null) {
+         index = Integer.valueOf(this.assertions.size());
+         this.assertions.add(Pattern.compile(expression));
+         this.assertionIndexes.put(expression, index);
+      }
+      return new Node(N_ASSERT, index.intValue(), null);
+   }
+
+   /**
+    * Checks if the given node contains capturing groups, not counting the
+    * node itself.
+    */
+   private static boolean containsNestedGroup(Node node) {
+      if (node.children == null) {
+         return false;
+      }
+      for (int i = 0; i < node.children.length; i++) {
+         Node child = node.children[i];
+         if ((child.kind == N_GROUP && child.value > 0)
+               || containsNestedGroup(child)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Returns the minimum match length of the given node.
+    */
+   private static int minLength(Node node) {
+      switch (node.kind) {
+      case N_CHAR:
+      case N_SET:
+         return 1;
+      case N_GROUP:
+         return minLength(node.children[0]);
+      case N_CONCAT: {
+         int length = 0;
+         for (int i = 0; i < node.children.length; i++) {
+            length += minLength(node.children[i]);
+         }
+         return length;
+      }
+      case N_ALT: {
+         int length = Integer.MAX_VALUE;
+         for (int i = 0; i < node.children.length; i++) {
+            length = Math.min(length, minLength(node.children[i]));
+         }
+         return length;
+      }
+      case N_REPEAT:
+         return (node.min == 0) ? 0 : node.min * minLength(node.children[0]);
+      default:
+         return 0;
+      }
+   }
+
+   /**
+    * Returns the number of program instructions of the given node.
+    */
+   private static long size(Node node) {
+      switch (node.kind) {
+      case N_CHAR:
+      case N_SET:
+      case N_ASSERT:
+         return 1;
+      case N_GROUP:
+         return size(node.children[0]) + ((node.value > 0) ? 2 : 0);
+      case N_CONCAT: {
+         long size = 0;
+         for (int i = 0; i < node.children.length; i++) {
+            size += size(node.children[i]);
+         }
+         return size;
+      }
+      case N_ALT: {
+         long size = 2 * (node.children.length - 1);
+         for (int i = 0; i < node.children.length; i++) {
+            size += size(node.children[i]);
+         }
+         return size;
+      }
+      case N_REPEAT: {
+         long body = size(node.children[0]);
+         if (node.max == -1) {
+            return node.min * body + body + 2;
+         }
+         return node.max * body + (node.max - node.min);
+      }
+      default:
+         return 0;
+      }
+   }
+
+   /**
+    * Emits the program instructions of the given node.
+    */
+   private void emit(Node node) {
+      switch (node.kind) {
+      case N_CHAR:
+         add(LinearRulePattern.CHAR, node.value);
+         break;
+      case N_SET:
+         add(LinearRulePattern.SET, node.value);
+         break;
+      case N_ASSERT:
+         add(LinearRulePattern.ASSERT, node.value);
+         break;
+      case N_GROUP:
+         if (node.value > 0) {
+            add(LinearRulePattern.SAVE, 2 * node.value);
+         }
+         emit(node.children[0]);
+         if (node.value > 0) {
+            add(LinearRulePattern.SAVE, 2 * node.value + 1);
+         }
+         break;
+      case N_CONCAT:
+         for (int i = 0; i < node.children.length; i++) {
+            emit(node.children[i]);
+         }
+         break;
+      case N_ALT: {
+         int last = node.children.length - 1;
+         int[] jumps = new int[last];
+         for (int i = 0; i < last; i++) {
+            int split = add(LinearRulePattern.SPLIT, 0);
+            emit(node.children[i]);
+            jumps[i] = add(LinearRulePattern.JMP, 0);
+            setSplit(split, split + 1, this.size, true);
+         }
+         emit(node.children[last]);
+         for (int i = 0; i < last; i++) {
+            this.args1[jumps[i]] = this.size;
+         }
+         break;
+      }
+      case N_REPEAT: {
+         Node body = node.children[0];
+         for (int i = 0; i < node.min; i++) {
+            emit(body);
+         }
+         if (node.max == -1) {
+            int loop = add(LinearRulePattern.SPLIT, 0);
+            emit(body);
+            add(LinearRulePattern.JMP, loop);
+            setSplit(loop, loop + 1, this.size, node.greedy);
+         } else {
+            // optional repetitions, each of them can leave the repetition
+            int[] splits = new int[node.max - node.min];
+            for (int i = 0; i < splits.length; i++) {
+               splits[i] = add(LinearRulePattern.SPLIT, 0);
+               emit(body);
+            }
+            for (int i = 0; i < splits.length; i++) {
+               setSplit(splits[i], splits[i] + 1, this.size, node.greedy);
+            }
+         }
+         break;
+      }
+      default:
+         break;
+      }
+   }
+
+   private int add(int op, int arg) {
+      this.ops[this.size] = op;
+      this.args1[this.size] = arg;
+      this.args2[this.size] = 0;
+      return this.size++;
+   }
+
+   private void setSplit(int split, int enter, int leave, boolean greedy) {
+      this.args1[split] = greedy ? enter : leave;
+      this.args2[split] = greedy ? leave : enter;
+   }
+
+   /**
+    * Syntax tree node of the regular expression.
+    */
+   private static final class Node {
+
+      private final int kind;
+
+      // character, class index, assertion index or group number
+      private final int value;
+
+      private final Node[] children;
+
+      // repetition settings, max is -1 for unbounded repetitions
+      private int min;
+
+      private int max;
+
+      private boolean greedy;
+
+      private Node(int kind, int value, Node[] children) {
+         this.kind = kind;
+         this.value = value;
+         this.children = children;
+      }
+   }
+}
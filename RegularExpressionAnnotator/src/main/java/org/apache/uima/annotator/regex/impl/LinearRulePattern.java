@@ -0,0 +1,475 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.annotator.regex.RuleMatcher;
+import org.apache.uima.annotator.regex.RulePattern;
+
+/**
+ * Rule pattern that is matched in linear time with a Pike VM. All threads of
+ * the program run in lock step over the input, ordered by their priority, so
+ * each input character is read only once and the matches and match groups
+ * are the same as the leftmost match of java.util.regex.
+ *
+ * The pattern is created by the LinearRegexCompiler. Character classes and
+ * assertions are evaluated with java.util.regex, so their semantics are
+ * exactly the same. The input is read by code point, like java.util.regex
+ * does, so supplementary characters are matched as one character.
+ */
+public class LinearRulePattern implements RulePattern {
+
+   // program instructions
+   static final int CHAR = 0;
+
+   static final int SET = 1;
+
+   static final int ASSERT = 2;
+
+   static final int SPLIT = 3;
+
+   static final int JMP = 4;
+
+   static final int SAVE = 5;
+
+   static final int MATCH = 6;
+
+   // match modes
+   private static final int FIND = 0;
+
+   private static final int MATCHES = 1;
+
+   // true if java.util.regex also starts a match at the low surrogate of a
+   // surrogate pair, Java 8 does this, newer versions do not
+   private static final boolean LOW_SURROGATE_STARTS = Pattern.compile(
+         "\\p{Cs}").matcher("\ud800\udc00").find();
+
+   // program instructions and their arguments
+   private final int[] ops;
+
+   private final int[] args1;
+
+   private final int[] args2;
+
+   // character classes of the SET instructions
+   private final CharClass[] classes;
+
+   // assertions of the ASSERT instructions
+   private final Pattern[] assertions;
+
+   // number of capturing groups
+   private final int groupCount;
+
+   /**
+    * Creates a new pattern for the given program.
+    */
+   LinearRulePattern(int[] ops, int[] args1, int[] args2, CharClass[] classes,
+         Pattern[] assertions, int groupCount) {
+      this.ops = ops;
+      this.args1 = args1;
+      this.args2 = args2;
+      this.classes = classes;
+      this.assertions = assertions;
+      this.groupCount = groupCount;
+   }
+
+   /*
+    * (non-Javadoc)
+    * 
+    * @see org.apache.uima.annotator.regex.RulePattern#matcher(java.lang.String)
+    */
+   public RuleMatcher matcher(String input) {
+      return new LinearRuleMatcher(input);
+   }
+
+   /**
+    * Pike VM matcher for an input.
+    */
+   private final class LinearRuleMatcher implements RuleMatcher {
+
+      private final String input;
+
+      // matchers of the assertions, created when they are used
+      private final Matcher[] assertionMatchers;
+
+      // thread lists of the current and the next input position
+      private ThreadList current;
+
+      private ThreadList next;
+
+      // thread list of a match that starts at the low surrogate of a
+      // surrogate pair
+      private final ThreadList lowSurrogate;
+
+      // generation of the thread list that contains an instruction
+      private final int[] marks;
+
+      private int generation;
+
+      // stack of the threads that are added to a thread list
+      private final int[] stackPcs;
+
+      private final int[][] stackCaps;
+
+      // match group positions of the current match, null if there is no
+      // match
+      private int[] groups;
+
+      private LinearRuleMatcher(String input) {
+         this.input = input;
+         this.assertionMatchers = new Matcher[LinearRulePattern.this.assertions.length];
+         int size = LinearRulePattern.this.ops.length;
+         this.current = new ThreadList(size);
+         this.next = new ThreadList(size);
+         this.lowSurrogate = new ThreadList(size);
+         this.marks = new int[size];
+         this.generation = 0;
+         this.stackPcs = new int[size + 1];
+         this.stackCaps = new int[size + 1][];
+         this.groups = null;
+      }
+
+      public boolean find(int from) {
+         if (from < 0 || from > this.input.length()) {
+            throw new IndexOutOfBoundsException("Illegal start index");
+         }
+         return run(from, FIND);
+      }
+
+      public boolean matches() {
+         return run(0, MATCHES);
+      }
+
+      /**
+       * Runs the program from the given position. In the FIND mode a new
+       * thread with the lowest priority is started at each position until a
+       * match is found. If a thread matches, all threads with a lower
+       * priority are stopped, the threads with a higher priority can still
+       * find a preferred match.
+       * 
+       * The input is read by code point. If java.util.regex does it, the FIND
+       * mode also starts a match at the low surrogate of a surrogate pair,
+       * this thread reads the low surrogate as a single character and joins
+       * the other threads after the pair.
+       */
+      private boolean run(int from, int mode) {
+         int length = this.input.length();
+
+         int[] initialCaps = new int[2 * (LinearRulePattern.this.groupCount + 1)];
+         Arrays.fill(initialCaps, -1);
+         int[] matchCaps = null;
+
+         this.current.count = 0;
+         this.current.generation = ++this.generation;
+         int pos = from;
+         while (true) {
+            if (matchCaps == null && (mode == FIND || pos == from)) {
+               addThread(this.current, 0, pos, initialCaps);
+            }
+            if (this.current.count == 0 && (matchCaps != null || mode != FIND)) {
+               break;
+            }
+
+            this.next.count = 0;
+            this.next.generation = ++this.generation;
+            int c = (pos < length) ? this.input.codePointAt(pos) : -1;
+            int nextPos = pos + ((c >= Character.MIN_SUPPLEMENTARY_CODE_POINT) ? 2 : 1);
+            int[] caps = step(this.current, pos, c, nextPos, mode);
+            if (caps != null) {
+               matchCaps = caps;
+            }
+
+            if (LOW_SURROGATE_STARTS && matchCaps == null && mode == FIND
+                  && nextPos == pos + 2) {
+               // start a match with the lowest priority at the low surrogate
+               this.lowSurrogate.count = 0;
+               this.lowSurrogate.generation = ++this.generation;
+               addThread(this.lowSurrogate, 0, pos + 1, initialCaps);
+               matchCaps = step(this.lowSurrogate, pos + 1, this.input
+                     .charAt(pos + 1), nextPos, mode);
+            }
+
+            ThreadList list = this.current;
+            this.current = this.next;
+            this.next = list;
+            if (pos >= length) {
+               break;
+            }
+            pos = nextPos;
+         }
+         this.groups = matchCaps;
+         return matchCaps != null;
+      }
+
+      /**
+       * Runs the threads of the given list on the code point at the given
+       * position and adds the threads that read it to the next thread list.
+       * 
+       * @return returns the match group positions of the thread with the
+       *         highest priority that matched, or null if no thread matched
+       */
+      private int[] step(ThreadList list, int pos, int c, int nextPos, int mode) {
+         int[] ops = LinearRulePattern.this.ops;
+         int[] args1 = LinearRulePattern.this.args1;
+         CharClass[] classes = LinearRulePattern.this.classes;
+         for (int t = 0; t < list.count; t++) {
+            int pc = list.pcs[t];
+            int op = ops[pc];
+            if (op == MATCH) {
+               if (mode == MATCHES && pos != this.input.length()) {
+                  continue;
+               }
+               return list.caps[t];
+            }
+            if (c >= 0
+                  && (op == CHAR ? c == args1[pc] : classes[args1[pc]]
+                        .contains(c))) {
+               addThread(this.next, pc + 1, nextPos, list.caps[t]);
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Adds the thread at the given instruction to the thread list. JMP,
+       * SPLIT, SAVE and ASSERT instructions are followed immediately, in
+       * priority order. An instruction is only added once to a list, the
+       * first thread has the highest priority.
+       */
+      private void addThread(ThreadList list, int startPc, int pos, int[] startCaps) {
+         int[] ops = LinearRulePattern.this.ops;
+         int[] args1 = LinearRulePattern.this.args1;
+         int sp = 0;
+         this.stackPcs[sp] = startPc;
+         this.stackCaps[sp] = startCaps;
+         sp++;
+         while (sp > 0) {
+            sp--;
+            int pc = this.stackPcs[sp];
+            int[] caps = this.stackCaps[sp];
+            while (this.marks[pc] != list.generation) {
+               this.marks[pc] = list.generation;
+               int op = ops[pc];
+               if (op == JMP) {
+                  pc = args1[pc];
+               } else if (op == SPLIT) {
+                  this.stackPcs[sp] = LinearRulePattern.this.args2[pc];
+                  this.stackCaps[sp] = caps;
+                  sp++;
+                  pc = args1[pc];
+               } else if (op == SAVE) {
+                  caps = caps.clone();
+                  caps[args1[pc]] = pos;
+                  pc++;
+               } else if (op == ASSERT) {
+                  if (!matchAssertion(args1[pc], pos)) {
+                     break;
+                  }
+                  pc++;
+               } else {
+                  list.pcs[list.count] = pc;
+                  list.caps[list.count] = caps;
+                  list.count++;
+                  break;
+               }
+            }
+         }
+      }
+
+      private boolean matchAssertion(int assertion, int pos) {
+         Matcher matcher = this.assertionMatchers[assertion];
+         if (matcher == null) {
+            matcher = LinearRulePattern.this.assertions[assertion]
+                  .matcher(this.input);
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+            this.assertionMatchers[assertion] = matcher;
+         }
+         matcher.region(pos, this.input.length());
+         return matcher.lookingAt();
+      }
+
+      public int start() {
+         return start(0);
+      }
+
+      public int start(int group) {
+         checkGroup(group);
+         return this.groups[2 * group];
+      }
+
+      public int end() {
+         return end(0);
+      }
+
+      public int end(int group) {
+         checkGroup(group);
+         return this.groups[2 * group + 1];
+      }
+
+      public String group() {
+         return group(0);
+      }
+
+      public String group(int group) {
+         checkGroup(group);
+         int start = this.groups[2 * group];
+         if (start == -1) {
+            return null;
+         }
+         return this.input.substring(start, this.groups[2 * group + 1]);
+      }
+
+      public int groupCount() {
+         return LinearRulePattern.this.groupCount;
+      }
+
+      private void checkGroup(int group) {
+         if (this.groups == null) {
+            throw new IllegalStateException("No match available");
+         }
+         if (group < 0 || group > LinearRulePattern.this.groupCount) {
+            throw new IndexOutOfBoundsException("No group " + group);
+         }
+      }
+   }
+
+   /**
+    * Threads of an input position in priority order.
+    */
+   private static final class ThreadList {
+
+      // instruction of each thread
+      private final int[] pcs;
+
+      // match group positions of each thread
+      private final int[][] caps;
+
+      private int count;
+
+      private int generation;
+
+      private ThreadList(int size) {
+         this.pcs = new int[size];
+         this.caps = new int[size][];
+         this.count = 0;
+         this.generation = 0;
+      }
+   }
+
+   /**
+    * Character class of a SET instruction. The members are evaluated once
+    * with java.util.regex, for Latin-1 characters when the class is created
+    * and for the other characters of the basic multilingual plane when the
+    * first of them is tested. Supplementary code points are evaluated when
+    * they are tested the first time.
+    */
+   static final class CharClass {
+
+      // classes by their regular expression, shared by all patterns
+      private static final HashMap<String, CharClass> classCache = new HashMap<String, CharClass>();
+
+      private final Pattern pattern;
+
+      // members with a character code below 256
+      private final BitSet latin1Members;
+
+      // members of the basic multilingual plane, null until needed
+      private volatile BitSet members;
+
+      // membership of the supplementary code points tested so far
+      private final HashMap<Integer, Boolean> supplementaryMembers;
+
+      private CharClass(Pattern pattern) {
+         this.pattern = pattern;
+         this.latin1Members = evaluate(256);
+         this.members = null;
+         this.supplementaryMembers = new HashMap<Integer, Boolean>();
+      }
+
+      /**
+       * Returns the character class for the given regular expression, which
+       * must match exactly one character.
+       */
+      static CharClass forExpression(String expression) {
+         synchronized (classCache) {
+            CharClass charClass = classCache.get(expression);
+            if (charClass == null) {
+               charClass = new CharClass(Pattern.compile(expression));
+               classCache.put(expression, charClass);
+            }
+            return charClass;
+         }
+      }
+
+      /**
+       * Checks if the given code point is a member of this class. A
+       * surrogate code point stands for an unpaired surrogate character.
+       */
+      boolean contains(int c) {
+         if (c < 256) {
+            return this.latin1Members.get(c);
+         }
+         if (c >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return containsSupplementary(c);
+         }
+         BitSet allMembers = this.members;
+         if (allMembers == null) {
+            allMembers = evaluateMembers();
+         }
+         return allMembers.get(c);
+      }
+
+      private synchronized BitSet evaluateMembers() {
+         if (this.members == null) {
+            this.members = evaluate(0x10000);
+         }
+         return this.members;
+      }
+
+      private boolean containsSupplementary(int c) {
+         Integer codePoint = Integer.valueOf(c);
+         synchronized (this.supplementaryMembers) {
+            Boolean member = this.supplementaryMembers.get(codePoint);
+            if (member == null) {
+               member = Boolean.valueOf(this.pattern.matcher(
+                     new String(Character.toChars(c))).matches());
+               this.supplementaryMembers.put(codePoint, member);
+            }
+            return member.booleanValue();
+         }
+      }
+
+      private BitSet evaluate(int end) {
+         BitSet result = new BitSet(end);
+         Matcher matcher = this.pattern.matcher("");
+         for (int c = 0; c < end; c++) {
+            if (matcher.reset(String.valueOf((char) c)).matches()) {
+               result.set(c);
+            }
+         }
+         return result;
+      }
+   }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.uima.annotator.regex.FeaturePath;
+import org.apache.uima.annotator.regex.FilterFeature;
+import org.apache.uima.annotator.regex.Rule;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Snapshot of the match type annotations and their feature path values of a
+ * CAS. The snapshot is created on the thread that owns the CAS and can then be
+ * read by several threads, since the rule matching does not need to access
+ * the CAS anymore.
+ *
+ * Rules with the same match type and feature path share the same values
+ * array, so the candidate rules of the rule prefilter are computed only once
+ * for each value.
+ */
+public class MatchTypeSnapshot {
+
+   // match type annotations, in annotation index order
+   private final HashMap<Type, AnnotationFS[]> annotations;
+
+   // feature path values of the match type annotations, the key is the match
+   // type name and the feature path
+   private final HashMap<String, String[]> values;
+
+   // candidate rules of the values matched by the rules, the arrays are
+   // created with the snapshot and their elements computed on first use
+   private final IdentityHashMap<String[], AtomicReferenceArray<BitSet>> candidateRules;
+
+   // CAS the snapshot is created from
+   private final CAS cas;
+
+   // rule prefilter
+   private final RulePrefilter prefilter;
+
+   /**
+    * Creates a new empty snapshot for the given CAS.
+    *
+    * @param cas
+    *           CAS the snapshot is created from
+    * @param prefilter
+    *           rule prefilter used for the candidate rules
+    */
+   public MatchTypeSnapshot(CAS cas, RulePrefilter prefilter) {
+      this.cas = cas;
+      this.prefilter = prefilter;
+      this.annotations = new HashMap<Type, AnnotationFS[]>();
+      this.values = new HashMap<String, String[]>();
+      this.candidateRules = new IdentityHashMap<String[], AtomicReferenceArray<BitSet>>();
+   }
+
+   /**
+    * Adds the match type annotations and all feature path values the given
+    * rule uses to the snapshot. This method must only be called on the thread
+    * that owns the CAS and before the snapshot is passed to other threads.
+    *
+    * @param rule
+    *           rule to add
+    *
+    * @throws RegexAnnotatorProcessException
+    */
+   public void addRule(Rule rule) throws RegexAnnotatorProcessException {
+      Type matchType = rule.getMatchType();
+      AnnotationFS[] annots = this.annotations.get(matchType);
+      if (annots == null) {
+         ArrayList<AnnotationFS> annotList = new ArrayList<AnnotationFS>();
+         FSIterator<?> iterator = this.cas.getAnnotationIndex(matchType)
+               .iterator();
+         while (iterator.hasNext()) {
+            annotList.add((AnnotationFS) iterator.next());
+         }
+         annots = annotList.toArray(new AnnotationFS[annotList.size()]);
+         this.annotations.put(matchType, annots);
+      }
+
+      String[] matchValues = addValues(matchType, annots, rule
+            .getMatchTypeFeaturePath());
+      if (!this.candidateRules.containsKey(matchValues)) {
+         this.candidateRules.put(matchValues, new AtomicReferenceArray<BitSet>(
+               matchValues.length));
+      }
+      FilterFeature[] filterFeatures = rule.getMatchTypeFilterFeatures();
+      for (int i = 0; i < filterFeatures.length; i++) {
+         addValues(matchType, annots, filterFeatures[i].getFeaturePath());
+      }
+   }
+
+   /**
+    * Returns the annotations of the given match type.
+    *
+    * @param matchType
+    *           match type of a rule that was added
+    *
+    * @return returns the annotations in annotation index order
+    */
+   public AnnotationFS[] getAnnotations(Type matchType) {
+      return this.annotations.get(matchType);
+   }
+
+   /**
+    * Returns the feature path values of the annotations of the given match
+    * type.
+    *
+    * @param matchType
+    *           match type of a rule that was added
+    * @param featurePath
+    *           feature path of the rule or of one of its filter features
+    *
+    * @return returns the values in annotation index order, a value is null if
+    *         the feature path value is not set
+    */
+   public String[] getValues(Type matchType, FeaturePath featurePath) {
+      return this.values.get(getKey(matchType, featurePath));
+   }
+
+   /**
+    * Returns the candidate rules of the rule prefilter for a value of the
+    * given values array. The candidates are shared by all rules and threads
+    * that match on the same values. No lock is taken, so two threads may both
+    * compute the candidates of the same value, which is harmless.
+    *
+    * @param values
+    *           values array returned by {@link #getValues(Type, FeaturePath)}
+    *           for the match type feature path of a rule that was added
+    * @param index
+    *           index of the value, the value must not be null
+    *
+    * @return returns the global rule numbers of the candidate rules
+    */
+   public BitSet getCandidateRules(String[] values, int index) {
+      AtomicReferenceArray<BitSet> candidates = this.candidateRules.get(values);
+      BitSet result = candidates.get(index);
+      if (result == null) {
+         result = this.prefilter.getCandidateRules(values[index]);
+         candidates.set(index, result);
+      }
+      return result;
+   }
+
+   private String[] addValues(Type matchType, AnnotationFS[] annots,
+         FeaturePath featurePath) throws RegexAnnotatorProcessException {
+      String key = getKey(matchType, featurePath);
+      String[] annotValues = this.values.get(key);
+      if (annotValues != null) {
+         return annotValues;
+      }
+      annotValues = new String[annots.length];
+      for (int i = 0; i < annots.length; i++) {
+         annotValues[i] = featurePath.getValue(annots[i]);
+      }
+      this.values.put(key, annotValues);
+      return annotValues;
+   }
+
+   private static String getKey(Type matchType, FeaturePath featurePath) {
+      String path = featurePath.getFeaturePath();
+      return (path == null) ? matchType.getName() : matchType.getName() + "/"
+            + path;
+   }
+}
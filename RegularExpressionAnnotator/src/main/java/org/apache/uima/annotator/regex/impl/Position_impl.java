@@ -18,7 +18,7 @@
  */
 package org.apache.uima.annotator.regex.impl;
 
-import java.util.regex.Matcher;
+import java.util.regex.MatchResult;
 
 import org.apache.uima.annotator.regex.Position;
 
@@ -52,9 +52,9 @@ public class Position_impl implements Position {
   /*
    * (non-Javadoc)
    * 
-   * @see org.apache.uima.annotator.regex.Position#getMatchPosition(java.util.regex.Matcher)
+   * @see org.apache.uima.annotator.regex.Position#getMatchPosition(java.util.regex.MatchResult)
    */
-  public int getMatchPosition(Matcher matcher) {
+  public int getMatchPosition(MatchResult matcher) {
     if (this.location == START_LOCATION) {
       return matcher.start(this.matchGroup);
     }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Match result that was recorded by a {@link ConceptMatchTask}. The start and
+ * end positions of all match groups are stored in a match record, so the
+ * match can be processed later without matching the rule again.
+ */
+public class RecordedMatch implements MatchResult {
+
+   // matched input
+   private final String input;
+
+   // match record with the group positions
+   private final int[] record;
+
+   // offset of the group 0 start position in the record
+   private final int offset;
+
+   // number of match groups of the rule
+   private final int groupCount;
+
+   /**
+    * Creates a new recorded match.
+    *
+    * @param input
+    *           matched input
+    * @param record
+    *           match record, the start and end positions of group g are
+    *           stored at offset + 2 * g and offset + 2 * g + 1, the positions
+    *           of groups that did not match are -1
+    * @param offset
+    *           offset of the match in the record
+    * @param groupCount
+    *           number of match groups of the rule
+    */
+   public RecordedMatch(String input, int[] record, int offset, int groupCount) {
+      this.input = input;
+      this.record = record;
+      this.offset = offset;
+      this.groupCount = groupCount;
+   }
+
+   /**
+    * Stores the group positions of the current match of the given matcher
+    * at the given offset of a match record.
+    *
+    * @param matcher
+    *           matcher with a current match
+    * @param record
+    *           match record
+    * @param offset
+    *           offset of the match in the record
+    */
+   public static void record(MatchResult matcher, int[] record, int offset) {
+      int groups = matcher.groupCount();
+      for (int g = 0; g <= groups; g++) {
+         record[offset + 2 * g] = matcher.start(g);
+         record[offset + 2 * g + 1] = matcher.end(g);
+      }
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#start()
+    */
+   public int start() {
+      return start(0);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#start(int)
+    */
+   public int start(int group) {
+      checkGroup(group);
+      return this.record[this.offset + 2 * group];
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#end()
+    */
+   public int end() {
+      return end(0);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#end(int)
+    */
+   public int end(int group) {
+      checkGroup(group);
+      return this.record[this.offset + 2 * group + 1];
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#group()
+    */
+   public String group() {
+      return group(0);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#group(int)
+    */
+   public String group(int group) {
+      int start = start(group);
+      if (start == -1) {
+         return null;
+      }
+      return this.input.substring(start, end(group));
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#groupCount()
+    */
+   public int groupCount() {
+      return this.groupCount;
+   }
+
+   private void checkGroup(int group) {
+      if (group < 0 || group > this.groupCount) {
+         throw new IndexOutOfBoundsException("No group " + group);
+      }
+   }
+}
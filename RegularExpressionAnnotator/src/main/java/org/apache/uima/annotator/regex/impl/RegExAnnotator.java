@@ -24,20 +24,35 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.apache.uima.UimaContext;
+import org.apache.uima.UimaContextAdmin;
 import org.apache.uima.analysis_component.CasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.analysis_engine.annotator.AnnotatorContextException;
@@ -48,6 +63,8 @@ import org.apache.uima.annotator.regex.Feature;
 import org.apache.uima.annotator.regex.FilterFeature;
 import org.apache.uima.annotator.regex.Rule;
 import org.apache.uima.annotator.regex.RuleException;
+import org.apache.uima.annotator.regex.RuleMatcher;
+import org.apache.uima.annotator.regex.RulePattern;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.FeatureStructure;
@@ -68,6 +85,20 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
 
   public static final String REGEX_CONCEPTS_FILES = "ConceptFiles";
 
+  public static final String PARALLEL_THREADS = "ParallelThreads";
+
+  public static final String REGEX_ENGINE = "RegexEngine";
+
+  public static final String MATCH_TIME_BUDGET = "MatchTimeBudget";
+
+  public static final String RULE_STATISTICS = "RuleStatistics";
+
+  public static final String RULE_STATISTICS_FILE = "RuleStatisticsFile";
+
+  // rule statistics of all annotator instances that record them
+  private static final ArrayList<SharedRuleStatistics> allRuleStatistics =
+      new ArrayList<SharedRuleStatistics>();
+
   public static final String PATH_SEPARATOR = System.getProperty("path.separator");
 
   private Logger logger;
@@ -78,10 +109,127 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
 
   private AnnotationFS lastRuleExceptionAnnotation = null;
 
+  private final HashMap<Type, CoveringAnnotationIndex> coveringIndexes =
+      new HashMap<Type, CoveringAnnotationIndex>();
+
   private NumberFormat floatNumberFormat = null;
 
   private NumberFormat integerNumberFormat = null;
 
+  private final StringBuilder featureValueBuffer = new StringBuilder();
+
+  private RulePrefilter rulePrefilter = null;
+
+  private int[][] conceptRuleNumbers = null;
+
+  private ExecutorService executor = null;
+
+  private int[] conceptBatchEnd = null;
+
+  private boolean[] batchConcepts = null;
+
+  private RuleStatistics ruleStatistics = null;
+
+  private SharedRuleStatistics sharedRuleStatistics = null;
+
+  /**
+   * Stops the threads used for the parallel concept processing and unregisters the rule statistics
+   * MBean.
+   */
+  public void destroy() {
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+      this.executor = null;
+    }
+    if (this.sharedRuleStatistics != null) {
+      synchronized (allRuleStatistics) {
+        SharedRuleStatistics shared = this.sharedRuleStatistics;
+        if (--shared.users == 0) {
+          allRuleStatistics.remove(shared);
+          if (shared.name != null) {
+            try {
+              ManagementFactory.getPlatformMBeanServer().unregisterMBean(shared.name);
+            } catch (JMException ex) {
+              // the MBean was already unregistered
+            }
+          }
+        }
+      }
+      this.sharedRuleStatistics = null;
+    }
+    super.destroy();
+  }
+
+  /**
+   * Writes the rule statistics to the rule statistics file, if it is configured. If annotators with
+   * other context names are configured with the same file, the context name is added to the file
+   * name, so that they do not overwrite the statistics of each other.
+   */
+  public void collectionProcessComplete() throws AnalysisEngineProcessException {
+    super.collectionProcessComplete();
+    if (this.sharedRuleStatistics == null || this.sharedRuleStatistics.file == null) {
+      return;
+    }
+    SharedRuleStatistics shared = this.sharedRuleStatistics;
+    File file = shared.file;
+    synchronized (allRuleStatistics) {
+      for (SharedRuleStatistics other : allRuleStatistics) {
+        if (file.equals(other.file) && !shared.contextName.equals(other.contextName)) {
+          file = getContextFile(shared.file, shared.contextName);
+          break;
+        }
+      }
+    }
+    // replicated instances write the same statistics to the same file
+    synchronized (shared) {
+      Writer writer = null;
+      try {
+        writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        shared.statistics.writeCsv(writer);
+      } catch (IOException ex) {
+        throw new RegexAnnotatorProcessException("regex_annotator_error_writing_rule_statistics",
+            new Object[] { file.getAbsolutePath() }, ex);
+      } finally {
+        if (writer != null) {
+          try {
+            writer.close();
+          } catch (IOException ex) {
+            this.logger.logrb(Level.WARNING, "RegExAnnotator", "collectionProcessComplete",
+                MESSAGE_DIGEST, "regex_annotator_error_closing_rule_statistics_file",
+                new Object[] { file.getAbsolutePath(), ex.getMessage() });
+          }
+        }
+      }
+    }
+    this.logger.logrb(Level.INFO, "RegExAnnotator", "collectionProcessComplete", MESSAGE_DIGEST,
+        "regex_annotator_rule_statistics_file", new Object[] { file.getAbsolutePath() });
+  }
+
+  /**
+   * Returns the file with the qualified context name of the annotator added to the file name,
+   * before the file extension. The characters of the context name that are not letters, digits,
+   * '.' or '-' are replaced by '_'.
+   * 
+   * @param file
+   *          configured file
+   * @param contextName
+   *          qualified context name of the annotator, e.g. <code>/aggregate/delegate/</code>
+   * @return returns the file of the annotator, or the configured file for the root context
+   */
+  static File getContextFile(File file, String contextName) {
+    String suffix = contextName.replaceAll("^/+|/+$", "").replaceAll("[^\\w.-]+", "_");
+    if (suffix.length() == 0) {
+      return file;
+    }
+    String name = file.getName();
+    int extension = name.lastIndexOf('.');
+    if (extension <= 0) {
+      extension = name.length();
+    }
+    return new File(file.getParentFile(), name.substring(0, extension) + "-" + suffix
+        + name.substring(extension));
+  }
+
   /**
    * Performs any startup tasks required by this annotator. This implementation reads the
    * configuration parameters and compiles the regular expressions.
@@ -173,9 +321,143 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       }
     }
 
+    // get parameter RegexEngine, by default the rules are matched with
+    // java.util.regex
+    String regexEngine = (String) getContext().getConfigParameterValue(REGEX_ENGINE);
+    if (regexEngine == null) {
+      regexEngine = RulePatternCompiler.JAVA_ENGINE;
+    } else if (!RulePatternCompiler.isEngine(regexEngine)) {
+      throw new RegexAnnotatorConfigException("regex_annotator_error_unknown_regex_engine",
+          new Object[] { regexEngine });
+    }
+
+    // get parameter MatchTimeBudget, by default the java.util.regex matches
+    // have no time budget
+    Integer matchTimeBudget = (Integer) getContext().getConfigParameterValue(MATCH_TIME_BUDGET);
+    long timeBudgetNanos = 0;
+    if (matchTimeBudget != null && matchTimeBudget.intValue() > 0) {
+      timeBudgetNanos = matchTimeBudget.longValue() * 1000000L;
+    }
+
     // initialize the regex concepts
+    RulePatternCompiler patternCompiler = new RulePatternCompiler(regexEngine, timeBudgetNanos,
+        this.logger);
     for (int i = 0; i < this.regexConcepts.length; i++) {
-      ((Concept_impl) this.regexConcepts[i]).initialize(this.logger);
+      ((Concept_impl) this.regexConcepts[i]).initialize(this.logger, patternCompiler);
+    }
+    if (patternCompiler.getLinearRuleCount() > 0 || patternCompiler.getFallbackRuleCount() > 0) {
+      this.logger.logrb(Level.CONFIG, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+          "regex_annotator_regex_engine", new Object[] {
+              Integer.valueOf(patternCompiler.getLinearRuleCount()),
+              Integer.valueOf(patternCompiler.getFallbackRuleCount()) });
+    }
+
+    // number all rules and create the prefilter with their required literals
+    this.conceptRuleNumbers = new int[this.regexConcepts.length][];
+    ArrayList<String[]> ruleLiterals = new ArrayList<String[]>();
+    for (int i = 0; i < this.regexConcepts.length; i++) {
+      Rule[] rules = this.regexConcepts[i].getRules();
+      this.conceptRuleNumbers[i] = new int[rules.length];
+      for (int r = 0; r < rules.length; r++) {
+        this.conceptRuleNumbers[i][r] = ruleLiterals.size();
+        ruleLiterals.add(((Rule_impl) rules[r]).getRequiredLiterals());
+      }
+    }
+    this.rulePrefilter = new RulePrefilter(ruleLiterals.toArray(new String[][] {}));
+    this.logger.logrb(Level.CONFIG, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+        "regex_annotator_rule_prefilter", new Object[] {
+            Integer.valueOf(this.rulePrefilter.getPrefilteredRuleCount()),
+            Integer.valueOf(ruleLiterals.size()) });
+
+    // get parameter ParallelThreads, by default the concepts are processed
+    // sequentially
+    Integer parallelThreads = (Integer) getContext().getConfigParameterValue(PARALLEL_THREADS);
+    if (parallelThreads != null && parallelThreads.intValue() > 1) {
+      this.executor = Executors.newFixedThreadPool(parallelThreads.intValue(),
+          new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "RegExAnnotator");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      this.logger.logrb(Level.CONFIG, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+          "regex_annotator_parallel_threads", new Object[] { parallelThreads });
+    }
+
+    // get parameters RuleStatistics and RuleStatisticsFile, by default no
+    // rule statistics are recorded
+    Boolean ruleStatisticsEnabled = (Boolean) getContext().getConfigParameterValue(
+        RULE_STATISTICS);
+    String ruleStatisticsFile = (String) getContext().getConfigParameterValue(
+        RULE_STATISTICS_FILE);
+    if ((ruleStatisticsEnabled != null && ruleStatisticsEnabled.booleanValue())
+        || ruleStatisticsFile != null) {
+      initializeRuleStatistics((ruleStatisticsFile == null) ? null : new File(ruleStatisticsFile)
+          .getAbsoluteFile());
+    }
+  }
+
+  /**
+   * Creates the rule statistics, or shares them with another instance of the annotator with the
+   * same qualified context name, the same rules and the same statistics file. Such instances are
+   * replicas of the same annotator, e.g. in the processing pipelines of a CPE.
+   * 
+   * @param file
+   *          absolute path of the configured statistics file, null if there is none
+   */
+  private void initializeRuleStatistics(File file) {
+    String contextName = "RegExAnnotator";
+    if (getContext() instanceof UimaContextAdmin) {
+      contextName = ((UimaContextAdmin) getContext()).getQualifiedContextName();
+    }
+    RuleStatistics statistics = new RuleStatistics(this.regexConcepts);
+    synchronized (allRuleStatistics) {
+      SharedRuleStatistics shared = null;
+      boolean conflict = false;
+      for (SharedRuleStatistics other : allRuleStatistics) {
+        if (other.contextName.equals(contextName)) {
+          if (other.statistics.hasSameRules(statistics)
+              && (file == null ? other.file == null : file.equals(other.file))) {
+            shared = other;
+            break;
+          }
+          conflict = true;
+        }
+      }
+      if (shared == null) {
+        if (conflict) {
+          this.logger.logrb(Level.WARNING, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+              "regex_annotator_warning_rule_statistics_not_shared", new Object[] { contextName });
+        }
+        shared = new SharedRuleStatistics(contextName, statistics, file);
+        shared.name = registerRuleStatistics(contextName, statistics);
+        allRuleStatistics.add(shared);
+      }
+      shared.users++;
+      this.sharedRuleStatistics = shared;
+      this.ruleStatistics = shared.statistics;
+    }
+  }
+
+  /**
+   * Registers the rule statistics as MBean with the platform MBean server. The statistics are
+   * recorded even if the registration fails.
+   * 
+   * @return returns the MBean name, or null if the registration failed
+   */
+  private ObjectName registerRuleStatistics(String contextName, RuleStatistics statistics) {
+    try {
+      ObjectName name = new ObjectName("org.apache.uima.annotator.regex:type=RuleStatistics,name="
+          + ObjectName.quote(contextName));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, name);
+      this.logger.logrb(Level.CONFIG, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+          "regex_annotator_rule_statistics", new Object[] { name });
+      return name;
+    } catch (JMException ex) {
+      this.logger.logrb(Level.WARNING, "RegExAnnotator", "initialize", MESSAGE_DIGEST,
+          "regex_annotator_warning_rule_statistics_mbean", new Object[] { ex.getMessage() });
+      return null;
     }
   }
 
@@ -266,6 +548,15 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
     }
   }
   
+  private static final class CandidateRules {
+    private final String value;
+    private final BitSet rules;
+    private CandidateRules(String value, BitSet rules) {
+      this.value = value;
+      this.rules = rules;
+    }
+  }
+
   private void resolveRelativeWildcardFilePath(String wildcardExpr,
       List<File> datapathElements, List<ConceptFile> cfList) {
 
@@ -312,9 +603,86 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       } catch (ResourceInitializationException ex) {
         throw new RegexAnnotatorProcessException(ex);
       }
+
+      // concepts that do not update match type annotations are matched on a
+      // snapshot of the match type annotations, all rules with the same match
+      // type and feature path are evaluated in one pass. Without parallel
+      // threads, concepts that stop after the first matching rule are
+      // processed rule by rule, so that the following rules are not matched.
+      this.batchConcepts = new boolean[this.regexConcepts.length];
+      for (int i = 0; i < this.regexConcepts.length; i++) {
+        Concept concept = this.regexConcepts[i];
+        this.batchConcepts[i] = !hasUpdateFeatures(concept)
+            && (this.executor != null || concept.processAllConceptRules()
+                || concept.getRules().length == 1);
+      }
+
+      // group consecutive concepts that can be matched together. A concept
+      // is added to a group if it can be matched on a snapshot and if it does
+      // not match on annotations created by the preceding concepts of the
+      // group.
+      this.conceptBatchEnd = new int[this.regexConcepts.length];
+      for (int i = 0; i < this.regexConcepts.length; i++) {
+        int end = i + 1;
+        if (this.batchConcepts[i]) {
+          while (end < this.regexConcepts.length && this.batchConcepts[end]
+              && !dependsOnConcepts(aTypeSystem, this.regexConcepts[end], i, end)) {
+            end++;
+          }
+        }
+        this.conceptBatchEnd[i] = end;
+      }
     }
   }
 
+  /**
+   * Checks if any rule of the given concept updates the match type annotations.
+   * 
+   * @param concept
+   *          concept to check
+   * 
+   * @return returns true if the concept has update features
+   */
+  private static boolean hasUpdateFeatures(Concept concept) {
+    Rule[] rules = concept.getRules();
+    for (int r = 0; r < rules.length; r++) {
+      if (rules[r].getMatchTypeUpdateFeatures().length > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the given concept matches on annotations that are created by the concepts in the
+   * given range.
+   * 
+   * @param ts
+   *          type system
+   * @param concept
+   *          concept to check
+   * @param start
+   *          first concept of the range
+   * @param end
+   *          end of the range (exclusive)
+   * 
+   * @return returns true if the concept depends on a concept of the range
+   */
+  private boolean dependsOnConcepts(TypeSystem ts, Concept concept, int start, int end) {
+    Rule[] rules = concept.getRules();
+    for (int c = start; c < end; c++) {
+      Annotation[] annotations = this.regexConcepts[c].getAnnotations();
+      for (int a = 0; a < annotations.length; a++) {
+        for (int r = 0; r < rules.length; r++) {
+          if (ts.subsumes(rules[r].getMatchType(), annotations[a].getAnnotationType())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
   /**
    * Invokes this annotator's analysis logic. This annotator uses the java regular expression
    * package to find annotations using the regular expressions defined by its configuration
@@ -330,10 +698,28 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
    */
   public void process(CAS aCAS) throws AnalysisEngineProcessException {
 
+    // covering annotation indexes of the rule exception types are created
+    // once per document
+    this.coveringIndexes.clear();
+
+    // candidate rules of the match type annotations, cached per feature path
+    // since all rules that match the same value have the same candidates
+    HashMap<String, HashMap<AnnotationFS, CandidateRules>> candidateRuleCache = new HashMap<String, HashMap<AnnotationFS, CandidateRules>>();
+
+    // matcher that measures the match time for the rule statistics
+    TimedRuleMatcher timedMatcher = (this.ruleStatistics != null) ? new TimedRuleMatcher() : null;
+
     // iterate over all concepts one after the other to process them
     for (int i = 0; i < this.regexConcepts.length; i++) {
       // System.out.println(this.regexConcepts[i]);
 
+      // match a group of independent concepts on a snapshot
+      if (this.batchConcepts[i]) {
+        processConceptBatch(aCAS, i, this.conceptBatchEnd[i]);
+        i = this.conceptBatchEnd[i] - 1;
+        continue;
+      }
+
       // list of all annotation that must be added to the CAS for this
       // concept
       ArrayList<FeatureStructure> annotsToAdd = new ArrayList<FeatureStructure>();
@@ -344,7 +730,7 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       for (int ruleCount = 0; ruleCount < conceptRules.length; ruleCount++) {
 
         // get the regex pattern for the current rule
-        Pattern pattern = conceptRules[ruleCount].getRegexPattern();
+        RulePattern pattern = conceptRules[ruleCount].getRegexPattern();
 
         // get the match type where the rule should be processed on
         Type matchType = conceptRules[ruleCount].getMatchType();
@@ -352,15 +738,35 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
         // get match type iterator from the CAS
         FSIterator<?> mtIterator = aCAS.getAnnotationIndex(matchType).iterator();
 
+        // get the candidate rules cache for the feature path of the rule
+        int ruleNumber = this.conceptRuleNumbers[i][ruleCount];
+        String featurePath = conceptRules[ruleCount].getMatchTypeFeaturePath().getFeaturePath();
+        HashMap<AnnotationFS, CandidateRules> candidateRules = candidateRuleCache
+            .get(featurePath == null ? "" : featurePath);
+        if (candidateRules == null) {
+          candidateRules = new HashMap<AnnotationFS, CandidateRules>();
+          candidateRuleCache.put(featurePath == null ? "" : featurePath, candidateRules);
+        }
+
         String matchValue = null;
         AnnotationFS currentAnnot = null;
 
+        // counters of the rule statistics
+        long tested = 0;
+        long filtered = 0;
+        long prefiltered = 0;
+        long exceptionHits = 0;
+        if (timedMatcher != null) {
+          timedMatcher.reset();
+        }
+
         // iterate over all match type annotations where the
         // current rule should be processed on
         while (mtIterator.hasNext()) {
 
           // get next match type annotation
           currentAnnot = (AnnotationFS) mtIterator.next();
+          tested++;
 
           // check filter features, if all conditions are true
           FilterFeature[] filterFeatures = conceptRules[ruleCount].getMatchTypeFilterFeatures();
@@ -388,6 +794,7 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
           if (!passed) {
             // conditions for the current annotation not passed, go on
             // with the next
+            filtered++;
             continue;
           }
 
@@ -401,79 +808,114 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
             continue;
           }
 
-          // try to match the current pattern on the text
-          Matcher matcher = pattern.matcher(matchValue);
-
-          // check the match strategy we have for this rule
-          // MatchStrategy - MATCH_ALL
-          if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_ALL) {
-            int pos = 0;
-            while (matcher.find(pos)) {
-              // we have a match
-
-              // check rule exceptions
-              if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS, currentAnnot)) {
-
-                // create annotations and features
-                processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
-                    this.regexConcepts[i], ruleCount, annotsToAdd);
+          // skip the rule if the value does not contain a required literal,
+          // the cached candidates are only used if the value is unchanged
+          CandidateRules candidates = candidateRules.get(currentAnnot);
+          if (candidates == null || !candidates.value.equals(matchValue)) {
+            candidates = new CandidateRules(matchValue, this.rulePrefilter
+                .getCandidateRules(matchValue));
+            candidateRules.put(currentAnnot, candidates);
+          }
+          if (!candidates.rules.get(ruleNumber)) {
+            prefiltered++;
+            continue;
+          }
 
-                // set match found
-                foundMatch = true;
-              }
-              // set start match position for the next match to the
-              // current end match position
-              if (matcher.end() == pos) {
-                // Special case: matched the empty string. If at the end of the input, need
-                // to break.
-                if (pos == matchValue.length()) {
-                  break;
+          // try to match the current pattern on the text, with rule
+          // statistics the time of the match methods is measured
+          RuleMatcher matcher = pattern.matcher(matchValue);
+          if (timedMatcher != null) {
+            timedMatcher.setMatcher(matcher);
+            matcher = timedMatcher;
+          }
+          try {
+            // check the match strategy we have for this rule
+            // MatchStrategy - MATCH_ALL
+            if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_ALL) {
+              int pos = 0;
+              while (matcher.find(pos)) {
+                // we have a match
+
+                // check rule exceptions
+                if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS,
+                    currentAnnot)) {
+
+                  // create annotations and features
+                  processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
+                      this.regexConcepts[i], ruleCount, annotsToAdd);
+
+                  // set match found
+                  foundMatch = true;
+                } else {
+                  exceptionHits++;
+                }
+                // set start match position for the next match to the
+                // current end match position
+                if (matcher.end() == pos) {
+                  // Special case: matched the empty string. If at the end of the input, need
+                  // to break.
+                  if (pos == matchValue.length()) {
+                    break;
+                  }
+                  // Otherwise increment search pos so as not to loop.
+                  ++pos;
+                } else {
+                  // Default case: match was non-empty.
+                  pos = matcher.end();
                 }
-                // Otherwise increment search pos so as not to loop.
-                ++pos;
-              } else {
-                // Default case: match was non-empty.
-                pos = matcher.end();
               }
             }
-          }
-          // MatchStrategy - MATCH_COMPLETE
-          else if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_COMPLETE) {
-            if (matcher.matches()) {
-              // we have a match
-
-              // check rule exceptions
-              if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS, currentAnnot)) {
-
-                // create annotations and features
-                processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
-                    this.regexConcepts[i], ruleCount, annotsToAdd);
-
-                // set match found
-                foundMatch = true;
+            // MatchStrategy - MATCH_COMPLETE
+            else if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_COMPLETE) {
+              if (matcher.matches()) {
+                // we have a match
+
+                // check rule exceptions
+                if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS,
+                    currentAnnot)) {
+
+                  // create annotations and features
+                  processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
+                      this.regexConcepts[i], ruleCount, annotsToAdd);
+
+                  // set match found
+                  foundMatch = true;
+                } else {
+                  exceptionHits++;
+                }
               }
             }
-          }
-          // MatchStrategy - MATCH_FIRST
-          else if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_FIRST) {
-            if (matcher.find()) {
-              // we have a match
-
-              // check rule exceptions
-              if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS, currentAnnot)) {
-
-                // create annotations and features
-                processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
-                    this.regexConcepts[i], ruleCount, annotsToAdd);
-
-                // set match found
-                foundMatch = true;
+            // MatchStrategy - MATCH_FIRST
+            else if (conceptRules[ruleCount].getMatchStrategy() == Rule.MATCH_FIRST) {
+              if (matcher.find(0)) {
+                // we have a match
+
+                // check rule exceptions
+                if (!matchRuleExceptions(conceptRules[ruleCount].getExceptions(), aCAS,
+                    currentAnnot)) {
+
+                  // create annotations and features
+                  processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
+                      this.regexConcepts[i], ruleCount, annotsToAdd);
+
+                  // set match found
+                  foundMatch = true;
+                } else {
+                  exceptionHits++;
+                }
               }
             }
+          } catch (RegexMatchTimeoutException ex) {
+            // skip the remaining matches of the rule on this annotation
+            logMatchTimeout(conceptRules[ruleCount], currentAnnot, ex);
           }
 
           // all analysis is done, we can go to the next annotation
         }
+        if (this.ruleStatistics != null) {
+          this.ruleStatistics.add(ruleNumber, tested, filtered, prefiltered, timedMatcher
+              .getMatchCount(), exceptionHits, timedMatcher.getMatchNanos());
+        }
         if (foundMatch) {
           // check setting of processAllConceptRules to decide if
           // we go on with the next rule or not
@@ -490,6 +932,141 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       for (int x = 0; x < annotsToAdd.size(); x++) {
         aCAS.getIndexRepository().addFS(annotsToAdd.get(x));
       }
+      // the covering annotation indexes may miss the added annotations
+      if (annotsToAdd.size() > 0) {
+        this.coveringIndexes.clear();
+      }
+
+      // reset last rule exception annotation since we move to the next rule
+      // and everything is new
+      this.lastRuleExceptionAnnotation = null;
+    }
+  }
+
+  /**
+   * Processes the given concepts with the rule matching done on a snapshot of the match type
+   * annotations. Without parallel threads, all rules of the concepts are matched in one task, so
+   * rules with the same match type and feature path share a single pass over the annotations.
+   * Otherwise the rules of each concept are matched in parallel. Afterwards the recorded matches are
+   * processed in concept order on the calling thread, exactly as in the sequential processing: rule
+   * exceptions are checked and annotations are created and added to the CAS after each concept.
+   * 
+   * @param aCAS
+   *          current CAS
+   * @param start
+   *          first concept to process
+   * @param end
+   *          end of the concepts to process (exclusive)
+   * 
+   * @throws RegexAnnotatorProcessException
+   */
+  private void processConceptBatch(CAS aCAS, int start, int end)
+      throws RegexAnnotatorProcessException {
+
+    // create the snapshot of the match type annotations of all concepts
+    MatchTypeSnapshot snapshot = new MatchTypeSnapshot(aCAS, this.rulePrefilter);
+    int ruleTotal = 0;
+    for (int i = start; i < end; i++) {
+      Rule[] conceptRules = this.regexConcepts[i].getRules();
+      for (int ruleCount = 0; ruleCount < conceptRules.length; ruleCount++) {
+        snapshot.addRule(conceptRules[ruleCount]);
+      }
+      ruleTotal += conceptRules.length;
+    }
+
+    int[][][][] matches = new int[end - start][][][];
+    if (this.executor == null || end - start == 1) {
+      // match the rules of all concepts together
+      Rule[] rules = new Rule[ruleTotal];
+      int[] ruleNumbers = new int[ruleTotal];
+      int pos = 0;
+      for (int i = start; i < end; i++) {
+        Rule[] conceptRules = this.regexConcepts[i].getRules();
+        System.arraycopy(conceptRules, 0, rules, pos, conceptRules.length);
+        System.arraycopy(this.conceptRuleNumbers[i], 0, ruleNumbers, pos, conceptRules.length);
+        pos += conceptRules.length;
+      }
+      int[][][] ruleMatches = new ConceptMatchTask(rules, ruleNumbers, snapshot,
+          this.ruleStatistics, this.logger).call();
+      pos = 0;
+      for (int i = start; i < end; i++) {
+        matches[i - start] = new int[this.regexConcepts[i].getRules().length][][];
+        System.arraycopy(ruleMatches, pos, matches[i - start], 0, matches[i - start].length);
+        pos += matches[i - start].length;
+      }
+    } else {
+      // match the concept rules in parallel
+      ArrayList<Future<int[][][]>> results = new ArrayList<Future<int[][][]>>();
+      for (int i = start; i < end; i++) {
+        results.add(this.executor.submit(new ConceptMatchTask(this.regexConcepts[i].getRules(),
+            this.conceptRuleNumbers[i], snapshot, this.ruleStatistics, this.logger)));
+      }
+      for (int i = start; i < end; i++) {
+        try {
+          matches[i - start] = results.get(i - start).get();
+        } catch (InterruptedException ex) {
+          throw new RegexAnnotatorProcessException(ex);
+        } catch (ExecutionException ex) {
+          throw new RegexAnnotatorProcessException(ex.getCause());
+        }
+      }
+    }
+
+    for (int i = start; i < end; i++) {
+      int[][][] conceptMatches = matches[i - start];
+
+      // list of all annotation that must be added to the CAS for this
+      // concept
+      ArrayList<FeatureStructure> annotsToAdd = new ArrayList<FeatureStructure>();
+
+      Rule[] conceptRules = this.regexConcepts[i].getRules();
+      boolean foundMatch = false;
+      for (int ruleCount = 0; ruleCount < conceptRules.length; ruleCount++) {
+        Rule rule = conceptRules[ruleCount];
+        AnnotationFS[] annots = snapshot.getAnnotations(rule.getMatchType());
+        String[] values = snapshot.getValues(rule.getMatchType(), rule.getMatchTypeFeaturePath());
+        int matchSize = ConceptMatchTask.getMatchSize(rule);
+        long exceptionHits = 0;
+        int[][] ruleMatches = conceptMatches[ruleCount];
+        for (int m = 0; m < ruleMatches.length; m++) {
+          AnnotationFS currentAnnot = annots[ruleMatches[m][0]];
+          String matchValue = values[ruleMatches[m][0]];
+          for (int s = 1; s < ruleMatches[m].length; s += matchSize) {
+            MatchResult matcher = new RecordedMatch(matchValue, ruleMatches[m], s,
+                matchSize / 2 - 1);
+
+            // check rule exceptions
+            if (!matchRuleExceptions(rule.getExceptions(), aCAS, currentAnnot)) {
+
+              // create annotations and features
+              processConceptInstructions(matcher, currentAnnot, matchValue, aCAS,
+                  this.regexConcepts[i], ruleCount, annotsToAdd);
+
+              // set match found
+              foundMatch = true;
+            } else {
+              exceptionHits++;
+            }
+          }
+        }
+        if (this.ruleStatistics != null) {
+          this.ruleStatistics.add(this.conceptRuleNumbers[i][ruleCount], 0, 0, 0, 0,
+              exceptionHits, 0);
+        }
+        if (foundMatch && !this.regexConcepts[i].processAllConceptRules()) {
+          break;
+        }
+      }
+
+      // add all created annotations to the CAS index before moving to the
+      // next concept
+      for (int x = 0; x < annotsToAdd.size(); x++) {
+        aCAS.getIndexRepository().addFS(annotsToAdd.get(x));
+      }
+      // the covering annotation indexes may miss the added annotations
+      if (annotsToAdd.size() > 0) {
+        this.coveringIndexes.clear();
+      }
 
       // reset last rule exception annotation since we move to the next rule
       // and everything is new
@@ -497,6 +1074,31 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
     }
   }
 
+  /**
+   * Logs that a match of the given rule on the given match type annotation exceeded the match time
+   * budget.
+   * 
+   * @param logger
+   *          annotator logger
+   * @param rule
+   *          rule of the match
+   * @param annot
+   *          match type annotation
+   * @param ex
+   *          timeout exception of the match
+   */
+  static void logMatchTimeout(Logger logger, Rule rule, AnnotationFS annot,
+      RegexMatchTimeoutException ex) {
+    logger.logrb(Level.WARNING, "RegExAnnotator", "process", MESSAGE_DIGEST,
+        "regex_annotator_warning_match_timeout", new Object[] { rule.getId(),
+            Integer.valueOf(annot.getBegin()), Integer.valueOf(annot.getEnd()),
+            ex.getMessage() });
+  }
+
+  private void logMatchTimeout(Rule rule, AnnotationFS annot, RegexMatchTimeoutException ex) {
+    logMatchTimeout(this.logger, rule, annot, ex);
+  }
+
   /**
    * Check if the rule exception match for the current match type annotation.
    * 
@@ -531,7 +1133,12 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       this.lastRuleExceptionAnnotation = annot;
 
       // find covering annotation
-      AnnotationFS coverFs = findCoverFS(aCAS, annot, exceptions[i].getType());
+      CoveringAnnotationIndex coveringIndex = this.coveringIndexes.get(exceptions[i].getType());
+      if (coveringIndex == null) {
+        coveringIndex = new CoveringAnnotationIndex(aCAS, exceptions[i].getType());
+        this.coveringIndexes.put(exceptions[i].getType(), coveringIndex);
+      }
+      AnnotationFS coverFs = coveringIndex.findCover(annot);
       // check if covering annotation was found
       if (coverFs != null) {
         // check if the found coverFs annotation match the exception pattern
@@ -546,90 +1153,11 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
     return false;
   }
 
-  /**
-   * Finds the covering annotation of the specified coverFSType for the given annotation.
-   * 
-   * @param aCAS
-   *          a CAS to search in
-   * @param annot
-   *          current annotation
-   * @param coverFsType
-   *          covering annotation type to search for
-   * 
-   * @return returns the covering annotation FS or null if the covering annotation was not found.
-   * 
-   */
-  private AnnotationFS findCoverFS(CAS aCAS, AnnotationFS annot, Type coverFsType) {
-
-    // covering annotation
-    AnnotationFS coverFs = null;
-
-    // create a searchFS of the coverFsType with the annot boundaries to
-    // search for it.
-    FeatureStructure searchFs = aCAS.createAnnotation(coverFsType, annot.getBegin(), aCAS
-        .getDocumentText().length());
-
-    // get the coverFSType iterator from the CAS and move it "near" to the
-    // position of the created searchFS.
-    FSIterator<?> iterator = aCAS.getAnnotationIndex(coverFsType).iterator();
-    iterator.moveTo(searchFs);
-
-    // now the iterator can either point directly to the FS we are searching
-    // or it points to the next higher FS in the list. So we either have
-    // already found the correct one, of we maybe have to move the iterator to
-    // the previous position.
-
-    // check if the iterator at the current position is valid
-    if (iterator.isValid()) {
-      // iterator is valid, so we either have the correct annotation of we
-      // have to move to the
-      // previous one, lets check the current FS from the iterator
-      // get current FS
-      coverFs = (AnnotationFS) iterator.get();
-      // check if the coverFS covers the current match type annotation
-      if ((coverFs.getBegin() <= annot.getBegin()) && (coverFs.getEnd() >= annot.getEnd())) {
-        // we found the covering annotation
-        return coverFs;
-      }
-      // current coverFs does not cover the current match type annotation
-      // lets try to move iterator to the previous annotation and check
-      // again
-      iterator.moveToPrevious();
-      // check if the iterator is still valid after me move it to the
-      // previous FS
-      if (iterator.isValid()) {
-        // get FS
-        coverFs = (AnnotationFS) iterator.get();
-        // check the found coverFS covers the current match type
-        // annotation
-        if ((coverFs.getBegin() <= annot.getBegin()) && (coverFs.getEnd() >= annot.getEnd())) {
-          // we found the covering annotation
-          return coverFs;
-        }
-      }
-    }
-    // iterator is invalid lets try to move the iterator to the last FS and
-    // check the FS
-    iterator.moveToLast();
-    // check if the iterator is valid after we move it
-    if (iterator.isValid()) {
-      // get FS
-      coverFs = (AnnotationFS) iterator.get();
-      // check the found coverFS covers the current match type annotation
-      if ((coverFs.getBegin() <= annot.getBegin()) && (coverFs.getEnd() >= annot.getEnd())) {
-        // we found the covering annotation
-        return coverFs;
-      }
-    }
-    // no covering annotation found
-    return null;
-  }
-
   /**
    * The createAnnotations method creates the annotations and features for the given rule matches.
    * 
    * @param matcher
-   *          current regex matcher
+   *          current regex match
    * @param annot
    *          match type annotation
    * @param matchingText
@@ -643,7 +1171,7 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
    * @param annotsToAdd
    *          array for the annotations that should be created
    */
-  private void processConceptInstructions(Matcher matcher, AnnotationFS annot, String matchingText,
+  private void processConceptInstructions(MatchResult matcher, AnnotationFS annot, String matchingText,
       CAS aCAS, Concept concept, int ruleIndex, ArrayList<FeatureStructure> annotsToAdd)
       throws RegexAnnotatorProcessException {
 
@@ -718,8 +1246,8 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
               || type == Feature.STRING_FEATURE) {
             // we have no reference feature
             // replace match groups in the feature value
-            String featureValue = replaceMatchGroupValues(features[f].getValue(), matcher, concept
-                .getRules()[ruleIndex]);
+            String featureValue = getFeatureValue(features[f], matcher,
+                concept.getRules()[ruleIndex]);
 
             // do featureValue normalization
             try {
@@ -840,7 +1368,7 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
           || type == Feature.STRING_FEATURE) {
         // we have no reference feature
         // replace match groups in the feature value
-        String featureValue = replaceMatchGroupValues(updateFeatures[f].getValue(), matcher,
+        String featureValue = getFeatureValue(updateFeatures[f], matcher,
             concept.getRules()[ruleIndex]);
 
         // do featureValue normalization
@@ -888,92 +1416,24 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
   }
 
   /**
-   * replace the string containing match group syntax with the current match group values.
-   * 
-   * @param featureValue
-   *          string value that contains the match group syntax
+   * Returns the feature value with the current match group values.
    * 
+   * @param feature
+   *          feature whose value contains the match group syntax
    * @param matcher
-   *          regex matcher to match the match groups
+   *          current regex match
+   * @param rule
+   *          rule of the current match
    * 
-   * @return returns the replaced match group value content
+   * @return returns the feature value with the match group values
    */
-  private String replaceMatchGroupValues(String featureValue, Matcher matcher, Rule rule)
+  private String getFeatureValue(Feature feature, MatchResult matcher, Rule rule)
       throws RegexAnnotatorProcessException {
-    StringBuffer replaced = new StringBuffer();
-    int pos = 0;
-    int end = featureValue.length();
-    char c;
-    // Iterate over the input text to find the match groups that must be
-    // replaced.
-    // In the input text, all $ and \ characters must be escaped by \.
-    while (pos < end) {
-      c = featureValue.charAt(pos);
-      // Everything followed by a \ was escaped and the \ (escape character)
-      // can be removed now
-      if (c == '\\') {
-        // skip escape character
-        ++pos;
-
-        // add escaped character to the output
-        if (pos < end) {
-          replaced.append(featureValue.charAt(pos));
-          // go to the next character
-          ++pos;
-        }
-      } else if (c == '$') {
-        // this must be a match group $n since all other $ characters must
-        // be escaped with a \ which is handled above.
-        // skip $ character we are only interested in the match group number
-        // or name
-        // match group name syntax is ${match group name}
-        ++pos;
-        if (pos < end) {
-          // get next char to check if we have a match group number or a
-          // match group name
-          c = featureValue.charAt(pos);
-
-          int groupNumber = -1;
-          if (c == '{') {
-            // we have a match group name
-            // skip grace '{'
-            ++pos;
-            // get match group name
-            int matchNameEnd = featureValue.indexOf("}", pos);
-            if (matchNameEnd > -1) {
-              String matchGroupName = featureValue.substring(pos, matchNameEnd);
-              // get match group number for the given match group name
-              groupNumber = rule.getMatchGroupNumber(matchGroupName);
-              if (groupNumber == -1) {
-                throw new RegexAnnotatorProcessException(
-                    "regex_annotator_error_match_group_name_not_found", new Object[] {
-                        matchGroupName, rule.getId() });
-              }
-              // set pos to the end of the match group name syntax
-              pos = matchNameEnd + 1;
-            }
-          } else {
-            // we have a match group number
-            // convert match group number to integer value
-            groupNumber = c - '0';
-            // skip match group number
-            ++pos;
-          }
-
-          // get match group content
-          String groupMatch = matcher.group(groupNumber);
-          // add match group content to the output
-          if (groupMatch != null) {
-            replaced.append(groupMatch);
-          }
-        }
-      } else {
-        // default output character that is added to the output
-        replaced.append(c);
-        ++pos;
-      }
+    FeatureValueTemplate template = ((Rule_impl) rule).getFeatureValueTemplate(feature);
+    if (template == null) {
+      return null;
     }
-    return replaced.toString();
+    return template.getValue(matcher, this.featureValueBuffer);
   }
 
   /**
@@ -1019,4 +1479,30 @@ public class RegExAnnotator extends CasAnnotator_ImplBase {
       return this.stream;
     }
   }
+
+  /**
+   * Rule statistics of the annotator instances with the same qualified context name, rules and
+   * statistics file.
+   */
+  private static class SharedRuleStatistics {
+
+    private final String contextName;
+
+    private final RuleStatistics statistics;
+
+    // absolute path of the configured statistics file, null if there is none
+    private final File file;
+
+    // MBean name, null if the registration failed
+    private ObjectName name = null;
+
+    // number of annotator instances that record into the statistics
+    private int users = 0;
+
+    private SharedRuleStatistics(String contextName, RuleStatistics statistics, File file) {
+      this.contextName = contextName;
+      this.statistics = statistics;
+      this.file = file;
+    }
+  }
 }
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts the required literals of a regular expression. A text can only
+ * contain a match of the regular expression if it contains at least one of the
+ * required literals. For example the regular expression
+ * <code>(Mr|Mrs)\.\s+[A-Z]\w+</code> requires one of the literals "Mr" or
+ * "Mrs".
+ *
+ * The analysis is conservative: if a part of the regular expression is not
+ * understood, for example inline flags like <code>(?i)</code>, no literals are
+ * returned and the regular expression must always be evaluated.
+ */
+public class RegexLiteralExtractor {
+
+   // regular expression to analyze
+   private final String regex;
+
+   // current parse position
+   private int pos;
+
+   // true if the regular expression uses syntax that is not supported
+   private boolean unsupported;
+
+   /**
+    * Creates a new extractor for the given regular expression.
+    *
+    * @param regex
+    *           regular expression
+    */
+   private RegexLiteralExtractor(String regex) {
+      this.regex = regex;
+      this.pos = 0;
+      this.unsupported = false;
+   }
+
+   /**
+    * Returns the required literals of the given regular expression. The
+    * regular expression must be valid and compiled without flags.
+    *
+    * @param regex
+    *           regular expression
+    *
+    * @return returns the literals one of which is part of every match, or null
+    *         if no such literals are known
+    */
+   public static String[] getRequiredLiterals(String regex) {
+      RegexLiteralExtractor extractor = new RegexLiteralExtractor(regex);
+      List<String> literals = extractor.parseAlternation();
+      if (extractor.unsupported || extractor.pos != regex.length()
+            || literals == null) {
+         return null;
+      }
+      return literals.toArray(new String[literals.size()]);
+   }
+
+   /**
+    * Parses alternatives separated by '|'. Every alternative must have
+    * required literals, the result is the union of them.
+    */
+   private List<String> parseAlternation() {
+      List<String> result = parseSequence();
+      while (this.pos < this.regex.length()
+            && this.regex.charAt(this.pos) == '|') {
+         this.pos++;
+         List<String> alternative = parseSequence();
+         if (result == null || alternative == null) {
+            result = null;
+         } else {
+            result = new ArrayList<String>(result);
+            for (String literal : alternative) {
+               if (!result.contains(literal)) {
+                  result.add(literal);
+               }
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Parses a sequence of atoms up to the next '|' or ')' and returns the best
+    * required literals of the sequence.
+    */
+   private List<String> parseSequence() {
+      List<String> best = null;
+      StringBuilder run = new StringBuilder();
+      while (this.pos < this.regex.length() && !this.unsupported) {
+         char c = this.regex.charAt(this.pos);
+         if (c == '|' || c == ')') {
+            break;
+         }
+
+         // parse the next atom, it is either a literal character, a group or
+         // something else that ends the current literal run
+         int literal = -1;
+         List<String> groupLiterals = null;
+         if (c == '(') {
+            groupLiterals = parseGroup();
+         } else if (c == '[') {
+            skipCharClass();
+         } else if (c == '\\') {
+            this.pos++;
+            if (this.pos >= this.regex.length()) {
+               this.unsupported = true;
+               break;
+            }
+            char escaped = this.regex.charAt(this.pos);
+            if (escaped == 'Q') {
+               // quoted literal, a quantifier only applies to its last
+               // character
+               this.pos++;
+               int quoteEnd = this.regex.indexOf("\\E", this.pos);
+               if (quoteEnd < 0) {
+                  quoteEnd = this.regex.length();
+               }
+               String quoted = this.regex.substring(this.pos, quoteEnd);
+               this.pos = Math.min(quoteEnd + 2, this.regex.length());
+               if (quoted.length() == 0) {
+                  continue;
+               }
+               run.append(quoted.substring(0, quoted.length() - 1));
+               literal = quoted.charAt(quoted.length() - 1);
+            } else if (Character.isLetterOrDigit(escaped)) {
+               // character class, special character or back reference
+               skipEscapeSequence(escaped);
+            } else {
+               // escaped special character
+               literal = escaped;
+               this.pos++;
+            }
+         } else if (c == '.' || c == '^' || c == '$') {
+            this.pos++;
+         } else if (c == '*' || c == '+' || c == '?' || c == '{') {
+            // quantifier without atom
+            this.unsupported = true;
+            break;
+         } else {
+            literal = c;
+            this.pos++;
+         }
+
+         // parse the quantifier of the atom
+         boolean quantified = false;
+         int min = 1;
+         if (this.pos < this.regex.length()) {
+            char q = this.regex.charAt(this.pos);
+            if (q == '*' || q == '?') {
+               quantified = true;
+               min = 0;
+               this.pos++;
+            } else if (q == '+') {
+               quantified = true;
+               this.pos++;
+            } else if (q == '{') {
+               quantified = true;
+               min = parseRepetition();
+            }
+            // skip reluctant or possessive quantifier suffix
+            if (quantified && this.pos < this.regex.length()
+                  && (this.regex.charAt(this.pos) == '?' || this.regex
+                        .charAt(this.pos) == '+')) {
+               this.pos++;
+            }
+         }
+
+         if (literal >= 0) {
+            if (!quantified) {
+               run.append((char) literal);
+            } else {
+               // a repeated character ends the run, an optional character is
+               // not part of it. The last repetition of a required character
+               // also starts the next run.
+               if (min >= 1) {
+                  run.append((char) literal);
+               }
+               best = better(best, run);
+               run.setLength(0);
+               if (min >= 1) {
+                  run.append((char) literal);
+               }
+            }
+         } else {
+            best = better(best, run);
+            run.setLength(0);
+            if (groupLiterals != null && min >= 1) {
+               best = better(best, groupLiterals);
+            }
+         }
+      }
+      return better(best, run);
+   }
+
+   /**
+    * Parses a group and returns its required literals, lookaround groups
+    * return null.
+    */
+   private List<String> parseGroup() {
+      // skip '('
+      this.pos++;
+      boolean lookaround = false;
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '?') {
+         this.pos++;
+         char kind = (this.pos < this.regex.length()) ? this.regex
+               .charAt(this.pos) : 0;
+         if (kind == ':' || kind == '>') {
+            this.pos++;
+         } else if (kind == '=' || kind == '!') {
+            lookaround = true;
+            this.pos++;
+         } else if (kind == '<' && this.pos + 1 < this.regex.length()
+               && (this.regex.charAt(this.pos + 1) == '=' || this.regex
+                     .charAt(this.pos + 1) == '!')) {
+            lookaround = true;
+            this.pos += 2;
+         } else if (kind == '<') {
+            // named group
+            int nameEnd = this.regex.indexOf('>', this.pos);
+            if (nameEnd < 0) {
+               this.unsupported = true;
+               return null;
+            }
+            this.pos = nameEnd + 1;
+         } else {
+            // inline flags change the matching, e.g. case insensitive
+            this.unsupported = true;
+            return null;
+         }
+      }
+      List<String> literals = parseAlternation();
+      if (this.pos >= this.regex.length() || this.regex.charAt(this.pos) != ')') {
+         this.unsupported = true;
+         return null;
+      }
+      // skip ')'
+      this.pos++;
+      return lookaround ? null : literals;
+   }
+
+   /**
+    * Skips a character class, including nested classes.
+    */
+   private void skipCharClass() {
+      // skip '[' and negation
+      this.pos++;
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == '^') {
+         this.pos++;
+      }
+      // a ']' at the start of a class is a literal member
+      if (this.pos < this.regex.length() && this.regex.charAt(this.pos) == ']') {
+         this.pos++;
+      }
+      while (this.pos < this.regex.length()) {
+         char c = this.regex.charAt(this.pos);
+         if (c == '\\') {
+            if (this.pos + 1 < this.regex.length()
+                  && this.regex.charAt(this.pos + 1) == 'Q') {
+               int quoteEnd = this.regex.indexOf("\\E", this.pos + 2);
+               this.pos = (quoteEnd < 0) ? this.regex.length() : quoteEnd + 2;
+            } else {
+               this.pos += 2;
+            }
+         } else if (c == '[') {
+            skipCharClass();
+         } else if (c == ']') {
+            this.pos++;
+            return;
+         } else {
+            this.pos++;
+         }
+      }
+      this.unsupported = true;
+   }
+
+   /**
+    * Skips an escape sequence that starts with the given letter or digit. The
+    * current position is at the escaped character.
+    */
+   private void skipEscapeSequence(char escaped) {
+      this.pos++;
+      int length = this.regex.length();
+      if (escaped == 'p' || escaped == 'P' || escaped == 'x' || escaped == 'N') {
+         if (this.pos < length && this.regex.charAt(this.pos) == '{') {
+            int end = this.regex.indexOf('}', this.pos);
+            this.pos = (end < 0) ? length : end + 1;
+         } else if (escaped == 'x') {
+            this.pos = Math.min(this.pos + 2, length);
+         } else {
+            this.pos = Math.min(this.pos + 1, length);
+         }
+      } else if (escaped == 'u') {
+         this.pos = Math.min(this.pos + 4, length);
+      } else if (escaped == 'c') {
+         this.pos = Math.min(this.pos + 1, length);
+      } else if (escaped == 'k') {
+         int end = this.regex.indexOf('>', this.pos);
+         this.pos = (end < 0) ? length : end + 1;
+      } else if (escaped == '0') {
+         // octal escape \0n, \0nn or \0mnn with m <= 3
+         if (this.pos < length && isOctal(this.regex.charAt(this.pos))) {
+            char first = this.regex.charAt(this.pos);
+            this.pos++;
+            if (this.pos < length && isOctal(this.regex.charAt(this.pos))) {
+               this.pos++;
+               if (first <= '3' && this.pos < length
+                     && isOctal(this.regex.charAt(this.pos))) {
+                  this.pos++;
+               }
+            }
+         }
+      } else if (escaped >= '1' && escaped <= '9') {
+         // back reference, skip all following digits
+         while (this.pos < length && Character.isDigit(this.regex.charAt(this.pos))) {
+            this.pos++;
+         }
+      }
+   }
+
+   /**
+    * Parses a {n}, {n,} or {n,m} repetition and returns n.
+    */
+   private int parseRepetition() {
+      int end = this.regex.indexOf('}', this.pos);
+      if (end < 0) {
+         this.unsupported = true;
+         return 0;
+      }
+      String repetition = this.regex.substring(this.pos + 1, end);
+      this.pos = end + 1;
+      int comma = repetition.indexOf(',');
+      String min = (comma < 0) ? repetition : repetition.substring(0, comma);
+      try {
+         return Integer.parseInt(min.trim());
+      } catch (NumberFormatException ex) {
+         this.unsupported = true;
+         return 0;
+      }
+   }
+
+   /**
+    * Returns the better of the given required literals. Literals are better if
+    * their shortest literal is longer, so that they are more selective.
+    */
+   private static List<String> better(List<String> best, List<String> candidate) {
+      int candidateLength = minLength(candidate);
+      if (candidateLength == 0) {
+         return best;
+      }
+      if (best == null || candidateLength > minLength(best)) {
+         return candidate;
+      }
+      return best;
+   }
+
+   /**
+    * Returns the better of the given required literals and the given literal
+    * run.
+    */
+   private static List<String> better(List<String> best, StringBuilder run) {
+      if (run.length() == 0 || (best != null && run.length() <= minLength(best))) {
+         return best;
+      }
+      List<String> literals = new ArrayList<String>(1);
+      literals.add(run.toString());
+      return literals;
+   }
+
+   /**
+    * Returns the length of the shortest literal, 0 if there are no literals.
+    */
+   private static int minLength(List<String> literals) {
+      if (literals == null || literals.size() == 0) {
+         return 0;
+      }
+      int min = Integer.MAX_VALUE;
+      for (String literal : literals) {
+         min = Math.min(min, literal.length());
+      }
+      return min;
+   }
+
+   private static boolean isOctal(char c) {
+      return c >= '0' && c <= '7';
+   }
+}
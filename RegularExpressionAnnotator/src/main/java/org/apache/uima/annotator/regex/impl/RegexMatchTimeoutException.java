@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+/**
+ * Thrown if a regex match exceeds the match time budget of the annotator.
+ */
+public class RegexMatchTimeoutException extends RuntimeException {
+
+   private static final long serialVersionUID = 1L;
+
+   /**
+    * Creates a new exception for the given time budget.
+    * 
+    * @param timeBudgetNanos
+    *           time budget of a match in nanoseconds
+    */
+   public RegexMatchTimeoutException(long timeBudgetNanos) {
+      super("regex match exceeded the time budget of "
+            + (timeBudgetNanos / 1000000L) + " ms");
+   }
+}
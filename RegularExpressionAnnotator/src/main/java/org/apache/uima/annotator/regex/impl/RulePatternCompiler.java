@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.regex.Pattern;
+
+import org.apache.uima.annotator.regex.RulePattern;
+import org.apache.uima.util.Level;
+import org.apache.uima.util.Logger;
+
+/**
+ * Creates the rule patterns for the configured regex engine. With the linear
+ * engine, rules whose regular expression is not supported by the
+ * LinearRegexCompiler fall back to java.util.regex, these rules are counted
+ * and logged.
+ */
+public class RulePatternCompiler {
+
+   public static final String JAVA_ENGINE = "java";
+
+   public static final String LINEAR_ENGINE = "linear";
+
+   // regex engine of rules that do not specify an engine
+   private final String defaultEngine;
+
+   // time budget of a java.util.regex match in nanoseconds, 0 for no budget
+   private final long timeBudgetNanos;
+
+   // logger for the fallback rules, can be null
+   private final Logger logger;
+
+   // number of rules matched with the linear engine
+   private int linearRuleCount;
+
+   // number of rules that fell back to java.util.regex
+   private int fallbackRuleCount;
+
+   /**
+    * Creates a new compiler.
+    * 
+    * @param defaultEngine
+    *           regex engine of rules that do not specify an engine
+    * @param timeBudgetNanos
+    *           time budget of a java.util.regex match in nanoseconds, 0 for
+    *           no budget
+    * @param logger
+    *           logger for the fallback rules, can be null
+    */
+   public RulePatternCompiler(String defaultEngine, long timeBudgetNanos,
+         Logger logger) {
+      this.defaultEngine = defaultEngine;
+      this.timeBudgetNanos = timeBudgetNanos;
+      this.logger = logger;
+      this.linearRuleCount = 0;
+      this.fallbackRuleCount = 0;
+   }
+
+   /**
+    * Checks if the given name is a supported regex engine.
+    * 
+    * @param engine
+    *           regex engine name
+    * 
+    * @return returns true if the engine is supported
+    */
+   public static boolean isEngine(String engine) {
+      return JAVA_ENGINE.equals(engine) || LINEAR_ENGINE.equals(engine);
+   }
+
+   /**
+    * Creates the rule pattern for the given regular expression.
+    * 
+    * @param pattern
+    *           compiled java pattern of the rule
+    * @param engine
+    *           regex engine of the rule, null for the default engine
+    * @param ruleId
+    *           rule ID used for the log messages
+    * 
+    * @return returns the rule pattern
+    */
+   public RulePattern compile(Pattern pattern, String engine, String ruleId) {
+      RulePattern javaPattern = new JavaRulePattern(pattern,
+            this.timeBudgetNanos);
+      if (!LINEAR_ENGINE.equals((engine == null) ? this.defaultEngine : engine)) {
+         return javaPattern;
+      }
+      LinearRegexCompiler compiler = new LinearRegexCompiler(pattern.pattern());
+      RulePattern linearPattern = compiler.compile(pattern);
+      if (linearPattern == null) {
+         this.fallbackRuleCount++;
+         if (this.logger != null) {
+            this.logger.logrb(Level.CONFIG, "RegExAnnotator", "initialize",
+                  RegExAnnotator.MESSAGE_DIGEST,
+                  "regex_annotator_regex_engine_fallback", new Object[] {
+                        ruleId, pattern.pattern(),
+                        compiler.getUnsupportedFeature() });
+         }
+         return javaPattern;
+      }
+      this.linearRuleCount++;
+      return linearPattern;
+   }
+
+   /**
+    * Returns the number of rules that are matched with the linear engine.
+    * 
+    * @return returns the number of linear engine rules
+    */
+   public int getLinearRuleCount() {
+      return this.linearRuleCount;
+   }
+
+   /**
+    * Returns the number of rules that should be matched with the linear
+    * engine, but fell back to java.util.regex.
+    * 
+    * @return returns the number of fallback rules
+    */
+   public int getFallbackRuleCount() {
+      return this.fallbackRuleCount;
+   }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Selects the rules that can match a text. Each rule is identified by its rule
+ * number and has the required literals of its regular expression, a rule can
+ * only match a text that contains one of them. All literals are searched with
+ * a single Aho-Corasick scan of the text. Rules without required literals are
+ * always selected.
+ */
+public class RulePrefilter {
+
+   // direct transition table size for the root node
+   private static final int ROOT_TABLE_SIZE = 256;
+
+   // rules that have no required literals
+   private final BitSet alwaysSelected;
+
+   // number of rules that have required literals
+   private final int prefilteredRuleCount;
+
+   // sorted transition characters of each node
+   private char[][] transitionChars;
+
+   // transition target nodes of each node, parallel to transitionChars
+   private int[][] transitionNodes;
+
+   // transitions of the root node for characters below ROOT_TABLE_SIZE
+   private int[] rootTransitions;
+
+   // failure link of each node
+   private int[] failure;
+
+   // rule numbers of the literals that end at each node, null if none
+   private int[][] nodeRules;
+
+   // next node on the failure path that has rule numbers, 0 if none
+   private int[] outputLink;
+
+   /**
+    * Creates a new prefilter for the given rules.
+    *
+    * @param ruleLiterals
+    *           required literals for each rule number, null if a rule has no
+    *           required literals
+    */
+   public RulePrefilter(String[][] ruleLiterals) {
+      this.alwaysSelected = new BitSet(ruleLiterals.length);
+
+      // build the literal trie
+      ArrayList<TreeMap<Character, Integer>> trie = new ArrayList<TreeMap<Character, Integer>>();
+      ArrayList<ArrayList<Integer>> rules = new ArrayList<ArrayList<Integer>>();
+      trie.add(new TreeMap<Character, Integer>());
+      rules.add(null);
+      int prefiltered = 0;
+      for (int r = 0; r < ruleLiterals.length; r++) {
+         if (ruleLiterals[r] == null || ruleLiterals[r].length == 0) {
+            this.alwaysSelected.set(r);
+            continue;
+         }
+         prefiltered++;
+         for (int l = 0; l < ruleLiterals[r].length; l++) {
+            String literal = ruleLiterals[r][l];
+            int node = 0;
+            for (int i = 0; i < literal.length(); i++) {
+               Character c = Character.valueOf(literal.charAt(i));
+               Integer next = trie.get(node).get(c);
+               if (next == null) {
+                  next = Integer.valueOf(trie.size());
+                  trie.add(new TreeMap<Character, Integer>());
+                  rules.add(null);
+                  trie.get(node).put(c, next);
+               }
+               node = next.intValue();
+            }
+            if (rules.get(node) == null) {
+               rules.set(node, new ArrayList<Integer>());
+            }
+            rules.get(node).add(Integer.valueOf(r));
+         }
+      }
+      this.prefilteredRuleCount = prefiltered;
+
+      // convert the trie to arrays
+      int nodeCount = trie.size();
+      this.transitionChars = new char[nodeCount][];
+      this.transitionNodes = new int[nodeCount][];
+      this.nodeRules = new int[nodeCount][];
+      for (int n = 0; n < nodeCount; n++) {
+         TreeMap<Character, Integer> transitions = trie.get(n);
+         this.transitionChars[n] = new char[transitions.size()];
+         this.transitionNodes[n] = new int[transitions.size()];
+         int i = 0;
+         for (Map.Entry<Character, Integer> entry : transitions.entrySet()) {
+            this.transitionChars[n][i] = entry.getKey().charValue();
+            this.transitionNodes[n][i] = entry.getValue().intValue();
+            i++;
+         }
+         ArrayList<Integer> nodeRuleList = rules.get(n);
+         if (nodeRuleList != null) {
+            this.nodeRules[n] = new int[nodeRuleList.size()];
+            for (int j = 0; j < this.nodeRules[n].length; j++) {
+               this.nodeRules[n][j] = nodeRuleList.get(j).intValue();
+            }
+         }
+      }
+      this.rootTransitions = new int[ROOT_TABLE_SIZE];
+      for (int i = 0; i < this.transitionChars[0].length; i++) {
+         if (this.transitionChars[0][i] < ROOT_TABLE_SIZE) {
+            this.rootTransitions[this.transitionChars[0][i]] = this.transitionNodes[0][i];
+         }
+      }
+
+      // compute the failure and output links breadth first
+      this.failure = new int[nodeCount];
+      this.outputLink = new int[nodeCount];
+      LinkedList<Integer> queue = new LinkedList<Integer>();
+      for (int i = 0; i < this.transitionNodes[0].length; i++) {
+         queue.add(Integer.valueOf(this.transitionNodes[0][i]));
+      }
+      while (!queue.isEmpty()) {
+         int node = queue.removeFirst().intValue();
+         for (int i = 0; i < this.transitionChars[node].length; i++) {
+            char c = this.transitionChars[node][i];
+            int child = this.transitionNodes[node][i];
+            int fail = this.failure[node];
+            int target = transition(fail, c);
+            while (target < 0 && fail != 0) {
+               fail = this.failure[fail];
+               target = transition(fail, c);
+            }
+            this.failure[child] = (target < 0) ? 0 : target;
+            int link = this.failure[child];
+            this.outputLink[child] = (this.nodeRules[link] != null) ? link
+                  : this.outputLink[link];
+            queue.add(Integer.valueOf(child));
+         }
+      }
+   }
+
+   /**
+    * Returns the number of rules that have required literals.
+    *
+    * @return number of prefiltered rules
+    */
+   public int getPrefilteredRuleCount() {
+      return this.prefilteredRuleCount;
+   }
+
+   /**
+    * Returns the rule numbers of the rules that can match the given text.
+    *
+    * @param text
+    *           text to scan
+    *
+    * @return returns the selected rule numbers
+    */
+   public BitSet getCandidateRules(String text) {
+      BitSet candidates = (BitSet) this.alwaysSelected.clone();
+      if (this.prefilteredRuleCount == 0) {
+         return candidates;
+      }
+      int node = 0;
+      int length = text.length();
+      for (int i = 0; i < length; i++) {
+         char c = text.charAt(i);
+         int next = transition(node, c);
+         while (next < 0 && node != 0) {
+            node = this.failure[node];
+            next = transition(node, c);
+         }
+         node = (next < 0) ? 0 : next;
+
+         // collect the rules of all literals that end here
+         int output = (this.nodeRules[node] != null) ? node : this.outputLink[node];
+         while (output != 0) {
+            int[] outputRules = this.nodeRules[output];
+            for (int r = 0; r < outputRules.length; r++) {
+               candidates.set(outputRules[r]);
+            }
+            output = this.outputLink[output];
+         }
+      }
+      return candidates;
+   }
+
+   /**
+    * Returns the transition of the given node for the given character, or -1
+    * if there is none.
+    */
+   private int transition(int node, char c) {
+      if (node == 0 && c < ROOT_TABLE_SIZE) {
+         int target = this.rootTransitions[c];
+         return (target == 0) ? -1 : target;
+      }
+      char[] chars = this.transitionChars[node];
+      int low = 0;
+      int high = chars.length - 1;
+      while (low <= high) {
+         int mid = (low + high) >>> 1;
+         if (chars[mid] < c) {
+            low = mid + 1;
+         } else if (chars[mid] > c) {
+            high = mid - 1;
+         } else {
+            return this.transitionNodes[node][mid];
+         }
+      }
+      return -1;
+   }
+
+}
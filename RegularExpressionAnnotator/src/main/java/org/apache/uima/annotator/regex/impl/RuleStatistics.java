@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.uima.annotator.regex.Concept;
+import org.apache.uima.annotator.regex.Rule;
+
+/**
+ * Match statistics of the rules of all concepts. For each rule the number of
+ * tested match type annotations, the annotations rejected by the filter
+ * features and by the rule prefilter, the matches, the matches rejected by
+ * rule exceptions and the time spent in the match methods are recorded.
+ *
+ * The rules are numbered in concept order like the global rule numbers of
+ * the annotator. The statistics can be updated by several threads.
+ */
+public class RuleStatistics implements RuleStatisticsMBean {
+
+   // counter offsets of a rule
+   private static final int TESTED = 0;
+
+   private static final int FILTERED = 1;
+
+   private static final int PREFILTERED = 2;
+
+   private static final int MATCHES = 3;
+
+   private static final int EXCEPTION_HITS = 4;
+
+   private static final int MATCH_NANOS = 5;
+
+   private static final int COUNTERS = 6;
+
+   private static final String COUNTER_HEADER = "tested,filtered,prefiltered,matches,exceptionHits,matchTimeNanos";
+
+   // concept names
+   private final String[] conceptNames;
+
+   // concept index of each rule
+   private final int[] ruleConcepts;
+
+   // rule IDs
+   private final String[] ruleIds;
+
+   // counters of all rules
+   private final AtomicLongArray counters;
+
+   /**
+    * Creates new empty statistics for the rules of the given concepts.
+    *
+    * @param concepts
+    *           concepts of the annotator
+    */
+   public RuleStatistics(Concept[] concepts) {
+      int ruleCount = 0;
+      for (int i = 0; i < concepts.length; i++) {
+         ruleCount += concepts[i].getRules().length;
+      }
+      this.conceptNames = new String[concepts.length];
+      this.ruleConcepts = new int[ruleCount];
+      this.ruleIds = new String[ruleCount];
+      int ruleNumber = 0;
+      for (int i = 0; i < concepts.length; i++) {
+         this.conceptNames[i] = concepts[i].getName();
+         Rule[] rules = concepts[i].getRules();
+         for (int r = 0; r < rules.length; r++) {
+            this.ruleConcepts[ruleNumber] = i;
+            this.ruleIds[ruleNumber] = rules[r].getId();
+            ruleNumber++;
+         }
+      }
+      this.counters = new AtomicLongArray(ruleCount * COUNTERS);
+   }
+
+   /**
+    * Adds the results of a rule evaluation to the statistics of the rule.
+    *
+    * @param ruleNumber
+    *           global rule number
+    * @param tested
+    *           number of tested match type annotations
+    * @param filtered
+    *           number of annotations rejected by the filter features
+    * @param prefiltered
+    *           number of annotations rejected by the rule prefilter
+    * @param matches
+    *           number of matches
+    * @param exceptionHits
+    *           number of matches rejected by rule exceptions
+    * @param matchNanos
+    *           time spent in the match methods in nanoseconds
+    */
+   public void add(int ruleNumber, long tested, long filtered,
+         long prefiltered, long matches, long exceptionHits, long matchNanos) {
+      int offset = ruleNumber * COUNTERS;
+      addCounter(offset + TESTED, tested);
+      addCounter(offset + FILTERED, filtered);
+      addCounter(offset + PREFILTERED, prefiltered);
+      addCounter(offset + MATCHES, matches);
+      addCounter(offset + EXCEPTION_HITS, exceptionHits);
+      addCounter(offset + MATCH_NANOS, matchNanos);
+   }
+
+   private void addCounter(int index, long value) {
+      if (value != 0) {
+         this.counters.addAndGet(index, value);
+      }
+   }
+
+   /**
+    * Returns true if the given statistics are recorded for the same concepts
+    * and rules, so that both can be recorded in the same statistics.
+    *
+    * @param other
+    *           statistics to compare with
+    *
+    * @return returns true if the concept names and rule IDs are the same
+    */
+   public boolean hasSameRules(RuleStatistics other) {
+      return Arrays.equals(this.conceptNames, other.conceptNames)
+            && Arrays.equals(this.ruleConcepts, other.ruleConcepts)
+            && Arrays.equals(this.ruleIds, other.ruleIds);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.impl.RuleStatisticsMBean#getRuleCount()
+    */
+   public int getRuleCount() {
+      return this.ruleIds.length;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.impl.RuleStatisticsMBean#getTotalMatchTimeMillis()
+    */
+   public long getTotalMatchTimeMillis() {
+      long nanos = 0;
+      for (int r = 0; r < this.ruleIds.length; r++) {
+         nanos += this.counters.get(r * COUNTERS + MATCH_NANOS);
+      }
+      return nanos / 1000000L;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.impl.RuleStatisticsMBean#getRuleStatistics()
+    */
+   public String[] getRuleStatistics() {
+      String[] lines = new String[this.ruleIds.length + 1];
+      lines[0] = "concept,rule," + COUNTER_HEADER;
+      long[] values = new long[COUNTERS];
+      for (int r = 0; r < this.ruleIds.length; r++) {
+         for (int c = 0; c < COUNTERS; c++) {
+            values[c] = this.counters.get(r * COUNTERS + c);
+         }
+         StringBuilder line = new StringBuilder();
+         appendField(line, this.conceptNames[this.ruleConcepts[r]]);
+         line.append(',');
+         appendField(line, this.ruleIds[r]);
+         appendCounters(line, values);
+         lines[r + 1] = line.toString();
+      }
+      return lines;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.impl.RuleStatisticsMBean#getConceptStatistics()
+    */
+   public String[] getConceptStatistics() {
+      long[][] values = new long[this.conceptNames.length][COUNTERS];
+      for (int r = 0; r < this.ruleIds.length; r++) {
+         for (int c = 0; c < COUNTERS; c++) {
+            values[this.ruleConcepts[r]][c] += this.counters.get(r * COUNTERS
+                  + c);
+         }
+      }
+      String[] lines = new String[this.conceptNames.length + 1];
+      lines[0] = "concept," + COUNTER_HEADER;
+      for (int i = 0; i < this.conceptNames.length; i++) {
+         StringBuilder line = new StringBuilder();
+         appendField(line, this.conceptNames[i]);
+         appendCounters(line, values[i]);
+         lines[i + 1] = line.toString();
+      }
+      return lines;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.impl.RuleStatisticsMBean#reset()
+    */
+   public void reset() {
+      for (int i = 0; i < this.counters.length(); i++) {
+         this.counters.set(i, 0);
+      }
+   }
+
+   /**
+    * Writes the rule statistics as CSV.
+    *
+    * @param writer
+    *           writer for the CSV output
+    *
+    * @throws IOException
+    */
+   public void writeCsv(Writer writer) throws IOException {
+      String[] lines = getRuleStatistics();
+      for (int i = 0; i < lines.length; i++) {
+         writer.write(lines[i]);
+         writer.write("\n");
+      }
+      writer.flush();
+   }
+
+   private static void appendCounters(StringBuilder line, long[] values) {
+      for (int c = 0; c < COUNTERS; c++) {
+         line.append(',');
+         line.append(values[c]);
+      }
+   }
+
+   /**
+    * Appends a CSV field, fields with separators or quotes are quoted.
+    */
+   private static void appendField(StringBuilder line, String value) {
+      if (value == null) {
+         return;
+      }
+      if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+            && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+         line.append(value);
+         return;
+      }
+      line.append('"');
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '"') {
+            line.append('"');
+         }
+         line.append(c);
+      }
+      line.append('"');
+   }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+/**
+ * Management interface of the rule statistics. The statistics are registered
+ * as MBean if the rule statistics are enabled.
+ */
+public interface RuleStatisticsMBean {
+
+   /**
+    * Returns the number of rules.
+    *
+    * @return returns the number of rules of all concepts
+    */
+   public int getRuleCount();
+
+   /**
+    * Returns the cumulative time spent in the match methods of all rules.
+    *
+    * @return returns the time in milliseconds
+    */
+   public long getTotalMatchTimeMillis();
+
+   /**
+    * Returns the statistics of each rule as CSV lines. The first line is the
+    * header line.
+    *
+    * @return returns the rule statistics
+    */
+   public String[] getRuleStatistics();
+
+   /**
+    * Returns the statistics of each concept as CSV lines, the values of the
+    * concept rules are added up. The first line is the header line.
+    *
+    * @return returns the concept statistics
+    */
+   public String[] getConceptStatistics();
+
+   /**
+    * Resets all statistics to zero.
+    */
+   public void reset();
+}
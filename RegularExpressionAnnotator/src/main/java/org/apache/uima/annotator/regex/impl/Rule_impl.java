@@ -21,15 +21,18 @@ package org.apache.uima.annotator.regex.impl;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.uima.annotator.regex.Annotation;
 import org.apache.uima.annotator.regex.Feature;
 import org.apache.uima.annotator.regex.FeaturePath;
 import org.apache.uima.annotator.regex.FilterFeature;
 import org.apache.uima.annotator.regex.RegexVariables;
 import org.apache.uima.annotator.regex.Rule;
 import org.apache.uima.annotator.regex.RuleException;
+import org.apache.uima.annotator.regex.RulePattern;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -63,6 +66,18 @@ public class Rule_impl implements Rule {
    // compiled rule regex pattern
    private Pattern pattern;
 
+   // regex engine of the rule, null for the default engine
+   private final String regexEngine;
+
+   // rule pattern of the regex engine
+   private RulePattern rulePattern;
+
+   // required literals of the regex pattern, null if unknown
+   private String[] requiredLiterals;
+
+   // compiled feature values of the concept annotations and update features
+   private IdentityHashMap<Feature, FeatureValueTemplate> featureValueTemplates;
+
    // resolved rule match type
    private Type matchType;
 
@@ -99,13 +114,41 @@ public class Rule_impl implements Rule {
    public Rule_impl(String regex, int matchStrategy, String matchType,
          String id, float confidence, String featurePath,
          RegexVariables variables) {
+      this(regex, matchStrategy, matchType, id, confidence, featurePath,
+            variables, null);
+   }
+
+   /**
+    * Constructor to create a new Rule object that is matched with the given
+    * regex engine.
+    * 
+    * @param regex
+    *           regex pattern as String
+    * @param matchStrategy
+    *           matching strategy
+    * @param matchType
+    *           match type as String
+    * @param id
+    *           rule id (can also be null)
+    * @param confidence
+    *           confidence value
+    * @param featurePath
+    *           featurePath (can also be null)
+    * @param regexEngine
+    *           regex engine (null for the default engine)
+    */
+   public Rule_impl(String regex, int matchStrategy, String matchType,
+         String id, float confidence, String featurePath,
+         RegexVariables variables, String regexEngine) {
       this.regex = regex;
+      this.regexEngine = regexEngine;
       this.matchStrategy = matchStrategy;
       this.matchTypeStr = matchType;
       this.filterFeatures = new ArrayList<FilterFeature>();
       this.updateFeatures = new ArrayList<Feature>();
       this.exceptions = new ArrayList<RuleException>();
       this.pattern = null;
+      this.rulePattern = null;
       this.id = id;
       this.confidence = confidence;
       this.featurePath = new FeaturePath_impl(featurePath);
@@ -158,8 +201,18 @@ public class Rule_impl implements Rule {
     * 
     * @see org.apache.uima.annotator.regex.Rule#getRegex()
     */
-   public Pattern getRegexPattern() {
-      return this.pattern;
+   public RulePattern getRegexPattern() {
+      return this.rulePattern;
+   }
+
+   /**
+    * Returns the literals of which at least one is contained in every match of
+    * the rule regex pattern.
+    * 
+    * @return returns the required literals, or null if they are unknown
+    */
+   public String[] getRequiredLiterals() {
+      return this.requiredLiterals;
    }
 
    /*
@@ -275,9 +328,17 @@ public class Rule_impl implements Rule {
    }
 
    /**
+    * @param annotations
+    *           annotations of the concept, their feature values are compiled
+    *           for this rule
+    * @param patternCompiler
+    *           compiler that creates the rule pattern for the regex engine
+    * 
     * @throws RegexAnnotatorConfigException
     */
-   public void initialize() throws RegexAnnotatorConfigException {
+   public void initialize(Annotation[] annotations,
+         RulePatternCompiler patternCompiler)
+         throws RegexAnnotatorConfigException {
       // check if regular expression contains a regex variable, it must be
       // replaced first
       if (this.regex.indexOf(RegexVariables.VARIABLE_START) > -1) {
@@ -292,6 +353,13 @@ public class Rule_impl implements Rule {
 
       // compile regex
       this.pattern = Pattern.compile(this.regex);
+      this.rulePattern = patternCompiler.compile(this.pattern,
+            this.regexEngine, this.id);
+
+      // extract the literals a match must contain, used to skip the rule
+      // for texts that cannot match
+      this.requiredLiterals = RegexLiteralExtractor
+            .getRequiredLiterals(this.regex);
 
       // initialize match type filters
       FilterFeature[] filterFeats = getMatchTypeFilterFeatures();
@@ -305,6 +373,13 @@ public class Rule_impl implements Rule {
          ((Feature_impl) updateFeats[i]).initialize();
       }
 
+      // compile the feature values that can contain match group references
+      this.featureValueTemplates = new IdentityHashMap<Feature, FeatureValueTemplate>();
+      for (int a = 0; a < annotations.length; a++) {
+         addFeatureValueTemplates(annotations[a].getFeatures());
+      }
+      addFeatureValueTemplates(updateFeats);
+
       // initialize rule exceptions
       RuleException[] ruleExceptions = getExceptions();
       for (int i = 0; i < ruleExceptions.length; i++) {
@@ -312,6 +387,32 @@ public class Rule_impl implements Rule {
       }
    }
 
+   /**
+    * Returns the compiled feature value of the given feature for this rule.
+    * 
+    * @param feature
+    *           a String, Integer or Float feature of the concept annotations or
+    *           a match type update feature of this rule
+    * 
+    * @return returns the compiled feature value, or null if the feature has
+    *         no value
+    */
+   public FeatureValueTemplate getFeatureValueTemplate(Feature feature) {
+      return this.featureValueTemplates.get(feature);
+   }
+
+   private void addFeatureValueTemplates(Feature[] features) {
+      for (int f = 0; f < features.length; f++) {
+         int type = features[f].getType();
+         if ((type == Feature.FLOAT_FEATURE
+               || type == Feature.INTEGER_FEATURE || type == Feature.STRING_FEATURE)
+               && features[f].getValue() != null) {
+            this.featureValueTemplates.put(features[f], FeatureValueTemplate
+                  .compile(features[f].getValue(), this));
+         }
+      }
+   }
+
    /*
     * (non-Javadoc)
     * 
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex.impl;
+
+import org.apache.uima.annotator.regex.RuleMatcher;
+
+/**
+ * Rule matcher that measures the time spent in the match methods of another
+ * rule matcher and counts the successful matches. It is used to record the
+ * rule statistics, the same instance is reused for all matchers of a rule.
+ */
+public class TimedRuleMatcher implements RuleMatcher {
+
+   // current matcher
+   private RuleMatcher matcher;
+
+   // cumulative time of the match methods
+   private long matchNanos;
+
+   // number of successful matches
+   private long matchCount;
+
+   /**
+    * Creates a new timed matcher without a current matcher.
+    */
+   public TimedRuleMatcher() {
+      this.matcher = null;
+      this.matchNanos = 0;
+      this.matchCount = 0;
+   }
+
+   /**
+    * Sets the matcher that is measured by the following calls.
+    *
+    * @param matcher
+    *           matcher to measure
+    */
+   public void setMatcher(RuleMatcher matcher) {
+      this.matcher = matcher;
+   }
+
+   /**
+    * Returns the cumulative time spent in the match methods.
+    *
+    * @return returns the time in nanoseconds
+    */
+   public long getMatchNanos() {
+      return this.matchNanos;
+   }
+
+   /**
+    * Returns the number of successful matches.
+    *
+    * @return returns the match count
+    */
+   public long getMatchCount() {
+      return this.matchCount;
+   }
+
+   /**
+    * Resets the time and the match count.
+    */
+   public void reset() {
+      this.matchNanos = 0;
+      this.matchCount = 0;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.RuleMatcher#find(int)
+    */
+   public boolean find(int from) {
+      long start = System.nanoTime();
+      try {
+         return count(this.matcher.find(from));
+      } finally {
+         this.matchNanos += System.nanoTime() - start;
+      }
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see org.apache.uima.annotator.regex.RuleMatcher#matches()
+    */
+   public boolean matches() {
+      long start = System.nanoTime();
+      try {
+         return count(this.matcher.matches());
+      } finally {
+         this.matchNanos += System.nanoTime() - start;
+      }
+   }
+
+   private boolean count(boolean found) {
+      if (found) {
+         this.matchCount++;
+      }
+      return found;
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#start()
+    */
+   public int start() {
+      return this.matcher.start();
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#start(int)
+    */
+   public int start(int group) {
+      return this.matcher.start(group);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#end()
+    */
+   public int end() {
+      return this.matcher.end();
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#end(int)
+    */
+   public int end(int group) {
+      return this.matcher.end(group);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#group()
+    */
+   public String group() {
+      return this.matcher.group();
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#group(int)
+    */
+   public String group(int group) {
+      return this.matcher.group(group);
+   }
+
+   /*
+    * (non-Javadoc)
+    *
+    * @see java.util.regex.MatchResult#groupCount()
+    */
+   public int groupCount() {
+      return this.matcher.groupCount();
+   }
+}
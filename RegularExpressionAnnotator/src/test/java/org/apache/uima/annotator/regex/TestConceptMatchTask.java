@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.ArrayList;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.annotator.regex.impl.ConceptMatchTask;
+import org.apache.uima.annotator.regex.impl.MatchTypeSnapshot;
+import org.apache.uima.annotator.regex.impl.RecordedMatch;
+import org.apache.uima.annotator.regex.impl.RulePatternCompiler;
+import org.apache.uima.annotator.regex.impl.RulePrefilter;
+import org.apache.uima.annotator.regex.impl.Rule_impl;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.util.CasCreationUtils;
+
+/**
+ * Tests the combined rule matching on a match type snapshot.
+ */
+public class TestConceptMatchTask extends TestCase {
+
+  private static final String TEXT = "john@example.com and jane@test.com, call 555 1234 "
+      + "or 0800; xxa bab; plain words";
+
+  private static final String[] REGEXES = { "(\\w+)@(\\w+)\\.com", "\\d+", "[a-z ]+", "x*",
+      "(a)|(b)", "words", "(\\w+)@(\\w+)\\.com" };
+
+  private static final int[] STRATEGIES = { Rule.MATCH_ALL, Rule.MATCH_FIRST,
+      Rule.MATCH_COMPLETE, Rule.MATCH_ALL, Rule.MATCH_ALL, Rule.MATCH_FIRST, Rule.MATCH_COMPLETE };
+
+  /**
+   * test that the rules matched together in one pass record the same matches as the rules matched
+   * one by one
+   * 
+   * @throws Exception
+   */
+  public void testGroupedRules() throws Exception {
+    CAS cas = CasCreationUtils.createCas(UIMAFramework.getResourceSpecifierFactory()
+        .createTypeSystemDescription(), null, new FsIndexDescription[0]);
+    cas.setDocumentText(TEXT);
+    Type annotType = cas.getTypeSystem().getType(CAS.TYPE_NAME_ANNOTATION);
+
+    // one annotation for each part of the text, the annotation index also
+    // contains the document annotation
+    int begin = 0;
+    for (int i = 0; i <= TEXT.length(); i++) {
+      if (i == TEXT.length() || TEXT.charAt(i) == ',' || TEXT.charAt(i) == ';') {
+        cas.getIndexRepository().addFS(cas.createAnnotation(annotType, begin, i));
+        begin = i + 1;
+      }
+    }
+
+    Rule[] rules = new Rule[REGEXES.length];
+    int[] ruleNumbers = new int[REGEXES.length];
+    String[][] ruleLiterals = new String[REGEXES.length][];
+    RulePatternCompiler compiler = new RulePatternCompiler(RulePatternCompiler.JAVA_ENGINE, 0,
+        null);
+    for (int r = 0; r < REGEXES.length; r++) {
+      Rule_impl rule = new Rule_impl(REGEXES[r], STRATEGIES[r], CAS.TYPE_NAME_ANNOTATION, "ID"
+          + r, 1.0f, null, null);
+      rule.typeInit(cas.getTypeSystem());
+      rule.initialize(new Annotation[0], compiler);
+      rules[r] = rule;
+      ruleNumbers[r] = r;
+      ruleLiterals[r] = rule.getRequiredLiterals();
+    }
+
+    MatchTypeSnapshot snapshot = new MatchTypeSnapshot(cas, new RulePrefilter(ruleLiterals));
+    for (int r = 0; r < rules.length; r++) {
+      snapshot.addRule(rules[r]);
+    }
+    int[][][] result = new ConceptMatchTask(rules, ruleNumbers, snapshot, null, UIMAFramework
+        .getLogger()).call();
+
+    AnnotationFS[] annots = snapshot.getAnnotations(annotType);
+    Assert.assertEquals(REGEXES.length, result.length);
+    for (int r = 0; r < rules.length; r++) {
+      ArrayList<String> recorded = new ArrayList<String>();
+      int matchSize = ConceptMatchTask.getMatchSize(rules[r]);
+      for (int m = 0; m < result[r].length; m++) {
+        String value = annots[result[r][m][0]].getCoveredText();
+        for (int s = 1; s < result[r][m].length; s += matchSize) {
+          recorded.add(toString(result[r][m][0], new RecordedMatch(value, result[r][m], s,
+              matchSize / 2 - 1)));
+        }
+      }
+      Assert.assertEquals(REGEXES[r], findMatches(annots, REGEXES[r], STRATEGIES[r]), recorded);
+    }
+  }
+
+  /**
+   * matches the regex on all annotations with a java matcher
+   */
+  private static ArrayList<String> findMatches(AnnotationFS[] annots, String regex,
+      int strategy) {
+    ArrayList<String> matches = new ArrayList<String>();
+    Pattern pattern = Pattern.compile(regex);
+    for (int a = 0; a < annots.length; a++) {
+      String value = annots[a].getCoveredText();
+      Matcher matcher = pattern.matcher(value);
+      if (strategy == Rule.MATCH_ALL) {
+        int pos = 0;
+        while (matcher.find(pos)) {
+          matches.add(toString(a, matcher));
+          if (matcher.end() == pos) {
+            if (pos == value.length()) {
+              break;
+            }
+            ++pos;
+          } else {
+            pos = matcher.end();
+          }
+        }
+      } else if (strategy == Rule.MATCH_COMPLETE) {
+        if (matcher.matches()) {
+          matches.add(toString(a, matcher));
+        }
+      } else if (matcher.find()) {
+        matches.add(toString(a, matcher));
+      }
+    }
+    return matches;
+  }
+
+  private static String toString(int annot, MatchResult match) {
+    StringBuffer buffer = new StringBuffer();
+    buffer.append(annot);
+    for (int g = 0; g <= match.groupCount(); g++) {
+      buffer.append(' ').append(match.start(g)).append('-').append(match.end(g)).append('=')
+          .append(match.group(g));
+    }
+    return buffer.toString();
+  }
+}
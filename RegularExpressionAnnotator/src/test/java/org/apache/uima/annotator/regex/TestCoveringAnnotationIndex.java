@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.annotator.regex.impl.CoveringAnnotationIndex;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.util.CasCreationUtils;
+
+/**
+ * Tests the covering annotation lookup for rule exceptions.
+ */
+public class TestCoveringAnnotationIndex extends TestCase {
+
+  /**
+   * test that the index finds the same covering annotations as a lookup with the CAS annotation
+   * index
+   *
+   * @throws Exception
+   */
+  public void testFindCover() throws Exception {
+    CAS cas = CasCreationUtils.createCas(UIMAFramework.getResourceSpecifierFactory()
+        .createTypeSystemDescription(), null, new FsIndexDescription[0]);
+    StringBuffer text = new StringBuffer();
+    for (int i = 0; i < 200; i++) {
+      text.append(' ');
+    }
+    cas.setDocumentText(text.toString());
+    Type coverType = cas.getTypeSystem().getType(CAS.TYPE_NAME_ANNOTATION);
+
+    // the annotation index also contains the document annotation
+    Random random = new Random(42);
+    for (int i = 0; i < 60; i++) {
+      int begin = random.nextInt(200);
+      int end = begin + random.nextInt(Math.min(40, 200 - begin) + 1);
+      cas.getIndexRepository().addFS(cas.createAnnotation(coverType, begin, end));
+    }
+
+    CoveringAnnotationIndex index = new CoveringAnnotationIndex(cas, coverType);
+    for (int i = 0; i < 500; i++) {
+      // mostly increasing positions, with some positions going back
+      int begin = (i % 50 == 49) ? random.nextInt(200) : (i * 2) % 200;
+      int end = begin + random.nextInt(Math.min(10, 200 - begin) + 1);
+      AnnotationFS annot = cas.createAnnotation(coverType, begin, end);
+      Assert.assertEquals(findCoverFS(cas, annot, coverType), index.findCover(annot));
+    }
+  }
+
+  /**
+   * reference lookup with the CAS annotation index
+   */
+  private static AnnotationFS findCoverFS(CAS cas, AnnotationFS annot, Type coverType) {
+    FSIterator<?> iterator = cas.getAnnotationIndex(coverType).iterator();
+    iterator.moveTo(cas.createAnnotation(coverType, annot.getBegin(), cas.getDocumentText()
+        .length()));
+    if (iterator.isValid()) {
+      AnnotationFS coverFs = (AnnotationFS) iterator.get();
+      if (coverFs.getBegin() <= annot.getBegin() && coverFs.getEnd() >= annot.getEnd()) {
+        return coverFs;
+      }
+      iterator.moveToPrevious();
+      if (iterator.isValid()) {
+        coverFs = (AnnotationFS) iterator.get();
+        if (coverFs.getBegin() <= annot.getBegin() && coverFs.getEnd() >= annot.getEnd()) {
+          return coverFs;
+        }
+      }
+    }
+    iterator.moveToLast();
+    if (iterator.isValid()) {
+      AnnotationFS coverFs = (AnnotationFS) iterator.get();
+      if (coverFs.getBegin() <= annot.getBegin() && coverFs.getEnd() >= annot.getEnd()) {
+        return coverFs;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.annotator.regex.impl.FeatureValueTemplate;
+import org.apache.uima.annotator.regex.impl.RegexAnnotatorProcessException;
+import org.apache.uima.annotator.regex.impl.RulePatternCompiler;
+import org.apache.uima.annotator.regex.impl.Rule_impl;
+
+/**
+ * Tests the compiled feature values.
+ */
+public class TestFeatureValueTemplate extends TestCase {
+
+  /**
+   * test match group references, escaped characters and unknown match group names
+   *
+   * @throws Exception
+   */
+  public void testFeatureValues() throws Exception {
+    Rule_impl rule = new Rule_impl("\\m{first}(\\w+) \\m{second}(\\w+)( x)?", Rule.MATCH_ALL,
+        "uima.tcas.DocumentAnnotation", "ID1", 1.0f, null, null);
+    rule.initialize(new Annotation[0], new RulePatternCompiler(RulePatternCompiler.JAVA_ENGINE, 0,
+        null));
+    RuleMatcher matcher = rule.getRegexPattern().matcher("hello world");
+    Assert.assertTrue(matcher.find(0));
+
+    StringBuilder buffer = new StringBuilder();
+    Assert.assertEquals("constant", getValue("constant", rule, matcher, buffer));
+    Assert.assertEquals("world, hello", getValue("$2, $1", rule, matcher, buffer));
+    Assert.assertEquals("<hello world>", getValue("<$0>", rule, matcher, buffer));
+    Assert.assertEquals("world-hello", getValue("${Second}-${first}", rule, matcher, buffer));
+    Assert.assertEquals("$1 \\ hello", getValue("\\$1 \\\\ $1", rule, matcher, buffer));
+    Assert.assertEquals("[]", getValue("[$3]", rule, matcher, buffer));
+    Assert.assertEquals("a", getValue("a$", rule, matcher, buffer));
+
+    try {
+      getValue("${third}", rule, matcher, buffer);
+      Assert.fail("unknown match group name");
+    } catch (RegexAnnotatorProcessException ex) {
+      Assert.assertTrue(ex.getMessage().indexOf("third") > -1);
+    }
+  }
+
+  private static String getValue(String featureValue, Rule rule, RuleMatcher matcher,
+      StringBuilder buffer) throws Exception {
+    return FeatureValueTemplate.compile(featureValue, rule).getValue(matcher, buffer);
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.annotator.regex.impl.JavaRulePattern;
+import org.apache.uima.annotator.regex.impl.LinearRegexCompiler;
+import org.apache.uima.annotator.regex.impl.RegExAnnotator;
+import org.apache.uima.annotator.regex.impl.RegexMatchTimeoutException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.resource.metadata.ConfigurationParameter;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests the linear time regex engine.
+ */
+public class TestLinearRegexEngine extends TestCase {
+
+  private static final String[] REGEXES = new String[] { "(?<year>\\d{4})-(\\d\\d)",
+      "(\\w+)@(\\w+)\\.(com|org)", "\\Qa.b\\E+c", "[]a]+", "[a-z&&[^aeiou]]+",
+      "\\x41\\u0042\\0103\\cA?", "\\p{Lu}\\p{javaLowerCase}*", "(a|aa)*b", "\\bfoo\\B",
+      "x{2,3}?y", "\\Aab\\z", "a$|^b", "(?:a|bc)+(c)?", "(a*)?(b+?)(c{0,2})", ".\\s\\S",
+      "\\p{Cs}", "[^a-z]b?", "\\W+|.$" };
+
+  private static final String[] INPUTS = new String[] { "2024-10 and 1999-01",
+      "john@example.com x@y.org", "xa.bbbc a.b.bc", "]]a[", "bcdxyz", "ABC\u0001",
+      "Hello World", "aaab", "foobar foo", "xxxy xxxxy", "ab", "ba\n", "a\r\nb", "abcc bbb",
+      "\u00e9\u00e9 \u00ff", "a\ud83d\ude00b \ud835\udc00\ud835\udc00", "\ude00a\ud83d b\ud83d" };
+
+  /**
+   * test that the linear engine finds the same matches and match groups as java.util.regex
+   * 
+   * @throws Exception
+   */
+  public void testSameMatches() throws Exception {
+    for (int r = 0; r < REGEXES.length; r++) {
+      Pattern pattern = Pattern.compile(REGEXES[r]);
+      RulePattern javaPattern = new JavaRulePattern(pattern, 0);
+      LinearRegexCompiler compiler = new LinearRegexCompiler(REGEXES[r]);
+      RulePattern linearPattern = compiler.compile(pattern);
+      Assert.assertNotNull(REGEXES[r], linearPattern);
+
+      for (int i = 0; i < INPUTS.length; i++) {
+        Assert.assertEquals(REGEXES[r] + " on " + INPUTS[i], getMatches(javaPattern, INPUTS[i]),
+            getMatches(linearPattern, INPUTS[i]));
+      }
+    }
+  }
+
+  /**
+   * test that regular expressions that need backtracking are not compiled
+   * 
+   * @throws Exception
+   */
+  public void testUnsupportedFeatures() throws Exception {
+    assertUnsupported("(a)\\1", "back references");
+    assertUnsupported("(?=a)a", "lookaround");
+    assertUnsupported("(?<!a)b", "lookaround");
+    assertUnsupported("(?>a|ab)c", "atomic groups");
+    assertUnsupported("a++", "possessive quantifiers");
+    assertUnsupported("(?i)abc", "inline flags");
+    assertUnsupported("(a?)*", "repeated expressions that can match the empty string");
+    assertUnsupported("((a)b)+", "repeated groups that contain capturing groups");
+  }
+
+  /**
+   * test that a pathological regular expression is matched in linear time and that the
+   * java.util.regex match is stopped by the time budget
+   * 
+   * @throws Exception
+   */
+  public void testPathologicalRegex() throws Exception {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      input.append('x');
+    }
+    Pattern pattern = Pattern.compile("(?:x+x+)+y");
+    RulePattern linearPattern = new LinearRegexCompiler(pattern.pattern()).compile(pattern);
+    Assert.assertFalse(linearPattern.matcher(input.toString()).find(0));
+
+    // the budget is already exceeded at the first time check
+    RulePattern javaPattern = new JavaRulePattern(pattern, 1);
+    try {
+      javaPattern.matcher(input.toString()).find(0);
+      Assert.fail("expected RegexMatchTimeoutException");
+    } catch (RegexMatchTimeoutException ex) {
+      // expected
+    }
+  }
+
+  /**
+   * test that the annotator creates the same annotations with both engines
+   * 
+   * @throws Exception
+   */
+  public void testAnnotator() throws Exception {
+    String text = "Mail john.doe@example.com or JANE@Example.org, ISBN 3-540-43256-9 "
+        + "or 978-3-16-148410-0, cards 4111 1111 1111 1111 and 5500-0000-0000-0004.";
+    ArrayList<String> javaAnnots = process("performanceTest/RegExAnnotPerf.xml", text, "java");
+    ArrayList<String> linearAnnots = process("performanceTest/RegExAnnotPerf.xml", text, "linear");
+    Assert.assertTrue(javaAnnots.size() > 1);
+    Assert.assertEquals(javaAnnots, linearAnnots);
+  }
+
+  private static void assertUnsupported(String regex, String feature) {
+    LinearRegexCompiler compiler = new LinearRegexCompiler(regex);
+    Assert.assertNull(regex, compiler.compile(Pattern.compile(regex)));
+    Assert.assertEquals(regex, feature, compiler.getUnsupportedFeature());
+  }
+
+  /**
+   * returns all matches with their match groups, the match found from each position and the
+   * complete match
+   */
+  private static String getMatches(RulePattern pattern, String input) {
+    StringBuilder result = new StringBuilder();
+    RuleMatcher matcher = pattern.matcher(input);
+    for (int pos = 0; pos <= input.length(); pos++) {
+      if (matcher.find(pos)) {
+        appendMatch(matcher, result);
+      }
+      result.append('|');
+    }
+    if (matcher.matches()) {
+      appendMatch(matcher, result);
+    }
+    return result.toString();
+  }
+
+  private static void appendMatch(RuleMatcher matcher, StringBuilder result) {
+    for (int g = 0; g <= matcher.groupCount(); g++) {
+      result.append(matcher.start(g)).append(',').append(matcher.end(g)).append(',').append(
+          matcher.group(g)).append(';');
+    }
+  }
+
+  private static ArrayList<String> process(String descriptor, String text, String engine)
+      throws Exception {
+    AnalysisEngineDescription desc = (AnalysisEngineDescription) UIMAFramework.getXMLParser()
+        .parseResourceSpecifier(new XMLInputSource(JUnitExtension.getFile(descriptor)));
+    ConfigurationParameter engineParam = UIMAFramework.getResourceSpecifierFactory()
+        .createConfigurationParameter();
+    engineParam.setName(RegExAnnotator.REGEX_ENGINE);
+    engineParam.setType(ConfigurationParameter.TYPE_STRING);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+        .addConfigurationParameter(engineParam);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.REGEX_ENGINE, engine);
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+    try {
+      CAS cas = ae.newCAS();
+      cas.setDocumentText(text);
+      cas.setDocumentLanguage("en");
+      ae.process(cas);
+
+      ArrayList<String> annots = new ArrayList<String>();
+      FSIterator<?> it = cas.getAnnotationIndex().iterator();
+      while (it.hasNext()) {
+        annots.add(it.next().toString());
+      }
+      return annots;
+    } finally {
+      ae.destroy();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.annotator.regex.impl.RegExAnnotator;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.resource.metadata.ConfigurationParameter;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests that the parallel concept processing creates the same annotations as
+ * the sequential processing.
+ */
+public class TestParallelConcepts extends TestCase {
+
+  /**
+   * test independent concepts with several rules
+   *
+   * @throws Exception
+   */
+  public void testIndependentConcepts() throws Exception {
+    String text = "Mail john.doe@example.com or JANE@Example.org, ISBN 3-540-43256-9 "
+        + "or 978-3-16-148410-0, cards 4111 1111 1111 1111 and 5500-0000-0000-0004.";
+    ArrayList<String> annots = compare("performanceTest/RegExAnnotPerf.xml", text);
+    Assert.assertTrue(annots.size() > 1);
+  }
+
+  /**
+   * test concepts that match on annotations created by preceding concepts
+   *
+   * @throws Exception
+   */
+  public void testDependentConcepts() throws Exception {
+    compare("filters/RegExAnnotFilterFeature.xml", "JustCreateAnAnnotation");
+    compare("filters/RegExAnnotFilterFeature.xml", "AdvancedFilterRegex");
+  }
+
+  /**
+   * test concepts with rule exceptions
+   *
+   * @throws Exception
+   */
+  public void testRuleExceptions() throws Exception {
+    compare("ruleExceptions/RegExAnnotExceptions.xml",
+        "this is my text with a simpleMatch and an exception 12-wbt-test");
+    compare("ruleExceptions/RegExAnnotExceptions.xml",
+        "this is my text with a simpleMatch and no exception");
+  }
+
+  /**
+   * processes the text sequentially and in parallel and checks that the
+   * annotations are the same
+   */
+  private static ArrayList<String> compare(String descriptor, String text) throws Exception {
+    ArrayList<String> sequential = process(descriptor, text, 0);
+    ArrayList<String> parallel = process(descriptor, text, 4);
+    Assert.assertEquals(sequential, parallel);
+    return sequential;
+  }
+
+  private static ArrayList<String> process(String descriptor, String text, int threads)
+      throws Exception {
+    AnalysisEngineDescription desc = (AnalysisEngineDescription) UIMAFramework.getXMLParser()
+        .parseResourceSpecifier(new XMLInputSource(JUnitExtension.getFile(descriptor)));
+    ConfigurationParameter threadsParam = UIMAFramework.getResourceSpecifierFactory()
+        .createConfigurationParameter();
+    threadsParam.setName(RegExAnnotator.PARALLEL_THREADS);
+    threadsParam.setType(ConfigurationParameter.TYPE_INTEGER);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+        .addConfigurationParameter(threadsParam);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.PARALLEL_THREADS, Integer.valueOf(threads));
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+    try {
+      CAS cas = ae.newCAS();
+      cas.setDocumentText(text);
+      cas.setDocumentLanguage("en");
+      ae.process(cas);
+
+      ArrayList<String> annots = new ArrayList<String>();
+      FSIterator<?> it = cas.getAnnotationIndex().iterator();
+      while (it.hasNext()) {
+        annots.add(it.next().toString());
+      }
+      return annots;
+    } finally {
+      ae.destroy();
+    }
+  }
+}
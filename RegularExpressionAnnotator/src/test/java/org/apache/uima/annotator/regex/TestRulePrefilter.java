@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.annotator.regex.impl.RegexLiteralExtractor;
+import org.apache.uima.annotator.regex.impl.RulePrefilter;
+
+/**
+ * Tests the required literal extraction and the rule prefilter.
+ */
+public class TestRulePrefilter extends TestCase {
+
+  private static final String[] REGEXES = { "abc", "(Mr|Mrs)\\.\\s+[A-Z]\\w+", "ab?c+d",
+      "x*yz{2}", "[a-z]+@[a-z]+\\.com", "\\d{4}-\\d{2}", "(?i)abc", "a(?=bc)", "foo|\\w+",
+      "\\Qa.b\\E+c", "(?:hello|world)!?", "[]x]yy", "\\0101BC", "(ab)\\1cd", "", "^$",
+      "(?<name>abc)d" };
+
+  private static final String[] TEXTS = { "abc", "ABC", "Mr. Smith", "Mrs.  Jones", "acd",
+      "abccd", "yzz", "xxyzz", "john@doe.com", "2009-10", "a.bbc", "hello", "world!", "]yy",
+      "xyy", "ABC", "AABC", "ababcd", "", "abcd", "foo bar" };
+
+  /**
+   * tests the extracted required literals
+   */
+  public void testRequiredLiterals() {
+    assertLiterals("abc", new String[] { "abc" });
+    assertLiterals("(Mr|Mrs)\\.\\s+[A-Z]\\w+", new String[] { "Mr", "Mrs" });
+    assertLiterals("ab?c+d", new String[] { "cd" });
+    assertLiterals("abx?cd", new String[] { "ab" });
+    assertLiterals("x*yz{2}", new String[] { "yz" });
+    assertLiterals("[a-z]+@[a-z]+\\.com", new String[] { ".com" });
+    assertLiterals("(?:hello|world)!?", new String[] { "hello", "world" });
+    assertLiterals("\\Qa.b\\E+c", new String[] { "a.b" });
+    assertLiterals("(?<name>abc)d", new String[] { "abc" });
+    assertLiterals("\\d{4}-\\d{2}", new String[] { "-" });
+    assertLiterals("a(?=bc)", new String[] { "a" });
+
+    // regular expressions without required literals
+    assertLiterals("(?i)abc", null);
+    assertLiterals("(?=bc)", null);
+    assertLiterals("foo|\\w+", null);
+    assertLiterals("(abc)?", null);
+    assertLiterals("", null);
+  }
+
+  /**
+   * tests that every text with a match of a regular expression contains one
+   * of its required literals
+   */
+  public void testRequiredLiteralsAreContained() {
+    for (int r = 0; r < REGEXES.length; r++) {
+      String[] literals = RegexLiteralExtractor.getRequiredLiterals(REGEXES[r]);
+      if (literals == null) {
+        continue;
+      }
+      Pattern pattern = Pattern.compile(REGEXES[r]);
+      for (int t = 0; t < TEXTS.length; t++) {
+        if (pattern.matcher(TEXTS[t]).find()) {
+          boolean contained = false;
+          for (int l = 0; l < literals.length; l++) {
+            contained |= TEXTS[t].indexOf(literals[l]) >= 0;
+          }
+          Assert.assertTrue(REGEXES[r] + " matches " + TEXTS[t], contained);
+        }
+      }
+    }
+  }
+
+  /**
+   * tests that the prefilter selects exactly the rules with a contained
+   * literal and the rules without literals
+   */
+  public void testCandidateRules() {
+    String[][] ruleLiterals = new String[REGEXES.length][];
+    for (int r = 0; r < REGEXES.length; r++) {
+      ruleLiterals[r] = RegexLiteralExtractor.getRequiredLiterals(REGEXES[r]);
+    }
+    RulePrefilter prefilter = new RulePrefilter(ruleLiterals);
+    for (int t = 0; t < TEXTS.length; t++) {
+      BitSet candidates = prefilter.getCandidateRules(TEXTS[t]);
+      for (int r = 0; r < REGEXES.length; r++) {
+        boolean expected = ruleLiterals[r] == null;
+        for (int l = 0; !expected && l < ruleLiterals[r].length; l++) {
+          expected = TEXTS[t].indexOf(ruleLiterals[r][l]) >= 0;
+        }
+        Assert.assertEquals(REGEXES[r] + " on " + TEXTS[t], expected, candidates.get(r));
+        if (!expected) {
+          Assert.assertFalse(Pattern.compile(REGEXES[r]).matcher(TEXTS[t]).find());
+        }
+      }
+    }
+
+    // overlapping literals are found with the failure links
+    prefilter = new RulePrefilter(new String[][] { { "abcd" }, { "bc" }, { "c" }, { "bcx" } });
+    BitSet candidates = prefilter.getCandidateRules("xabcx");
+    Assert.assertFalse(candidates.get(0));
+    Assert.assertTrue(candidates.get(1));
+    Assert.assertTrue(candidates.get(2));
+    Assert.assertTrue(candidates.get(3));
+  }
+
+  private static void assertLiterals(String regex, String[] expected) {
+    String[] literals = RegexLiteralExtractor.getRequiredLiterals(regex);
+    if (expected == null) {
+      Assert.assertNull(regex, literals);
+    } else {
+      Assert.assertNotNull(regex, literals);
+      Assert.assertEquals(regex, Arrays.asList(expected), Arrays.asList(literals));
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.uima.annotator.regex;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.annotator.regex.impl.RegExAnnotator;
+import org.apache.uima.analysis_engine.metadata.FixedFlow;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.ConfigurationParameter;
+import org.apache.uima.test.junit_extension.JUnitExtension;
+import org.apache.uima.util.FileUtils;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * Tests the rule statistics.
+ */
+public class TestRuleStatistics extends TestCase {
+
+  private static final String TEXT = "Mail john.doe@example.com or JANE@Example.org, "
+      + "ISBN 3-540-43256-9 or 978-3-16-148410-0, "
+      + "cards 4111 1111 1111 1111 and 5500-0000-0000-0004.";
+
+  /**
+   * test the statistics file written on collection process complete, the statistics of the
+   * sequential and the parallel processing must be the same except for the match time
+   * 
+   * @throws Exception
+   */
+  public void testStatisticsFile() throws Exception {
+    String[] sequential = writeStatistics(0);
+    String[] parallel = writeStatistics(4);
+    Assert.assertEquals(sequential.length, parallel.length);
+    Assert.assertEquals("concept,rule,tested,filtered,prefiltered,matches,exceptionHits,"
+        + "matchTimeNanos", sequential[0]);
+
+    long matches = 0;
+    for (int i = 1; i < sequential.length; i++) {
+      String[] values = sequential[i].split(",");
+      Assert.assertEquals(8, values.length);
+      long tested = Long.parseLong(values[2]);
+      long filtered = Long.parseLong(values[3]);
+      long prefiltered = Long.parseLong(values[4]);
+      Assert.assertTrue(sequential[i], tested >= filtered + prefiltered);
+      Assert.assertTrue(sequential[i], Long.parseLong(values[7]) >= 0);
+      matches += Long.parseLong(values[5]);
+
+      // compare the values without the match time
+      Assert.assertEquals(sequential[i].substring(0, sequential[i].lastIndexOf(',')), parallel[i]
+          .substring(0, parallel[i].lastIndexOf(',')));
+    }
+    Assert.assertTrue(matches > 0);
+  }
+
+  /**
+   * test that replicated annotator instances with the same context name record into the same
+   * statistics, which are written to the configured file
+   * 
+   * @throws Exception
+   */
+  public void testStatisticsFileOfReplicas() throws Exception {
+    long matches = countMatches(writeStatistics(0));
+
+    File dir = createTempDir();
+    File file = new File(dir, "ruleStatistics.csv");
+    AnalysisEngineDescription desc = createDescription(0);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.RULE_STATISTICS_FILE, file.getAbsolutePath());
+    AnalysisEngine ae1 = UIMAFramework.produceAnalysisEngine(desc);
+    AnalysisEngine ae2 = UIMAFramework.produceAnalysisEngine(desc);
+    try {
+      process(ae1);
+      process(ae2);
+      ae1.collectionProcessComplete();
+      ae2.collectionProcessComplete();
+    } finally {
+      ae1.destroy();
+      ae2.destroy();
+    }
+
+    try {
+      Assert.assertEquals(1, dir.listFiles().length);
+      Assert.assertEquals(2 * matches, countMatches(FileUtils.file2String(file, "UTF-8").split(
+          "\n")));
+    } finally {
+      file.delete();
+      dir.delete();
+    }
+  }
+
+  /**
+   * test that annotators with different context names that are configured with the same
+   * statistics file write their statistics to files named after their context
+   * 
+   * @throws Exception
+   */
+  public void testStatisticsFilePerContext() throws Exception {
+    File dir = createTempDir();
+    AnalysisEngineDescription desc = createDescription(0);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.RULE_STATISTICS_FILE, new File(dir, "ruleStatistics.csv").getAbsolutePath());
+    AnalysisEngineDescription aggregate = UIMAFramework.getResourceSpecifierFactory()
+        .createAnalysisEngineDescription();
+    aggregate.setPrimitive(false);
+    aggregate.getDelegateAnalysisEngineSpecifiersWithImports().put("first", desc);
+    aggregate.getDelegateAnalysisEngineSpecifiersWithImports().put("second", desc);
+    FixedFlow flow = UIMAFramework.getResourceSpecifierFactory().createFixedFlow();
+    flow.setFixedFlow(new String[] { "first", "second" });
+    aggregate.getAnalysisEngineMetaData().setFlowConstraints(flow);
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(aggregate);
+    try {
+      process(ae);
+      ae.collectionProcessComplete();
+    } finally {
+      ae.destroy();
+    }
+
+    File first = new File(dir, "ruleStatistics-first.csv");
+    File second = new File(dir, "ruleStatistics-second.csv");
+    try {
+      Assert.assertEquals(2, dir.listFiles().length);
+      Assert.assertTrue(countMatches(FileUtils.file2String(first, "UTF-8").split("\n")) > 0);
+      Assert.assertTrue(countMatches(FileUtils.file2String(second, "UTF-8").split("\n")) > 0);
+    } finally {
+      first.delete();
+      second.delete();
+      dir.delete();
+    }
+  }
+
+  /**
+   * test the registration of the statistics MBean
+   * 
+   * @throws Exception
+   */
+  public void testMBean() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName query = new ObjectName("org.apache.uima.annotator.regex:type=RuleStatistics,*");
+    int registered = server.queryNames(query, null).size();
+
+    AnalysisEngineDescription desc = createDescription(0);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.RULE_STATISTICS, Boolean.TRUE);
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+    try {
+      Set<ObjectName> names = server.queryNames(query, null);
+      Assert.assertEquals(registered + 1, names.size());
+      process(ae);
+
+      ObjectName name = null;
+      for (ObjectName current : names) {
+        String[] lines = (String[]) server.getAttribute(current, "RuleStatistics");
+        if (lines.length > 1 && !lines[1].endsWith(",0,0,0,0,0,0")) {
+          name = current;
+        }
+      }
+      Assert.assertNotNull(name);
+      int ruleCount = ((Integer) server.getAttribute(name, "RuleCount")).intValue();
+      String[] lines = (String[]) server.getAttribute(name, "RuleStatistics");
+      Assert.assertEquals(ruleCount + 1, lines.length);
+
+      server.invoke(name, "reset", null, null);
+      lines = (String[]) server.getAttribute(name, "ConceptStatistics");
+      for (int i = 1; i < lines.length; i++) {
+        Assert.assertTrue(lines[i], lines[i].endsWith(",0,0,0,0,0,0"));
+      }
+    } finally {
+      ae.destroy();
+    }
+    Assert.assertEquals(registered, server.queryNames(query, null).size());
+  }
+
+  private static String[] writeStatistics(int threads) throws Exception {
+    File dir = createTempDir();
+    AnalysisEngineDescription desc = createDescription(threads);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.RULE_STATISTICS_FILE, new File(dir, "ruleStatistics.csv").getAbsolutePath());
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+    try {
+      process(ae);
+      ae.collectionProcessComplete();
+    } finally {
+      ae.destroy();
+    }
+    File file = new File(dir, "ruleStatistics.csv");
+    Assert.assertEquals(1, dir.listFiles().length);
+    String[] lines = FileUtils.file2String(file, "UTF-8").split("\n");
+    file.delete();
+    dir.delete();
+    return lines;
+  }
+
+  private static long countMatches(String[] lines) {
+    long matches = 0;
+    for (int i = 1; i < lines.length; i++) {
+      matches += Long.parseLong(lines[i].split(",")[5]);
+    }
+    return matches;
+  }
+
+  private static File createTempDir() throws Exception {
+    File dir = File.createTempFile("ruleStatistics", "");
+    dir.delete();
+    Assert.assertTrue(dir.mkdir());
+    return dir;
+  }
+
+  private static void process(AnalysisEngine ae) throws Exception {
+    CAS cas = ae.newCAS();
+    cas.setDocumentText(TEXT);
+    cas.setDocumentLanguage("en");
+    ae.process(cas);
+  }
+
+  private static AnalysisEngineDescription createDescription(int threads) throws Exception {
+    AnalysisEngineDescription desc = (AnalysisEngineDescription) UIMAFramework.getXMLParser()
+        .parseResourceSpecifier(
+            new XMLInputSource(JUnitExtension.getFile("performanceTest/RegExAnnotPerf.xml")));
+    addParameter(desc, RegExAnnotator.PARALLEL_THREADS, ConfigurationParameter.TYPE_INTEGER);
+    addParameter(desc, RegExAnnotator.RULE_STATISTICS, ConfigurationParameter.TYPE_BOOLEAN);
+    addParameter(desc, RegExAnnotator.RULE_STATISTICS_FILE, ConfigurationParameter.TYPE_STRING);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(
+        RegExAnnotator.PARALLEL_THREADS, Integer.valueOf(threads));
+    return desc;
+  }
+
+  private static void addParameter(AnalysisEngineDescription desc, String name, String type) {
+    ConfigurationParameter param = UIMAFramework.getResourceSpecifierFactory()
+        .createConfigurationParameter();
+    param.setName(name);
+    param.setType(type);
+    desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+        .addConfigurationParameter(param);
+  }
+}